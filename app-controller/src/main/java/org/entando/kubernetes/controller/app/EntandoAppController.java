@@ -18,6 +18,7 @@ package org.entando.kubernetes.controller.app;
 
 import static java.lang.String.format;
 import static org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase.lookupProperty;
+import static org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase.withInvocationProperties;
 import static org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig.getPodReadinessTimeoutSeconds;
 
 import io.fabric8.kubernetes.api.model.LimitRange;
@@ -38,6 +39,7 @@ import java.util.logging.Logger;
 import javax.inject.Inject;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvider;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvisioningResult;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.command.DeploymentProcessor;
 import org.entando.kubernetes.controller.spi.common.EntandoControllerException;
@@ -73,7 +75,6 @@ public class EntandoAppController implements Runnable {
     private final CapabilityProvider capabilityProvider;
     private final DeploymentProcessor deploymentProcessor;
     private final AtomicReference<EntandoApp> entandoApp = new AtomicReference<>();
-    private final ExecutorService executor = mkExecutorService();
 
     private ExecutorService mkExecutorService() {
         String dpenv = System.getenv("ENTANDO_DEPLOYMENT_PARALLELISM");
@@ -96,25 +97,29 @@ public class EntandoAppController implements Runnable {
         this.simpleK8SClient = new DefaultSimpleK8SClient(k8sClient);
     }
 
-    //There is no point re-interrupting the thread when the VM is about to exit.
-    @SuppressWarnings("java:S2142")
     @Override
     public void run() {
+        ControllerWorker.runOnceOrAsWorker(this::reconcile);
+    }
+
+    private void reconcile() {
         this.entandoApp.set(
                 (EntandoApp) k8sClientForControllers.resolveCustomResourceToProcess(Collections.singletonList(EntandoApp.class)));
+        //A worker reconciles many resources, so each reconcile needs its own executor
+        final ExecutorService executor = mkExecutorService();
         try {
             entandoApp.set(k8sClientForControllers.deploymentStarted(entandoApp.get()));
             this.createDefaultLimitRange();
             final DatabaseConnectionInfo dbConnectionInfo = provideDatabaseIfRequired();
             final SsoConnectionInfo ssoConnectionInfo = provideSso();
             final int timeoutForDbAware = calculateDbAwareTimeout();
-            queueDeployable(new EntandoAppServerDeployable(entandoApp.get(), ssoConnectionInfo, dbConnectionInfo,
+            queueDeployable(executor, new EntandoAppServerDeployable(entandoApp.get(), ssoConnectionInfo, dbConnectionInfo,
                     simpleK8SClient.secrets()), timeoutForDbAware);
             final int timeoutForNonDbAware = EntandoOperatorSpiConfig.getPodReadinessTimeoutSeconds();
-            queueDeployable(new AppBuilderDeployable(entandoApp.get()), timeoutForNonDbAware);
+            queueDeployable(executor, new AppBuilderDeployable(entandoApp.get()), timeoutForNonDbAware);
             EntandoK8SService k8sService = new EntandoK8SService(
                     k8sClientForControllers.loadControllerService(EntandoAppController.ENTANDO_K8S_SERVICE));
-            queueDeployable(
+            queueDeployable(executor,
                     new ComponentManagerDeployable(entandoApp.get(), ssoConnectionInfo, k8sService, dbConnectionInfo,
                             simpleK8SClient.secrets(), readEntandoAppCustomConfig()),
                     timeoutForDbAware);
@@ -125,8 +130,13 @@ public class EntandoAppController implements Runnable {
                         format("Could not complete deployment of EntandoApp in %s seconds", totalTimeout));
             }
             entandoApp.updateAndGet(k8sClientForControllers::deploymentEnded);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            attachControllerFailure(e, EntandoAppController.class, NameUtils.MAIN_QUALIFIER);
         } catch (Exception e) {
             attachControllerFailure(e, EntandoAppController.class, NameUtils.MAIN_QUALIFIER);
+        } finally {
+            executor.shutdownNow();
         }
         entandoApp.get().getStatus().findFailedServerStatus().flatMap(ServerStatus::getEntandoControllerFailure).ifPresent(s -> {
             throw new CommandLine.ExecutionException(new CommandLine(this), s.getDetailMessage());
@@ -148,15 +158,16 @@ public class EntandoAppController implements Runnable {
         return timeoutForDbAware;
     }
 
-    private void queueDeployable(IngressingDeployable<EntandoAppDeploymentResult> deployable, long timeout) {
-        executor.submit(() -> {
+    private void queueDeployable(ExecutorService executor, IngressingDeployable<EntandoAppDeploymentResult> deployable, long timeout) {
+        //The pool threads do not see the properties of an in-process invocation unless they are passed on explicitly
+        executor.submit(withInvocationProperties(() -> {
             try {
                 EntandoAppDeploymentResult result = deploymentProcessor.processDeployable(deployable, (int) timeout);
                 entandoApp.getAndUpdate(ea -> k8sClientForControllers.updateStatus(ea, result.getStatus()));
             } catch (Exception e) {
                 attachControllerFailure(e, deployable.getClass(), deployable.getQualifier().orElse(NameUtils.MAIN_QUALIFIER));
             }
-        });
+        }));
     }
 
     private void attachControllerFailure(Exception e, Class<?> theClass, String qualifier) {
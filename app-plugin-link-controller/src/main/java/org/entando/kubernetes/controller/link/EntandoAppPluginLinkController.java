@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.concurrent.TimeoutException;
 import javax.inject.Inject;
 import org.entando.kubernetes.controller.link.support.DeploymentLinker;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
 import org.entando.kubernetes.controller.spi.common.EntandoControllerException;
@@ -45,6 +46,10 @@ public class EntandoAppPluginLinkController implements Runnable {
 
     @Override
     public void run() {
+        ControllerWorker.runOnceOrAsWorker(this::reconcile);
+    }
+
+    private void reconcile() {
         EntandoAppPluginLink appPluginLink = findOriginatingResource();
         try {
             appPluginLink = this.k8sClient.deploymentStarted(appPluginLink);
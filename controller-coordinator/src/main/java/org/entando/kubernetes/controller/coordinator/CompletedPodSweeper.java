@@ -0,0 +1,193 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Counter;
+import org.entando.kubernetes.controller.support.common.EntandoOperatorConfig;
+
+/**
+ * Removes completed controller pods in the background. Pods that complete are picked up from the controller pod watch of the
+ * ControllerPodAdmission, and deleted in batches of limited size on a dedicated thread, so that neither the watch threads nor the
+ * reconcile threads ever wait for pods to be deleted. The most recent failed pods of each resource are kept so that their logs can
+ * still be inspected. Only the name, the creationTimestamp and the resource of each completed pod are retained.
+ */
+public class CompletedPodSweeper implements ControllerPodListener {
+
+    private static final Logger LOGGER = Logger.getLogger(CompletedPodSweeper.class.getName());
+    private final SimpleKubernetesClient client;
+    private final int batchSize;
+    private final int failedPodsToKeep;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, CompletedPod> succeededPods = new LinkedHashMap<>();
+    private final Map<String, Map<String, CompletedPod>> failedPodsByResource = new HashMap<>();
+    private final Counter deleted = OperatorMetrics.getInstance()
+            .counter("entando_controller_pods_swept_total", "Completed controller pods deleted by the sweeper");
+
+    public CompletedPodSweeper(SimpleKubernetesClient client) {
+        this(client, ControllerCoordinatorConfig.getPodSweepBatchSize(), ControllerCoordinatorConfig.getFailedControllerPodsToKeep(),
+                ControllerCoordinatorConfig.getPodSweepIntervalMillis());
+    }
+
+    /**
+     * Deletes at most batchSize pods every intervalMillis.
+     */
+    public CompletedPodSweeper(SimpleKubernetesClient client, int batchSize, int failedPodsToKeep, long intervalMillis) {
+        this.client = client;
+        this.batchSize = batchSize;
+        this.failedPodsToKeep = failedPodsToKeep;
+        scheduler.scheduleWithFixedDelay(this::sweep, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized int getPendingCount() {
+        return succeededPods.size() + (int) failedPodsByResource.values().stream()
+                .mapToLong(pods -> Math.max(0, pods.size() - failedPodsToKeep))
+                .sum();
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void podChanged(Action action, Pod pod) {
+        if (action == Action.DELETED || pod.getMetadata().getDeletionTimestamp() != null) {
+            forget(new CompletedPod(pod));
+        } else if (action == Action.ADDED || action == Action.MODIFIED) {
+            track(pod);
+        }
+    }
+
+    @Override
+    public synchronized void podsRelisted(List<Pod> pods) {
+        succeededPods.clear();
+        failedPodsByResource.clear();
+        pods.stream().filter(pod -> pod.getMetadata().getDeletionTimestamp() == null).forEach(this::track);
+    }
+
+    void sweep() {
+        if (!EntandoOperatorConfig.garbageCollectSuccessfullyCompletedPods()) {
+            return;
+        }
+        final List<CompletedPod> batch = nextBatch();
+        if (!batch.isEmpty()) {
+            try {
+                client.deleteControllerPods(batch.stream().map(CompletedPod::toPod).collect(Collectors.toList()));
+                deleted.add(batch.size());
+                LOGGER.log(Level.FINE, () -> format("Deleted %s completed controller pods", batch.size()));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, e, () -> format("Could not delete %s completed controller pods. Retrying later", batch.size()));
+                batch.forEach(this::track);
+            }
+        }
+    }
+
+    private synchronized List<CompletedPod> nextBatch() {
+        final List<CompletedPod> batch = new ArrayList<>();
+        //Failed pods first, oldest first, leaving the most recent ones of each resource in place
+        for (Map<String, CompletedPod> failedPods : failedPodsByResource.values()) {
+            final int excess = failedPods.size() - failedPodsToKeep;
+            if (excess > 0) {
+                failedPods.values().stream()
+                        .sorted(Comparator.comparing(pod -> pod.creationTimestamp))
+                        .limit(Math.min(excess, batchSize - batch.size()))
+                        .forEach(batch::add);
+            }
+        }
+        batch.forEach(this::forget);
+        final Iterator<CompletedPod> iterator = succeededPods.values().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private void track(Pod pod) {
+        final String phase = pod.getStatus() == null ? null : pod.getStatus().getPhase();
+        if ("Succeeded".equals(phase)) {
+            track(new CompletedPod(pod, false));
+        } else if ("Failed".equals(phase)) {
+            track(new CompletedPod(pod, true));
+        }
+    }
+
+    private synchronized void track(CompletedPod pod) {
+        if (pod.failed) {
+            failedPodsByResource.computeIfAbsent(pod.resource, key -> new HashMap<>()).put(pod.name, pod);
+        } else {
+            succeededPods.put(pod.name, pod);
+        }
+    }
+
+    private synchronized void forget(CompletedPod pod) {
+        succeededPods.remove(pod.name);
+        final Map<String, CompletedPod> failedPods = failedPodsByResource.get(pod.resource);
+        if (failedPods != null) {
+            failedPods.remove(pod.name);
+            if (failedPods.isEmpty()) {
+                failedPodsByResource.remove(pod.resource);
+            }
+        }
+    }
+
+    private static class CompletedPod {
+
+        private final String name;
+        private final String creationTimestamp;
+        private final String resource;
+        private final boolean failed;
+
+        private CompletedPod(Pod pod) {
+            this(pod, false);
+        }
+
+        private CompletedPod(Pod pod, boolean failed) {
+            this.name = pod.getMetadata().getName();
+            this.creationTimestamp = Optional.ofNullable(pod.getMetadata().getCreationTimestamp()).orElse("");
+            final Map<String, String> labels = Optional.ofNullable(pod.getMetadata().getLabels()).orElse(Map.of());
+            final String kind = labels.getOrDefault(LabelNames.RESOURCE_KIND.getName(), "");
+            this.resource = format("%s/%s/%s", kind, labels.getOrDefault(LabelNames.RESOURCE_NAMESPACE.getName(), ""), labels.get(kind));
+            this.failed = failed;
+        }
+
+        private Pod toPod() {
+            //The name is all that is needed to delete the pod from the controller namespace
+            return new PodBuilder().withNewMetadata().withName(name).endMetadata().build();
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class ConfigListener implements RestartingWatcher<ConfigMap> {
 
     private static final Logger LOGGER = Logger.getLogger(ConfigListener.class.getName());
     private final SimpleKubernetesClient client;
+    private volatile String lastResourceVersion;
 
     public ConfigListener(SimpleKubernetesClient client) {
         this.client = client;
@@ -36,6 +37,7 @@ public class ConfigListener implements RestartingWatcher<ConfigMap> {
 
     @Override
     public void eventReceived(Action action, ConfigMap resource) {
+        this.lastResourceVersion = resource.getMetadata().getResourceVersion();
         LOGGER.info(() -> format("ConfigMap %s/%s action received: %s:%n%s",
                 resource.getMetadata().getNamespace(),
                 resource.getMetadata().getName(),
@@ -50,7 +52,12 @@ public class ConfigListener implements RestartingWatcher<ConfigMap> {
 
     @Override
     public Runnable getRestartingAction() {
-        return () -> client.watchControllerConfigMap(CoordinatorUtils.ENTANDO_OPERATOR_CONFIG, this);
+        return () -> client.watchControllerConfigMap(CoordinatorUtils.ENTANDO_OPERATOR_CONFIG, lastResourceVersion, this);
+    }
+
+    @Override
+    public void forgetLastResourceVersion() {
+        this.lastResourceVersion = null;
     }
 
     @Override
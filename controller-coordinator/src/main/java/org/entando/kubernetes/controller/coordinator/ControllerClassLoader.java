@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.entando.kubernetes.controller.spi.client.InProcessController;
+
+/**
+ * Loads a controller from its own jars. Apart from the JDK, the only class it shares with the coordinator is the
+ * InProcessController interface. The controller can therefore depend on other versions of the libraries that the coordinator
+ * uses, and its static state, such as the configuration of the operator, remains invisible to the coordinator and to the other
+ * controllers.
+ */
+class ControllerClassLoader extends URLClassLoader {
+
+    ControllerClassLoader(String name, URL[] urls) {
+        super(name, urls, ClassLoader.getPlatformClassLoader());
+    }
+
+    static ControllerClassLoader forDirectory(String name, Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return new ControllerClassLoader(name, paths
+                    .filter(path -> path.getFileName().toString().endsWith(".jar"))
+                    .sorted()
+                    .map(ControllerClassLoader::toUrl)
+                    .toArray(URL[]::new));
+        }
+    }
+
+    private static URL toUrl(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (name.equals(InProcessController.class.getName())) {
+            return InProcessController.class;
+        }
+        return super.loadClass(name, resolve);
+    }
+}
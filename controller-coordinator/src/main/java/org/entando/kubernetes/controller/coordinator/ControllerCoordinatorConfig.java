@@ -17,11 +17,16 @@
 package org.entando.kubernetes.controller.coordinator;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.print.attribute.standard.MediaSize.NA;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
+import org.entando.kubernetes.controller.support.common.EntandoOperatorConfig;
 
 public class ControllerCoordinatorConfig extends EntandoOperatorConfigBase {
 
@@ -52,6 +57,239 @@ public class ControllerCoordinatorConfig extends EntandoOperatorConfigBase {
                 .orElse(30);
     }
 
+    public static int getReconcilePoolSize() {
+        if (EntandoOperatorConfig.isClusterScopedDeployment()) {
+            return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CLUSTER_SCOPED_POOL_SIZE).map(Integer::parseInt).orElse(10);
+        } else {
+            return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_NAMESPACE_SCOPED_POOL_SIZE).map(Integer::parseInt).orElse(5);
+        }
+    }
+
+    public static long getRequeueBaseDelayMillis() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_REQUEUE_BASE_DELAY_MILLIS).map(Long::parseLong).orElse(1000L);
+    }
+
+    public static long getRequeueMaxDelayMillis() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_REQUEUE_MAX_DELAY_MILLIS).map(Long::parseLong).orElse(300000L);
+    }
+
+    public static int getReconcileWeight(String kind) {
+        return lookupPerKind(ControllerCoordinatorProperty.ENTANDO_K8S_RECONCILE_WEIGHTS, kind)
+                .map(weight -> Math.max(1, Integer.parseInt(weight)))
+                .orElse(1);
+    }
+
+    /**
+     * The time that has to pass without any new events for a resource of the given kind before it is reconciled, configured per
+     * kind, e.g. EntandoApp=2000,EntandoPlugin=1000. Bursts of writes to the same resource are then reconciled once, using the
+     * latest version. Kinds that have not been configured are reconciled without delay.
+     */
+    public static long getDebounceQuietPeriodMillis(String kind) {
+        return lookupPerKind(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_QUIET_PERIODS, kind)
+                .map(Long::parseLong)
+                .orElse(0L);
+    }
+
+    /**
+     * The longest time that a resource of the given kind that keeps on changing can be held back by its quiet period.
+     */
+    public static long getDebounceMaxDelayMillis(String kind) {
+        return lookupPerKind(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_MAX_DELAYS, kind)
+                .map(Long::parseLong)
+                .orElse(10000L);
+    }
+
+    private static Optional<String> lookupPerKind(ControllerCoordinatorProperty property, String kind) {
+        return lookupProperty(property)
+                .flatMap(values -> Arrays.stream(values.split(SEPERATOR_PATTERN))
+                        .map(entry -> entry.split("="))
+                        .filter(entry -> entry.length == 2 && entry[0].trim().equals(kind))
+                        .map(entry -> entry[1].trim())
+                        .findFirst());
+    }
+
+    /**
+     * Lanes are served with strict priority unless weights have been configured for them, e.g. CHANGE=8,RETRY=2,RESYNC=1.
+     */
+    public static boolean isStrictLanePriority() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_RECONCILE_LANE_WEIGHTS).isEmpty();
+    }
+
+    public static int getReconcileLaneWeight(ReconcileLane lane) {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_RECONCILE_LANE_WEIGHTS)
+                .flatMap(weights -> Arrays.stream(weights.split(SEPERATOR_PATTERN))
+                        .map(entry -> entry.split("="))
+                        .filter(entry -> entry.length == 2 && entry[0].trim().equalsIgnoreCase(lane.name()))
+                        .map(entry -> Math.max(1, Integer.parseInt(entry[1].trim())))
+                        .findFirst())
+                .orElse(1);
+    }
+
+    public static int getResourceVersionStoreCapacity() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_RESOURCE_VERSION_STORE_CAPACITY)
+                .map(Integer::parseInt)
+                .orElse(20000);
+    }
+
+    public static boolean isShardingEnabled() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARDING_ENABLED).map(Boolean::parseBoolean).orElse(false);
+    }
+
+    public static ShardKey getShardKey() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_KEY)
+                .map(s -> ShardKey.valueOf(s.trim().toUpperCase(Locale.ROOT)))
+                .orElse(ShardKey.NAMESPACE);
+    }
+
+    public static int getShardLeaseDurationSeconds() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_LEASE_DURATION_SECONDS).map(Integer::parseInt).orElse(15);
+    }
+
+    public static long getShardRenewIntervalSeconds() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_RENEW_INTERVAL_SECONDS).map(Long::parseLong).orElse(5L);
+    }
+
+    public static ControllerDispatchMode getControllerDispatchMode() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_DISPATCH_MODE)
+                .map(s -> ControllerDispatchMode.valueOf(s.trim().toUpperCase(Locale.ROOT)))
+                .orElse(ControllerDispatchMode.POD);
+    }
+
+    public static int getControllerWorkerReplicas() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_WORKER_REPLICAS).map(Integer::parseInt).orElse(2);
+    }
+
+    public static Set<String> getInProcessControllerKinds() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_IN_PROCESS_CONTROLLER_KINDS)
+                .map(s -> Arrays.stream(s.split(SEPERATOR_PATTERN)).filter(kind -> !kind.isBlank()).collect(Collectors.toSet()))
+                .orElse(Collections.emptySet());
+    }
+
+    public static String getInProcessControllerDirectory() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_IN_PROCESS_CONTROLLER_DIRECTORY).orElse("/deployments/controllers");
+    }
+
+    public static int getInProcessControllerConcurrency() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_IN_PROCESS_CONTROLLER_CONCURRENCY).map(Integer::parseInt).orElse(2);
+    }
+
+    public static int getUpgradeMaxInFlight() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_MAX_IN_FLIGHT).map(Integer::parseInt).orElse(5);
+    }
+
+    /**
+     * The fraction of recently completed upgrades that may fail before the upgrade rollout pauses.
+     */
+    public static double getUpgradeFailureThreshold() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_FAILURE_THRESHOLD).map(Double::parseDouble).orElse(0.3);
+    }
+
+    public static int getUpgradeFailureSampleSize() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_FAILURE_SAMPLE_SIZE).map(Integer::parseInt).orElse(10);
+    }
+
+    /**
+     * How long a resource may be in flight before its upgrade is counted as failed, so that it no longer holds up the rollout.
+     */
+    public static long getUpgradeInFlightTimeoutSeconds() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_IN_FLIGHT_TIMEOUT_SECONDS).map(Long::parseLong)
+                .orElse(1800L);
+    }
+
+    /**
+     * Any change to this value, typically in the operator's ConfigMap, resumes an upgrade rollout that was paused.
+     */
+    public static Optional<String> getUpgradeResumeToken() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_RESUME_TOKEN);
+    }
+
+    public static int getControllerPodBudget() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_BUDGET).map(Integer::parseInt).orElse(30);
+    }
+
+    public static int getControllerPodBudgetPerNamespace() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_BUDGET_PER_NAMESPACE).map(Integer::parseInt)
+                .orElse(10);
+    }
+
+    /**
+     * The total CPU that running controller pods may request, as a Kubernetes quantity, e.g. "4" or "2500m".
+     */
+    public static Optional<String> getControllerPodCpuBudget() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_CPU_BUDGET);
+    }
+
+    /**
+     * The total memory that running controller pods may request, as a Kubernetes quantity, e.g. "8Gi".
+     */
+    public static Optional<String> getControllerPodMemoryBudget() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_MEMORY_BUDGET);
+    }
+
+    public static Optional<String> getControllerPodCpuRequest() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_CPU_REQUEST);
+    }
+
+    public static Optional<String> getControllerPodMemoryRequest() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_MEMORY_REQUEST);
+    }
+
+    /**
+     * The port on which the coordinator serves its metrics in the Prometheus text format at /metrics. The endpoint is not started
+     * unless a port is specified.
+     */
+    public static int getMetricsPort() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_METRICS_PORT).map(Integer::parseInt).orElse(-1);
+    }
+
+    /**
+     * The maximum number of resources requested per list call when the coordinator starts observing a kind.
+     */
+    public static int getBootstrapChunkSize() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_BOOTSTRAP_CHUNK_SIZE).map(Integer::parseInt).orElse(500);
+    }
+
+    /**
+     * The maximum number of kind and namespace combinations that are listed at the same time during startup.
+     */
+    public static int getBootstrapParallelism() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_BOOTSTRAP_PARALLELISM).map(Integer::parseInt).orElse(4);
+    }
+
+    public static long getBootstrapTimeoutSeconds() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_BOOTSTRAP_TIMEOUT_SECONDS).map(Long::parseLong).orElse(600L);
+    }
+
+    /**
+     * The maximum number of completed controller pods deleted per sweep interval.
+     */
+    public static int getPodSweepBatchSize() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_POD_SWEEP_BATCH_SIZE).map(Integer::parseInt).orElse(20);
+    }
+
+    public static long getPodSweepIntervalMillis() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_POD_SWEEP_INTERVAL_MILLIS).map(Long::parseLong).orElse(1000L);
+    }
+
+    /**
+     * The number of failed controller pods that are kept per resource for troubleshooting.
+     */
+    public static int getFailedControllerPodsToKeep() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_FAILED_CONTROLLER_PODS_TO_KEEP).map(Integer::parseInt).orElse(3);
+    }
+
+    public static boolean isControllerImagePrePullEnabled() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_PRE_PULL_CONTROLLER_IMAGES).map(Boolean::parseBoolean)
+                .orElse(false);
+    }
+
+    /**
+     * The image of the container that keeps the pre-puller pods running once all controller images have been pulled.
+     */
+    public static String getPrePullPauseImage() {
+        return lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_PRE_PULL_PAUSE_IMAGE).orElse("k8s.gcr.io/pause:3.5");
+    }
+
     public static List<String> getNamesOfCrdsOfInterest() {
         return Arrays.asList(
                 lookupProperty(ControllerCoordinatorProperty.ENTANDO_CRDS_OF_INTEREST)
@@ -27,6 +27,44 @@ public enum ControllerCoordinatorProperty implements ConfigProperty {
     ENTANDO_DOCKER_IMAGE_INFO_CONFIGMAP,
     ENTANDO_K8S_OPERATOR_SERVICEACCOUNT,
     ENTANDO_STORE_LOG_ENTRIES,
-    ENTANDO_CRDS_OF_INTEREST
+    ENTANDO_CRDS_OF_INTEREST,
+    ENTANDO_K8S_CLUSTER_SCOPED_POOL_SIZE,
+    ENTANDO_K8S_NAMESPACE_SCOPED_POOL_SIZE,
+    ENTANDO_K8S_REQUEUE_BASE_DELAY_MILLIS,
+    ENTANDO_K8S_REQUEUE_MAX_DELAY_MILLIS,
+    ENTANDO_K8S_RECONCILE_WEIGHTS,
+    ENTANDO_K8S_RECONCILE_LANE_WEIGHTS,
+    ENTANDO_K8S_RESOURCE_VERSION_STORE_CAPACITY,
+    ENTANDO_K8S_SHARDING_ENABLED,
+    ENTANDO_K8S_SHARD_KEY,
+    ENTANDO_K8S_SHARD_LEASE_DURATION_SECONDS,
+    ENTANDO_K8S_SHARD_RENEW_INTERVAL_SECONDS,
+    ENTANDO_K8S_CONTROLLER_DISPATCH_MODE,
+    ENTANDO_K8S_CONTROLLER_WORKER_REPLICAS,
+    ENTANDO_K8S_IN_PROCESS_CONTROLLER_KINDS,
+    ENTANDO_K8S_IN_PROCESS_CONTROLLER_DIRECTORY,
+    ENTANDO_K8S_IN_PROCESS_CONTROLLER_CONCURRENCY,
+    ENTANDO_K8S_UPGRADE_MAX_IN_FLIGHT,
+    ENTANDO_K8S_UPGRADE_FAILURE_THRESHOLD,
+    ENTANDO_K8S_UPGRADE_FAILURE_SAMPLE_SIZE,
+    ENTANDO_K8S_UPGRADE_IN_FLIGHT_TIMEOUT_SECONDS,
+    ENTANDO_K8S_UPGRADE_RESUME_TOKEN,
+    ENTANDO_K8S_CONTROLLER_POD_BUDGET,
+    ENTANDO_K8S_CONTROLLER_POD_BUDGET_PER_NAMESPACE,
+    ENTANDO_K8S_CONTROLLER_POD_CPU_BUDGET,
+    ENTANDO_K8S_CONTROLLER_POD_MEMORY_BUDGET,
+    ENTANDO_K8S_CONTROLLER_POD_CPU_REQUEST,
+    ENTANDO_K8S_CONTROLLER_POD_MEMORY_REQUEST,
+    ENTANDO_K8S_METRICS_PORT,
+    ENTANDO_K8S_BOOTSTRAP_CHUNK_SIZE,
+    ENTANDO_K8S_BOOTSTRAP_PARALLELISM,
+    ENTANDO_K8S_BOOTSTRAP_TIMEOUT_SECONDS,
+    ENTANDO_K8S_DEBOUNCE_QUIET_PERIODS,
+    ENTANDO_K8S_DEBOUNCE_MAX_DELAYS,
+    ENTANDO_K8S_POD_SWEEP_BATCH_SIZE,
+    ENTANDO_K8S_POD_SWEEP_INTERVAL_MILLIS,
+    ENTANDO_K8S_FAILED_CONTROLLER_PODS_TO_KEEP,
+    ENTANDO_K8S_PRE_PULL_CONTROLLER_IMAGES,
+    ENTANDO_K8S_PRE_PULL_PAUSE_IMAGE
 
 }
@@ -16,49 +16,364 @@
 
 package org.entando.kubernetes.controller.coordinator;
 
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerPort;
+import io.fabric8.kubernetes.api.model.ContainerPortBuilder;
 import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.EnvVarSource;
 import io.fabric8.kubernetes.api.model.EnvVarSourceBuilder;
+import io.fabric8.kubernetes.api.model.ObjectFieldSelector;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.ResourceRequirements;
+import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
 import io.fabric8.kubernetes.client.Watcher.Action;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
 import org.entando.kubernetes.controller.spi.common.NameUtils;
 import org.entando.kubernetes.controller.support.common.EntandoImageResolver;
 
 public class ControllerExecutor {
 
+    private static final Logger LOGGER = Logger.getLogger(ControllerExecutor.class.getName());
+    //Serializes the selection of idle workers across the reconcile threads of this coordinator
+    private static final Object DISPATCH_LOCK = new Object();
     private final SimpleKubernetesClient client;
     private EntandoImageResolver imageResolver;
     private final String controllerNamespace;
     private final String imageName;
+    private final ControllerPodAdmission admission;
+    private final ControllerImagePrePuller prePuller;
 
     public ControllerExecutor(String controllerNamespace, SimpleKubernetesClient client, String imageName) {
+        this(controllerNamespace, client, imageName, null);
+    }
+
+    public ControllerExecutor(String controllerNamespace, SimpleKubernetesClient client, String imageName,
+            ControllerPodAdmission admission) {
+        this(controllerNamespace, client, imageName, admission, null);
+    }
+
+    /**
+     * Controller pods prefer the nodes that the prePuller has pulled their image onto, if one is provided.
+     */
+    public ControllerExecutor(String controllerNamespace, SimpleKubernetesClient client, String imageName,
+            ControllerPodAdmission admission, ControllerImagePrePuller prePuller) {
         this.controllerNamespace = controllerNamespace;
         this.client = client;
         this.imageName = imageName;
+        this.admission = admission;
+        this.prePuller = prePuller;
     }
 
+    /**
+     * Starts a controller pod for the resource. If the pod does not fit in the admission budget, a DeferredWorkException is thrown
+     * that signals when the work can be retried.
+     */
     public Pod startControllerFor(Action action, SerializedEntandoResource resource) throws TimeoutException {
+        return startControllerFor(action, resource, UnaryOperator.identity());
+    }
+
+    /**
+     * Starts a controller pod for the resource, applying the preparation to the resource once the pod has been admitted, and before
+     * the obsolete controller pods of the resource are removed. Work that is deferred for lack of budget has no side effects.
+     */
+    public Pod startControllerFor(Action action, SerializedEntandoResource resource, UnaryOperator<SerializedEntandoResource> preparation)
+            throws TimeoutException {
         this.imageResolver = new EntandoImageResolver(client.loadDockerImageInfoConfigMap(), resource);
+        final Pod pod = buildControllerPod(action, resource);
+        if (admission != null && !admission.tryAdmit(pod)) {
+            throw new DeferredWorkException(format("The controller pod for the %s %s/%s is waiting for admission budget",
+                    resource.getKind(), resource.getMetadata().getNamespace(), resource.getMetadata().getName()),
+                    admission.whenAdmissible(pod));
+        }
+        try {
+            final SerializedEntandoResource prepared = preparation.apply(resource);
+            //The budget of the obsolete pods has been handed over to the new pod already
+            this.client.removePodsAndWait(controllerNamespace, CoordinatorUtils.podLabelsFor(prepared));
+            return client.startPod(pod);
+        } catch (TimeoutException | RuntimeException e) {
+            if (admission != null) {
+                admission.release(pod.getMetadata().getName());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the resource can only be processed in a controller pod, because neither in-process controllers nor workers
+     * have been configured for it.
+     */
+    public boolean requiresControllerPod(InProcessControllerRunner runner, SerializedEntandoResource resource) {
+        return !runner.isEnabledFor(resource.getKind())
+                && ControllerCoordinatorConfig.getControllerDispatchMode() != ControllerDispatchMode.WORKER;
+    }
+
+    /**
+     * Runs the controller on a thread of the coordinator if its kind has been listed in ENTANDO_K8S_IN_PROCESS_CONTROLLER_KINDS.
+     * Returns false if the controller cannot be run in-process, in which case the caller falls back to a worker or a controller pod.
+     */
+    public boolean runInProcess(InProcessControllerRunner runner, Action action, SerializedEntandoResource resource)
+            throws TimeoutException {
+        if (!runner.isEnabledFor(resource.getKind())) {
+            return false;
+        }
+        final ConfigMap imageInfo = client.loadDockerImageInfoConfigMap();
+        if (!new EntandoImageResolver(imageInfo).determineImageUri(imageName)
+                .equals(new EntandoImageResolver(imageInfo, resource).determineImageUri(imageName))) {
+            //The resource overrides the controller image, which can only be honoured in a pod
+            return false;
+        }
         removeObsoleteControllerPods(resource);
-        Pod pod = buildControllerPod(action, resource);
-        return client.startPod(pod);
+        return runner.tryRun(controllerNameOf(imageName), action, resource);
+    }
+
+    /**
+     * Hands the resource over to an idle worker of the controller image when the coordinator has been configured with the WORKER
+     * dispatch mode. Returns false if no worker is available, or if the worker that the resource was assigned to has stopped renewing
+     * the assignment, in which case the caller falls back to a controller pod for the resource.
+     */
+    public boolean dispatchToWorker(Action action, SerializedEntandoResource resource) throws TimeoutException {
+        if (ControllerCoordinatorConfig.getControllerDispatchMode() != ControllerDispatchMode.WORKER) {
+            return false;
+        }
+        final ConfigMap imageInfo = client.loadDockerImageInfoConfigMap();
+        this.imageResolver = new EntandoImageResolver(imageInfo);
+        final String workerName = workerNameOf(imageName);
+        final Deployment desiredWorkers = buildWorkerDeployment(workerName);
+        Deployment workers = client.createControllerDeploymentIfAbsent(desiredWorkers);
+        if (isOutdated(workers, desiredWorkers)) {
+            //The operator was upgraded, or the controller image was overridden since the workers were deployed
+            LOGGER.log(Level.INFO, () -> format("Updating the worker Deployment %s to the current controller image and configuration",
+                    workerName));
+            workers = client.createOrReplaceControllerDeployment(desiredWorkers);
+        }
+        final String workerImage = workerContainerOf(workers).getImage();
+        if (!workerImage.equals(new EntandoImageResolver(imageInfo, resource).determineImageUri(imageName))) {
+            //The resource overrides the controller image
+            return false;
+        }
+        removeObsoleteControllerPods(resource);
+        synchronized (DISPATCH_LOCK) {
+            final Set<String> readyWorkers = client.loadControllerPods(Map.of(LabelNames.CONTROLLER_WORKER.getName(), workerName))
+                    .stream()
+                    .filter(ControllerExecutor::isReady)
+                    //Workers of a previous version keep running until the Deployment has rolled them out
+                    .filter(pod -> pod.getSpec().getContainers().stream().anyMatch(container -> workerImage.equals(container.getImage())))
+                    .map(pod -> pod.getMetadata().getName())
+                    .collect(Collectors.toSet());
+            final List<Lease> assignments = new ArrayList<>(
+                    client.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), workerName)));
+            if (withdrawExpiredAssignments(assignments).contains(assignmentNameOf(resource))) {
+                return false;
+            }
+            final Set<String> busyWorkers = findBusyWorkers(assignments, readyWorkers, resource);
+            final Optional<String> idleWorker = readyWorkers.stream().filter(worker -> !busyWorkers.contains(worker)).sorted().findFirst();
+            idleWorker.ifPresent(worker -> {
+                client.createOrReplaceControllerLease(buildAssignment(action, resource, workerName, worker));
+                LOGGER.log(Level.INFO, () -> format("Assigned the %s %s/%s to the worker %s", resource.getKind(),
+                        resource.getMetadata().getNamespace(), resource.getMetadata().getName(), worker));
+            });
+            return idleWorker.isPresent();
+        }
+    }
+
+    /**
+     * Deletes the assignments that have not been renewed within their leaseDurationSeconds, removes them from the list, and returns
+     * their names. The worker renews its assignment while the controller runs, so it has died or hung halfway through.
+     */
+    private Set<String> withdrawExpiredAssignments(List<Lease> assignments) {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        final Set<String> expired = assignments.stream()
+                .filter(assignment -> isExpired(assignment, now))
+                .map(assignment -> assignment.getMetadata().getName())
+                .collect(Collectors.toSet());
+        expired.forEach(name -> {
+            LOGGER.log(Level.WARNING, () -> format("The assignment %s has expired without being renewed. Withdrawing it", name));
+            client.deleteControllerLease(name);
+        });
+        assignments.removeIf(assignment -> expired.contains(assignment.getMetadata().getName()));
+        return expired;
+    }
+
+    private static boolean isExpired(Lease assignment, ZonedDateTime now) {
+        final Integer leaseDurationSeconds = assignment.getSpec().getLeaseDurationSeconds();
+        final ZonedDateTime lastRenewal = Optional.ofNullable(assignment.getSpec().getRenewTime())
+                .orElse(assignment.getSpec().getAcquireTime());
+        return leaseDurationSeconds != null && lastRenewal != null && lastRenewal.plusSeconds(leaseDurationSeconds).isBefore(now);
+    }
+
+    private Set<String> findBusyWorkers(List<Lease> assignments, Set<String> readyWorkers, SerializedEntandoResource resource) {
+        for (Lease assignment : assignments) {
+            final String worker = assignment.getSpec().getHolderIdentity();
+            if (!readyWorkers.contains(worker)) {
+                //The worker is gone, so nobody will ever complete this assignment
+                client.deleteControllerLease(assignment.getMetadata().getName());
+            } else if (assignment.getMetadata().getName().equals(assignmentNameOf(resource))) {
+                //Propagate so that the work queue retries once the current assignment has completed
+                throw new IllegalStateException(format("The %s %s/%s is still being processed by the worker %s", resource.getKind(),
+                        resource.getMetadata().getNamespace(), resource.getMetadata().getName(), worker));
+            }
+        }
+        return assignments.stream()
+                .map(assignment -> assignment.getSpec().getHolderIdentity())
+                .filter(readyWorkers::contains)
+                .collect(Collectors.toSet());
+    }
+
+    private static Container workerContainerOf(Deployment workers) {
+        return workers.getSpec().getTemplate().getSpec().getContainers().get(0);
+    }
+
+    private static boolean isOutdated(Deployment existing, Deployment desired) {
+        final Container existingContainer = workerContainerOf(existing);
+        final Container desiredContainer = workerContainerOf(desired);
+        return !Objects.equals(existingContainer.getImage(), desiredContainer.getImage())
+                || !describe(existingContainer.getEnv()).equals(describe(desiredContainer.getEnv()));
+    }
+
+    private static Map<String, String> describe(List<EnvVar> envVars) {
+        //The API server adds defaults to the sources of values, so only the field paths are compared
+        return Optional.ofNullable(envVars).orElse(List.of()).stream().collect(Collectors.toMap(EnvVar::getName,
+                envVar -> Optional.ofNullable(envVar.getValueFrom())
+                        .map(EnvVarSource::getFieldRef)
+                        .map(ObjectFieldSelector::getFieldPath)
+                        .orElse(Objects.toString(envVar.getValue(), ""))));
+    }
+
+    private static boolean isReady(Pod pod) {
+        return pod.getStatus() != null
+                && "Running".equals(pod.getStatus().getPhase())
+                && pod.getStatus().getConditions().stream()
+                .anyMatch(condition -> "Ready".equals(condition.getType()) && "True".equals(condition.getStatus()));
+    }
+
+    private Lease buildAssignment(Action action, SerializedEntandoResource resource, String workerName, String worker) {
+        return new LeaseBuilder()
+                .withNewMetadata()
+                .withNamespace(controllerNamespace)
+                .withName(assignmentNameOf(resource))
+                .addToLabels(LabelNames.CONTROLLER_WORKER.getName(), workerName)
+                .addToLabels(LabelNames.ASSIGNED_WORKER.getName(), worker)
+                .addToAnnotations(ControllerWorker.RESOURCE_KIND_ANNOTATION, resource.getKind())
+                .addToAnnotations(ControllerWorker.RESOURCE_NAMESPACE_ANNOTATION, resource.getMetadata().getNamespace())
+                .addToAnnotations(ControllerWorker.RESOURCE_NAME_ANNOTATION, resource.getMetadata().getName())
+                .addToAnnotations(ControllerWorker.RESOURCE_ACTION_ANNOTATION, action.name())
+                .endMetadata()
+                .withNewSpec()
+                .withHolderIdentity(worker)
+                .withAcquireTime(ZonedDateTime.now(ZoneOffset.UTC))
+                .withLeaseDurationSeconds(EntandoOperatorSpiConfig.getPodCompletionTimeoutSeconds())
+                .endSpec()
+                .build();
+    }
+
+    private Deployment buildWorkerDeployment(String workerName) {
+        final List<EnvVar> envVars = buildCommonEnvVars();
+        //Workers receive the resource to process with each assignment
+        envVars.removeIf(envVar -> envVar.getName().startsWith("ENTANDO_RESOURCE_"));
+        envVars.add(new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_WORKER_MODE.name(), "true", null));
+        //Workers do not terminate after each resource, so Prometheus scrapes their metrics from the same port as the coordinator's
+        final int metricsPort = ControllerCoordinatorConfig.getMetricsPort();
+        final Map<String, String> annotations = new HashMap<>();
+        final List<ContainerPort> ports = new ArrayList<>();
+        if (metricsPort > 0) {
+            envVars.add(new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_WORKER_METRICS_PORT.name(),
+                    String.valueOf(metricsPort), null));
+            annotations.put("prometheus.io/scrape", "true");
+            annotations.put("prometheus.io/port", String.valueOf(metricsPort));
+            annotations.put("prometheus.io/path", "/metrics");
+            ports.add(new ContainerPortBuilder().withName("metrics").withContainerPort(metricsPort).build());
+        }
+        return new DeploymentBuilder()
+                .withNewMetadata()
+                .withNamespace(controllerNamespace)
+                .withName(workerName)
+                .addToLabels(LabelNames.CONTROLLER_WORKER.getName(), workerName)
+                .endMetadata()
+                .withNewSpec()
+                .withReplicas(ControllerCoordinatorConfig.getControllerWorkerReplicas())
+                .withNewSelector()
+                .addToMatchLabels(LabelNames.CONTROLLER_WORKER.getName(), workerName)
+                .endSelector()
+                .withNewTemplate()
+                .withNewMetadata()
+                .addToLabels(LabelNames.CONTROLLER_WORKER.getName(), workerName)
+                .addToAnnotations(annotations)
+                .endMetadata()
+                .withNewSpec()
+                .withServiceAccountName(determineServiceAccountName())
+                .addNewContainer()
+                .withName("worker")
+                .withImage(this.imageResolver.determineImageUri(imageName))
+                .withImagePullPolicy("IfNotPresent")
+                .withEnv(envVars)
+                .withPorts(ports)
+                .endContainer()
+                .endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+    }
+
+    static String workerNameOf(String imageName) {
+        return controllerNameOf(imageName) + "-worker";
+    }
+
+    static String controllerNameOf(String imageName) {
+        String name = imageName;
+        if (name.contains("@")) {
+            name = name.substring(0, name.indexOf('@'));
+        }
+        name = name.substring(name.lastIndexOf('/') + 1);
+        if (name.contains(":")) {
+            name = name.substring(0, name.indexOf(':'));
+        }
+        name = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9-]", "-");
+        return NameUtils.shortenTo(name, 50);
+    }
+
+    static String assignmentNameOf(SerializedEntandoResource resource) {
+        return resource.getKind().toLowerCase(Locale.ROOT) + "-" + resource.getMetadata().getUid();
     }
 
     private void removeObsoleteControllerPods(SerializedEntandoResource resource) throws TimeoutException {
         //We need to make sure they all terminate so that we don't have racing conditions between 2 controllers
         // processing the same resource
         this.client.removePodsAndWait(controllerNamespace, CoordinatorUtils.podLabelsFor(resource));
+        if (admission != null) {
+            admission.releaseMatching(CoordinatorUtils.podLabelsFor(resource));
+        }
     }
 
     private Pod buildControllerPod(Action action, SerializedEntandoResource resource) {
+        final String image = this.imageResolver.determineImageUri(imageName);
         return new PodBuilder().withNewMetadata()
                 .withName(resource.getMetadata().getName() + "-deployer-" + NameUtils.randomNumeric(4).toLowerCase())
                 .withNamespace(this.controllerNamespace)
@@ -69,16 +384,26 @@ public class ControllerExecutor {
                 .withNewSpec()
                 .withRestartPolicy("Never")
                 .withServiceAccountName(determineServiceAccountName())
+                .withAffinity(prePuller == null ? null : prePuller.buildPreferredAffinityFor(image))
                 .addNewContainer()
                 .withName("deployer")
-                .withImage(this.imageResolver.determineImageUri(imageName))
+                .withImage(image)
                 .withImagePullPolicy("IfNotPresent")
                 .withEnv(buildEnvVars(action, resource))
+                .withResources(buildResourceRequirements())
                 .endContainer()
                 .endSpec()
                 .build();
     }
 
+    private ResourceRequirements buildResourceRequirements() {
+        //Only set when configured, so that the pods' CPU and memory can be accounted for in the admission budget
+        final Map<String, Quantity> requests = new HashMap<>();
+        ControllerCoordinatorConfig.getControllerPodCpuRequest().ifPresent(cpu -> requests.put("cpu", new Quantity(cpu)));
+        ControllerCoordinatorConfig.getControllerPodMemoryRequest().ifPresent(memory -> requests.put("memory", new Quantity(memory)));
+        return requests.isEmpty() ? null : new ResourceRequirementsBuilder().withRequests(requests).build();
+    }
+
     private String determineServiceAccountName() {
         return ControllerCoordinatorConfig.getOperatorServiceAccount().orElse("default");
     }
@@ -88,6 +413,18 @@ public class ControllerExecutor {
     }
 
     private List<EnvVar> buildEnvVars(Action action, SerializedEntandoResource resource) {
+        Map<String, EnvVar> result = new HashMap<>();
+        buildCommonEnvVars().forEach(envVar -> addTo(result, envVar));
+        //Make sure we overwrite previously set resource info
+        addTo(result, new EnvVar("ENTANDO_RESOURCE_ACTION", action.name(), null));
+        addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAMESPACE.name(), resource.getMetadata().getNamespace(),
+                null));
+        addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.name(), resource.getMetadata().getName(), null));
+        addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_KIND.name(), resource.getKind(), null));
+        return new ArrayList<>(result.values());
+    }
+
+    private List<EnvVar> buildCommonEnvVars() {
         Map<String, EnvVar> result = new HashMap<>();
         System.getProperties().entrySet().stream()
                 .filter(this::matchesKnownSystemProperty).forEach(objectObjectEntry -> addTo(result,
@@ -97,12 +434,6 @@ public class ControllerExecutor {
                 .filter(this::matchesKnownEnvironmentVariable)
                 .forEach(objectObjectEntry -> addTo(result, new EnvVar(objectObjectEntry.getKey(),
                         objectObjectEntry.getValue(), null)));
-        //Make sure we overwrite previously set resource info
-        addTo(result, new EnvVar("ENTANDO_RESOURCE_ACTION", action.name(), null));
-        addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAMESPACE.name(), resource.getMetadata().getNamespace(),
-                null));
-        addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.name(), resource.getMetadata().getName(), null));
-        addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_KIND.name(), resource.getKind(), null));
         addTo(result, new EnvVar(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_POD_NAME.name(), null, new EnvVarSourceBuilder()
                 .withNewFieldRef()
                 .withFieldPath("metadata.name")
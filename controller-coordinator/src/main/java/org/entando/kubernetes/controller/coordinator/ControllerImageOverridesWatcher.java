@@ -18,21 +18,35 @@ package org.entando.kubernetes.controller.coordinator;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.Event;
+import java.util.function.Consumer;
 
 public class ControllerImageOverridesWatcher implements RestartingWatcher<ConfigMap> {
 
     private final SimpleKubernetesClient client;
+    private final Consumer<ConfigMap> listener;
     private ConfigMap controllerImageOverrides;
+    private volatile String lastResourceVersion;
 
     public ControllerImageOverridesWatcher(SimpleKubernetesClient client) {
+        this(client, configMap -> {
+        });
+    }
+
+    /**
+     * Notifies the listener of every change to the controller image overrides after it has been applied.
+     */
+    public ControllerImageOverridesWatcher(SimpleKubernetesClient client, Consumer<ConfigMap> listener) {
         this.client = client;
+        this.listener = listener;
         this.controllerImageOverrides = client.findOrCreateControllerConfigMap(CoordinatorUtils.CONTROLLER_IMAGE_OVERRIDES_CONFIGMAP);
         getRestartingAction().run();
     }
 
     @Override
     public void eventReceived(Action action, ConfigMap configMap) {
+        this.lastResourceVersion = configMap.getMetadata().getResourceVersion();
         this.controllerImageOverrides = configMap;
+        listener.accept(configMap);
     }
 
     public ConfigMap getControllerImageOverrides() {
@@ -41,7 +55,12 @@ public class ControllerImageOverridesWatcher implements RestartingWatcher<Config
 
     @Override
     public Runnable getRestartingAction() {
-        return () -> client.watchControllerConfigMap(CoordinatorUtils.CONTROLLER_IMAGE_OVERRIDES_CONFIGMAP, this);
+        return () -> client.watchControllerConfigMap(CoordinatorUtils.CONTROLLER_IMAGE_OVERRIDES_CONFIGMAP, lastResourceVersion, this);
+    }
+
+    @Override
+    public void forgetLastResourceVersion() {
+        this.lastResourceVersion = null;
     }
 
     @Override
@@ -0,0 +1,223 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.Affinity;
+import io.fabric8.kubernetes.api.model.AffinityBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerBuilder;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.DaemonSetBuilder;
+import io.fabric8.kubernetes.client.Watch;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.support.common.EntandoImageResolver;
+import org.entando.kubernetes.controller.support.common.EntandoOperatorConfig;
+
+/**
+ * Maintains a DaemonSet in the controller namespace that pulls the current controller images onto every node, so that controller
+ * pods do not have to wait for their image to be pulled on nodes they have not run on before. Each image is pulled by an init
+ * container that exits immediately, after which the pod idles in a pause container. The DaemonSet is replaced whenever the set of
+ * resolved images changes, i.e. when the controller image overrides, the CRDs or the docker image info ConfigMap change.
+ */
+public class ControllerImagePrePuller implements RestartingWatcher<ConfigMap> {
+
+    public static final String PRE_PULLER_NAME = "entando-controller-image-pre-puller";
+    private static final Logger LOGGER = Logger.getLogger(ControllerImagePrePuller.class.getName());
+    private final SimpleKubernetesClient client;
+    private final Supplier<Collection<String>> imageNames;
+    private ConfigMap imageInfo;
+    private volatile Set<String> prePulledImages = Set.of();
+    private volatile String imageSetHash;
+    private volatile String lastResourceVersion;
+    private Watch watch;
+    private boolean closed;
+
+    /**
+     * The supplier provides the names of the controller images as they appear in the controller image overrides, before they have
+     * been resolved against the docker image info ConfigMap.
+     */
+    public ControllerImagePrePuller(SimpleKubernetesClient client, Supplier<Collection<String>> imageNames) {
+        this.client = client;
+        this.imageNames = imageNames;
+        this.imageInfo = client.loadDockerImageInfoConfigMap();
+        getRestartingAction().run();
+    }
+
+    public boolean isPrePulled(String imageUri) {
+        return prePulledImages.contains(imageUri);
+    }
+
+    /**
+     * Prefers nodes that run a pre-puller pod for the current set of images. Returns null if the image is not being pre-pulled.
+     */
+    public Affinity buildPreferredAffinityFor(String imageUri) {
+        if (!isPrePulled(imageUri)) {
+            return null;
+        }
+        return new AffinityBuilder()
+                .withNewPodAffinity()
+                .addNewPreferredDuringSchedulingIgnoredDuringExecution()
+                .withWeight(100)
+                .withNewPodAffinityTerm()
+                .withNewLabelSelector()
+                .addToMatchLabels(LabelNames.IMAGE_PRE_PULLER.getName(), PRE_PULLER_NAME)
+                .addToMatchLabels(LabelNames.PRE_PULLED_IMAGES.getName(), imageSetHash)
+                .endLabelSelector()
+                .withTopologyKey("kubernetes.io/hostname")
+                .endPodAffinityTerm()
+                .endPreferredDuringSchedulingIgnoredDuringExecution()
+                .endPodAffinity()
+                .build();
+    }
+
+    public synchronized void refresh() {
+        final EntandoImageResolver resolver = new EntandoImageResolver(imageInfo);
+        final SortedSet<String> images = imageNames.get().stream()
+                .filter(imageName -> !CoordinatorUtils.NO_IMAGE.equals(imageName))
+                .map(resolver::determineImageUri)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (images.isEmpty() || images.equals(prePulledImages)) {
+            return;
+        }
+        final String hash = Integer.toHexString(String.join(",", images).hashCode());
+        try {
+            client.createOrReplaceControllerDaemonSet(buildDaemonSet(images, hash));
+            //Only prefer the pre-pulled nodes once the DaemonSet pods carry the matching label
+            this.imageSetHash = hash;
+            this.prePulledImages = Set.copyOf(images);
+            LOGGER.log(Level.INFO, () -> format("Pre-pulling the controller images %s", images));
+        } catch (RuntimeException e) {
+            //Pre-pulling is an optimization, so the next change will simply try again
+            LOGGER.log(Level.WARNING, e, () -> format("Could not update the DaemonSet %s", PRE_PULLER_NAME));
+        }
+    }
+
+    private DaemonSet buildDaemonSet(SortedSet<String> images, String hash) {
+        final List<Container> pullers = new ArrayList<>();
+        for (String image : images) {
+            pullers.add(new ContainerBuilder()
+                    .withName("pull-" + pullers.size())
+                    .withImage(image)
+                    .withImagePullPolicy("IfNotPresent")
+                    .withCommand("/bin/sh", "-c", "exit 0")
+                    .withNewResources()
+                    .withRequests(Map.of("cpu", new Quantity("10m"), "memory", new Quantity("16Mi")))
+                    .endResources()
+                    .build());
+        }
+        return new DaemonSetBuilder()
+                .withNewMetadata()
+                .withNamespace(client.getControllerNamespace())
+                .withName(PRE_PULLER_NAME)
+                .addToLabels(LabelNames.IMAGE_PRE_PULLER.getName(), PRE_PULLER_NAME)
+                .endMetadata()
+                .withNewSpec()
+                .withNewSelector()
+                .addToMatchLabels(LabelNames.IMAGE_PRE_PULLER.getName(), PRE_PULLER_NAME)
+                .endSelector()
+                .withNewTemplate()
+                .withNewMetadata()
+                .addToLabels(LabelNames.IMAGE_PRE_PULLER.getName(), PRE_PULLER_NAME)
+                .addToLabels(LabelNames.PRE_PULLED_IMAGES.getName(), hash)
+                .endMetadata()
+                .withNewSpec()
+                //The pods only pull images, so they need no access to the API server
+                .withServiceAccountName("default")
+                .withAutomountServiceAccountToken(false)
+                .withInitContainers(pullers)
+                .addNewContainer()
+                .withName("pause")
+                .withImage(ControllerCoordinatorConfig.getPrePullPauseImage())
+                .withImagePullPolicy("IfNotPresent")
+                .withNewResources()
+                .withRequests(Map.of("cpu", new Quantity("1m"), "memory", new Quantity("8Mi")))
+                .endResources()
+                .endContainer()
+                .endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+    }
+
+    @Override
+    public void eventReceived(Action action, ConfigMap configMap) {
+        this.lastResourceVersion = configMap.getMetadata().getResourceVersion();
+        synchronized (this) {
+            this.imageInfo = action == Action.DELETED ? null : configMap;
+        }
+        refresh();
+    }
+
+    @Override
+    public Runnable getRestartingAction() {
+        return () -> {
+            final Watch newWatch = client.watchControllerConfigMap(EntandoOperatorConfig.getEntandoDockerImageInfoConfigMap(),
+                    lastResourceVersion, this);
+            final boolean alreadyClosed;
+            synchronized (this) {
+                alreadyClosed = closed;
+                if (!alreadyClosed) {
+                    this.watch = newWatch;
+                }
+            }
+            if (alreadyClosed && newWatch != null) {
+                newWatch.close();
+            }
+        };
+    }
+
+    /**
+     * Stops watching the docker image info ConfigMap. The DaemonSet is left in place for the next coordinator.
+     */
+    public void close() {
+        final Watch current;
+        synchronized (this) {
+            this.closed = true;
+            current = this.watch;
+            this.watch = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    @Override
+    public void forgetLastResourceVersion() {
+        this.lastResourceVersion = null;
+    }
+
+    @Override
+    public void issueOperatorDeathEvent(Event event) {
+        client.issueOperatorDeathEvent(event);
+    }
+}
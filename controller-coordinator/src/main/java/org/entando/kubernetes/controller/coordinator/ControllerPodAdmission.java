@@ -0,0 +1,302 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.client.Watch;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+
+/**
+ * Limits the number of controller pods that run at the same time, both across the cluster and per namespace of the resources they
+ * process, as well as the CPU and memory they request in total. The pods running are tracked with a watch, so budget is released
+ * as soon as a pod completes or is deleted, at which point the work waiting for budget is signalled to try again. The events of the
+ * watch are passed on to the ControllerPodListeners given, so that the controller pods are only watched once.
+ */
+public class ControllerPodAdmission implements RestartingWatcher<Pod> {
+
+    private static final Logger LOGGER = Logger.getLogger(ControllerPodAdmission.class.getName());
+    private static final Map<String, String> CONTROLLER_POD_SELECTOR = Map.of(LabelNames.JOB_KIND.getName(), "deployer");
+    private final SimpleKubernetesClient client;
+    private final int maxPods;
+    private final int maxPodsPerNamespace;
+    private final long cpuBudgetMillis;
+    private final long memoryBudgetBytes;
+    private final Map<String, Usage> admitted = new HashMap<>();
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private final ControllerPodMetrics podMetrics = new ControllerPodMetrics(OperatorMetrics.getInstance());
+    private final List<ControllerPodListener> listeners;
+    private volatile String lastResourceVersion;
+    private Watch watch;
+
+    public ControllerPodAdmission(SimpleKubernetesClient client, ControllerPodListener... listeners) {
+        this(client, ControllerCoordinatorConfig.getControllerPodBudget(), ControllerCoordinatorConfig.getControllerPodBudgetPerNamespace(),
+                ControllerCoordinatorConfig.getControllerPodCpuBudget().map(s -> toMillis(new Quantity(s))).orElse(0L),
+                ControllerCoordinatorConfig.getControllerPodMemoryBudget().map(s -> toBytes(new Quantity(s))).orElse(0L),
+                List.of(listeners));
+    }
+
+    public ControllerPodAdmission(SimpleKubernetesClient client, int maxPods, int maxPodsPerNamespace, long cpuBudgetMillis,
+            long memoryBudgetBytes) {
+        this(client, maxPods, maxPodsPerNamespace, cpuBudgetMillis, memoryBudgetBytes, List.of());
+    }
+
+    /**
+     * Limits that are zero or less are not enforced.
+     */
+    public ControllerPodAdmission(SimpleKubernetesClient client, int maxPods, int maxPodsPerNamespace, long cpuBudgetMillis,
+            long memoryBudgetBytes, List<ControllerPodListener> listeners) {
+        this.client = client;
+        this.listeners = List.copyOf(listeners);
+        this.maxPods = maxPods;
+        this.maxPodsPerNamespace = maxPodsPerNamespace;
+        this.cpuBudgetMillis = cpuBudgetMillis;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        getRestartingAction().run();
+    }
+
+    /**
+     * Reserves budget for the pod about to be created. Returns false if the pod does not fit in the budget yet. Earlier controller
+     * pods of the same resource are removed before the new pod is started, so the new pod takes over their budget.
+     */
+    public synchronized boolean tryAdmit(Pod pod) {
+        final Usage usage = new Usage(pod);
+        final List<Usage> replaced = admitted.values().stream()
+                .filter(u -> !u.podName.equals(usage.podName) && u.isForSameResourceAs(usage))
+                .collect(Collectors.toList());
+        replaced.forEach(u -> admitted.remove(u.podName));
+        if (!fits(usage)) {
+            replaced.forEach(u -> admitted.put(u.podName, u));
+            LOGGER.log(Level.FINE, () -> format("Controller pod %s for namespace %s has to wait for budget. %s", usage.podName,
+                    usage.namespace, describeUsage()));
+            return false;
+        }
+        admitted.put(usage.podName, usage);
+        return true;
+    }
+
+    /**
+     * Returns a future that completes as soon as there is budget for the pod, or immediately if there is budget already.
+     */
+    public synchronized CompletableFuture<Void> whenAdmissible(Pod pod) {
+        if (fits(new Usage(pod))) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    public void release(String podName) {
+        releaseWhere(usage -> usage.podName.equals(podName));
+    }
+
+    /**
+     * Releases the budget of all pods carrying the labels, typically after those pods have been removed.
+     */
+    public void releaseMatching(Map<String, String> labels) {
+        releaseWhere(usage -> usage.labels.entrySet().containsAll(labels.entrySet()));
+    }
+
+    public synchronized int getRunningCount() {
+        return admitted.size();
+    }
+
+    public synchronized int getRunningCount(String namespace) {
+        return (int) admitted.values().stream().filter(usage -> namespace.equals(usage.namespace)).count();
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiters.size();
+    }
+
+    /**
+     * Exposes the budget in use as gauges.
+     */
+    public void registerMetrics(OperatorMetrics metrics) {
+        metrics.gauge("entando_controller_pods_running", "Controller pods holding admission budget", this::getRunningCount);
+        metrics.gauge("entando_controller_pods_waiting", "Work waiting for admission budget", this::getWaitingCount);
+    }
+
+    public void close() {
+        final Watch current;
+        synchronized (this) {
+            current = this.watch;
+            this.watch = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    @Override
+    public void eventReceived(Action action, Pod pod) {
+        this.lastResourceVersion = pod.getMetadata().getResourceVersion();
+        podMetrics.observe(action, pod);
+        if (action == Action.DELETED || isCompleted(pod)) {
+            release(pod.getMetadata().getName());
+        } else if (action == Action.ADDED || action == Action.MODIFIED) {
+            synchronized (this) {
+                //Pods started by a previous coordinator, or by another replica, count against the budget too
+                admitted.put(pod.getMetadata().getName(), new Usage(pod));
+            }
+        }
+        listeners.forEach(listener -> listener.podChanged(action, pod));
+    }
+
+    @Override
+    public Runnable getRestartingAction() {
+        return () -> {
+            if (lastResourceVersion == null) {
+                relist();
+            }
+            final Watch newWatch = client.watchControllerPods(CONTROLLER_POD_SELECTOR, lastResourceVersion, this);
+            synchronized (this) {
+                this.watch = newWatch;
+            }
+        };
+    }
+
+    @Override
+    public void forgetLastResourceVersion() {
+        this.lastResourceVersion = null;
+    }
+
+    @Override
+    public void issueOperatorDeathEvent(Event event) {
+        client.issueOperatorDeathEvent(event);
+    }
+
+    private void relist() {
+        final Set<String> running = new HashSet<>();
+        final List<Pod> pods = client.loadControllerPods(CONTROLLER_POD_SELECTOR);
+        synchronized (this) {
+            for (Pod pod : pods) {
+                if (!isCompleted(pod)) {
+                    running.add(pod.getMetadata().getName());
+                    admitted.put(pod.getMetadata().getName(), new Usage(pod));
+                }
+            }
+        }
+        //Pods admitted earlier that are no longer running have completed while nobody was watching
+        releaseWhere(usage -> usage.observed && !running.contains(usage.podName));
+        listeners.forEach(listener -> listener.podsRelisted(pods));
+    }
+
+    private void releaseWhere(Predicate<Usage> predicate) {
+        final List<CompletableFuture<Void>> toSignal;
+        synchronized (this) {
+            if (!admitted.values().removeIf(predicate)) {
+                return;
+            }
+            toSignal = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        //Every waiter tries again. Those that still do not fit will wait again
+        toSignal.forEach(waiter -> waiter.complete(null));
+    }
+
+    private boolean fits(Usage usage) {
+        if (admitted.isEmpty() || admitted.containsKey(usage.podName)) {
+            //Never block the only pod, even if it requests more than the CPU or memory budget on its own
+            return true;
+        }
+        final long podsInNamespace = admitted.values().stream().filter(u -> u.namespace.equals(usage.namespace)).count();
+        final long cpu = admitted.values().stream().mapToLong(u -> u.cpuMillis).sum();
+        final long memory = admitted.values().stream().mapToLong(u -> u.memoryBytes).sum();
+        return (maxPods <= 0 || admitted.size() < maxPods)
+                && (maxPodsPerNamespace <= 0 || podsInNamespace < maxPodsPerNamespace)
+                && (cpuBudgetMillis <= 0 || cpu + usage.cpuMillis <= cpuBudgetMillis)
+                && (memoryBudgetBytes <= 0 || memory + usage.memoryBytes <= memoryBudgetBytes);
+    }
+
+    private String describeUsage() {
+        return format("Running controller pods: %s/%s, CPU: %sm/%sm, memory: %s/%s bytes", admitted.size(), maxPods,
+                admitted.values().stream().mapToLong(u -> u.cpuMillis).sum(), cpuBudgetMillis,
+                admitted.values().stream().mapToLong(u -> u.memoryBytes).sum(), memoryBudgetBytes);
+    }
+
+    private static boolean isCompleted(Pod pod) {
+        return pod.getStatus() != null && ("Succeeded".equals(pod.getStatus().getPhase()) || "Failed".equals(pod.getStatus().getPhase()));
+    }
+
+    static long toMillis(Quantity quantity) {
+        return Quantity.getAmountInBytes(quantity).multiply(BigDecimal.valueOf(1000)).longValue();
+    }
+
+    static long toBytes(Quantity quantity) {
+        return Quantity.getAmountInBytes(quantity).longValue();
+    }
+
+    private static class Usage {
+
+        private final String podName;
+        private final String namespace;
+        private final Map<String, String> labels;
+        private final long cpuMillis;
+        private final long memoryBytes;
+        //Pods that have been seen on the server, as opposed to pods that have only been admitted
+        private final boolean observed;
+
+        private Usage(Pod pod) {
+            this.podName = pod.getMetadata().getName();
+            this.labels = Optional.ofNullable(pod.getMetadata().getLabels()).orElse(Map.of());
+            this.namespace = labels.getOrDefault(LabelNames.RESOURCE_NAMESPACE.getName(), "");
+            this.observed = pod.getMetadata().getUid() != null;
+            long cpu = 0L;
+            long memory = 0L;
+            if (pod.getSpec() != null) {
+                for (Container container : pod.getSpec().getContainers()) {
+                    if (container.getResources() != null && container.getResources().getRequests() != null) {
+                        final Map<String, Quantity> requests = container.getResources().getRequests();
+                        cpu += Optional.ofNullable(requests.get("cpu")).map(ControllerPodAdmission::toMillis).orElse(0L);
+                        memory += Optional.ofNullable(requests.get("memory")).map(ControllerPodAdmission::toBytes).orElse(0L);
+                    }
+                }
+            }
+            this.cpuMillis = cpu;
+            this.memoryBytes = memory;
+        }
+
+        private boolean isForSameResourceAs(Usage other) {
+            final String kind = labels.get(LabelNames.RESOURCE_KIND.getName());
+            return kind != null
+                    && kind.equals(other.labels.get(LabelNames.RESOURCE_KIND.getName()))
+                    && namespace.equals(other.namespace)
+                    && labels.get(kind) != null
+                    && labels.get(kind).equals(other.labels.get(kind));
+        }
+    }
+}
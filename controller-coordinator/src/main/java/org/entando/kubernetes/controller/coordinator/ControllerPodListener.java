@@ -0,0 +1,35 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.util.List;
+
+/**
+ * Receives the events of the controller pod watch of the ControllerPodAdmission, so that other components that track controller
+ * pods do not need a watch of their own.
+ */
+public interface ControllerPodListener {
+
+    void podChanged(Action action, Pod pod);
+
+    /**
+     * Receives all the controller pods whenever they are listed again. Pods that are not listed no longer exist.
+     */
+    void podsRelisted(List<Pod> pods);
+}
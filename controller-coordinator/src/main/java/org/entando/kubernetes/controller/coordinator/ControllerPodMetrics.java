@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import io.fabric8.kubernetes.api.model.ContainerStateRunning;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Timer;
+
+/**
+ * Derives metrics from the controller pods seen by the coordinator: the time it took for each pod to start running, and the metrics
+ * snapshot that each pod leaves in its termination message when it exits. Every pod is accounted for once.
+ */
+public class ControllerPodMetrics {
+
+    private final OperatorMetrics metrics;
+    private final Timer startupTime;
+    private final Set<String> started = new HashSet<>();
+    private final Set<String> absorbed = new HashSet<>();
+
+    public ControllerPodMetrics(OperatorMetrics metrics) {
+        this.metrics = metrics;
+        this.startupTime = metrics.timer("entando_controller_pod_startup_seconds",
+                "Time from the creation of a controller pod until its container is running");
+    }
+
+    public synchronized void observe(Action action, Pod pod) {
+        final String uid = pod.getMetadata().getUid();
+        if (uid == null || pod.getStatus() == null) {
+            return;
+        }
+        final List<ContainerStatus> statuses = Optional.ofNullable(pod.getStatus().getContainerStatuses()).orElse(List.of());
+        if (!started.contains(uid)) {
+            statuses.stream()
+                    .map(status -> status.getState() == null ? null : status.getState().getRunning())
+                    .filter(running -> running != null && running.getStartedAt() != null)
+                    .map(ContainerStateRunning::getStartedAt)
+                    .findFirst()
+                    .ifPresent(startedAt -> {
+                        started.add(uid);
+                        recordStartup(pod.getMetadata().getCreationTimestamp(), startedAt);
+                    });
+        }
+        if (!absorbed.contains(uid)) {
+            statuses.stream()
+                    .map(status -> status.getState() == null ? null : status.getState().getTerminated())
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .ifPresent(terminated -> {
+                        absorbed.add(uid);
+                        metrics.absorb(terminated.getMessage());
+                    });
+        }
+        if (action == Action.DELETED) {
+            started.remove(uid);
+            absorbed.remove(uid);
+        }
+    }
+
+    private void recordStartup(String createdAt, String startedAt) {
+        if (createdAt == null) {
+            return;
+        }
+        try {
+            final Duration duration = Duration.between(Instant.parse(createdAt), Instant.parse(startedAt));
+            if (!duration.isNegative()) {
+                startupTime.record(duration.toNanos());
+            }
+        } catch (DateTimeParseException e) {
+            //Timestamps that can't be parsed are not worth failing the watch for
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
+
+/**
+ * Splits the resources observed by the coordinator across its replicas. Every replica holds a Lease in the controller namespace
+ * and renews it periodically. The replicas whose Leases have not expired form a ConsistentHashRing, and each resource is
+ * reconciled only by the replica that owns its namespace or uid on the ring. When a replica stops renewing its Lease, its slice
+ * moves to the remaining replicas on their next refresh. A shard that has not been started owns all resources.
+ */
+public class CoordinatorShard {
+
+    public static final String SHARD_GROUP_LABEL = "entando.org/coordinator-shard-group";
+    public static final String LEASE_NAME_PREFIX = "entando-coordinator-shard-";
+    private static final Logger LOGGER = Logger.getLogger(CoordinatorShard.class.getName());
+    private final SimpleKubernetesClient client;
+    private final List<Runnable> rebalanceListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private volatile String identity;
+    private volatile ConsistentHashRing ring;
+    private volatile long lastRenewedAt;
+    private volatile boolean started;
+    private volatile boolean active;
+    private volatile boolean stopped;
+
+    public CoordinatorShard(SimpleKubernetesClient client) {
+        this(client, null);
+    }
+
+    public CoordinatorShard(SimpleKubernetesClient client, String identity) {
+        this.client = client;
+        this.identity = identity;
+    }
+
+    public synchronized void start() {
+        if (identity == null) {
+            this.identity = EntandoOperatorSpiConfig.getControllerPodName();
+        }
+        this.started = true;
+        //Renew synchronously so that the ring is known before the observers list their resources
+        renewAndRefresh();
+        final long interval = ControllerCoordinatorConfig.getShardRenewIntervalSeconds();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        if (getMembers().size() > 1) {
+            //The other replicas only release our slice on their next refresh, so wait for them to avoid processing it twice
+            this.scheduler.schedule(this::activate, interval, TimeUnit.SECONDS);
+        } else {
+            this.active = true;
+        }
+        this.scheduler.scheduleWithFixedDelay(this::renewAndRefresh, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private void activate() {
+        this.active = true;
+        LOGGER.log(Level.INFO, () -> format("Coordinator shard %s is now processing its slice", identity));
+        rebalanceListeners.forEach(Runnable::run);
+    }
+
+    public synchronized void stop() {
+        if (started && !stopped) {
+            this.stopped = true;
+            scheduler.shutdownNow();
+            try {
+                //Hand the slice over to the remaining replicas without waiting for the Lease to expire
+                client.deleteControllerLease(leaseNameOf(identity));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, e, () -> format("Could not release the shard lease of %s", identity));
+            }
+        }
+    }
+
+    public void addRebalanceListener(Runnable listener) {
+        rebalanceListeners.add(listener);
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    public Set<String> getMembers() {
+        final ConsistentHashRing current = ring;
+        return current == null ? Collections.emptySet() : current.getMembers();
+    }
+
+    public boolean isOwnedLocally(HasMetadata resource) {
+        if (!started) {
+            return true;
+        }
+        final ConsistentHashRing current = ring;
+        if (!active || stopped || current == null || hasLeaseExpired()) {
+            //Another replica may already have taken over our slice
+            return false;
+        }
+        return identity.equals(current.ownerOf(shardKeyOf(resource)));
+    }
+
+    private boolean hasLeaseExpired() {
+        return System.nanoTime() - lastRenewedAt > TimeUnit.SECONDS.toNanos(ControllerCoordinatorConfig.getShardLeaseDurationSeconds());
+    }
+
+    private String shardKeyOf(HasMetadata resource) {
+        if (ControllerCoordinatorConfig.getShardKey() == ShardKey.UID) {
+            return resource.getMetadata().getUid();
+        }
+        return resource.getMetadata().getNamespace();
+    }
+
+    private void renewAndRefresh() {
+        try {
+            renew();
+            refresh();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, e, () -> format("Could not renew the shard lease of %s", identity));
+        }
+    }
+
+    private void renew() {
+        final long renewedAt = System.nanoTime();
+        client.createOrReplaceControllerLease(new LeaseBuilder()
+                .withNewMetadata()
+                .withNamespace(client.getControllerNamespace())
+                .withName(leaseNameOf(identity))
+                .addToLabels(SHARD_GROUP_LABEL, getShardGroup())
+                .endMetadata()
+                .withNewSpec()
+                .withHolderIdentity(identity)
+                .withLeaseDurationSeconds(ControllerCoordinatorConfig.getShardLeaseDurationSeconds())
+                .withRenewTime(ZonedDateTime.now(ZoneOffset.UTC))
+                .endSpec()
+                .build());
+        this.lastRenewedAt = renewedAt;
+    }
+
+    private void refresh() {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        final Set<String> members = client.loadControllerLeases(Map.of(SHARD_GROUP_LABEL, getShardGroup())).stream()
+                .filter(lease -> isAlive(lease, now))
+                .map(lease -> lease.getSpec().getHolderIdentity())
+                .collect(Collectors.toSet());
+        members.add(identity);
+        final ConsistentHashRing previous = ring;
+        if (previous == null || !previous.getMembers().equals(members)) {
+            this.ring = new ConsistentHashRing(members);
+            LOGGER.log(Level.INFO, () -> format("Coordinator shard %s is now one of %s replicas: %s", identity, members.size(), members));
+            if (previous != null && active) {
+                rebalanceListeners.forEach(Runnable::run);
+            }
+        }
+    }
+
+    private static boolean isAlive(Lease lease, ZonedDateTime now) {
+        return lease.getSpec() != null
+                && lease.getSpec().getHolderIdentity() != null
+                && lease.getSpec().getRenewTime() != null
+                && lease.getSpec().getLeaseDurationSeconds() != null
+                && lease.getSpec().getRenewTime().plusSeconds(lease.getSpec().getLeaseDurationSeconds()).isAfter(now);
+    }
+
+    private static String getShardGroup() {
+        return EntandoOperatorConfigBase.lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_OPERATOR_ID).orElse("default");
+    }
+
+    public static String leaseNameOf(String identity) {
+        return LEASE_NAME_PREFIX + identity;
+    }
+}
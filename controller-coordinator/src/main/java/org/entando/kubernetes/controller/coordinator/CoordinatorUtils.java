@@ -93,4 +93,17 @@ public class CoordinatorUtils {
                 resource.getKind(), NameUtils.shortenLabelToMaxLength(resource.getMetadata().getName()));
     }
 
+
+    /**
+     * Compares the resourceVersions of two resources. ResourceVersions are opaque, so resources with non-numeric resourceVersions are
+     * treated as equal.
+     */
+    public static int compareResourceVersions(HasMetadata resource, HasMetadata otherResource) {
+        try {
+            return Long.compare(Long.parseLong(resource.getMetadata().getResourceVersion()),
+                    Long.parseLong(otherResource.getMetadata().getResourceVersion()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
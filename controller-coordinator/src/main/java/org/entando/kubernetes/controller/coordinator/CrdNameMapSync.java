@@ -27,6 +27,7 @@ class CrdNameMapSync implements RestartingWatcher<CustomResourceDefinition> {
 
     private ConfigMap crdNameMap;
     private final SimpleKubernetesClient client;
+    private volatile String lastResourceVersion;
 
     CrdNameMapSync(SimpleKubernetesClient client, List<CustomResourceDefinition> customResourceDefinitions) {
         this.client = client;
@@ -38,7 +39,12 @@ class CrdNameMapSync implements RestartingWatcher<CustomResourceDefinition> {
 
     @Override
     public Runnable getRestartingAction() {
-        return () -> this.client.watchCustomResourceDefinitions(this);
+        return () -> this.client.watchCustomResourceDefinitions(lastResourceVersion, this);
+    }
+
+    @Override
+    public void forgetLastResourceVersion() {
+        this.lastResourceVersion = null;
     }
 
     @Override
@@ -48,6 +54,7 @@ class CrdNameMapSync implements RestartingWatcher<CustomResourceDefinition> {
 
     @Override
     public void eventReceived(Action action, CustomResourceDefinition r) {
+        this.lastResourceVersion = r.getMetadata().getResourceVersion();
         if (CoordinatorUtils.isOfInterest(r)) {
             crdNameMap = client.findOrCreateControllerConfigMap(CoordinatorUtils.ENTANDO_CRD_NAMES_CONFIGMAP_NAME);
             syncName(r);
@@ -16,22 +16,46 @@
 
 package org.entando.kubernetes.controller.coordinator;
 
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Status;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 
 public class CustomResourceStringWatcher implements RestartingWatcher<String>, Watch {
 
+    private static final Logger LOGGER = Logger.getLogger(CustomResourceStringWatcher.class.getName());
+    private static final Set<String> SUMMARIZED_ANNOTATIONS = Set.of(AnnotationNames.OPERATOR_ID_ANNOTATION.getName(),
+            AnnotationNames.PROCESSING_INSTRUCTION.getName());
+
     private final SerializedResourceWatcher observer;
     private final CustomResourceDefinitionContext definitionContext;
     private final Function<CustomResourceStringWatcher, Watch> restartingFunction;
+    private final Supplier<String> relistingAction;
+    private final ObjectMapper objectMapper = ObjectMapperUtils.jsonMapper();
     private DeathEventIssuer deathEventIssuer;
-    private Watch watch;
+    private volatile Watch watch;
+    private volatile String lastResourceVersion;
 
     public Watch getWatch() {
         return watch;
@@ -41,18 +65,57 @@ public class CustomResourceStringWatcher implements RestartingWatcher<String>, W
             CustomResourceDefinitionContext definitionContext,
             Function<CustomResourceStringWatcher, Watch> restartingFunction,
             DeathEventIssuer deathEventIssuer) {
+        this(observer, definitionContext, restartingFunction, deathEventIssuer, null);
+    }
+
+    public CustomResourceStringWatcher(SerializedResourceWatcher observer,
+            CustomResourceDefinitionContext definitionContext,
+            Function<CustomResourceStringWatcher, Watch> restartingFunction,
+            DeathEventIssuer deathEventIssuer,
+            String initialResourceVersion) {
+        this(observer, definitionContext, restartingFunction, deathEventIssuer, initialResourceVersion, () -> null);
+    }
+
+    /**
+     * Starts watching from the resourceVersion specified, typically that of the list the observer has just processed. When that
+     * resourceVersion expires, the relisting action lists the resources again and returns the resourceVersion to resume from.
+     */
+    public CustomResourceStringWatcher(SerializedResourceWatcher observer,
+            CustomResourceDefinitionContext definitionContext,
+            Function<CustomResourceStringWatcher, Watch> restartingFunction,
+            DeathEventIssuer deathEventIssuer,
+            String initialResourceVersion,
+            Supplier<String> relistingAction) {
         this.observer = observer;
         this.definitionContext = definitionContext;
         this.restartingFunction = restartingFunction;
+        this.relistingAction = relistingAction;
         this.deathEventIssuer = deathEventIssuer;
+        this.lastResourceVersion = initialResourceVersion;
         getRestartingAction().run();
     }
 
+    public String getLastResourceVersion() {
+        return lastResourceVersion;
+    }
+
     @Override
     public Runnable getRestartingAction() {
         return () -> this.watch = restartingFunction.apply(this);
     }
 
+    @Override
+    public void forgetLastResourceVersion() {
+        try {
+            this.lastResourceVersion = relistingAction.get();
+        } catch (RuntimeException e) {
+            //A watch without a resourceVersion replays the resources that still exist, but not those deleted in the meantime
+            LOGGER.log(Level.WARNING, e, () -> format("Could not relist %s. Replaying its current state instead.",
+                    definitionContext.getName()));
+            this.lastResourceVersion = null;
+        }
+    }
+
     @Override
     public void issueOperatorDeathEvent(Event event) {
         deathEventIssuer.issueOperatorDeathEvent(event);
@@ -61,13 +124,117 @@ public class CustomResourceStringWatcher implements RestartingWatcher<String>, W
     @Override
     public void eventReceived(Action action, String s) {
         ioSafe(() -> {
-            final SerializedEntandoResource r = new ObjectMapper().readValue(s, SerializedEntandoResource.class);
-            r.setDefinition(definitionContext);
-            observer.eventReceived(action, r);
+            if (action == Action.ERROR) {
+                processError(objectMapper.readValue(s, Status.class));
+            } else {
+                //Most events can be discarded based on their metadata alone, without binding the spec and the status
+                final SerializedEntandoResource summary = readSummary(s);
+                this.lastResourceVersion = summary.getMetadata().getResourceVersion();
+                if (observer.isOfInterest(action, summary)) {
+                    final SerializedEntandoResource r = objectMapper.readValue(s, SerializedEntandoResource.class);
+                    r.setDefinition(definitionContext);
+                    observer.eventReceived(action, r);
+                }
+            }
             return null;
         });
     }
 
+    /**
+     * Streams through the event up to the end of its metadata, and only keeps the fields that SerializedResourceWatcher.isOfInterest
+     * can rely on.
+     */
+    SerializedEntandoResource readSummary(String json) throws IOException {
+        final SerializedEntandoResource summary = new SerializedEntandoResource();
+        summary.setDefinition(definitionContext);
+        summary.setMetadata(new ObjectMeta());
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (field.equals("metadata")) {
+                        readMetadata(parser, summary.getMetadata());
+                        //The spec and the status that follow are not needed
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        return summary;
+    }
+
+    private void readMetadata(JsonParser parser, ObjectMeta metadata) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    metadata.setName(parser.getText());
+                    break;
+                case "namespace":
+                    metadata.setNamespace(parser.getText());
+                    break;
+                case "uid":
+                    metadata.setUid(parser.getText());
+                    break;
+                case "resourceVersion":
+                    metadata.setResourceVersion(parser.getText());
+                    break;
+                case "generation":
+                    metadata.setGeneration(parser.getLongValue());
+                    break;
+                case "annotations":
+                    metadata.setAnnotations(readAnnotations(parser));
+                    break;
+                case "ownerReferences":
+                    metadata.setOwnerReferences(Arrays.asList(parser.readValueAs(OwnerReference[].class)));
+                    break;
+                default:
+                    //Most notably the managedFields, which can be larger than the rest of the resource
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private Map<String, String> readAnnotations(JsonParser parser) throws IOException {
+        final Map<String, String> annotations = new HashMap<>();
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                if (SUMMARIZED_ANNOTATIONS.contains(name)) {
+                    annotations.put(name, parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return annotations;
+    }
+
+    private void processError(Status status) {
+        if (status.getCode() != null && status.getCode() == HttpURLConnection.HTTP_GONE) {
+            //Raw watches report an expired resourceVersion as an ERROR event rather than closing the watch
+            LOGGER.log(Level.WARNING, () -> format("The watch on %s closed due to out of date resourceVersion. Relisting ... ",
+                    definitionContext.getName()));
+            final Watch expiredWatch = this.watch;
+            forgetLastResourceVersion();
+            ofNullable(expiredWatch).ifPresent(Watch::close);
+            getRestartingAction().run();
+        } else {
+            LOGGER.log(Level.WARNING, () -> format("The watch on %s received an error: %s", definitionContext.getName(),
+                    status.getMessage()));
+        }
+    }
+
     @Override
     public void close() {
         getWatch().close();
@@ -20,14 +20,20 @@ import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.api.model.ObjectReferenceBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import org.entando.kubernetes.controller.spi.client.impl.AsyncEventSink;
+import org.entando.kubernetes.controller.spi.client.impl.EventRecorder;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
 
 public class DeathEventIssuerBase implements DeathEventIssuer {
 
     protected final KubernetesClient client;
+    protected final EventRecorder eventRecorder;
+    protected final AsyncEventSink eventSink;
 
     public DeathEventIssuerBase(KubernetesClient client) {
         this.client = client;
+        this.eventRecorder = new EventRecorder(client);
+        this.eventSink = new AsyncEventSink(eventRecorder);
     }
 
     @Override
@@ -43,6 +49,7 @@ public class DeathEventIssuerBase implements DeathEventIssuer {
                 .withResourceVersion(pod.getMetadata().getResourceVersion())
                 .build());
         event.getInvolvedObject().setNamespace(client.getNamespace());
-        client.v1().events().inNamespace(client.getNamespace()).createOrReplace(event);
+        //The process is about to die, so this Event is written synchronously
+        eventRecorder.record(event);
     }
 }
@@ -20,17 +20,15 @@ import static java.lang.String.format;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interruptionSafe;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ListOptions;
-import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
-import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import io.fabric8.kubernetes.client.dsl.internal.RawCustomResourceOperationsImpl;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,44 +40,68 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
-import org.entando.kubernetes.controller.spi.common.PodResult;
-import org.entando.kubernetes.controller.spi.common.PodResult.State;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
+import org.entando.kubernetes.controller.support.client.impl.PodLifecycleTracker;
 
 public class DefaultSimpleEntandoOperations extends DeathEventIssuerBase implements SimpleEntandoOperations {
 
     private static final Logger LOGGER = Logger.getLogger(DefaultSimpleEntandoOperations.class.getName());
+    private static final int MAX_LIST_RESTARTS = 3;
 
     private final RawCustomResourceOperationsImpl operations;
     private final boolean anyNamespace;
     private final CustomResourceDefinitionContext definitionContext;
+    private final PodLifecycleTracker podTracker;
 
     public DefaultSimpleEntandoOperations(KubernetesClient client, CustomResourceDefinitionContext definitionContext,
             RawCustomResourceOperationsImpl operations, boolean anyNamespace) {
+        this(client, definitionContext, operations, anyNamespace,
+                new PodLifecycleTracker(client, Map.of(LabelNames.JOB_KIND.getName(), "deployer")));
+    }
+
+    public DefaultSimpleEntandoOperations(KubernetesClient client, CustomResourceDefinitionContext definitionContext,
+            RawCustomResourceOperationsImpl operations, boolean anyNamespace, PodLifecycleTracker podTracker) {
         super(client);
         this.definitionContext = definitionContext;
         this.operations = operations;
         this.anyNamespace = anyNamespace;
+        this.podTracker = podTracker;
     }
 
     @Override
     public SimpleEntandoOperations inNamespace(String namespace) {
-        return new DefaultSimpleEntandoOperations(client, definitionContext, operations.inNamespace(namespace), false);
+        return new DefaultSimpleEntandoOperations(client, definitionContext, operations.inNamespace(namespace), false, podTracker);
     }
 
     @Override
     public SimpleEntandoOperations inAnyNamespace() {
-        return new DefaultSimpleEntandoOperations(client, getDefinitionContext(), operations.inAnyNamespace(), true);
+        return new DefaultSimpleEntandoOperations(client, getDefinitionContext(), operations.inAnyNamespace(), true, podTracker);
+    }
+
+    @Override
+    public String getNamespace() {
+        return anyNamespace ? null : operations.getNamespace();
     }
 
     @Override
     public Watch watch(SerializedResourceWatcher observer) {
+        return watch(observer, null);
+    }
+
+    @Override
+    public Watch watch(SerializedResourceWatcher observer, String resourceVersion) {
         Function<CustomResourceStringWatcher, Watch> restartingAction = customResourceWatcher -> {
             try {
+                //Resume from the last resourceVersion processed, if any, to avoid replaying the current state of every resource
+                final ListOptions listOptions = new ListOptionsBuilder()
+                        .withResourceVersion(customResourceWatcher.getLastResourceVersion())
+                        .build();
                 if (anyNamespace) {
-                    return operations.watch((Map<String, String>) null, null, customResourceWatcher);
+                    return operations.watch((Map<String, String>) null, listOptions, customResourceWatcher);
                 } else {
                     return operations
-                            .watch(operations.getNamespace(), null, null, (ListOptions) null, customResourceWatcher);
+                            .watch(operations.getNamespace(), null, null, listOptions, customResourceWatcher);
                 }
             } catch (IOException e) {
                 LOGGER.log(Level.SEVERE, e,
@@ -88,7 +110,8 @@ public class DefaultSimpleEntandoOperations extends DeathEventIssuerBase impleme
                 throw new IllegalStateException();
             }
         };
-        return new CustomResourceStringWatcher(observer, definitionContext, restartingAction, this);
+        return new CustomResourceStringWatcher(observer, definitionContext, restartingAction, this, resourceVersion,
+                () -> observer.relist(this));
     }
 
     @Override
@@ -98,6 +121,35 @@ public class DefaultSimpleEntandoOperations extends DeathEventIssuerBase impleme
         return items.stream().map(this::toResource).collect(Collectors.toList());
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public String list(int chunkSize, Consumer<SerializedEntandoResource> consumer) {
+        String continueToken = null;
+        String resourceVersion = null;
+        int restarts = 0;
+        boolean more = true;
+        while (more) {
+            final Map<String, Object> chunk;
+            try {
+                chunk = operations.list(new ListOptionsBuilder().withLimit((long) chunkSize).withContinue(continueToken).build());
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_GONE || continueToken == null || ++restarts > MAX_LIST_RESTARTS) {
+                    throw e;
+                }
+                //The continue token expired. Start over. The resources already processed will be ignored as duplicates
+                LOGGER.log(Level.WARNING, () -> format("The list of %s expired. Relisting ... ", definitionContext.getName()));
+                continueToken = null;
+                continue;
+            }
+            ((List<Map<String, Object>>) chunk.get("items")).forEach(item -> consumer.accept(toResource(item)));
+            final Map<String, Object> metadata = (Map<String, Object>) chunk.getOrDefault("metadata", Map.of());
+            continueToken = (String) metadata.get("continue");
+            resourceVersion = (String) metadata.get("resourceVersion");
+            more = continueToken != null && !continueToken.isEmpty();
+        }
+        return resourceVersion;
+    }
+
     @Override
     public SerializedEntandoResource removeAnnotation(SerializedEntandoResource r, String name) {
         return editAnnotations(r, a -> a.remove(name));
@@ -117,10 +169,7 @@ public class DefaultSimpleEntandoOperations extends DeathEventIssuerBase impleme
     }
 
     private SerializedEntandoResource toResource(Map<String, Object> map) {
-        return ioSafe(() -> {
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.readValue(objectMapper.writeValueAsString(map), SerializedEntandoResource.class);
-        });
+        return ObjectMapperUtils.convert(map, SerializedEntandoResource.class);
     }
 
     @Override
@@ -141,27 +190,21 @@ public class DefaultSimpleEntandoOperations extends DeathEventIssuerBase impleme
     @Override
     public void removeSuccessfullyCompletedPods(SerializedEntandoResource resource) throws TimeoutException {
         String namespace = client.getNamespace();
-        FilterWatchListDeletable<Pod, PodList> podResource = client.pods().inNamespace(namespace).withLabels(
-                CoordinatorUtils.podLabelsFor(resource));
+        final Map<String, String> labels = CoordinatorUtils.podLabelsFor(resource);
         interruptionSafe(() -> {
-            waitForCompletionOfPods(podResource);
-            removePodsAndWait(podResource);
+            waitForCompletionOfPods(namespace, labels);
+            client.pods().inNamespace(namespace).withLabels(labels).delete();
+            PodLifecycleTracker.await(podTracker.whenAllGone(namespace, labels),
+                    ControllerCoordinatorConfig.getPodShutdownTimeoutSeconds(), TimeUnit.SECONDS);
             return null;
         });
     }
 
-    private void removePodsAndWait(FilterWatchListDeletable<Pod, PodList> podResource) throws InterruptedException {
-        podResource.delete();
-        podResource.waitUntilCondition(ignore -> podResource.list().getItems().isEmpty(),
-                ControllerCoordinatorConfig.getPodShutdownTimeoutSeconds(), TimeUnit.SECONDS);
-    }
-
-    private void waitForCompletionOfPods(FilterWatchListDeletable<Pod, PodList> podResource) throws InterruptedException {
+    private void waitForCompletionOfPods(String namespace, Map<String, String> labels) throws InterruptedException {
         try {
-            podResource.waitUntilCondition(
-                    ignored -> podResource.list().getItems().stream().allMatch(pod -> PodResult.of(pod).getState() == State.COMPLETED),
+            PodLifecycleTracker.await(podTracker.whenAllCompleted(namespace, labels),
                     ControllerCoordinatorConfig.getRemovalDelay(), TimeUnit.SECONDS);
-        } catch (KubernetesClientException e) {
+        } catch (TimeoutException e) {
             LOGGER.log(Level.WARNING, e, () -> format(
                     "Some pods remained active after the removal delay period. You can consider increasing the setting %s ",
                     ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_REMOVAL_DELAY.getJvmSystemProperty()));
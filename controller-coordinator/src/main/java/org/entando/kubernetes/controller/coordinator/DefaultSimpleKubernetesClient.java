@@ -19,24 +19,26 @@ package org.entando.kubernetes.controller.coordinator;
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interruptionSafe;
-import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
-import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
-import io.fabric8.kubernetes.client.dsl.internal.RawCustomResourceOperationsImpl;
 import java.net.HttpURLConnection;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -52,11 +54,15 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.client.impl.StatusMergePatch;
 import org.entando.kubernetes.controller.spi.common.LabelNames;
 import org.entando.kubernetes.controller.spi.common.NameUtils;
 import org.entando.kubernetes.controller.spi.common.ResourceUtils;
+import org.entando.kubernetes.controller.support.client.impl.PodLifecycleTracker;
 import org.entando.kubernetes.model.common.EntandoCustomResource;
 import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
 
@@ -69,11 +75,32 @@ public class DefaultSimpleKubernetesClient extends DeathEventIssuerBase implemen
     private static final Watch NOOP_WATCH = () -> {
     };
 
+    private static final Logger LOGGER = Logger.getLogger(DefaultSimpleKubernetesClient.class.getName());
     Map<String, CustomResourceDefinitionContext> definitionContextMap = new ConcurrentHashMap<>();
+    private final EntandoResourceCache resourceCache = new EntandoResourceCache();
+    private final WatchedResourceCache<ConfigMap> configMapCache;
+    private final WatchedResourceCache<Secret> secretCache;
+    private final WatchedResourceCache<Deployment> deploymentCache;
+    private final PodLifecycleTracker podTracker;
 
     public DefaultSimpleKubernetesClient(KubernetesClient client) {
         super(client);
-
+        this.configMapCache = new WatchedResourceCache<>("ConfigMap",
+                name -> client.configMaps().inNamespace(getControllerNamespace()).withName(name).fromServer().get(),
+                (name, resourceVersion, watcher) -> client.configMaps().inNamespace(getControllerNamespace()).withName(name)
+                        .watch(resumingFrom(resourceVersion), watcher),
+                configMap -> new ConfigMapBuilder(configMap).build());
+        this.secretCache = new WatchedResourceCache<>("Secret",
+                name -> client.secrets().inNamespace(getControllerNamespace()).withName(name).fromServer().get(),
+                (name, resourceVersion, watcher) -> client.secrets().inNamespace(getControllerNamespace()).withName(name)
+                        .watch(resumingFrom(resourceVersion), watcher),
+                secret -> new SecretBuilder(secret).build());
+        this.deploymentCache = new WatchedResourceCache<>("Deployment",
+                name -> client.apps().deployments().inNamespace(getControllerNamespace()).withName(name).fromServer().get(),
+                (name, resourceVersion, watcher) -> client.apps().deployments().inNamespace(getControllerNamespace()).withName(name)
+                        .watch(resumingFrom(resourceVersion), watcher),
+                deployment -> new DeploymentBuilder(deployment).build());
+        this.podTracker = new PodLifecycleTracker(client, Map.of(LabelNames.JOB_KIND.getName(), "deployer"));
     }
 
     @Override
@@ -91,6 +118,18 @@ public class DefaultSimpleKubernetesClient extends DeathEventIssuerBase implemen
         );
     }
 
+    @Override
+    public void flushEvents(long timeout, TimeUnit timeUnit) {
+        try {
+            if (!eventSink.flush(timeout, timeUnit)) {
+                LOGGER.log(Level.WARNING, () -> format("%s Events were still pending after %s %s", eventSink.pendingCount(), timeout,
+                        timeUnit));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private SerializedEntandoResource performStatusUpdate(SerializedEntandoResource customResource,
             Consumer<SerializedEntandoResource> consumer, UnaryOperator<EventBuilder> eventPopulator) {
         final EventBuilder doneableEvent = new EventBuilder()
@@ -113,22 +152,13 @@ public class DefaultSimpleKubernetesClient extends DeathEventIssuerBase implemen
                 .withApiVersion(customResource.getApiVersion())
                 .withFieldPath("status")
                 .endInvolvedObject();
-        client.v1().events().inNamespace(customResource.getMetadata().getNamespace()).create(eventPopulator.apply(doneableEvent).build());
-        return ioSafe(() -> {
-            SerializedEntandoResource ser = customResource;
-            CustomResourceDefinitionContext definition = Optional.ofNullable(ser.getDefinition()).orElse(
-                    resolveDefinitionContext(ser));
-            ser.setDefinition(definition);
-            RawCustomResourceOperationsImpl resource = client.customResource(definition)
-                    .inNamespace(customResource.getMetadata().getNamespace())
-                    .withName(customResource.getMetadata().getName());
-            final ObjectMapper objectMapper = new ObjectMapper();
-            ser = objectMapper.readValue(objectMapper.writeValueAsString(resource.get()), SerializedEntandoResource.class);
-            ser.setDefinition(definition);
-            consumer.accept(ser);
-            final Map<String, Object> map = resource.updateStatus(objectMapper.writeValueAsString(ser));
-            return objectMapper.readValue(objectMapper.writeValueAsString(map), SerializedEntandoResource.class);
-        });
+        eventSink.submit(eventPopulator.apply(doneableEvent).build());
+        //The cached copy is fed by the watch and is usually current. Only the fields that the update changes are written
+        final SerializedEntandoResource current = resourceCache.getByUid(customResource.getMetadata().getUid()).orElse(customResource);
+        final CustomResourceDefinitionContext definition = Optional.ofNullable(customResource.getDefinition())
+                .orElseGet(() -> resolveDefinitionContext(customResource));
+        customResource.setDefinition(definition);
+        return StatusMergePatch.patchStatus(client, definition, current, consumer);
     }
 
     private CustomResourceDefinitionContext resolveDefinitionContext(SerializedEntandoResource resource) {
@@ -147,12 +177,14 @@ public class DefaultSimpleKubernetesClient extends DeathEventIssuerBase implemen
 
     @Override
     public Secret loadControllerSecret(String s) {
-        return client.secrets().inNamespace(getControllerNamespace()).withName(s).fromServer().get();
+        return secretCache.get(s);
     }
 
     @Override
     public Secret overwriteControllerSecret(Secret secret) {
-        return client.secrets().inNamespace(getControllerNamespace()).createOrReplace(secret);
+        final Secret result = client.secrets().inNamespace(getControllerNamespace()).createOrReplace(secret);
+        secretCache.put(result.getMetadata().getName(), result);
+        return result;
     }
 
     @Override
@@ -160,47 +192,123 @@ public class DefaultSimpleKubernetesClient extends DeathEventIssuerBase implemen
         return client.pods().inNamespace(getControllerNamespace()).create(pod);
     }
 
+    @Override
+    public List<Pod> loadControllerPods(Map<String, String> labels) {
+        return client.pods().inNamespace(getControllerNamespace()).withLabels(labels).list().getItems();
+    }
+
+    @Override
+    public Watch watchControllerPods(Map<String, String> labels, String resourceVersion, Watcher<Pod> watcher) {
+        return client.pods().inNamespace(getControllerNamespace()).withLabels(labels).watch(resumingFrom(resourceVersion), watcher);
+    }
+
+    @Override
+    public Deployment createControllerDeploymentIfAbsent(Deployment deployment) {
+        return Objects.requireNonNullElseGet(
+                deploymentCache.get(deployment.getMetadata().getName()),
+                () -> {
+                    final Deployment created = createControllerDeployment(deployment);
+                    deploymentCache.put(created.getMetadata().getName(), created);
+                    return created;
+                });
+    }
+
+    private Deployment createControllerDeployment(Deployment deployment) {
+        try {
+            return client.apps().deployments().inNamespace(getControllerNamespace()).create(deployment);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_CONFLICT) {
+                //Another replica created it before its watch event reached the cache
+                return client.apps().deployments().inNamespace(getControllerNamespace()).withName(deployment.getMetadata().getName())
+                        .fromServer().get();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Deployment createOrReplaceControllerDeployment(Deployment deployment) {
+        final Deployment result = client.apps().deployments().inNamespace(getControllerNamespace()).createOrReplace(deployment);
+        deploymentCache.put(result.getMetadata().getName(), result);
+        return result;
+    }
+
+    @Override
+    public DaemonSet createOrReplaceControllerDaemonSet(DaemonSet daemonSet) {
+        return client.apps().daemonSets().inNamespace(getControllerNamespace()).createOrReplace(daemonSet);
+    }
+
     @Override
     public void removePodsAndWait(String namespace, Map<String, String> labels) throws TimeoutException {
-        FilterWatchListDeletable<Pod, PodList> podResource = client.pods().inNamespace(namespace).withLabels(labels);
-        podResource.delete();
-        interruptionSafe(() ->
-                podResource.waitUntilCondition(pod -> podResource.list().getItems().isEmpty(),
-                        ControllerCoordinatorConfig.getPodShutdownTimeoutSeconds(), TimeUnit.SECONDS));
+        client.pods().inNamespace(namespace).withLabels(labels).delete();
+        interruptionSafe(() -> {
+            PodLifecycleTracker.await(podTracker.whenAllGone(namespace, labels),
+                    ControllerCoordinatorConfig.getPodShutdownTimeoutSeconds(), TimeUnit.SECONDS);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteControllerPods(List<Pod> pods) {
+        client.pods().inNamespace(getControllerNamespace()).delete(pods);
     }
 
     @Override
     public ConfigMap findOrCreateControllerConfigMap(String name) {
         return Objects.requireNonNullElseGet(
-                this.client.configMaps().inNamespace(getControllerNamespace()).withName(name).fromServer().get(),
-                () ->
-                        this.client.configMaps().inNamespace(getControllerNamespace())
-                                .create(new ConfigMapBuilder()
-                                        .withNewMetadata()
-                                        .withNamespace(getControllerNamespace())
-                                        .withName(name)
-                                        .endMetadata()
-                                        .build()));
+                configMapCache.get(name),
+                () -> {
+                    final ConfigMap created = createControllerConfigMap(name);
+                    configMapCache.put(name, created);
+                    return created;
+                });
+    }
+
+    private ConfigMap createControllerConfigMap(String name) {
+        try {
+            return this.client.configMaps().inNamespace(getControllerNamespace())
+                    .create(new ConfigMapBuilder()
+                            .withNewMetadata()
+                            .withNamespace(getControllerNamespace())
+                            .withName(name)
+                            .endMetadata()
+                            .build());
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_CONFLICT) {
+                //Another replica, or another dispatch, created it before its watch event reached the cache
+                return this.client.configMaps().inNamespace(getControllerNamespace()).withName(name).fromServer().get();
+            }
+            throw e;
+        }
     }
 
     @Override
     public ConfigMap patchControllerConfigMap(ConfigMap configMap) {
-        return client.configMaps().inNamespace(getControllerNamespace()).withName(configMap.getMetadata().getName()).patch(configMap);
+        final ConfigMap result = client.configMaps().inNamespace(getControllerNamespace()).withName(configMap.getMetadata().getName())
+                .patch(configMap);
+        configMapCache.put(result.getMetadata().getName(), result);
+        return result;
     }
 
     @Override
-    public void watchControllerConfigMap(String name, Watcher<ConfigMap> configMapWatcher) {
-        this.client.configMaps().inNamespace(getControllerNamespace()).withName(name).watch(configMapWatcher);
+    public Watch watchControllerConfigMap(String name, String resourceVersion, Watcher<ConfigMap> configMapWatcher) {
+        return this.client.configMaps().inNamespace(getControllerNamespace()).withName(name)
+                .watch(resumingFrom(resourceVersion), configMapWatcher);
     }
 
     @Override
-    public Watch watchCustomResourceDefinitions(Watcher<CustomResourceDefinition> customResourceDefinitionWatcher) {
+    public Watch watchCustomResourceDefinitions(String resourceVersion,
+            Watcher<CustomResourceDefinition> customResourceDefinitionWatcher) {
         return performSensitiveOperation(
                 () -> this.client.apiextensions().v1().customResourceDefinitions().withLabel(LabelNames.CRD_OF_INTEREST.getName())
-                        .watch(customResourceDefinitionWatcher),
+                        .watch(resumingFrom(resourceVersion), customResourceDefinitionWatcher),
                 () -> NOOP_WATCH);
     }
 
+    private static ListOptions resumingFrom(String resourceVersion) {
+        return new ListOptionsBuilder().withResourceVersion(resourceVersion).build();
+    }
+
     private <T> T performSensitiveOperation(Supplier<T> operation, Supplier<T> fallbackOperation) {
         try {
             return operation.get();
@@ -226,12 +334,33 @@ public class DefaultSimpleKubernetesClient extends DeathEventIssuerBase implemen
 
     @Override
     public SimpleEntandoOperations getOperations(CustomResourceDefinitionContext context) {
-        return new DefaultSimpleEntandoOperations(client, context, client.customResource(context), true);
+        return new DefaultSimpleEntandoOperations(client, context, client.customResource(context), true, podTracker);
     }
 
     @Override
     public void deleteControllerSecret(String secretName) {
         client.secrets().inNamespace(getControllerNamespace()).withName(secretName).delete();
+        secretCache.put(secretName, null);
+    }
+
+    @Override
+    public EntandoResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    @Override
+    public Lease createOrReplaceControllerLease(Lease lease) {
+        return client.leases().inNamespace(getControllerNamespace()).createOrReplace(lease);
+    }
+
+    @Override
+    public List<Lease> loadControllerLeases(Map<String, String> labels) {
+        return client.leases().inNamespace(getControllerNamespace()).withLabels(labels).list().getItems();
+    }
+
+    @Override
+    public void deleteControllerLease(String name) {
+        client.leases().inNamespace(getControllerNamespace()).withName(name).delete();
     }
 
     public List<Event> listEventsFor(EntandoCustomResource resource) {
@@ -0,0 +1,38 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Thrown by reconcile work that cannot proceed yet. The work queue does not count it as a failure, but submits the work again once
+ * the ready signal completes.
+ */
+public class DeferredWorkException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+    private final transient CompletableFuture<Void> readySignal;
+
+    public DeferredWorkException(String message, CompletableFuture<Void> readySignal) {
+        super(message);
+        this.readySignal = readySignal;
+    }
+
+    public CompletableFuture<Void> getReadySignal() {
+        return readySignal;
+    }
+}
@@ -18,6 +18,7 @@ package org.entando.kubernetes.controller.coordinator;
 
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
+import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interruptionSafe;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.Event;
@@ -26,12 +27,20 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import io.quarkus.runtime.StartupEvent;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
@@ -41,6 +50,8 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.MetricsEndpoint;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
 import org.entando.kubernetes.model.capability.ProvidedCapability;
 import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
 
@@ -54,7 +65,17 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
     private ControllerImageOverridesWatcher controllerImageOverrides;
     private final Map<String, EntandoResourceObserver> observers = new ConcurrentHashMap<>();
     private CrdNameMapSync crdNameMapSync;
+    private ReconcileWorkerPool workerPool;
+    private InProcessControllerRunner inProcessRunner;
+    private UpgradeRolloutScheduler upgradeScheduler;
+    private ControllerPodAdmission podAdmission;
+    private CompletedPodSweeper podSweeper;
+    private ControllerImagePrePuller imagePrePuller;
+    private MetricsEndpoint metricsEndpoint;
+    private ExecutorService bootstrapExecutor;
+    private final CoordinatorShard shard;
     private Watch crdWatch;
+    private volatile String lastCrdResourceVersion;
 
     @Inject
     public EntandoControllerCoordinator(KubernetesClient client) {
@@ -62,17 +83,37 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
     }
 
     public EntandoControllerCoordinator(SimpleKubernetesClient client) {
+        this(client, new CoordinatorShard(client));
+    }
+
+    public EntandoControllerCoordinator(SimpleKubernetesClient client, CoordinatorShard shard) {
         this.client = client;
+        this.shard = shard;
     }
 
     public void onStartup(@Observes StartupEvent ev) {
         new ConfigListener(client);
-        this.controllerImageOverrides = new ControllerImageOverridesWatcher(client);
+        this.controllerImageOverrides = new ControllerImageOverridesWatcher(client, configMap -> refreshPrePulledImages());
+        this.workerPool = new ReconcileWorkerPool(ControllerCoordinatorConfig.getReconcilePoolSize());
+        this.inProcessRunner = new InProcessControllerRunner();
+        this.upgradeScheduler = new UpgradeRolloutScheduler();
+        this.podSweeper = new CompletedPodSweeper(client);
+        this.podAdmission = new ControllerPodAdmission(client, podSweeper);
+        podAdmission.registerMetrics(OperatorMetrics.getInstance());
+        this.bootstrapExecutor = Executors.newFixedThreadPool(ControllerCoordinatorConfig.getBootstrapParallelism());
+        if (ControllerCoordinatorConfig.isShardingEnabled()) {
+            shard.start();
+            shard.addRebalanceListener(() -> observers.values().forEach(EntandoResourceObserver::resync));
+        }
         final List<CustomResourceDefinition> customResourceDefinitions = client.loadCustomResourceDefinitionsOfInterest().stream()
                 .filter(CoordinatorUtils::isOfInterest)
                 .collect(Collectors.toList());
         this.crdNameMapSync = new CrdNameMapSync(client, customResourceDefinitions);
         customResourceDefinitions.forEach(this::processCustomResourceDefinition);
+        if (ControllerCoordinatorConfig.isControllerImagePrePullEnabled()) {
+            this.imagePrePuller = new ControllerImagePrePuller(client, this::getKnownControllerImageNames);
+            imagePrePuller.refresh();
+        }
         getRestartingAction().run();
         customResourceDefinitions.forEach(this::startObservingInstances);
         observers.computeIfAbsent(CoordinatorUtils.keyOf(CustomResourceDefinitionContext.fromCustomResourceType(ProvidedCapability.class)),
@@ -80,41 +121,109 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
                         this.client.getOperations(CustomResourceDefinitionContext.fromCustomResourceType(ProvidedCapability.class)),
                         this::startImage,
                         crdNameMapSync,
-                        1L));
+                        client.getResourceCache(),
+                        shard,
+                        workerPool.newQueue(ProvidedCapability.class.getSimpleName()),
+                        upgradeScheduler,
+                        1L,
+                        bootstrapExecutor));
+        awaitBootstrap();
+        upgradeScheduler.start();
+        startMetricsEndpoint();
         Liveness.alive();
         LOGGER.log(Level.INFO, "The EntandoControllerCoordinator has started up successfully");
     }
 
+    private void awaitBootstrap() {
+        //Only report readiness once every kind has been listed and all watches are open
+        final long timeout = ControllerCoordinatorConfig.getBootstrapTimeoutSeconds();
+        try {
+            CompletableFuture.allOf(observers.values().stream()
+                    .map(EntandoResourceObserver::getBootstrapped)
+                    .toArray(CompletableFuture[]::new))
+                    .get(timeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not start observing all the custom resources", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(format("Could not start observing all the custom resources in %s seconds", timeout), e);
+        }
+    }
+
+    private void startMetricsEndpoint() {
+        final int port = ControllerCoordinatorConfig.getMetricsPort();
+        if (port > 0) {
+            try {
+                this.metricsEndpoint = new MetricsEndpoint(OperatorMetrics.getInstance(), port);
+                metricsEndpoint.start();
+            } catch (IOException e) {
+                //Metrics are not worth failing the coordinator for
+                LOGGER.log(Level.SEVERE, e, () -> format("Could not serve metrics on port %s", port));
+            }
+        }
+    }
+
     private void startObservingInstances(CustomResourceDefinition crd) {
         observers.computeIfAbsent(CoordinatorUtils.keyOf(crd),
                 s1 -> new EntandoResourceObserver(
                         this.client.getOperations(CustomResourceDefinitionContext.fromCrd(crd)),
                         this::startImage,
                         crdNameMapSync,
-                        crd.getMetadata().getGeneration()));
+                        client.getResourceCache(),
+                        shard,
+                        workerPool.newQueue(crd.getSpec().getNames().getKind()),
+                        upgradeScheduler,
+                        crd.getMetadata().getGeneration(),
+                        bootstrapExecutor));
     }
 
     public EntandoResourceObserver getObserver(CustomResourceDefinitionContext context) {
         return observers.get(CoordinatorUtils.keyOf(context));
     }
 
+    public UpgradeRolloutScheduler getUpgradeScheduler() {
+        return upgradeScheduler;
+    }
+
+    public ControllerPodAdmission getPodAdmission() {
+        return podAdmission;
+    }
+
+    public CoordinatorShard getShard() {
+        return shard;
+    }
+
     public void shutdownObservers(int wait, TimeUnit timeUnit) throws TimeoutException {
         crdWatch.close();
+        shard.stop();
         for (EntandoResourceObserver observer : this.observers.values()) {
             observer.shutDownAndWait(wait, timeUnit);
         }
+        workerPool.shutdown();
+        interruptionSafe(() -> workerPool.awaitTermination(wait, timeUnit));
+        interruptionSafe(() -> inProcessRunner.shutdown(wait, timeUnit));
+        podAdmission.close();
+        podSweeper.close();
+        if (imagePrePuller != null) {
+            imagePrePuller.close();
+        }
+        upgradeScheduler.stop();
+        bootstrapExecutor.shutdownNow();
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+        }
+        client.flushEvents(wait, timeUnit);
     }
 
     private void processCustomResourceDefinition(CustomResourceDefinition r) {
         final String key = CoordinatorUtils.keyOf(r);
         final EntandoResourceObserver existingObserver = observers.get(key);
         if (existingObserver != null && existingObserver.getCrdGeneration() < r.getMetadata().getGeneration()) {
-            try {
-                existingObserver.shutDownAndWait(10, TimeUnit.SECONDS);
-            } catch (TimeoutException timeoutException) {
-                LOGGER.warning(timeoutException.getMessage());
-            }
-            observers.remove(key);
+            //The successor resumes from where the existing observer is, and retires it once its own watches are open
+            observers.put(key, existingObserver.handOverTo(client.getOperations(CustomResourceDefinitionContext.fromCrd(r)),
+                    r.getMetadata().getGeneration()));
         }
         final Optional<String> controllerImageAnnotation = CoordinatorUtils.resolveAnnotation(r, AnnotationNames.CONTROLLER_IMAGE);
         controllerImageAnnotation.ifPresent(controllerImage -> derivedControllerImageMap.put(CoordinatorUtils.keyOf(r), controllerImage));
@@ -139,6 +248,22 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
         return this.controllerImageOverrides.getControllerImageOverrides();
     }
 
+    private Collection<String> getKnownControllerImageNames() {
+        final Set<String> result = new HashSet<>(derivedControllerImageMap.values());
+        ofNullable(getControllerImageOverrides().getData()).ifPresent(data -> result.addAll(data.values()));
+        return result;
+    }
+
+    private void refreshPrePulledImages() {
+        if (imagePrePuller != null) {
+            imagePrePuller.refresh();
+        }
+    }
+
+    public ControllerImagePrePuller getImagePrePuller() {
+        return imagePrePuller;
+    }
+
     private String sanitize(String key) {
         return key.toLowerCase(Locale.ROOT);
     }
@@ -146,8 +271,10 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
     public String getControllerImageFor(SerializedEntandoResource resource) {
         String imageName;
         if (resource.getKind().equals(ProvidedCapability.class.getSimpleName())) {
-            imageName = ofNullable(resolveCapabilityFromMap(resource, getControllerImageOverrides().getData()))
-                    .orElse(resolveCapabilityFromMap(resource, this.derivedControllerImageMap));
+            //The spec is materialized on every call, so it is read once for both maps
+            final Map<String, Object> spec = resource.getSpec();
+            imageName = ofNullable(resolveCapabilityFromMap(spec, getControllerImageOverrides().getData()))
+                    .orElse(resolveCapabilityFromMap(spec, this.derivedControllerImageMap));
         } else {
             imageName = ofNullable(resolveCustomControllerFromMap(resource, getControllerImageOverrides().getData()))
                     .orElse(resolveCustomControllerFromMap(resource, this.derivedControllerImageMap));
@@ -155,9 +282,9 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
         return ofNullable(imageName).orElse(CoordinatorUtils.NO_IMAGE);
     }
 
-    private String resolveCapabilityFromMap(SerializedEntandoResource pc, Map<String, String> controllerImageMap) {
-        Optional<String> implementation = Optional.ofNullable((String) pc.getSpec().get("implementation"));
-        String capability = (String) pc.getSpec().get("capability");
+    private String resolveCapabilityFromMap(Map<String, Object> spec, Map<String, String> controllerImageMap) {
+        Optional<String> implementation = Optional.ofNullable((String) spec.get("implementation"));
+        String capability = (String) spec.get("capability");
         final Optional<Map<String, String>> nullableMap = ofNullable(controllerImageMap);
         return implementation
                 .flatMap(impl -> nullableMap
@@ -179,26 +306,46 @@ public class EntandoControllerCoordinator implements RestartingWatcher<CustomRes
                 client.updatePhase(resource, EntandoDeploymentPhase.SUCCESSFUL);
             } else {
                 TrustStoreSecretRegenerator.regenerateIfNecessary(client);
-                ControllerExecutor executor = new ControllerExecutor(client.getControllerNamespace(), client, controllerImage);
-                executor.startControllerFor(action, client.updatePhase(resource, EntandoDeploymentPhase.REQUESTED));
+                ControllerExecutor executor = new ControllerExecutor(client.getControllerNamespace(), client, controllerImage,
+                        podAdmission, imagePrePuller);
+                if (executor.requiresControllerPod(inProcessRunner, resource)) {
+                    //Only marked as REQUESTED once admitted, so that work deferred for lack of budget leaves no trace
+                    executor.startControllerFor(action, resource, r -> client.updatePhase(r, EntandoDeploymentPhase.REQUESTED));
+                } else {
+                    final SerializedEntandoResource requested = client.updatePhase(resource, EntandoDeploymentPhase.REQUESTED);
+                    if (!executor.runInProcess(inProcessRunner, action, requested) && !executor.dispatchToWorker(action, requested)) {
+                        executor.startControllerFor(action, requested);
+                    }
+                }
             }
+        } catch (DeferredWorkException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, e, () -> format("Could not start the controller image for the %s %s/%s", resource.getKind(),
                     resource.getMetadata().getNamespace(), resource.getMetadata().getName()));
+            //Propagate so that the work queue requeues the resource with a backoff
+            throw new IllegalStateException(e);
         }
     }
 
     @Override
     public void eventReceived(Action action, CustomResourceDefinition customResourceDefinition) {
+        this.lastCrdResourceVersion = customResourceDefinition.getMetadata().getResourceVersion();
         if (CoordinatorUtils.isOfInterest(customResourceDefinition)) {
             processCustomResourceDefinition(customResourceDefinition);
+            refreshPrePulledImages();
             startObservingInstances(customResourceDefinition);
         }
     }
 
     @Override
     public Runnable getRestartingAction() {
-        return () -> this.crdWatch = client.watchCustomResourceDefinitions(this);
+        return () -> this.crdWatch = client.watchCustomResourceDefinitions(lastCrdResourceVersion, this);
+    }
+
+    @Override
+    public void forgetLastResourceVersion() {
+        this.lastCrdResourceVersion = null;
     }
 
     @Override
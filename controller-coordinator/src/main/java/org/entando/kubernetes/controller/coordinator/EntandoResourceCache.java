@@ -0,0 +1,162 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.util.Optional.ofNullable;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+
+/**
+ * Shared in-memory store of the Entando resources observed by all EntandoResourceObservers. It is fed by their watches so that
+ * reads during reconciliation can be served without a round trip to the API server. Only one copy of each resource is kept,
+ * regardless of how many indices refer to it.
+ */
+public class EntandoResourceCache {
+
+    private final Map<String, SerializedEntandoResource> byUid = new ConcurrentHashMap<>();
+    private final Map<String, String> uidByName = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> uidsByKind = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> uidsByNamespace = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> uidsByOwner = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> uidsByLabel = new ConcurrentHashMap<>();
+    private final Map<String, String> internedStrings = new ConcurrentHashMap<>();
+
+    public synchronized void put(SerializedEntandoResource resource) {
+        final String uid = resource.getMetadata().getUid();
+        if (uid == null) {
+            return;
+        }
+        ofNullable(byUid.get(uid)).ifPresent(this::unindex);
+        internMetadata(resource.getMetadata());
+        byUid.put(uid, resource);
+        index(resource);
+    }
+
+    public synchronized void remove(SerializedEntandoResource resource) {
+        ofNullable(resource.getMetadata().getUid()).map(byUid::remove).ifPresent(this::unindex);
+    }
+
+    public Optional<SerializedEntandoResource> getByUid(String uid) {
+        return ofNullable(uid).map(byUid::get);
+    }
+
+    public Optional<SerializedEntandoResource> get(String kind, String namespace, String name) {
+        return ofNullable(uidByName.get(nameKeyOf(kind, namespace, name))).map(byUid::get);
+    }
+
+    public List<SerializedEntandoResource> listByKind(String kind) {
+        return resolve(uidsByKind.get(kind));
+    }
+
+    public List<SerializedEntandoResource> listByNamespace(String namespace) {
+        return resolve(uidsByNamespace.get(namespace));
+    }
+
+    public List<SerializedEntandoResource> listOwnedBy(String ownerUid) {
+        return resolve(uidsByOwner.get(ownerUid));
+    }
+
+    public List<SerializedEntandoResource> listByLabel(String labelName, String labelValue) {
+        return resolve(uidsByLabel.get(labelKeyOf(labelName, labelValue)));
+    }
+
+    public int size() {
+        return byUid.size();
+    }
+
+    private List<SerializedEntandoResource> resolve(Collection<String> uids) {
+        return ofNullable(uids).orElse(Collections.emptySet()).stream()
+                .map(byUid::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private void index(SerializedEntandoResource resource) {
+        final ObjectMeta metadata = resource.getMetadata();
+        final String uid = metadata.getUid();
+        uidByName.put(nameKeyOf(resource.getKind(), metadata.getNamespace(), metadata.getName()), uid);
+        ofNullable(resource.getKind()).ifPresent(kind -> addTo(uidsByKind, kind, uid));
+        ofNullable(metadata.getNamespace()).ifPresent(namespace -> addTo(uidsByNamespace, namespace, uid));
+        ofNullable(metadata.getOwnerReferences()).ifPresent(owners -> owners.stream()
+                .map(OwnerReference::getUid)
+                .filter(Objects::nonNull)
+                .forEach(ownerUid -> addTo(uidsByOwner, ownerUid, uid)));
+        ofNullable(metadata.getLabels()).ifPresent(labels -> labels
+                .forEach((key, value) -> addTo(uidsByLabel, labelKeyOf(key, value), uid)));
+    }
+
+    private void unindex(SerializedEntandoResource resource) {
+        final ObjectMeta metadata = resource.getMetadata();
+        final String uid = metadata.getUid();
+        uidByName.remove(nameKeyOf(resource.getKind(), metadata.getNamespace(), metadata.getName()), uid);
+        ofNullable(resource.getKind()).ifPresent(kind -> removeFrom(uidsByKind, kind, uid));
+        ofNullable(metadata.getNamespace()).ifPresent(namespace -> removeFrom(uidsByNamespace, namespace, uid));
+        ofNullable(metadata.getOwnerReferences()).ifPresent(owners -> owners.stream()
+                .map(OwnerReference::getUid)
+                .filter(Objects::nonNull)
+                .forEach(ownerUid -> removeFrom(uidsByOwner, ownerUid, uid)));
+        ofNullable(metadata.getLabels()).ifPresent(labels -> labels
+                .forEach((key, value) -> removeFrom(uidsByLabel, labelKeyOf(key, value), uid)));
+    }
+
+    private static void addTo(Map<String, Set<String>> index, String key, String uid) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(uid);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String uid) {
+        index.computeIfPresent(key, (k, uids) -> {
+            uids.remove(uid);
+            return uids.isEmpty() ? null : uids;
+        });
+    }
+
+    private void internMetadata(ObjectMeta metadata) {
+        metadata.setNamespace(intern(metadata.getNamespace()));
+        ofNullable(metadata.getLabels()).ifPresent(labels -> metadata.setLabels(internEntries(labels, true)));
+        ofNullable(metadata.getAnnotations()).ifPresent(annotations -> metadata.setAnnotations(internEntries(annotations, false)));
+    }
+
+    private Map<String, String> internEntries(Map<String, String> source, boolean internValues) {
+        final Map<String, String> result = new HashMap<>(source.size() * 4 / 3 + 1);
+        source.forEach((key, value) -> result.put(intern(key), internValues ? intern(value) : value));
+        return result;
+    }
+
+    private String intern(String value) {
+        return value == null ? null : internedStrings.computeIfAbsent(value, v -> v);
+    }
+
+    private String nameKeyOf(String kind, String namespace, String name) {
+        return kind + "/" + namespace + "/" + name;
+    }
+
+    private String labelKeyOf(String labelName, String labelValue) {
+        return labelName + "=" + labelValue;
+    }
+}
@@ -17,27 +17,31 @@
 package org.entando.kubernetes.controller.coordinator;
 
 import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interruptionSafe;
 
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher.Action;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
-import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Counter;
 import org.entando.kubernetes.controller.support.common.EntandoOperatorConfig;
 import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
 
@@ -45,45 +49,200 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
 
     private static final Logger LOGGER = Logger.getLogger(EntandoResourceObserver.class.getName());
 
-    private final Map<String, Deque<String>> cache = new ConcurrentHashMap<>();
-    private final Map<String, SerializedEntandoResource> resourcesBeingUpgraded = new ConcurrentHashMap<>();
+    private static final String ANY_NAMESPACE = "*";
+
+    private final ResourceVersionStore processedVersions;
+    private final Map<String, SerializedEntandoResource> resourcesBeingUpgraded;
     private final BiConsumer<Action, SerializedEntandoResource> callback;
     private final SimpleEntandoOperations operations;
-    //TODO make the pool size configurable. Need to think that through though. We would require different settings for cluster vs
-    // namespace scoped deployments
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(5);
+    private final ResourceWorkQueue workQueue;
     private final CrdNameMapSync crdNameMapSync;
+    private final EntandoResourceCache resourceCache;
+    private final CoordinatorShard shard;
+    private final UpgradeRolloutScheduler upgradeScheduler;
     private final Long generation;
+    private final Counter watchEvents;
+    private final Counter discardedEvents;
+    private final Map<String, String> lastResourceVersions = new ConcurrentHashMap<>();
     private final List<Watch> watchers = new ArrayList<>();
+    private final CompletableFuture<Void> bootstrapped;
+    private boolean shutDown;
 
     public EntandoResourceObserver(SimpleEntandoOperations operations,
             BiConsumer<Action, SerializedEntandoResource> callback,
             CrdNameMapSync crdNameMapSync,
+            EntandoResourceCache resourceCache,
+            CoordinatorShard shard,
+            ResourceWorkQueue workQueue,
+            UpgradeRolloutScheduler upgradeScheduler,
             Long generation) {
+        this(operations, callback, crdNameMapSync, resourceCache, shard, workQueue, upgradeScheduler, generation, Runnable::run);
+    }
+
+    /**
+     * Lists and starts watching the resources in each observed namespace on the bootstrap executor, so that observers of different
+     * kinds, and the namespaces of each observer, can be bootstrapped concurrently. Resources are processed as soon as the chunk
+     * they were listed in arrives. The future returned by getBootstrapped() completes once all the watches have been opened.
+     */
+    public EntandoResourceObserver(SimpleEntandoOperations operations,
+            BiConsumer<Action, SerializedEntandoResource> callback,
+            CrdNameMapSync crdNameMapSync,
+            EntandoResourceCache resourceCache,
+            CoordinatorShard shard,
+            ResourceWorkQueue workQueue,
+            UpgradeRolloutScheduler upgradeScheduler,
+            Long generation,
+            Executor bootstrapExecutor) {
+        this.processedVersions = new ResourceVersionStore(ControllerCoordinatorConfig.getResourceVersionStoreCapacity());
+        this.resourcesBeingUpgraded = new ConcurrentHashMap<>();
         this.callback = callback;
         this.operations = operations;
         this.crdNameMapSync = crdNameMapSync;
+        this.resourceCache = resourceCache;
+        this.shard = shard;
+        this.workQueue = workQueue;
+        this.upgradeScheduler = upgradeScheduler;
         this.generation = generation;
-        processOperationInScope(operations, simpleEntandoOperations -> simpleEntandoOperations.list()
-                .forEach(entandoCustomResource -> eventReceived(Action.MODIFIED, entandoCustomResource)));
-        processOperationInScope(operations, simpleEntandoOperations -> watchers.add(simpleEntandoOperations.watch(this)));
-        LOGGER.log(Level.INFO, () -> format("Listening to CRD '%s'", operations.getDefinitionContext().getName()));
+        //Looked up once, so that counting events on the watch thread does not allocate
+        this.watchEvents = OperatorMetrics.getInstance().counter("entando_watch_events_total", "Events received from resource watches",
+                "kind", operations.getDefinitionContext().getKind());
+        this.discardedEvents = OperatorMetrics.getInstance().counter("entando_watch_events_discarded_total",
+                "Events discarded based on their metadata alone", "kind", operations.getDefinitionContext().getKind());
+        this.bootstrapped = CompletableFuture.allOf(scopesOf(operations).entrySet().stream()
+                .map(scope -> CompletableFuture.runAsync(() -> bootstrap(scope.getKey(), scope.getValue()), bootstrapExecutor))
+                .toArray(CompletableFuture[]::new));
+        bootstrapped.thenRun(() -> LOGGER.log(Level.INFO,
+                () -> format("Listening to CRD '%s'", operations.getDefinitionContext().getName())));
+    }
+
+    /**
+     * Takes over from an observer of an earlier generation of the same CRD. The processed resourceVersions, the resources being
+     * upgraded and the work queue, including the work still pending or running in it, are shared with the predecessor. The watches
+     * resume from the last resourceVersion the predecessor received in each namespace, and the predecessor's watches are only
+     * closed once the new ones are open. Events that both observers receive in the meantime are ignored as duplicates.
+     */
+    private EntandoResourceObserver(EntandoResourceObserver predecessor, SimpleEntandoOperations operations, Long generation) {
+        this.processedVersions = predecessor.processedVersions;
+        this.resourcesBeingUpgraded = predecessor.resourcesBeingUpgraded;
+        this.callback = predecessor.callback;
+        this.operations = operations;
+        this.crdNameMapSync = predecessor.crdNameMapSync;
+        this.resourceCache = predecessor.resourceCache;
+        this.shard = predecessor.shard;
+        this.workQueue = predecessor.workQueue;
+        this.upgradeScheduler = predecessor.upgradeScheduler;
+        this.generation = generation;
+        this.watchEvents = predecessor.watchEvents;
+        this.discardedEvents = predecessor.discardedEvents;
+        //Wait for the predecessor to have opened its watches, even if some of them failed
+        this.bootstrapped = predecessor.bootstrapped.handle((ignored, e) -> null).thenRun(() -> {
+            scopesOf(operations).forEach((key, scope) -> resume(key, scope, predecessor.lastResourceVersions.get(key)));
+            predecessor.retire();
+            LOGGER.log(Level.INFO, () -> format("Generation %s of CRD '%s' took over from generation %s", generation,
+                    operations.getDefinitionContext().getName(), predecessor.generation));
+        });
     }
 
-    private static void processOperationInScope(SimpleEntandoOperations operations, Consumer<SimpleEntandoOperations> consumer) {
+    /**
+     * Returns an observer for a new generation of the CRD that continues where this one stopped, without relisting the resources.
+     */
+    public EntandoResourceObserver handOverTo(SimpleEntandoOperations operations, Long generation) {
+        return new EntandoResourceObserver(this, operations, generation);
+    }
+
+    private static Map<String, SimpleEntandoOperations> scopesOf(SimpleEntandoOperations operations) {
         if (EntandoOperatorConfig.isClusterScopedDeployment()) {
-            consumer.accept(operations.inAnyNamespace());
+            return Map.of(ANY_NAMESPACE, operations.inAnyNamespace());
         } else {
             List<String> namespaces = EntandoOperatorConfig.getNamespacesToObserve();
             if (namespaces.isEmpty()) {
                 namespaces.add(operations.getControllerNamespace());
             }
-            for (String namespace : namespaces) {
-                consumer.accept(operations.inNamespace(namespace));
+            return namespaces.stream().distinct().collect(Collectors.toMap(namespace -> namespace, operations::inNamespace));
+        }
+    }
+
+    private static String scopeOf(SerializedEntandoResource resource) {
+        return EntandoOperatorConfig.isClusterScopedDeployment() ? ANY_NAMESPACE : resource.getMetadata().getNamespace();
+    }
+
+    private static boolean isInScope(SerializedEntandoResource resource, SimpleEntandoOperations scope) {
+        return scope.getNamespace() == null || scope.getNamespace().equals(resource.getMetadata().getNamespace());
+    }
+
+    private void bootstrap(String key, SimpleEntandoOperations scope) {
+        try {
+            final String resourceVersion = scope.list(ControllerCoordinatorConfig.getBootstrapChunkSize(),
+                    resource -> process(Action.MODIFIED, resource, true));
+            //Resume from the list so that the watch does not replay the resources that have just been processed
+            startWatching(key, scope, resourceVersion);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, e, () -> format("Could not start observing '%s'", operations.getDefinitionContext().getName()));
+            throw e;
+        }
+    }
+
+    private void resume(String key, SimpleEntandoOperations scope, String resourceVersion) {
+        if (resourceVersion == null) {
+            //The predecessor never got as far as listing this namespace
+            bootstrap(key, scope);
+        } else {
+            startWatching(key, scope, resourceVersion);
+        }
+    }
+
+    private void startWatching(String key, SimpleEntandoOperations scope, String resourceVersion) {
+        if (resourceVersion != null) {
+            lastResourceVersions.put(key, resourceVersion);
+        }
+        final Watch watch = scope.watch(this, resourceVersion);
+        synchronized (watchers) {
+            if (shutDown) {
+                watch.close();
+            } else {
+                watchers.add(watch);
             }
         }
     }
 
+    /**
+     * Lists the resources in the scope again after its watch could not resume from the last resourceVersion received. The resources
+     * listed are processed as if they had been replayed. Cached resources of the scope that are no longer listed were deleted while
+     * the watch was down, so they are forgotten along with any work pending for them.
+     */
+    @Override
+    public String relist(SimpleEntandoOperations scope) {
+        final Set<String> listed = new HashSet<>();
+        final String resourceVersion = scope.list(ControllerCoordinatorConfig.getBootstrapChunkSize(), resource -> {
+            listed.add(resource.getMetadata().getUid());
+            process(Action.MODIFIED, resource, true);
+        });
+        resourceCache.listByKind(operations.getDefinitionContext().getKind()).stream()
+                .filter(resource -> isInScope(resource, scope) && !listed.contains(resource.getMetadata().getUid()))
+                .forEach(this::forget);
+        if (resourceVersion != null) {
+            lastResourceVersions.put(ofNullable(scope.getNamespace()).orElse(ANY_NAMESPACE), resourceVersion);
+        }
+        return resourceVersion;
+    }
+
+    private void forget(SerializedEntandoResource resource) {
+        logResource(Level.INFO, "%s %s/%s was deleted while its watch was down", resource);
+        final String uid = resource.getMetadata().getUid();
+        resourceCache.remove(resource);
+        processedVersions.remove(uid);
+        resourcesBeingUpgraded.remove(uid);
+        workQueue.cancel(uid);
+        upgradeScheduler.cancel(uid);
+    }
+
+    /**
+     * Completes once the resources in every observed namespace have been listed and their watches opened.
+     */
+    public CompletableFuture<Void> getBootstrapped() {
+        return bootstrapped;
+    }
+
     private boolean requiresUpgrade(SerializedEntandoResource resource) {
         if (!isBeingUpgraded(resource) && wasProcessedByVersionBeingReplaced(resource)) {
             resourcesBeingUpgraded.put(resource.getMetadata().getUid(), resource);
@@ -107,17 +266,79 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
         return resourcesBeingUpgraded.containsKey(resource.getMetadata().getUid());
     }
 
+    /**
+     * Discards replays of versions that have already been cached, and the resources of other operators, before they are read in full.
+     * Other events, including those that only change the status, are still needed to keep the cache current.
+     */
+    @Override
+    public boolean isOfInterest(Action action, SerializedEntandoResource resource) {
+        final String uid = resource.getMetadata().getUid();
+        if (action == Action.DELETED || uid == null) {
+            return true;
+        }
+        final Optional<SerializedEntandoResource> cached = resourceCache.getByUid(uid);
+        if (cached.map(c -> isSameOrOlderVersion(resource, c)).orElse(false)) {
+            logResource(Level.FINE, "Duplicate event for %s %s/%s discarded. ResourceVersion="
+                    + resource.getMetadata().getResourceVersion(), resource);
+        } else if (!EntandoOperatorMatcher.matchesThisOperator(resource)) {
+            //A resource that has been handed to another operator is forgotten
+            cached.ifPresent(resourceCache::remove);
+        } else {
+            return true;
+        }
+        watchEvents.increment();
+        discardedEvents.increment();
+        recordResourceVersion(resource);
+        return false;
+    }
+
+    private static boolean isSameOrOlderVersion(SerializedEntandoResource resource, SerializedEntandoResource cached) {
+        //Non-numeric resourceVersions compare as equal, so only identical ones are treated as the same version
+        return Objects.equals(resource.getMetadata().getResourceVersion(), cached.getMetadata().getResourceVersion())
+                || CoordinatorUtils.compareResourceVersions(resource, cached) < 0;
+    }
+
     @Override
     public void eventReceived(Action action, SerializedEntandoResource resource) {
+        watchEvents.increment();
+        recordResourceVersion(resource);
+        process(action, resource, false);
+    }
+
+    private void recordResourceVersion(SerializedEntandoResource resource) {
+        if (resource.getMetadata().getResourceVersion() != null) {
+            lastResourceVersions.put(scopeOf(resource), resource.getMetadata().getResourceVersion());
+        }
+    }
+
+    private void process(Action action, SerializedEntandoResource resource, boolean replayed) {
         try {
+            if (isOlderThanCachedVersion(resource)) {
+                logResource(Level.FINE, "Duplicate event for %s %s/%s replayed from an older ResourceVersion="
+                        + resource.getMetadata().getResourceVersion(), resource);
+                return;
+            }
+            updateCache(action, resource);
+            if (!shard.isOwnedLocally(resource)) {
+                logResource(Level.FINE, "%s %s/%s is ignored because it belongs to another coordinator shard", resource);
+                return;
+            }
+            upgradeScheduler.observe(action, resource);
             if (performCriteriaProcessing(resource)) {
-                performCallback(action, resource);
+                final ReconcileLane lane = classify(resource, replayed);
+                if (lane != ReconcileLane.CHANGE && isBeingUpgraded(resource)) {
+                    //Resources without changes of their own are upgraded in waves
+                    upgradeScheduler.submit(resource, () -> performCallback(action, resource, lane));
+                } else {
+                    if (isBeingUpgraded(resource)) {
+                        //Otherwise the stale upgrade would reconcile the old snapshot again when its wave comes up
+                        upgradeScheduler.withdraw(resource.getMetadata().getUid());
+                    }
+                    performCallback(action, resource, lane);
+                }
             } else if (resource.getStatus().getPhase() == EntandoDeploymentPhase.SUCCESSFUL) {
                 logResource(Level.INFO, "%s %s/%s was processed successfully", resource);
                 markAsUpgraded(resource);
-                if (needsToRemoveSuccessfullyCompletedPods(resource)) {
-                    removeSuccessfullyCompletedPods(resource);
-                }
             }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, e, () -> format("Could not process the %s %s/%s", resource.getKind(),
@@ -125,6 +346,52 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
         }
     }
 
+    /**
+     * Re-evaluates the cached resources of this kind after the coordinator shards have been rebalanced. Resources acquired from
+     * another replica are processed as if they had just been received, and pending work for resources that moved away is dropped.
+     */
+    public void resync() {
+        for (SerializedEntandoResource resource : resourceCache.listByKind(operations.getDefinitionContext().getKind())) {
+            if (shard.isOwnedLocally(resource)) {
+                process(Action.MODIFIED, resource, true);
+            } else {
+                processedVersions.remove(resource.getMetadata().getUid());
+                workQueue.cancel(resource.getMetadata().getUid());
+                upgradeScheduler.cancel(resource.getMetadata().getUid());
+            }
+        }
+    }
+
+    /**
+     * Resources replayed by a relist or an upgrade that have already observed their current generation are reconciled after new
+     * resources, spec changes and retries of failed resources.
+     */
+    private ReconcileLane classify(SerializedEntandoResource resource, boolean replayed) {
+        if (hasUnobservedGeneration(resource)) {
+            return ReconcileLane.CHANGE;
+        } else if (resource.getStatus().getPhase() == EntandoDeploymentPhase.FAILED) {
+            return ReconcileLane.RETRY;
+        } else if (replayed || isBeingUpgraded(resource)) {
+            return ReconcileLane.RESYNC;
+        }
+        return ReconcileLane.CHANGE;
+    }
+
+    private boolean isOlderThanCachedVersion(SerializedEntandoResource resource) {
+        //Watches that resume from an earlier resourceVersion replay events that have already been processed
+        return resourceCache.getByUid(resource.getMetadata().getUid())
+                .map(cached -> CoordinatorUtils.compareResourceVersions(resource, cached) < 0)
+                .orElse(false);
+    }
+
+    private void updateCache(Action action, SerializedEntandoResource resource) {
+        if (action == Action.DELETED) {
+            resourceCache.remove(resource);
+        } else if (action == Action.ADDED || action == Action.MODIFIED) {
+            resourceCache.put(resource);
+        }
+    }
+
     private void markAsUpgraded(SerializedEntandoResource resource) {
         final Optional<String> currentOperatorVersion = EntandoOperatorConfigBase
                 .lookupProperty(ControllerCoordinatorProperty.ENTANDO_K8S_OPERATOR_VERSION);
@@ -139,24 +406,6 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
         resourcesBeingUpgraded.remove(resource.getMetadata().getUid());
     }
 
-    private void removeSuccessfullyCompletedPods(SerializedEntandoResource resource) {
-        scheduler.submit(() -> {
-            try {
-                operations.removeSuccessfullyCompletedPods(resource);
-            } catch (TimeoutException timeoutException) {
-                LOGGER.warning(timeoutException.getMessage());
-            }
-        });
-    }
-
-    private boolean needsToRemoveSuccessfullyCompletedPods(SerializedEntandoResource resource) {
-        return EntandoOperatorConfig.garbageCollectSuccessfullyCompletedPods()
-                && Optional.ofNullable(resource.getMetadata().getGeneration())
-                .map(aLong -> aLong.equals(resource.getMetadata().getGeneration()))
-                .orElse(false)
-                && resource.getStatus().getPhase() == EntandoDeploymentPhase.SUCCESSFUL;
-    }
-
     private boolean performCriteriaProcessing(SerializedEntandoResource resource) {
         return requiresUpgrade(resource)
                 || (hasNewResourceVersion(resource)
@@ -166,8 +415,9 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
     }
 
     private boolean isNotOwnedByResourceOfInterest(SerializedEntandoResource resource) {
+        //Owners that are being observed are resolved from the cache, and only unknown owners are matched by kind against the CRD name map
         final boolean topLevel = resource.getMetadata().getOwnerReferences().stream()
-                .noneMatch(crdNameMapSync::isOfInterest);
+                .noneMatch(owner -> resourceCache.getByUid(owner.getUid()).isPresent() || crdNameMapSync.isOfInterest(owner));
         if (topLevel) {
             logResource(Level.FINE, "%s %s/%s is a top level resource", resource);
         } else {
@@ -176,12 +426,13 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
         return topLevel;
     }
 
-    protected void performCallback(Action action, SerializedEntandoResource resource) {
+    protected void performCallback(Action action, SerializedEntandoResource resource, ReconcileLane lane) {
         logResource(Level.INFO, "Received " + action.name() + " for the %s %s/%s", resource);
         if (action == Action.ADDED || action == Action.MODIFIED) {
-            scheduler.execute(() -> callback.accept(action, resource));
+            workQueue.submit(resource.getMetadata().getUid(), lane, () -> callback.accept(action, resource));
         } else if (action == Action.DELETED) {
-            cache.remove(resource.getMetadata().getUid());
+            processedVersions.remove(resource.getMetadata().getUid());
+            workQueue.cancel(resource.getMetadata().getUid());
         } else {
             logResource(Level.WARNING, "EntandoResourceObserver could not process the action " + action.name() + " on the %s %s/%s",
                     resource);
@@ -199,6 +450,7 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
             //Remove to avoid recursive updates
             final SerializedEntandoResource latestResource = operations
                     .removeAnnotation(newResource, AnnotationNames.PROCESSING_INSTRUCTION.getName());
+            resourceCache.put(latestResource);
             markResourceVersionProcessed(latestResource);
             logResource(Level.FINE, "Processing of %s %s/%s has been forced using entando.org/processing-instruction.", latestResource);
             return true;
@@ -207,9 +459,7 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
                     newResource);
             return false;
         } else {
-            final boolean needsObservation = newResource.getStatus().getObservedGeneration() == null
-                    || newResource.getMetadata().getGeneration() == null
-                    || newResource.getStatus().getObservedGeneration() < newResource.getMetadata().getGeneration();
+            final boolean needsObservation = hasUnobservedGeneration(newResource);
             if (needsObservation) {
                 logResource(Level.FINE, "%s %s/%s is processed after a metadata.generation increment.", newResource);
             } else {
@@ -221,33 +471,43 @@ public class EntandoResourceObserver implements SerializedResourceWatcher {
         }
     }
 
+    private static boolean hasUnobservedGeneration(SerializedEntandoResource resource) {
+        return resource.getStatus().getObservedGeneration() == null
+                || resource.getMetadata().getGeneration() == null
+                || resource.getStatus().getObservedGeneration() < resource.getMetadata().getGeneration();
+    }
+
     private boolean hasNewResourceVersion(SerializedEntandoResource newResource) {
-        Deque<String> queue = cache.computeIfAbsent(newResource.getMetadata().getUid(), key -> new ConcurrentLinkedDeque<>());
-        if (queue.contains(newResource.getMetadata().getResourceVersion())) {
+        if (!processedVersions.add(newResource.getMetadata().getUid(), newResource.getMetadata().getResourceVersion())) {
             //TODO observe logs to see if this actually still happens
             logResource(Level.WARNING, "Duplicate event for %s %s/%s. ResourceVersion=" + newResource.getMetadata().getResourceVersion(),
                     newResource);
             return false;
         }
-        markResourceVersionProcessed(newResource);
         logResource(Level.FINE, "%s %s/%s has a new resource version: " + newResource.getMetadata().getResourceVersion(), newResource);
         return true;
     }
 
     private void markResourceVersionProcessed(SerializedEntandoResource newResource) {
-        Deque<String> queue = cache.computeIfAbsent(newResource.getMetadata().getUid(), key -> new ConcurrentLinkedDeque<>());
-        queue.offer(newResource.getMetadata().getResourceVersion());
-        while (queue.size() > 10) {
-            queue.poll();
+        processedVersions.add(newResource.getMetadata().getUid(), newResource.getMetadata().getResourceVersion());
+    }
+
+    /**
+     * Stops watching without draining the work queue, which is still in use by the successor of this observer.
+     */
+    private void retire() {
+        synchronized (watchers) {
+            this.shutDown = true;
+            watchers.forEach(Watch::close);
+            watchers.clear();
         }
     }
 
     public void shutDownAndWait(int i, TimeUnit timeUnit) throws TimeoutException {
         interruptionSafe(() -> {
-            watchers.forEach(Watch::close);
-            watchers.clear();
-            scheduler.shutdown();
-            if (!scheduler.awaitTermination(i, timeUnit)) {
+            retire();
+            workQueue.drain();
+            if (!workQueue.awaitDrained(i, timeUnit)) {
                 LOGGER.log(Level.WARNING, () -> "Could not shut EntandoResourceObserver down.");
             }
             return null;
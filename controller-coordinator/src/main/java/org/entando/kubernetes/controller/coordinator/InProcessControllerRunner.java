@@ -0,0 +1,182 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.client.InProcessController;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
+
+/**
+ * Runs controllers on threads of the coordinator instead of in controller pods, which takes pod scheduling and JVM startup out of
+ * the critical path for cheap reconciles. Every controller is loaded from the jars in a subdirectory of
+ * ENTANDO_K8S_IN_PROCESS_CONTROLLER_DIRECTORY named after its image, using its own ControllerClassLoader. The number of
+ * controllers running at the same time is bounded by ENTANDO_K8S_IN_PROCESS_CONTROLLER_CONCURRENCY.
+ */
+public class InProcessControllerRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(InProcessControllerRunner.class.getName());
+    private final Path controllerDirectory;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Optional<InProcessController>> controllers = new ConcurrentHashMap<>();
+    private final List<ControllerClassLoader> classLoaders = new CopyOnWriteArrayList<>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public InProcessControllerRunner() {
+        this(Paths.get(ControllerCoordinatorConfig.getInProcessControllerDirectory()),
+                ControllerCoordinatorConfig.getInProcessControllerConcurrency());
+    }
+
+    public InProcessControllerRunner(Path controllerDirectory, int concurrency) {
+        this.controllerDirectory = controllerDirectory;
+        this.permits = new Semaphore(concurrency);
+    }
+
+    public boolean isEnabledFor(String kind) {
+        return ControllerCoordinatorConfig.getInProcessControllerKinds().contains(kind);
+    }
+
+    /**
+     * Starts the controller for the resource on a thread of the coordinator. Returns false if the controller is not available
+     * in-process or if the maximum number of controllers are already running, in which case the caller falls back to a controller
+     * pod. Fails if the resource is still being processed so that the work queue retries it later.
+     */
+    public boolean tryRun(String controllerName, Action action, SerializedEntandoResource resource) {
+        final Optional<InProcessController> controller = controllers.computeIfAbsent(controllerName, this::loadController);
+        if (controller.isEmpty()) {
+            return false;
+        }
+        final String key = format("%s %s/%s", resource.getKind(), resource.getMetadata().getNamespace(), resource.getMetadata().getName());
+        if (!running.add(key)) {
+            throw new IllegalStateException(format("The %s is still being processed by the controller %s", key, controllerName));
+        }
+        if (!permits.tryAcquire()) {
+            running.remove(key);
+            LOGGER.log(Level.FINE, () -> format("No capacity left to run the controller %s in-process for the %s", controllerName, key));
+            return false;
+        }
+        try {
+            final Map<String, String> properties = buildProperties(action, resource);
+            executor.execute(() -> run(controller.get(), key, properties));
+            LOGGER.log(Level.INFO, () -> format("Started the controller %s in-process for the %s", controllerName, key));
+            return true;
+        } catch (RejectedExecutionException e) {
+            running.remove(key);
+            permits.release();
+            return false;
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void run(InProcessController controller, String key, Map<String, String> properties) {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(controller.getClass().getClassLoader());
+        try {
+            controller.run(properties);
+        } catch (RuntimeException e) {
+            //The controller reports failures on the status of the resource
+            LOGGER.log(Level.SEVERE, e, () -> format("The in-process controller failed to process the %s", key));
+        } finally {
+            thread.setContextClassLoader(previous);
+            running.remove(key);
+            permits.release();
+        }
+    }
+
+    private Map<String, String> buildProperties(Action action, SerializedEntandoResource resource) {
+        final Map<String, String> properties = new HashMap<>();
+        ControllerCoordinatorConfig.lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_POD_NAME)
+                .ifPresent(podName -> properties.put(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_POD_NAME.name(), podName));
+        properties.put("ENTANDO_CONTROLLER_WORKER_MODE", "false");
+        properties.put("ENTANDO_RESOURCE_ACTION", action.name());
+        properties.put(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_KIND.name(), resource.getKind());
+        properties.put(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAMESPACE.name(), resource.getMetadata().getNamespace());
+        properties.put(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.name(), resource.getMetadata().getName());
+        return properties;
+    }
+
+    private Optional<InProcessController> loadController(String controllerName) {
+        final Path directory = controllerDirectory.resolve(controllerName);
+        if (!Files.isDirectory(directory)) {
+            LOGGER.log(Level.WARNING, () -> format("The controller %s is not available in %s. It will be run in a pod", controllerName,
+                    controllerDirectory));
+            return Optional.empty();
+        }
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+        try {
+            final ControllerClassLoader classLoader = ControllerClassLoader.forDirectory(controllerName, directory);
+            classLoaders.add(classLoader);
+            thread.setContextClassLoader(classLoader);
+            final Optional<InProcessController> controller = ServiceLoader.load(InProcessController.class, classLoader).findFirst();
+            if (controller.isEmpty()) {
+                LOGGER.log(Level.WARNING, () -> format("No InProcessController found in %s. The controller %s will be run in a pod",
+                        directory, controllerName));
+            }
+            return controller;
+        } catch (IOException | ServiceConfigurationError e) {
+            LOGGER.log(Level.SEVERE, e, () -> format("Could not load the controller %s from %s. It will be run in a pod", controllerName,
+                    directory));
+            return Optional.empty();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    public boolean shutdown(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        executor.shutdown();
+        final boolean terminated = executor.awaitTermination(timeout, timeUnit);
+        if (!terminated) {
+            LOGGER.log(Level.WARNING, () -> format("%s in-process controllers were still running at shutdown", running.size()));
+        }
+        for (ControllerClassLoader classLoader : classLoaders) {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e, () -> format("Could not close the class loader of the controller %s", classLoader.getName()));
+            }
+        }
+        return terminated;
+    }
+}
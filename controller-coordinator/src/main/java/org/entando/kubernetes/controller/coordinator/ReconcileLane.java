@@ -0,0 +1,40 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+/**
+ * The lanes that reconcile work is classified into, in order of priority. Workers serve the lanes with strict priority, unless
+ * lane weights have been configured.
+ */
+public enum ReconcileLane {
+    /**
+     * New resources and resources whose metadata.generation has been incremented.
+     */
+    CHANGE,
+    /**
+     * Resources that failed before, either requeued after a failed attempt or in the FAILED phase.
+     */
+    RETRY,
+    /**
+     * Resources replayed by a relist, a shard rebalance or an operator upgrade.
+     */
+    RESYNC;
+
+    public static ReconcileLane mostUrgent(ReconcileLane first, ReconcileLane second) {
+        return first.ordinal() <= second.ordinal() ? first : second;
+    }
+}
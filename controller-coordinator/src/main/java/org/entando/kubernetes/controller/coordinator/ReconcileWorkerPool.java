@@ -0,0 +1,172 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of reconcile workers shared by the ResourceWorkQueues of all the kinds the coordinator observes. Workers pick the
+ * next queue using smooth weighted round robin, so a flood of events for one kind cannot starve the other kinds. Before picking a
+ * queue, workers pick a ReconcileLane, so that new resources and spec changes are not stuck behind a full resync.
+ */
+public class ReconcileWorkerPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ReconcileWorkerPool.class.getName());
+
+    private final List<ResourceWorkQueue> queues = new ArrayList<>();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final boolean strictLanePriority;
+    private final Map<ReconcileLane, Integer> laneWeights = new EnumMap<>(ReconcileLane.class);
+    private final Map<ReconcileLane, Integer> currentLaneWeights = new EnumMap<>(ReconcileLane.class);
+    private boolean shutdown;
+
+    public ReconcileWorkerPool(int poolSize) {
+        this.strictLanePriority = ControllerCoordinatorConfig.isStrictLanePriority();
+        for (ReconcileLane lane : ReconcileLane.values()) {
+            laneWeights.put(lane, ControllerCoordinatorConfig.getReconcileLaneWeight(lane));
+            currentLaneWeights.put(lane, 0);
+        }
+        this.workers = Executors.newFixedThreadPool(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    public ResourceWorkQueue newQueue(String kind) {
+        return newQueue(kind, ControllerCoordinatorConfig.getReconcileWeight(kind));
+    }
+
+    public synchronized ResourceWorkQueue newQueue(String kind, int weight) {
+        final ResourceWorkQueue queue = new ResourceWorkQueue(this, kind, weight);
+        queues.add(queue);
+        return queue;
+    }
+
+    public synchronized List<ResourceWorkQueue> getQueues() {
+        return new ArrayList<>(queues);
+    }
+
+    synchronized void unregister(ResourceWorkQueue queue) {
+        queues.remove(queue);
+    }
+
+    void schedule(Runnable runnable, long delayMillis) {
+        try {
+            scheduler.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, () -> "Requeue ignored because the worker pool has been shut down");
+        }
+    }
+
+    private void work() {
+        Runnable next;
+        while ((next = takeNext()) != null) {
+            try {
+                next.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, e, () -> format("Unexpected failure in reconcile worker %s", Thread.currentThread().getName()));
+            }
+        }
+    }
+
+    private synchronized Runnable takeNext() {
+        try {
+            while (!shutdown) {
+                final ReconcileLane lane = selectLane();
+                if (lane != null) {
+                    return selectQueue(lane).poll(lane);
+                }
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private ReconcileLane selectLane() {
+        ReconcileLane selected = null;
+        int totalWeight = 0;
+        for (ReconcileLane lane : ReconcileLane.values()) {
+            if (queues.stream().anyMatch(queue -> queue.hasReadyWork(lane))) {
+                if (strictLanePriority) {
+                    return lane;
+                }
+                //Smooth weighted round robin across the lanes that have work ready
+                final int weight = laneWeights.get(lane);
+                currentLaneWeights.merge(lane, weight, Integer::sum);
+                totalWeight += weight;
+                if (selected == null || currentLaneWeights.get(lane) > currentLaneWeights.get(selected)) {
+                    selected = lane;
+                }
+            } else {
+                currentLaneWeights.put(lane, 0);
+            }
+        }
+        if (selected != null) {
+            currentLaneWeights.merge(selected, -totalWeight, Integer::sum);
+        }
+        return selected;
+    }
+
+    private ResourceWorkQueue selectQueue(ReconcileLane lane) {
+        //Smooth weighted round robin across the queues that have work ready in the lane
+        ResourceWorkQueue selected = null;
+        int totalWeight = 0;
+        for (ResourceWorkQueue queue : queues) {
+            if (queue.hasReadyWork(lane)) {
+                queue.currentWeight += queue.getWeight();
+                totalWeight += queue.getWeight();
+                if (selected == null || queue.currentWeight > selected.currentWeight) {
+                    selected = queue;
+                }
+            } else {
+                queue.currentWeight = 0;
+            }
+        }
+        if (selected != null) {
+            selected.currentWeight -= totalWeight;
+        }
+        return selected;
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+        scheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        return workers.awaitTermination(timeout, timeUnit);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the last few resourceVersions processed for each resource uid so that duplicate watch events can be ignored. Versions are
+ * parsed into primitive longs and kept in a small ring per uid, the uids are kept in an open addressed hash table, and the least
+ * recently used uid is evicted once the maximum number of uids has been reached, which bounds the total memory used.
+ */
+public class ResourceVersionStore {
+
+    static final int VERSIONS_PER_UID = 10;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NONE = -1;
+
+    private final int maximumCapacity;
+    private int capacity;
+    private int highWaterMark;
+    private int size;
+    //Slots hold entry + 1, with 0 marking an empty slot
+    private int[] table;
+    private String[] uids;
+    private int[] hashes;
+    private long[] versions;
+    private byte[] versionCounts;
+    private byte[] ringHeads;
+    private int[] lessRecent;
+    private int[] moreRecent;
+    private int mostRecentlyUsed = NONE;
+    private int leastRecentlyUsed = NONE;
+    private int firstFree = NONE;
+
+    public ResourceVersionStore(int maximumCapacity) {
+        this.maximumCapacity = Math.max(1, maximumCapacity);
+        allocate(Math.min(INITIAL_CAPACITY, this.maximumCapacity));
+    }
+
+    /**
+     * Records the resourceVersion against the uid and returns false if it had already been recorded.
+     */
+    public synchronized boolean add(String uid, String resourceVersion) {
+        final long version = toLong(resourceVersion);
+        int entry = find(uid);
+        if (entry == NONE) {
+            entry = newEntry(uid);
+        } else {
+            markAsMostRecentlyUsed(entry);
+            if (containsVersion(entry, version)) {
+                return false;
+            }
+        }
+        final int offset = entry * VERSIONS_PER_UID;
+        versions[offset + ringHeads[entry]] = version;
+        ringHeads[entry] = (byte) ((ringHeads[entry] + 1) % VERSIONS_PER_UID);
+        if (versionCounts[entry] < VERSIONS_PER_UID) {
+            versionCounts[entry]++;
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(String uid, String resourceVersion) {
+        final int entry = find(uid);
+        return entry != NONE && containsVersion(entry, toLong(resourceVersion));
+    }
+
+    public synchronized void remove(String uid) {
+        final int entry = find(uid);
+        if (entry != NONE) {
+            release(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private boolean containsVersion(int entry, long version) {
+        final int offset = entry * VERSIONS_PER_UID;
+        for (int i = 0; i < versionCounts[entry]; i++) {
+            if (versions[offset + i] == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int newEntry(String uid) {
+        int entry;
+        if (firstFree != NONE) {
+            entry = firstFree;
+            firstFree = lessRecent[entry];
+        } else if (highWaterMark < capacity) {
+            entry = highWaterMark++;
+        } else if (capacity < maximumCapacity) {
+            allocate(Math.min(maximumCapacity, capacity * 2));
+            entry = highWaterMark++;
+        } else {
+            release(leastRecentlyUsed);
+            entry = firstFree;
+            firstFree = lessRecent[entry];
+        }
+        uids[entry] = uid;
+        hashes[entry] = hash(uid);
+        versionCounts[entry] = 0;
+        ringHeads[entry] = 0;
+        insertIntoTable(entry);
+        linkAsMostRecentlyUsed(entry);
+        size++;
+        return entry;
+    }
+
+    private void release(int entry) {
+        removeFromTable(entry);
+        unlink(entry);
+        uids[entry] = null;
+        lessRecent[entry] = firstFree;
+        firstFree = entry;
+        size--;
+    }
+
+    private int find(String uid) {
+        final int hash = hash(uid);
+        final int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            final int entry = table[slot] - 1;
+            if (hashes[entry] == hash && uids[entry].equals(uid)) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private void insertIntoTable(int entry) {
+        final int mask = table.length - 1;
+        int slot = hashes[entry] & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    private void removeFromTable(int entry) {
+        final int mask = table.length - 1;
+        int slot = hashes[entry] & mask;
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = 0;
+        //Shift subsequent entries of the probe sequence back so that lookups never stop at the gap
+        for (int next = (slot + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            final int idealSlot = hashes[table[next] - 1] & mask;
+            if (((next - idealSlot) & mask) >= ((next - slot) & mask)) {
+                table[slot] = table[next];
+                table[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private void markAsMostRecentlyUsed(int entry) {
+        if (entry != mostRecentlyUsed) {
+            unlink(entry);
+            linkAsMostRecentlyUsed(entry);
+        }
+    }
+
+    private void linkAsMostRecentlyUsed(int entry) {
+        lessRecent[entry] = mostRecentlyUsed;
+        moreRecent[entry] = NONE;
+        if (mostRecentlyUsed != NONE) {
+            moreRecent[mostRecentlyUsed] = entry;
+        }
+        mostRecentlyUsed = entry;
+        if (leastRecentlyUsed == NONE) {
+            leastRecentlyUsed = entry;
+        }
+    }
+
+    private void unlink(int entry) {
+        if (moreRecent[entry] == NONE) {
+            mostRecentlyUsed = lessRecent[entry];
+        } else {
+            lessRecent[moreRecent[entry]] = lessRecent[entry];
+        }
+        if (lessRecent[entry] == NONE) {
+            leastRecentlyUsed = moreRecent[entry];
+        } else {
+            moreRecent[lessRecent[entry]] = moreRecent[entry];
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        this.capacity = newCapacity;
+        this.uids = uids == null ? new String[newCapacity] : Arrays.copyOf(uids, newCapacity);
+        this.hashes = hashes == null ? new int[newCapacity] : Arrays.copyOf(hashes, newCapacity);
+        this.versions = versions == null ? new long[newCapacity * VERSIONS_PER_UID] : Arrays.copyOf(versions,
+                newCapacity * VERSIONS_PER_UID);
+        this.versionCounts = versionCounts == null ? new byte[newCapacity] : Arrays.copyOf(versionCounts, newCapacity);
+        this.ringHeads = ringHeads == null ? new byte[newCapacity] : Arrays.copyOf(ringHeads, newCapacity);
+        this.lessRecent = lessRecent == null ? new int[newCapacity] : Arrays.copyOf(lessRecent, newCapacity);
+        this.moreRecent = moreRecent == null ? new int[newCapacity] : Arrays.copyOf(moreRecent, newCapacity);
+        //Keep the load factor at or below 0.5
+        this.table = new int[Integer.highestOneBit(Math.max(2, newCapacity * 2) - 1) << 1];
+        for (int entry = 0; entry < highWaterMark; entry++) {
+            if (uids[entry] != null) {
+                insertIntoTable(entry);
+            }
+        }
+    }
+
+    private static int hash(String uid) {
+        final int h = uid.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static long toLong(String resourceVersion) {
+        if (resourceVersion == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(resourceVersion);
+        } catch (NumberFormatException e) {
+            //resourceVersions are opaque strings, so fall back to a 64 bit FNV-1a hash for non-numeric values
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < resourceVersion.length(); i++) {
+                hash ^= resourceVersion.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Counter;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Timer;
+
+/**
+ * The work queue of a single kind, keyed by resource uid and processed by a shared ReconcileWorkerPool. Pending work for a key is
+ * coalesced so that only the latest submission is processed, and a key is never processed on two threads at the same time. Failed
+ * work is requeued with a per-key exponential backoff, unless newer work has been submitted for the key in the meantime. All state
+ * is guarded by the monitor of the pool. Every pending item belongs to a ReconcileLane, and requeued work is moved to the RETRY lane.
+ * When a quiet period has been configured for the kind, submitted work only becomes ready once no newer work has been submitted for
+ * its key during the quiet period, or once it has been pending for the maximum delay.
+ * Work that is ready waits in a deque per lane, and work that is debounced or backed off waits in a delay queue ordered by the time
+ * it becomes ready, so that selecting the next work never scans everything that is pending. Entries in these structures that have
+ * been replaced or cancelled since they were added are skipped when they are reached.
+ */
+public class ResourceWorkQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(ResourceWorkQueue.class.getName());
+
+    private final ReconcileWorkerPool pool;
+    private final String kind;
+    private final int weight;
+    private final long quietPeriodNanos;
+    private final long maxDelayNanos;
+    int currentWeight;
+    private final Map<String, PendingWork> pending = new HashMap<>();
+    private final Map<ReconcileLane, Deque<PendingWork>> ready = new EnumMap<>(ReconcileLane.class);
+    private final PriorityQueue<PendingWork> delayed = new PriorityQueue<>(Comparator.comparingLong(pendingWork -> pendingWork.readyAt));
+    private final Set<String> active = new HashSet<>();
+    //The sequence number of the latest submission per key, only kept while the key has pending, active or failed work
+    private final Map<String, Long> latestSubmissions = new HashMap<>();
+    private long submissionSequence;
+    private final Map<String, Integer> failureCounts = new HashMap<>();
+    private boolean draining;
+    private long processedCount;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+    private final Timer reconcileDuration;
+    private final Timer reconcileWait;
+    private final Counter failed;
+    private final Counter deferred;
+
+    ResourceWorkQueue(ReconcileWorkerPool pool, String kind, int weight) {
+        this.pool = pool;
+        this.kind = kind;
+        this.weight = weight;
+        this.quietPeriodNanos = TimeUnit.MILLISECONDS.toNanos(ControllerCoordinatorConfig.getDebounceQuietPeriodMillis(kind));
+        this.maxDelayNanos = Math.max(quietPeriodNanos,
+                TimeUnit.MILLISECONDS.toNanos(ControllerCoordinatorConfig.getDebounceMaxDelayMillis(kind)));
+        for (ReconcileLane lane : ReconcileLane.values()) {
+            ready.put(lane, new ArrayDeque<>());
+        }
+        final OperatorMetrics metrics = OperatorMetrics.getInstance();
+        this.reconcileDuration = metrics.timer("entando_reconcile_duration_seconds", "Time spent processing work", "kind", kind);
+        this.reconcileWait = metrics.timer("entando_reconcile_wait_seconds", "Time work spent waiting in the queue", "kind", kind);
+        this.failed = metrics.counter("entando_reconcile_failures_total", "Work that failed and was requeued with backoff", "kind", kind);
+        this.deferred = metrics.counter("entando_reconcile_deferrals_total", "Work that was deferred until it could proceed", "kind", kind);
+        for (ReconcileLane lane : ReconcileLane.values()) {
+            //A queue that replaces an earlier queue of the same kind takes over its gauges
+            metrics.gauge("entando_reconcile_queue_depth", "Work waiting in the queue", () -> getQueueDepth(lane),
+                    "kind", kind, "lane", lane.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void submit(String key, Runnable work) {
+        submit(key, ReconcileLane.CHANGE, work);
+    }
+
+    public void submit(String key, ReconcileLane lane, Runnable work) {
+        synchronized (pool) {
+            if (draining) {
+                LOGGER.log(Level.FINE, () -> format("Work for %s %s ignored because the queue is draining", kind, key));
+                return;
+            }
+            latestSubmissions.put(key, ++submissionSequence);
+            final long now = System.nanoTime();
+            final PendingWork previous = pending.get(key);
+            if (previous == null) {
+                place(new PendingWork(key, work, now, now + quietPeriodNanos, lane), now);
+            } else {
+                //The latest work replaces the pending work, but keeps its place in the most urgent of the two lanes
+                final long readyAt = Math.min(now + quietPeriodNanos, previous.enqueuedAt + maxDelayNanos);
+                final ReconcileLane mostUrgent = ReconcileLane.mostUrgent(previous.lane, lane);
+                if (previous.isReady && previous.lane == mostUrgent && readyAt - now <= 0) {
+                    previous.work = work;
+                } else {
+                    place(new PendingWork(key, work, previous.enqueuedAt, readyAt, mostUrgent), now);
+                }
+            }
+            if (quietPeriodNanos > 0) {
+                //Rounded up, so that the workers are not woken up before the work is ready
+                pool.schedule(this::wakeUpWorkers, TimeUnit.NANOSECONDS.toMillis(pending.get(key).readyAt - now) + 1);
+            }
+            pool.notifyAll();
+        }
+    }
+
+    private void place(PendingWork pendingWork, long now) {
+        pending.put(pendingWork.key, pendingWork);
+        if (active.contains(pendingWork.key)) {
+            //Placed once the work that is being processed for the key has completed
+            return;
+        }
+        if (pendingWork.readyAt - now <= 0) {
+            pendingWork.isReady = true;
+            ready.get(pendingWork.lane).addLast(pendingWork);
+        } else {
+            delayed.add(pendingWork);
+        }
+    }
+
+    private boolean isCurrent(PendingWork pendingWork) {
+        return pending.get(pendingWork.key) == pendingWork;
+    }
+
+    public void cancel(String key) {
+        synchronized (pool) {
+            pending.remove(key);
+            latestSubmissions.remove(key);
+            failureCounts.remove(key);
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (pool) {
+            return pending.size();
+        }
+    }
+
+    public int getQueueDepth(ReconcileLane lane) {
+        synchronized (pool) {
+            return (int) pending.values().stream().filter(pendingWork -> pendingWork.lane == lane).count();
+        }
+    }
+
+    public long getOldestWaitMillis() {
+        synchronized (pool) {
+            return pending.values().stream()
+                    .mapToLong(pendingWork -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingWork.enqueuedAt))
+                    .max()
+                    .orElse(0L);
+        }
+    }
+
+    int getTrackedKeyCount() {
+        synchronized (pool) {
+            return latestSubmissions.size();
+        }
+    }
+
+    public long getAverageWaitMillis() {
+        synchronized (pool) {
+            return processedCount == 0 ? 0L : totalWaitMillis / processedCount;
+        }
+    }
+
+    public long getMaxWaitMillis() {
+        synchronized (pool) {
+            return maxWaitMillis;
+        }
+    }
+
+    private void wakeUpWorkers() {
+        synchronized (pool) {
+            pool.notifyAll();
+        }
+    }
+
+    boolean hasReadyWork(ReconcileLane lane) {
+        return peekReady(lane, System.nanoTime()) != null;
+    }
+
+    private PendingWork peekReady(ReconcileLane lane, long now) {
+        while (!delayed.isEmpty() && delayed.peek().readyAt - now <= 0) {
+            final PendingWork pendingWork = delayed.poll();
+            if (isCurrent(pendingWork)) {
+                pendingWork.isReady = true;
+                ready.get(pendingWork.lane).addLast(pendingWork);
+            }
+        }
+        final Deque<PendingWork> deque = ready.get(lane);
+        while (!deque.isEmpty() && !isCurrent(deque.peekFirst())) {
+            deque.pollFirst();
+        }
+        return deque.peekFirst();
+    }
+
+    Runnable poll(ReconcileLane lane) {
+        final long now = System.nanoTime();
+        final PendingWork pendingWork = peekReady(lane, now);
+        if (pendingWork == null) {
+            return null;
+        }
+        ready.get(lane).pollFirst();
+        final String key = pendingWork.key;
+        pending.remove(key);
+        active.add(key);
+        final long waitMillis = TimeUnit.NANOSECONDS.toMillis(now - pendingWork.enqueuedAt);
+        processedCount++;
+        totalWaitMillis += waitMillis;
+        maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+        reconcileWait.recordSince(pendingWork.enqueuedAt);
+        final long submission = latestSubmissions.getOrDefault(key, 0L);
+        final Runnable work = pendingWork.work;
+        return () -> process(key, work, submission, lane);
+    }
+
+    private void process(String key, Runnable work, long submission, ReconcileLane lane) {
+        boolean succeeded = false;
+        CompletableFuture<Void> deferral = null;
+        final long start = System.nanoTime();
+        try {
+            work.run();
+            succeeded = true;
+        } catch (DeferredWorkException e) {
+            LOGGER.log(Level.FINE, () -> format("Work for %s %s deferred: %s", kind, key, e.getMessage()));
+            deferred.increment();
+            deferral = e.getReadySignal();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, e, () -> format("Work for %s %s failed", kind, key));
+            failed.increment();
+        } finally {
+            reconcileDuration.recordSince(start);
+            completed(key, work, submission, succeeded, deferral, lane);
+        }
+    }
+
+    private void completed(String key, Runnable work, long submission, boolean succeeded, CompletableFuture<Void> deferral,
+            ReconcileLane lane) {
+        synchronized (pool) {
+            active.remove(key);
+            final PendingWork next = pending.get(key);
+            if (next != null) {
+                place(next, System.nanoTime());
+            }
+            if (succeeded) {
+                failureCounts.remove(key);
+                if (next == null) {
+                    latestSubmissions.remove(key);
+                }
+            } else if (deferral != null) {
+                //Deferred work is not a failure. It goes back into its own lane once it is ready to proceed
+                deferral.thenRun(() -> requeue(key, work, submission, lane));
+            } else if (latestSubmissions.getOrDefault(key, 0L) == submission && !draining) {
+                final int failures = failureCounts.merge(key, 1, Integer::sum);
+                final long delay = calculateBackoffMillis(failures);
+                LOGGER.log(Level.WARNING, () -> format("Requeueing %s %s in %sms after %s failed attempt(s)", kind, key, delay, failures));
+                pool.schedule(() -> requeue(key, work, submission, ReconcileLane.RETRY), delay);
+            }
+            if (draining && pending.isEmpty() && active.isEmpty()) {
+                pool.unregister(this);
+            }
+            pool.notifyAll();
+        }
+    }
+
+    private void requeue(String key, Runnable work, long submission, ReconcileLane lane) {
+        synchronized (pool) {
+            //Only retry if nothing newer has been submitted for this key since the failure
+            if (!draining && latestSubmissions.getOrDefault(key, 0L) == submission && !pending.containsKey(key)) {
+                final long now = System.nanoTime();
+                place(new PendingWork(key, work, now, now, lane), now);
+                pool.notifyAll();
+            }
+        }
+    }
+
+    static long calculateBackoffMillis(int failures) {
+        final long base = ControllerCoordinatorConfig.getRequeueBaseDelayMillis();
+        final long max = ControllerCoordinatorConfig.getRequeueMaxDelayMillis();
+        return Math.min(max, base * (1L << Math.min(failures - 1, 20)));
+    }
+
+    /**
+     * Stops accepting new work and lets the work already queued for this kind complete. The threads of the pool are not affected.
+     */
+    public void drain() {
+        synchronized (pool) {
+            draining = true;
+            if (pending.isEmpty() && active.isEmpty()) {
+                pool.unregister(this);
+            }
+        }
+    }
+
+    public boolean awaitDrained(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        synchronized (pool) {
+            while (!(pending.isEmpty() && active.isEmpty())) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                pool.wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+
+    private static class PendingWork {
+
+        private final String key;
+        private Runnable work;
+        private final long enqueuedAt;
+        private final long readyAt;
+        private final ReconcileLane lane;
+        private boolean isReady;
+
+        private PendingWork(String key, Runnable work, long enqueuedAt, long readyAt, ReconcileLane lane) {
+            this.key = key;
+            this.work = work;
+            this.enqueuedAt = enqueuedAt;
+            this.readyAt = readyAt;
+            this.lane = lane;
+        }
+    }
+}
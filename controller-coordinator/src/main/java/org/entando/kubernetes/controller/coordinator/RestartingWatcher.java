@@ -26,27 +26,44 @@ import java.time.LocalDateTime;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
+import org.entando.kubernetes.controller.spi.common.ExceptionUtils;
 import org.entando.kubernetes.controller.spi.common.FormatUtils;
 import org.entando.kubernetes.controller.spi.common.NameUtils;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
 
 public interface RestartingWatcher<T> extends Watcher<T> {
 
+    /**
+     * Restarts the watch, resuming from the last resourceVersion processed if one is known.
+     */
     Runnable getRestartingAction();
 
+    /**
+     * Forgets the last resourceVersion processed so that the next restart lists the current state of the watched resources.
+     */
+    default void forgetLastResourceVersion() {
+    }
+
     void issueOperatorDeathEvent(Event event);
 
     @Override
     default void onClose(WatcherException cause) {
-        final StringWriter stringWriter = new StringWriter();
-        cause.printStackTrace(new PrintWriter(stringWriter));
-        String message = stringWriter.toString();
-        if (message.contains("too old")) {
+        OperatorMetrics.getInstance().counter("entando_watch_restarts_total", "Watches that were closed by the server or the connection",
+                "watcher", getClass().getSimpleName()).increment();
+        if (ExceptionUtils.isResourceVersionGone(cause)) {
+            Logger.getLogger(getClass().getName())
+                    .log(Level.WARNING, () -> "EntandoResourceObserver closed due to out of date resourceVersion. Relisting ... ");
+            forgetLastResourceVersion();
+            getRestartingAction().run();
+        } else if (ExceptionUtils.isTransient(cause)) {
             Logger.getLogger(getClass().getName())
-                    .log(Level.WARNING, () -> "EntandoResourceObserver closed due to out of date resourceVersion. Reconnecting ... ");
+                    .log(Level.WARNING, cause, () -> "EntandoResourceObserver closed due to a transient failure. Resuming ... ");
             getRestartingAction().run();
         } else {
             Logger.getLogger(getClass().getName())
                     .log(Level.SEVERE, cause, () -> "EntandoResourceObserver closed. Can't reconnect. The container should restart now.");
+            final StringWriter stringWriter = new StringWriter();
+            cause.printStackTrace(new PrintWriter(stringWriter));
             Event event = new EventBuilder()
                     .withNewMetadata()
                     .withName(EntandoOperatorSpiConfig.getControllerPodName() + "-restart-" + NameUtils.randomNumeric(4))
@@ -55,7 +72,7 @@ public interface RestartingWatcher<T> extends Watcher<T> {
                     .withCount(1)
                     .withFirstTimestamp(FormatUtils.format(LocalDateTime.now()))
                     .withLastTimestamp(FormatUtils.format(LocalDateTime.now()))
-                    .withMessage(message)
+                    .withMessage(stringWriter.toString())
                     .build();
             issueOperatorDeathEvent(event);
             Liveness.dead();
@@ -23,4 +23,22 @@ public interface SerializedResourceWatcher {
 
     void eventReceived(Action action, SerializedEntandoResource resource);
 
+    /**
+     * Decides whether an event needs to be read in full, based on a resource that only carries the kind and the metadata required
+     * to make that decision: the name, namespace, uid, resourceVersion, generation, ownerReferences and the operator-id and
+     * processing-instruction annotations. Events for which this returns false are discarded.
+     */
+    default boolean isOfInterest(Action action, SerializedEntandoResource metadataOnly) {
+        return true;
+    }
+
+    /**
+     * Called when a watch on the scope specified can no longer resume from the last resourceVersion it received. Brings the watcher
+     * up to date with the current state of the scope, and returns the resourceVersion from which the watch should resume, or null
+     * to have the watch replay the current state of every resource instead.
+     */
+    default String relist(SimpleEntandoOperations scope) {
+        return null;
+    }
+
 }
@@ -20,6 +20,7 @@ import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import java.util.List;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
 
 public interface SimpleEntandoOperations extends DeathEventIssuer {
@@ -28,10 +29,31 @@ public interface SimpleEntandoOperations extends DeathEventIssuer {
 
     SimpleEntandoOperations inAnyNamespace();
 
+    /**
+     * Returns the namespace these operations are limited to, or null if they apply to all namespaces.
+     */
+    String getNamespace();
+
     Watch watch(SerializedResourceWatcher rldEntandoResourceObserver);
 
     List<SerializedEntandoResource> list();
 
+    /**
+     * Lists the resources in chunks of at most chunkSize, passing each resource to the consumer as soon as its chunk arrives.
+     * Returns the resourceVersion of the list, from which a watch can resume without replaying the resources listed.
+     */
+    default String list(int chunkSize, Consumer<SerializedEntandoResource> consumer) {
+        list().forEach(consumer);
+        return null;
+    }
+
+    /**
+     * Watches the resources, starting after the resourceVersion of a previous list if one is specified.
+     */
+    default Watch watch(SerializedResourceWatcher observer, String resourceVersion) {
+        return watch(observer);
+    }
+
     SerializedEntandoResource removeAnnotation(SerializedEntandoResource r, String name);
 
     SerializedEntandoResource putAnnotation(SerializedEntandoResource r, String name, String value);
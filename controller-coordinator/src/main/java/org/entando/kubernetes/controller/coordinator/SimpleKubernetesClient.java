@@ -20,11 +20,16 @@ import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
 import org.entando.kubernetes.controller.support.common.EntandoOperatorConfig;
@@ -46,19 +51,56 @@ public interface SimpleKubernetesClient extends DeathEventIssuer {
 
     Pod startPod(Pod pod);
 
+    List<Pod> loadControllerPods(Map<String, String> labels);
+
+    Watch watchControllerPods(Map<String, String> labels, String resourceVersion, Watcher<Pod> watcher);
+
+    Deployment createControllerDeploymentIfAbsent(Deployment deployment);
+
+    Deployment createOrReplaceControllerDeployment(Deployment deployment);
+
+    DaemonSet createOrReplaceControllerDaemonSet(DaemonSet daemonSet);
+
     void removePodsAndWait(String namespace, Map<String, String> labels) throws TimeoutException;
 
+    /**
+     * Deletes the controller pods specified without waiting for them to be gone.
+     */
+    void deleteControllerPods(List<Pod> pods);
+
     ConfigMap findOrCreateControllerConfigMap(String name);
 
     ConfigMap patchControllerConfigMap(ConfigMap configMap);
 
-    void watchControllerConfigMap(String s, Watcher<ConfigMap> configMapWatcher);
+    default Watch watchControllerConfigMap(String s, Watcher<ConfigMap> configMapWatcher) {
+        return watchControllerConfigMap(s, null, configMapWatcher);
+    }
+
+    Watch watchControllerConfigMap(String s, String resourceVersion, Watcher<ConfigMap> configMapWatcher);
 
-    Watch watchCustomResourceDefinitions(Watcher<CustomResourceDefinition> customResourceDefinitionWatcher);
+    default Watch watchCustomResourceDefinitions(Watcher<CustomResourceDefinition> customResourceDefinitionWatcher) {
+        return watchCustomResourceDefinitions(null, customResourceDefinitionWatcher);
+    }
+
+    Watch watchCustomResourceDefinitions(String resourceVersion, Watcher<CustomResourceDefinition> customResourceDefinitionWatcher);
 
     Collection<CustomResourceDefinition> loadCustomResourceDefinitionsOfInterest();
 
     SimpleEntandoOperations getOperations(CustomResourceDefinitionContext context);
 
     void deleteControllerSecret(String secretName);
+
+    EntandoResourceCache getResourceCache();
+
+    Lease createOrReplaceControllerLease(Lease lease);
+
+    List<Lease> loadControllerLeases(Map<String, String> labels);
+
+    void deleteControllerLease(String name);
+
+    /**
+     * Waits for the Events issued in the background to be written.
+     */
+    default void flushEvents(long timeout, TimeUnit timeUnit) {
+    }
 }
@@ -0,0 +1,336 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
+
+/**
+ * Rolls the resources processed by the operator version being replaced over to the new version in waves. Resources are dispatched
+ * in dependency order, one wave of kinds at a time, and no more than a configured number of them are in flight at any time. A
+ * resource stays in flight until its status shows that the controller started processing it and then reached a final phase, or
+ * until the in-flight timeout expires, in which case its upgrade counts as failed. The rollout pauses when too many of the recently
+ * completed resources have failed, and only continues once the resume token in the operator's ConfigMap is changed, or once the
+ * coordinator restarts. Nothing is dispatched before the scheduler is started, so that the resources listed by all observers at
+ * startup can be ordered together.
+ */
+public class UpgradeRolloutScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(UpgradeRolloutScheduler.class.getName());
+    private static final long PROGRESS_CHECK_INTERVAL_SECONDS = 10;
+    private static final List<Set<String>> WAVES = List.of(
+            Set.of("EntandoDatabaseService", "EntandoKeycloakServer", "ProvidedCapability"),
+            Set.of("EntandoApp"),
+            Set.of("EntandoPlugin"),
+            Set.of("EntandoAppPluginLink"));
+
+    private final int maxInFlight;
+    private final double failureThreshold;
+    private final int failureSampleSize;
+    private final long inFlightTimeoutMillis;
+    private final Map<String, Upgrade> pending = new LinkedHashMap<>();
+    private final Map<String, Upgrade> inFlight = new HashMap<>();
+    private final Deque<Boolean> recentOutcomes = new ArrayDeque<>();
+    private boolean started;
+    private boolean paused;
+    private Optional<String> resumeTokenWhenPaused = Optional.empty();
+    private ScheduledExecutorService progressChecker;
+    private int currentWave = -1;
+    private long succeededCount;
+    private long failedCount;
+
+    public UpgradeRolloutScheduler() {
+        this(ControllerCoordinatorConfig.getUpgradeMaxInFlight(), ControllerCoordinatorConfig.getUpgradeFailureThreshold(),
+                ControllerCoordinatorConfig.getUpgradeFailureSampleSize());
+    }
+
+    public UpgradeRolloutScheduler(int maxInFlight, double failureThreshold, int failureSampleSize) {
+        this(maxInFlight, failureThreshold, failureSampleSize, ControllerCoordinatorConfig.getUpgradeInFlightTimeoutSeconds());
+    }
+
+    public UpgradeRolloutScheduler(int maxInFlight, double failureThreshold, int failureSampleSize, long inFlightTimeoutSeconds) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.failureThreshold = failureThreshold;
+        this.failureSampleSize = Math.max(1, failureSampleSize);
+        this.inFlightTimeoutMillis = TimeUnit.SECONDS.toMillis(inFlightTimeoutSeconds);
+    }
+
+    /**
+     * Queues the upgrade of the resource. The dispatcher is invoked once the resource's wave is reached and there is capacity.
+     */
+    public void submit(SerializedEntandoResource resource, Runnable dispatcher) {
+        final String uid = resource.getMetadata().getUid();
+        synchronized (this) {
+            if (inFlight.containsKey(uid)) {
+                return;
+            }
+            pending.put(uid, new Upgrade(resource, dispatcher));
+        }
+        dispatchAvailable();
+    }
+
+    /**
+     * Tracks the progress of resources in flight from the events received for them.
+     */
+    public void observe(Action action, SerializedEntandoResource resource) {
+        final String uid = resource.getMetadata().getUid();
+        synchronized (this) {
+            final Upgrade upgrade = inFlight.get(uid);
+            if (upgrade == null) {
+                if (action == Action.DELETED) {
+                    pending.remove(uid);
+                }
+                return;
+            }
+            final EntandoDeploymentPhase phase = resource.getStatus().getPhase();
+            if (action == Action.DELETED) {
+                inFlight.remove(uid);
+            } else if (phase == EntandoDeploymentPhase.REQUESTED || phase == EntandoDeploymentPhase.STARTED) {
+                upgrade.started = true;
+            } else if (upgrade.started && phase != null) {
+                //Only final phases reached after the controller picked the resource up count as an outcome
+                inFlight.remove(uid);
+                recordOutcome(upgrade, phase != EntandoDeploymentPhase.FAILED);
+            }
+        }
+        dispatchAvailable();
+    }
+
+    /**
+     * Withdraws the pending upgrade of a resource that is being reconciled for a change of its own, which runs the new controller
+     * anyway. An upgrade already in flight is left in place so that the reconcile of the change counts as its outcome.
+     */
+    public void withdraw(String uid) {
+        synchronized (this) {
+            if (pending.remove(uid) == null) {
+                return;
+            }
+        }
+        dispatchAvailable();
+    }
+
+    public void cancel(String uid) {
+        synchronized (this) {
+            pending.remove(uid);
+            inFlight.remove(uid);
+        }
+        dispatchAvailable();
+    }
+
+    /**
+     * Starts dispatching the resources submitted so far, and any resources submitted from now on.
+     */
+    public void start() {
+        synchronized (this) {
+            this.started = true;
+            if (progressChecker == null) {
+                this.progressChecker = Executors.newSingleThreadScheduledExecutor();
+                progressChecker.scheduleWithFixedDelay(() -> checkProgress(System.currentTimeMillis()), PROGRESS_CHECK_INTERVAL_SECONDS,
+                        PROGRESS_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+        dispatchAvailable();
+    }
+
+    public synchronized void stop() {
+        if (progressChecker != null) {
+            progressChecker.shutdownNow();
+            this.progressChecker = null;
+        }
+    }
+
+    /**
+     * Counts the upgrades that have been in flight for longer than the timeout as failed, and resumes a paused rollout once the
+     * resume token has changed.
+     */
+    void checkProgress(long now) {
+        try {
+            synchronized (this) {
+                final Iterator<Upgrade> iterator = inFlight.values().iterator();
+                while (iterator.hasNext()) {
+                    final Upgrade upgrade = iterator.next();
+                    if (now - upgrade.dispatchedAt > inFlightTimeoutMillis) {
+                        iterator.remove();
+                        LOGGER.log(Level.WARNING, () -> format("The upgrade of %s %s/%s did not complete within %s seconds", upgrade.kind,
+                                upgrade.namespace, upgrade.name, TimeUnit.MILLISECONDS.toSeconds(inFlightTimeoutMillis)));
+                        recordOutcome(upgrade, false);
+                    }
+                }
+            }
+            if (isPaused() && !ControllerCoordinatorConfig.getUpgradeResumeToken().equals(resumeTokenWhenPaused)) {
+                resume();
+            } else {
+                dispatchAvailable();
+            }
+        } catch (RuntimeException e) {
+            //Keeps the periodic check alive
+            LOGGER.log(Level.WARNING, e, () -> "Could not check the progress of the upgrade rollout");
+        }
+    }
+
+    public void resume() {
+        synchronized (this) {
+            if (paused) {
+                LOGGER.log(Level.INFO, () -> "Resuming the operator upgrade rollout. " + describeProgress());
+            }
+            this.paused = false;
+            this.recentOutcomes.clear();
+        }
+        dispatchAvailable();
+    }
+
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public synchronized long getSucceededCount() {
+        return succeededCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    public synchronized String describeProgress() {
+        return format("Upgrade rollout: wave %s, %s succeeded, %s failed, %s in flight, %s pending%s", waveName(currentWave),
+                succeededCount, failedCount, inFlight.size(), pending.size(), paused ? ", paused" : "");
+    }
+
+    private void recordOutcome(Upgrade upgrade, boolean succeeded) {
+        if (succeeded) {
+            succeededCount++;
+        } else {
+            failedCount++;
+        }
+        recentOutcomes.addLast(succeeded);
+        if (recentOutcomes.size() > failureSampleSize) {
+            recentOutcomes.removeFirst();
+        }
+        final long recentFailures = recentOutcomes.stream().filter(outcome -> !outcome).count();
+        LOGGER.log(Level.INFO, () -> format("The upgrade of %s %s/%s %s. %s", upgrade.kind, upgrade.namespace, upgrade.name,
+                succeeded ? "succeeded" : "failed", describeProgress()));
+        if (!paused && recentOutcomes.size() >= failureSampleSize && (double) recentFailures / recentOutcomes.size() > failureThreshold) {
+            this.paused = true;
+            this.resumeTokenWhenPaused = ControllerCoordinatorConfig.getUpgradeResumeToken();
+            LOGGER.log(Level.WARNING, () -> format("Pausing the operator upgrade rollout because %s of the last %s upgrades failed. "
+                            + "Change %s in the operator's ConfigMap to resume it. %s", recentFailures, recentOutcomes.size(),
+                    ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_RESUME_TOKEN.getJvmSystemProperty(), describeProgress()));
+        }
+    }
+
+    private void dispatchAvailable() {
+        final List<Runnable> dispatchers = new ArrayList<>();
+        synchronized (this) {
+            if (!started || paused || pending.isEmpty()) {
+                return;
+            }
+            //The earliest wave that still has work holds back all later waves
+            final int wave = earliestWave();
+            if (wave != currentWave) {
+                this.currentWave = wave;
+                LOGGER.log(Level.INFO, () -> format("Starting upgrade wave %s. %s", waveName(wave), describeProgress()));
+            }
+            final Iterator<Upgrade> iterator = pending.values().iterator();
+            while (inFlight.size() < maxInFlight && iterator.hasNext()) {
+                final Upgrade upgrade = iterator.next();
+                if (upgrade.wave == wave) {
+                    iterator.remove();
+                    upgrade.dispatchedAt = System.currentTimeMillis();
+                    inFlight.put(upgrade.uid, upgrade);
+                    dispatchers.add(upgrade.dispatcher);
+                }
+            }
+        }
+        dispatchers.forEach(Runnable::run);
+    }
+
+    private int earliestWave() {
+        int wave = Integer.MAX_VALUE;
+        for (Upgrade upgrade : pending.values()) {
+            wave = Math.min(wave, upgrade.wave);
+        }
+        for (Upgrade upgrade : inFlight.values()) {
+            wave = Math.min(wave, upgrade.wave);
+        }
+        return wave;
+    }
+
+    private static int waveOf(String kind) {
+        for (int i = 0; i < WAVES.size(); i++) {
+            if (WAVES.get(i).contains(kind)) {
+                return i;
+            }
+        }
+        //Kinds we know nothing about go last
+        return WAVES.size();
+    }
+
+    private static String waveName(int wave) {
+        if (wave < 0) {
+            return "none";
+        }
+        return wave < WAVES.size() ? String.join("/", new TreeSet<>(WAVES.get(wave))) : "other";
+    }
+
+    private static class Upgrade {
+
+        private final String uid;
+        private final String kind;
+        private final String namespace;
+        private final String name;
+        private final int wave;
+        private final Runnable dispatcher;
+        private boolean started;
+        private long dispatchedAt;
+
+        private Upgrade(SerializedEntandoResource resource, Runnable dispatcher) {
+            this.uid = resource.getMetadata().getUid();
+            this.kind = resource.getKind();
+            this.namespace = resource.getMetadata().getNamespace();
+            this.name = resource.getMetadata().getName();
+            this.wave = waveOf(kind);
+            this.dispatcher = dispatcher;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Counter;
+
+/**
+ * Caches individual resources in the controller namespace by name. The first lookup of a name reads the resource from the server
+ * and starts a watch on that name from the resourceVersion read, after which lookups are served from memory until the watch
+ * closes. Updates are only applied if they carry a resourceVersion at least as recent as the cached one, so that a late watch
+ * event cannot overwrite the result of a write performed by the coordinator itself.
+ */
+public class WatchedResourceCache<T extends HasMetadata> {
+
+    private static final Logger LOGGER = Logger.getLogger(WatchedResourceCache.class.getName());
+
+    private final String kind;
+    private final Function<String, T> loader;
+    private final WatchFunction<T> watcher;
+    private final UnaryOperator<T> copier;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates a cache that reads resources with the loader and watches them with the watcher. Callers receive a copy produced by
+     * the copier so that they can modify it before writing it back without affecting the cached state.
+     */
+    public WatchedResourceCache(String kind, Function<String, T> loader, WatchFunction<T> watcher, UnaryOperator<T> copier) {
+        this.kind = kind;
+        this.loader = loader;
+        this.watcher = watcher;
+        this.copier = copier;
+        this.hits = OperatorMetrics.getInstance()
+                .counter("entando_watched_resource_cache_hits_total", "Lookups served from the watched resource cache", "kind", kind);
+        this.misses = OperatorMetrics.getInstance()
+                .counter("entando_watched_resource_cache_misses_total", "Lookups that had to read the resource from the server", "kind",
+                        kind);
+    }
+
+    /**
+     * Returns the resource with the given name, or null if it does not exist.
+     */
+    public T get(String name) {
+        final Entry existing = entries.get(name);
+        if (existing != null && existing.watch != null) {
+            hits.increment();
+            return copyOf(existing.value);
+        }
+        misses.increment();
+        final T loaded = loader.apply(name);
+        final Entry entry = entries.computeIfAbsent(name, Entry::new);
+        entry.update(loaded);
+        if (entry.watch == null) {
+            synchronized (entry) {
+                if (entry.watch == null) {
+                    try {
+                        entry.watch = watcher.watch(name, Optional.ofNullable(entry.value)
+                                .map(resource -> resource.getMetadata().getResourceVersion())
+                                .orElse(null), entry);
+                    } catch (RuntimeException e) {
+                        entries.remove(name, entry);
+                        LOGGER.log(Level.WARNING, e, () -> format("Could not watch the %s %s. It will not be cached", kind, name));
+                    }
+                }
+            }
+        }
+        return copyOf(entry.value);
+    }
+
+    private T copyOf(T value) {
+        return value == null ? null : copier.apply(value);
+    }
+
+    /**
+     * Records the result of a write performed by the coordinator so that subsequent lookups do not have to wait for the watch
+     * event. A null value records that the resource was deleted.
+     */
+    public void put(String name, T value) {
+        Optional.ofNullable(entries.get(name)).ifPresent(entry -> entry.update(value));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static boolean isAtLeastAsRecent(HasMetadata current, HasMetadata candidate) {
+        if (current == null || candidate == null) {
+            return true;
+        }
+        try {
+            return Long.parseLong(candidate.getMetadata().getResourceVersion())
+                    >= Long.parseLong(current.getMetadata().getResourceVersion());
+        } catch (NumberFormatException e) {
+            //resourceVersions are opaque. Fall back to the order of arrival
+            return true;
+        }
+    }
+
+    /**
+     * Starts watching the resource with the given name from the given resourceVersion, which is null if the resource did not exist.
+     */
+    @FunctionalInterface
+    public interface WatchFunction<T> {
+
+        Watch watch(String name, String resourceVersion, Watcher<T> watcher);
+    }
+
+    private class Entry implements Watcher<T> {
+
+        private final String name;
+        private volatile T value;
+        private volatile Watch watch;
+
+        private Entry(String name) {
+            this.name = name;
+        }
+
+        private synchronized void update(T candidate) {
+            if (isAtLeastAsRecent(value, candidate)) {
+                this.value = candidate;
+            }
+        }
+
+        private synchronized void delete(T deleted) {
+            if (isAtLeastAsRecent(value, deleted)) {
+                this.value = null;
+            }
+        }
+
+        @Override
+        public void eventReceived(Action action, T resource) {
+            if (action == Action.DELETED) {
+                delete(resource);
+            } else if (action == Action.ADDED || action == Action.MODIFIED) {
+                update(resource);
+            }
+        }
+
+        @Override
+        public void onClose(WatcherException cause) {
+            //Drop the entry. The next lookup reads the resource again and starts a new watch
+            entries.remove(name, this);
+            LOGGER.log(Level.FINE, cause, () -> format("The watch on the %s %s was closed", kind, name));
+        }
+    }
+}
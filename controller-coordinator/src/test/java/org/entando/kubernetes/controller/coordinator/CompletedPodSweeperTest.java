@@ -0,0 +1,123 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.entando.kubernetes.controller.coordinator.common.SimpleKubernetesClientDouble;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.support.common.EntandoOperatorConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class CompletedPodSweeperTest {
+
+    private final SimpleKubernetesClientDouble client = new SimpleKubernetesClientDouble();
+    private CompletedPodSweeper sweeper;
+    private ControllerPodAdmission admission;
+
+    @BeforeEach
+    void enableGarbageCollection() {
+        System.setProperty(EntandoOperatorConfigProperty.ENTANDO_K8S_OPERATOR_GC_CONTROLLER_PODS.getJvmSystemProperty(), "true");
+    }
+
+    @AfterEach
+    void closeSweeper() {
+        System.clearProperty(EntandoOperatorConfigProperty.ENTANDO_K8S_OPERATOR_GC_CONTROLLER_PODS.getJvmSystemProperty());
+        admission.close();
+        sweeper.close();
+    }
+
+    @Test
+    void shouldDeleteSucceededPodsInBatches() {
+        //Sweeps are triggered by the test
+        sweeper = new CompletedPodSweeper(client, 2, 1, TimeUnit.HOURS.toMillis(1));
+        admission = new ControllerPodAdmission(client, 0, 0, 0L, 0L, List.of(sweeper));
+        for (int i = 1; i <= 5; i++) {
+            client.startPod(newPod("app-deployer-" + i, "my-app", "Succeeded", "2021-01-01T00:00:0" + i + "Z"));
+        }
+        client.startPod(newPod("running-deployer", "my-app", "Running", "2021-01-01T00:00:00Z"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sweeper.getPendingCount() == 5);
+        sweeper.sweep();
+        assertThat(client.loadControllerPods(Map.of())).hasSize(4);
+        sweeper.sweep();
+        sweeper.sweep();
+        assertThat(client.loadControllerPods(Map.of())).extracting(pod -> pod.getMetadata().getName())
+                .containsExactly("running-deployer");
+        assertThat(sweeper.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepTheMostRecentFailedPodsOfEachResource() {
+        sweeper = new CompletedPodSweeper(client, 10, 2, TimeUnit.HOURS.toMillis(1));
+        admission = new ControllerPodAdmission(client, 0, 0, 0L, 0L, List.of(sweeper));
+        for (int i = 1; i <= 4; i++) {
+            client.startPod(newPod("app-deployer-" + i, "my-app", "Failed", "2021-01-01T00:00:0" + i + "Z"));
+        }
+        client.startPod(newPod("other-app-deployer", "my-other-app", "Failed", "2021-01-01T00:00:00Z"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sweeper.getPendingCount() == 2);
+        sweeper.sweep();
+        assertThat(client.loadControllerPods(Map.of())).extracting(pod -> pod.getMetadata().getName())
+                .containsExactlyInAnyOrder("app-deployer-3", "app-deployer-4", "other-app-deployer");
+        //Nothing is deleted while garbage collection is switched off
+        System.setProperty(EntandoOperatorConfigProperty.ENTANDO_K8S_OPERATOR_GC_CONTROLLER_PODS.getJvmSystemProperty(), "false");
+        client.startPod(newPod("app-deployer-5", "my-app", "Succeeded", "2021-01-01T00:00:05Z"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sweeper.getPendingCount() == 1);
+        sweeper.sweep();
+        assertThat(client.loadControllerPods(Map.of())).hasSize(4);
+    }
+
+    @Test
+    void shouldPickUpCompletedPodsThatExistedBeforeTheWatchStarted() {
+        sweeper = new CompletedPodSweeper(client, 10, 1, TimeUnit.HOURS.toMillis(1));
+        client.startPod(newPod("app-deployer-1", "my-app", "Succeeded", "2021-01-01T00:00:01Z"));
+        client.startPod(newPod("app-deployer-2", "my-app", "Failed", "2021-01-01T00:00:02Z"));
+        client.startPod(newPod("app-deployer-3", "my-app", "Failed", "2021-01-01T00:00:03Z"));
+        admission = new ControllerPodAdmission(client, 0, 0, 0L, 0L, List.of(sweeper));
+        assertThat(sweeper.getPendingCount()).isEqualTo(2);
+        //A relist replaces whatever was tracked before
+        sweeper.podsRelisted(List.of(newPod("app-deployer-3", "my-app", "Failed", "2021-01-01T00:00:03Z")));
+        assertThat(sweeper.getPendingCount()).isZero();
+    }
+
+    private Pod newPod(String name, String appName, String phase, String creationTimestamp) {
+        return new PodBuilder()
+                .withNewMetadata()
+                .withNamespace(client.getControllerNamespace())
+                .withName(name)
+                .withCreationTimestamp(creationTimestamp)
+                .withLabels(Map.of(LabelNames.JOB_KIND.getName(), "deployer",
+                        LabelNames.RESOURCE_KIND.getName(), "EntandoApp",
+                        LabelNames.RESOURCE_NAMESPACE.getName(), "my-namespace",
+                        "EntandoApp", appName))
+                .endMetadata()
+                .withNewStatus()
+                .withPhase(phase)
+                .endStatus()
+                .build();
+    }
+}
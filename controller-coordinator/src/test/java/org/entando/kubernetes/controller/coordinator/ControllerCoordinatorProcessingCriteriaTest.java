@@ -172,6 +172,35 @@ class ControllerCoordinatorProcessingCriteriaTest implements FluentIntegrationTe
         });
     }
 
+    @Test
+    @Description("Resources deleted while the watch could not resume should be forgotten when the coordinator relists")
+    void testDeletionsMissedByTheWatchArePrunedOnRelist() {
+        step("Given the Coordinator observes this namespace", () -> {
+            System.setProperty(EntandoOperatorConfigProperty.ENTANDO_NAMESPACES_TO_OBSERVE.getJvmSystemProperty(), OBSERVED_NAMESPACE);
+            coordinator.onStartup(new StartupEvent());
+        });
+        final ValueHolder<SerializedEntandoResource> testResource = new ValueHolder<>();
+        step("And I have created an TestResource resource", () -> {
+            testResource.set(createTestResource(1L, Collections.emptyMap()));
+            await().atMost(3, TimeUnit.SECONDS)
+                    .until(() -> clientDouble.getResourceCache().getByUid(testResource.get().getMetadata().getUid()).isPresent());
+        });
+        step("And the resource was deleted without the watch receiving the event", () ->
+                clientDouble.getNamespaces().get(OBSERVED_NAMESPACE).getCustomResources(testResource.get().getKind())
+                        .remove(testResource.get().getMetadata().getName()));
+        step("When the Coordinator relists the namespace after its resourceVersion expired", () ->
+                coordinator.getObserver(CustomResourceDefinitionContext.fromCustomResourceType(TestResource.class))
+                        .relist(clientDouble.getOperations(CustomResourceDefinitionContext.fromCustomResourceType(TestResource.class))
+                                .inNamespace(OBSERVED_NAMESPACE)));
+        step("Then the deleted resource is no longer cached", () ->
+                assertThat(clientDouble.getResourceCache().getByUid(testResource.get().getMetadata().getUid())).isEmpty());
+        step("And the deletion was logged", () -> {
+            final Optional<String> logEntry = LogInterceptor.getLogEntries().stream()
+                    .filter(s -> s.contains("was deleted while its watch was down")).findFirst();
+            assertThat(logEntry).isPresent();
+        });
+    }
+
     @Test
     @Description("Resource modification events should be ignored when the resource carries the annotation 'entando"
             + ".org/processing-instruction=ignore'")
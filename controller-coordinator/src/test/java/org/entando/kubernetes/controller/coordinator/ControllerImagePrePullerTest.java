@@ -0,0 +1,83 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodAffinityTerm;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.util.HashSet;
+import java.util.Set;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.coordinator.common.SimpleKubernetesClientDouble;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ControllerImagePrePullerTest {
+
+    private static final String APP_CONTROLLER = "registry.example.com/entando/entando-k8s-app-controller:6.3.0";
+    private static final String PLUGIN_CONTROLLER = "registry.example.com/entando/entando-k8s-plugin-controller:6.3.0";
+    private final SimpleKubernetesClientDouble client = new SimpleKubernetesClientDouble();
+    private final Set<String> imageNames = new HashSet<>(Set.of(APP_CONTROLLER, CoordinatorUtils.NO_IMAGE));
+
+    @Test
+    void shouldPullEveryControllerImageInAnInitContainer() {
+        final ControllerImagePrePuller prePuller = new ControllerImagePrePuller(client, () -> imageNames);
+        prePuller.refresh();
+        DaemonSet daemonSet = client.getControllerDaemonSet(ControllerImagePrePuller.PRE_PULLER_NAME);
+        assertThat(daemonSet.getSpec().getTemplate().getSpec().getInitContainers()).extracting(Container::getImage)
+                .containsExactly(APP_CONTROLLER);
+        assertThat(daemonSet.getSpec().getTemplate().getSpec().getServiceAccountName()).isEqualTo("default");
+        assertThat(daemonSet.getSpec().getTemplate().getSpec().getAutomountServiceAccountToken()).isFalse();
+        final String firstHash = daemonSet.getSpec().getTemplate().getMetadata().getLabels().get(LabelNames.PRE_PULLED_IMAGES.getName());
+        //The DaemonSet is replaced when the images change
+        imageNames.add(PLUGIN_CONTROLLER);
+        prePuller.refresh();
+        daemonSet = client.getControllerDaemonSet(ControllerImagePrePuller.PRE_PULLER_NAME);
+        assertThat(daemonSet.getSpec().getTemplate().getSpec().getInitContainers()).extracting(Container::getImage)
+                .containsExactly(APP_CONTROLLER, PLUGIN_CONTROLLER);
+        assertThat(daemonSet.getSpec().getTemplate().getMetadata().getLabels().get(LabelNames.PRE_PULLED_IMAGES.getName()))
+                .isNotEqualTo(firstHash);
+        assertThat(prePuller.isPrePulled(PLUGIN_CONTROLLER)).isTrue();
+    }
+
+    @Test
+    void controllerPodsShouldPreferNodesThatHoldTheirImage() throws Exception {
+        final ControllerImagePrePuller prePuller = new ControllerImagePrePuller(client, () -> imageNames);
+        prePuller.refresh();
+        final EntandoApp app = new EntandoApp();
+        app.getMetadata().setNamespace("my-namespace");
+        app.getMetadata().setName("my-app");
+        final Pod pod = new ControllerExecutor(client.getControllerNamespace(), client, APP_CONTROLLER, null, prePuller)
+                .startControllerFor(Action.ADDED, CoordinatorTestUtils.toSerializedResource(app));
+        final PodAffinityTerm term = pod.getSpec().getAffinity().getPodAffinity().getPreferredDuringSchedulingIgnoredDuringExecution()
+                .get(0).getPodAffinityTerm();
+        assertThat(term.getTopologyKey()).isEqualTo("kubernetes.io/hostname");
+        assertThat(term.getLabelSelector().getMatchLabels())
+                .isEqualTo(client.getControllerDaemonSet(ControllerImagePrePuller.PRE_PULLER_NAME).getSpec().getTemplate().getMetadata()
+                        .getLabels());
+        //Images that are not pre-pulled are scheduled as before
+        assertThat(prePuller.buildPreferredAffinityFor(PLUGIN_CONTROLLER)).isNull();
+    }
+}
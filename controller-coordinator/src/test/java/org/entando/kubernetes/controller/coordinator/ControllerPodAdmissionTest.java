@@ -0,0 +1,167 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodStatusBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.coordinator.common.SimpleKubernetesClientDouble;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ControllerPodAdmissionTest {
+
+    private final SimpleKubernetesClientDouble client = new SimpleKubernetesClientDouble();
+    private ControllerPodAdmission admission;
+
+    @AfterEach
+    void closeAdmission() {
+        admission.close();
+    }
+
+    @Test
+    void shouldLimitTheNumberOfPodsGloballyAndPerNamespace() {
+        admission = new ControllerPodAdmission(client, 3, 2, 0L, 0L);
+        assertThat(admission.tryAdmit(newPod("pod-1", "ns1", null))).isTrue();
+        assertThat(admission.tryAdmit(newPod("pod-2", "ns1", null))).isTrue();
+        //The namespace is full, but others are not
+        assertThat(admission.tryAdmit(newPod("pod-3", "ns1", null))).isFalse();
+        assertThat(admission.tryAdmit(newPod("pod-4", "ns2", null))).isTrue();
+        //The cluster is full
+        assertThat(admission.tryAdmit(newPod("pod-5", "ns3", null))).isFalse();
+        assertThat(admission.getRunningCount()).isEqualTo(3);
+        assertThat(admission.getRunningCount("ns1")).isEqualTo(2);
+        admission.release("pod-4");
+        assertThat(admission.tryAdmit(newPod("pod-5", "ns3", null))).isTrue();
+    }
+
+    @Test
+    void shouldSignalWaitingWorkWhenAControllerPodCompletes() {
+        admission = new ControllerPodAdmission(client, 1, 0, 0L, 0L);
+        final Pod running = client.startPod(newPod("pod-1", "ns1", null));
+        assertThat(admission.tryAdmit(running)).isTrue();
+        final Pod waiting = newPod("pod-2", "ns2", null);
+        assertThat(admission.tryAdmit(waiting)).isFalse();
+        final CompletableFuture<Void> admissible = admission.whenAdmissible(waiting);
+        assertThat(admissible).isNotDone();
+        assertThat(admission.getWaitingCount()).isEqualTo(1);
+        running.setStatus(new PodStatusBuilder().withPhase("Succeeded").build());
+        client.updatePodStatus(running);
+        await().atMost(5, TimeUnit.SECONDS).until(admissible::isDone);
+        assertThat(admission.getRunningCount()).isZero();
+        assertThat(admission.tryAdmit(waiting)).isTrue();
+    }
+
+    @Test
+    void shouldLimitTheResourcesRequestedButNeverBlockASinglePod() {
+        admission = new ControllerPodAdmission(client, 0, 0, 1000L, 0L);
+        //A pod that requests more than the whole budget can still run on its own
+        assertThat(admission.tryAdmit(newPod("pod-1", "ns1", "1500m"))).isTrue();
+        assertThat(admission.tryAdmit(newPod("pod-2", "ns1", "100m"))).isFalse();
+        admission.releaseMatching(Map.of(LabelNames.RESOURCE_NAMESPACE.getName(), "ns1"));
+        assertThat(admission.tryAdmit(newPod("pod-2", "ns1", "600m"))).isTrue();
+        assertThat(admission.tryAdmit(newPod("pod-3", "ns2", "400m"))).isTrue();
+        assertThat(admission.tryAdmit(newPod("pod-4", "ns3", "1m"))).isFalse();
+        //Pods without requests are not limited by the resource budgets
+        assertThat(admission.tryAdmit(newPod("pod-5", "ns3", null))).isTrue();
+    }
+
+    @Test
+    void shouldHandTheBudgetOfEarlierPodsOverToTheReplacementForTheSameResource() {
+        admission = new ControllerPodAdmission(client, 1, 0, 0L, 0L);
+        final SerializedEntandoResource app = newApp("my-app");
+        assertThat(admission.tryAdmit(newPodFor(app, "my-app-deployer-1"))).isTrue();
+        assertThat(admission.tryAdmit(newPodFor(newApp("other-app"), "other-app-deployer-1"))).isFalse();
+        assertThat(admission.tryAdmit(newPodFor(app, "my-app-deployer-2"))).isTrue();
+        assertThat(admission.getRunningCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeferControllerPodsBeforeAnySideEffects() throws TimeoutException {
+        admission = new ControllerPodAdmission(client, 1, 0, 0L, 0L);
+        final ControllerExecutor executor = new ControllerExecutor(client.getControllerNamespace(), client, "test/my-controller",
+                admission);
+        executor.startControllerFor(Action.ADDED, newApp("other-app"));
+        final SerializedEntandoResource app = newApp("my-app");
+        final Pod obsolete = client.startPod(newPodFor(app, "my-app-deployer-1"));
+        final AtomicBoolean prepared = new AtomicBoolean();
+        assertThatThrownBy(() -> executor.startControllerFor(Action.MODIFIED, app, r -> {
+            prepared.set(true);
+            return r;
+        })).isInstanceOf(DeferredWorkException.class);
+        assertThat(prepared).isFalse();
+        assertThat(client.loadControllerPods(CoordinatorUtils.podLabelsFor(app))).extracting(pod -> pod.getMetadata().getName())
+                .containsExactly(obsolete.getMetadata().getName());
+    }
+
+    private SerializedEntandoResource newApp(String name) {
+        final EntandoApp app = new EntandoApp();
+        app.getMetadata().setNamespace("ns1");
+        app.getMetadata().setName(name);
+        return CoordinatorTestUtils.toSerializedResource(app);
+    }
+
+    private Pod newPodFor(SerializedEntandoResource resource, String name) {
+        return new PodBuilder()
+                .withNewMetadata()
+                .withNamespace(client.getControllerNamespace())
+                .withName(name)
+                .withLabels(CoordinatorUtils.podLabelsFor(resource))
+                .endMetadata()
+                .withNewSpec().addNewContainer().withName("controller").endContainer().endSpec()
+                .build();
+    }
+
+    private Pod newPod(String name, String resourceNamespace, String cpuRequest) {
+        final PodBuilder builder = new PodBuilder()
+                .withNewMetadata()
+                .withNamespace(client.getControllerNamespace())
+                .withName(name)
+                .withLabels(Map.of(LabelNames.JOB_KIND.getName(), "deployer", LabelNames.RESOURCE_NAMESPACE.getName(), resourceNamespace))
+                .endMetadata();
+        if (cpuRequest == null) {
+            return builder.withNewSpec().addNewContainer().withName("controller").endContainer().endSpec().build();
+        }
+        return builder.withNewSpec()
+                .addNewContainer()
+                .withName("controller")
+                .withNewResources()
+                .withRequests(Map.of("cpu", new Quantity(cpuRequest)))
+                .endResources()
+                .endContainer()
+                .endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.entando.kubernetes.controller.spi.common.MetricsEndpoint;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ControllerPodMetricsTest {
+
+    private final OperatorMetrics metrics = new OperatorMetrics();
+    private final ControllerPodMetrics podMetrics = new ControllerPodMetrics(metrics);
+
+    @Test
+    void shouldRecordStartupTimeAndAbsorbTheTerminationMessageOncePerPod() {
+        final Pod running = new PodBuilder()
+                .withNewMetadata().withName("my-controller").withUid("uid-1").withCreationTimestamp("2021-06-01T10:00:00Z").endMetadata()
+                .withNewStatus()
+                .addNewContainerStatus()
+                .withNewState().withNewRunning().withStartedAt("2021-06-01T10:00:04Z").endRunning().endState()
+                .endContainerStatus()
+                .endStatus()
+                .build();
+        podMetrics.observe(Action.ADDED, running);
+        podMetrics.observe(Action.MODIFIED, running);
+        final Pod terminated = new PodBuilder(running)
+                .editStatus()
+                .withPhase("Succeeded")
+                .editFirstContainerStatus()
+                .withNewState().withNewTerminated().withMessage("entando_deploy_step_duration_seconds_count{step=\"secrets\"} 1\n")
+                .endTerminated().endState()
+                .endContainerStatus()
+                .endStatus()
+                .build();
+        podMetrics.observe(Action.MODIFIED, terminated);
+        podMetrics.observe(Action.DELETED, terminated);
+        final String scraped = metrics.scrape();
+        assertThat(scraped).contains("entando_controller_pod_startup_seconds_count 1\n");
+        assertThat(scraped).contains("entando_controller_pod_startup_seconds_sum 4\n");
+        assertThat(scraped).contains("entando_controller_pod_deploy_step_duration_seconds_count{step=\"secrets\"} 1\n");
+    }
+
+    @Test
+    void shouldServeTheMetricsOverHttp() throws IOException {
+        metrics.counter("entando_things_total", "Things").increment();
+        final MetricsEndpoint endpoint = new MetricsEndpoint(metrics, 0);
+        endpoint.start();
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + endpoint.getPort() + "/metrics")
+                    .openConnection();
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getContentType()).isEqualTo(OperatorMetrics.CONTENT_TYPE);
+            try (InputStream in = connection.getInputStream()) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains("entando_things_total 1\n");
+            }
+        } finally {
+            endpoint.stop();
+        }
+    }
+}
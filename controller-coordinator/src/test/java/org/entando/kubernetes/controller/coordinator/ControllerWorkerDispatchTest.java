@@ -0,0 +1,223 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodTemplateSpec;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.coordinator.common.SimpleKubernetesClientDouble;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.support.common.EntandoImageResolver;
+import org.entando.kubernetes.fluentspi.TestResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ControllerWorkerDispatchTest {
+
+    private static final String WORKER_NAME = ControllerExecutor.workerNameOf("test/my-controller:6.3.2");
+    private final SimpleKubernetesClientDouble clientDouble = new SimpleKubernetesClientDouble();
+    private final ControllerExecutor executor = new ControllerExecutor(clientDouble.getNamespace(), clientDouble, "test/my-controller");
+
+    @BeforeEach
+    void enableWorkers() {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_DISPATCH_MODE.getJvmSystemProperty(), "worker");
+    }
+
+    @AfterEach
+    void disableWorkers() {
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_DISPATCH_MODE.getJvmSystemProperty());
+    }
+
+    @Test
+    void shouldDeriveTheWorkerNameFromTheControllerImage() {
+        assertThat(ControllerExecutor.workerNameOf("docker.io/entando/entando-k8s-app-controller:6.3.2"))
+                .isEqualTo("entando-k8s-app-controller-worker");
+        assertThat(ControllerExecutor.workerNameOf("entando-k8s-app-controller@sha256:abc"))
+                .isEqualTo("entando-k8s-app-controller-worker");
+        assertThat(WORKER_NAME).isEqualTo("my-controller-worker");
+    }
+
+    @Test
+    void shouldFallBackToControllerPodsInThePodDispatchMode() throws TimeoutException {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_DISPATCH_MODE.getJvmSystemProperty(), "pod");
+        assertThat(executor.dispatchToWorker(Action.ADDED, newResource("app1"))).isFalse();
+        assertThat(clientDouble.getNamespaces().get(clientDouble.getNamespace()).getDeployment(WORKER_NAME)).isNull();
+    }
+
+    @Test
+    void shouldCreateTheWorkerDeploymentAndFallBackWhileNoWorkerIsReady() throws TimeoutException {
+        assertThat(executor.dispatchToWorker(Action.ADDED, newResource("app1"))).isFalse();
+        final Deployment workers = clientDouble.getNamespaces().get(clientDouble.getNamespace()).getDeployment(WORKER_NAME);
+        assertThat(workers.getSpec().getReplicas()).isEqualTo(2);
+        assertThat(workers.getSpec().getTemplate().getSpec().getContainers().get(0).getEnv())
+                .anyMatch(envVar -> envVar.getName().equals("ENTANDO_CONTROLLER_WORKER_MODE") && envVar.getValue().equals("true"))
+                .noneMatch(envVar -> envVar.getName().startsWith("ENTANDO_RESOURCE_"));
+    }
+
+    @Test
+    void shouldLetPrometheusScrapeTheWorkersWhenMetricsAreEnabled() throws TimeoutException {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_METRICS_PORT.getJvmSystemProperty(), "9090");
+        try {
+            assertThat(executor.dispatchToWorker(Action.ADDED, newResource("app1"))).isFalse();
+        } finally {
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_METRICS_PORT.getJvmSystemProperty());
+        }
+        final PodTemplateSpec template = clientDouble.getNamespaces().get(clientDouble.getNamespace()).getDeployment(WORKER_NAME)
+                .getSpec().getTemplate();
+        assertThat(template.getMetadata().getAnnotations())
+                .containsEntry("prometheus.io/scrape", "true")
+                .containsEntry("prometheus.io/port", "9090")
+                .containsEntry("prometheus.io/path", "/metrics");
+        assertThat(template.getSpec().getContainers().get(0).getPorts())
+                .anyMatch(port -> port.getName().equals("metrics") && port.getContainerPort() == 9090);
+        assertThat(template.getSpec().getContainers().get(0).getEnv())
+                .anyMatch(envVar -> envVar.getName().equals("ENTANDO_CONTROLLER_WORKER_METRICS_PORT") && envVar.getValue().equals("9090"));
+    }
+
+    @Test
+    void shouldOnlyAssignResourcesToIdleWorkers() throws TimeoutException {
+        startWorker("worker-1");
+        startWorker("worker-2");
+        final SerializedEntandoResource app1 = newResource("app1");
+        assertThat(executor.dispatchToWorker(Action.ADDED, app1)).isTrue();
+        assertThat(executor.dispatchToWorker(Action.MODIFIED, newResource("app2"))).isTrue();
+        //Both workers are busy now
+        final SerializedEntandoResource app3 = newResource("app3");
+        assertThat(executor.dispatchToWorker(Action.ADDED, app3)).isFalse();
+        final Lease assignment = clientDouble.loadControllerLeases(Map.of(LabelNames.ASSIGNED_WORKER.getName(), "worker-1")).get(0);
+        assertThat(assignment.getMetadata().getAnnotations())
+                .containsEntry(ControllerWorker.RESOURCE_NAME_ANNOTATION, "app1")
+                .containsEntry(ControllerWorker.RESOURCE_NAMESPACE_ANNOTATION, clientDouble.getNamespace())
+                .containsEntry(ControllerWorker.RESOURCE_KIND_ANNOTATION, "TestResource")
+                .containsEntry(ControllerWorker.RESOURCE_ACTION_ANNOTATION, "ADDED");
+        //A resource that is still being processed by a worker is retried later
+        assertThatThrownBy(() -> executor.dispatchToWorker(Action.MODIFIED, app1)).isInstanceOf(IllegalStateException.class);
+        //Completing an assignment makes the worker available again
+        clientDouble.deleteControllerLease(assignment.getMetadata().getName());
+        assertThat(executor.dispatchToWorker(Action.ADDED, app3)).isTrue();
+    }
+
+    @Test
+    void shouldWithdrawAssignmentsOfWorkersThatAreGone() throws TimeoutException {
+        startWorker("worker-1");
+        final SerializedEntandoResource app1 = newResource("app1");
+        assertThat(executor.dispatchToWorker(Action.ADDED, app1)).isTrue();
+        clientDouble.getNamespaces().get(clientDouble.getNamespace()).getPods().remove("worker-1");
+        startWorker("worker-2");
+        assertThat(executor.dispatchToWorker(Action.MODIFIED, app1)).isTrue();
+        assertThat(clientDouble.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME)))
+                .singleElement()
+                .matches(lease -> lease.getSpec().getHolderIdentity().equals("worker-2"));
+    }
+
+    @Test
+    void shouldWithdrawExpiredAssignmentsAndFallBackToAControllerPod() throws TimeoutException {
+        startWorker("worker-1");
+        final SerializedEntandoResource app1 = newResource("app1");
+        assertThat(executor.dispatchToWorker(Action.ADDED, app1)).isTrue();
+        //Simulate a worker that stopped renewing the assignment
+        final Lease assignment = clientDouble.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME)).get(0);
+        assignment.getSpec().setRenewTime(
+                ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(assignment.getSpec().getLeaseDurationSeconds() + 1L));
+        assertThat(executor.dispatchToWorker(Action.MODIFIED, app1)).isFalse();
+        assertThat(clientDouble.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME))).isEmpty();
+    }
+
+    @Test
+    void shouldKeepRenewedAssignments() throws TimeoutException {
+        startWorker("worker-1");
+        final SerializedEntandoResource app1 = newResource("app1");
+        assertThat(executor.dispatchToWorker(Action.ADDED, app1)).isTrue();
+        final Lease assignment = clientDouble.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME)).get(0);
+        assignment.getSpec().setAcquireTime(
+                ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(assignment.getSpec().getLeaseDurationSeconds() + 1L));
+        assignment.getSpec().setRenewTime(ZonedDateTime.now(ZoneOffset.UTC));
+        assertThatThrownBy(() -> executor.dispatchToWorker(Action.MODIFIED, app1)).isInstanceOf(IllegalStateException.class);
+        assertThat(clientDouble.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME))).hasSize(1);
+    }
+
+    @Test
+    void shouldUpdateOutdatedWorkersAndOnlyAssignToWorkersOfTheCurrentImage() throws TimeoutException {
+        assertThat(executor.dispatchToWorker(Action.ADDED, newResource("app1"))).isFalse();
+        final Deployment workers = clientDouble.getNamespaces().get(clientDouble.getNamespace()).getDeployment(WORKER_NAME);
+        //Simulate workers that were deployed by a previous version of the operator
+        workers.getSpec().getTemplate().getSpec().getContainers().get(0).setImage("docker.io/test/my-controller:6.3.1");
+        startWorker("old-worker", "docker.io/test/my-controller:6.3.1");
+        assertThat(executor.dispatchToWorker(Action.ADDED, newResource("app2"))).isFalse();
+        assertThat(clientDouble.getNamespaces().get(clientDouble.getNamespace()).getDeployment(WORKER_NAME)
+                .getSpec().getTemplate().getSpec().getContainers().get(0).getImage()).isEqualTo(currentWorkerImage());
+        startWorker("new-worker");
+        assertThat(executor.dispatchToWorker(Action.ADDED, newResource("app3"))).isTrue();
+        assertThat(clientDouble.loadControllerLeases(Map.of(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME)))
+                .singleElement()
+                .matches(lease -> lease.getSpec().getHolderIdentity().equals("new-worker"));
+    }
+
+    private void startWorker(String name) {
+        startWorker(name, currentWorkerImage());
+    }
+
+    private String currentWorkerImage() {
+        return new EntandoImageResolver(clientDouble.loadDockerImageInfoConfigMap()).determineImageUri("test/my-controller");
+    }
+
+    private void startWorker(String name, String image) {
+        final Pod pod = new PodBuilder()
+                .withNewMetadata()
+                .withNamespace(clientDouble.getNamespace())
+                .withName(name)
+                .addToLabels(LabelNames.CONTROLLER_WORKER.getName(), WORKER_NAME)
+                .endMetadata()
+                .withNewSpec()
+                .addNewContainer()
+                .withName("worker")
+                .withImage(image)
+                .endContainer()
+                .endSpec()
+                .withNewStatus()
+                .withPhase("Running")
+                .addNewCondition()
+                .withType("Ready")
+                .withStatus("True")
+                .endCondition()
+                .endStatus()
+                .build();
+        clientDouble.startPod(pod);
+    }
+
+    private SerializedEntandoResource newResource(String name) {
+        final TestResource resource = new TestResource().withNames(clientDouble.getNamespace(), name);
+        return clientDouble.createOrPatchEntandoResource(CoordinatorTestUtils.toSerializedResource(resource));
+    }
+}
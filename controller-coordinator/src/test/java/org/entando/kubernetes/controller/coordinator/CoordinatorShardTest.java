@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("in-process"), @Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class CoordinatorShardTest {
+
+    private static final List<String> NAMESPACES = IntStream.range(0, 60).mapToObj(i -> "namespace-" + i).collect(Collectors.toList());
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, true);
+    private final List<CoordinatorShard> shards = new ArrayList<>();
+
+    @BeforeEach
+    void shortenLeases() {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_RENEW_INTERVAL_SECONDS.getJvmSystemProperty(), "1");
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_LEASE_DURATION_SECONDS.getJvmSystemProperty(), "3");
+    }
+
+    @AfterEach
+    void stopShards() {
+        shards.forEach(CoordinatorShard::stop);
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_RENEW_INTERVAL_SECONDS.getJvmSystemProperty());
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_LEASE_DURATION_SECONDS.getJvmSystemProperty());
+    }
+
+    @Test
+    void shouldAssignEveryNamespaceToExactlyOneReplica() {
+        startShard("coordinator-a");
+        startShard("coordinator-b");
+        startShard("coordinator-c");
+        awaitPartitionAcross("coordinator-a", "coordinator-b", "coordinator-c");
+        final Map<String, String> owners = ownersByNamespace();
+        assertThat(owners.values()).contains("coordinator-a", "coordinator-b", "coordinator-c");
+    }
+
+    @Test
+    void shouldHandTheSliceOfAStoppedReplicaToTheOthers() {
+        startShard("coordinator-a");
+        startShard("coordinator-b");
+        final CoordinatorShard leaving = startShard("coordinator-c");
+        awaitPartitionAcross("coordinator-a", "coordinator-b", "coordinator-c");
+        final Map<String, String> ownersBefore = ownersByNamespace();
+        leaving.stop();
+        assertThat(server.getClient().leases().withName(CoordinatorShard.leaseNameOf("coordinator-c")).get()).isNull();
+        awaitPartitionAcross("coordinator-a", "coordinator-b");
+        //Only the slice of the replica that left moves
+        final Map<String, String> ownersAfter = ownersByNamespace();
+        ownersBefore.forEach((namespace, owner) -> {
+            if (!owner.equals("coordinator-c")) {
+                assertThat(ownersAfter.get(namespace)).isEqualTo(owner);
+            }
+        });
+    }
+
+    @Test
+    void shouldTakeOverFromAReplicaThatStoppedRenewingItsLease() {
+        server.getClient().leases().create(new LeaseBuilder()
+                .withNewMetadata()
+                .withName(CoordinatorShard.leaseNameOf("crashed-replica"))
+                .addToLabels(CoordinatorShard.SHARD_GROUP_LABEL, "default")
+                .endMetadata()
+                .withNewSpec()
+                .withHolderIdentity("crashed-replica")
+                .withLeaseDurationSeconds(3)
+                .withRenewTime(ZonedDateTime.now(ZoneOffset.UTC))
+                .endSpec()
+                .build());
+        final CoordinatorShard survivor = startShard("coordinator-a");
+        final AtomicInteger rebalances = new AtomicInteger();
+        survivor.addRebalanceListener(rebalances::incrementAndGet);
+        assertThat(survivor.getMembers()).containsExactlyInAnyOrder("coordinator-a", "crashed-replica");
+        await().atMost(10, TimeUnit.SECONDS).until(() -> survivor.getMembers().size() == 1);
+        awaitPartitionAcross("coordinator-a");
+        assertThat(rebalances.get()).isPositive();
+    }
+
+    @Test
+    void shouldOnlyMoveTheKeysOfANewMember() {
+        final ConsistentHashRing before = new ConsistentHashRing(List.of("coordinator-a", "coordinator-b", "coordinator-c"));
+        final ConsistentHashRing after = new ConsistentHashRing(
+                List.of("coordinator-a", "coordinator-b", "coordinator-c", "coordinator-d"));
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            final String key = "uid-" + i;
+            if (!before.ownerOf(key).equals(after.ownerOf(key))) {
+                assertThat(after.ownerOf(key)).isEqualTo("coordinator-d");
+                moved++;
+            }
+        }
+        //Roughly a quarter of the keys should move to the new member
+        assertThat(moved).isBetween(1500, 3500);
+    }
+
+    private CoordinatorShard startShard(String identity) {
+        final CoordinatorShard shard = new CoordinatorShard(new DefaultSimpleKubernetesClient(server.getClient()), identity);
+        shard.start();
+        shards.add(shard);
+        return shard;
+    }
+
+    private void awaitPartitionAcross(String... identities) {
+        final Set<String> members = Set.of(identities);
+        await().atMost(15, TimeUnit.SECONDS).until(() -> shards.stream()
+                .filter(shard -> members.contains(shard.getIdentity()))
+                .allMatch(shard -> shard.getMembers().equals(members))
+                && NAMESPACES.stream().allMatch(namespace -> {
+                    final List<String> owners = ownersOf(namespace);
+                    return owners.size() == 1 && members.contains(owners.get(0));
+                }));
+    }
+
+    private Map<String, String> ownersByNamespace() {
+        final Map<String, String> result = new HashMap<>();
+        NAMESPACES.forEach(namespace -> result.put(namespace, ownersOf(namespace).get(0)));
+        return result;
+    }
+
+    private List<String> ownersOf(String namespace) {
+        final ConfigMap resource = new ConfigMapBuilder().withNewMetadata().withNamespace(namespace).withName("resource").endMetadata()
+                .build();
+        return shards.stream()
+                .filter(shard -> shard.isOwnedLocally(resource))
+                .map(CoordinatorShard::getIdentity)
+                .collect(Collectors.toList());
+    }
+}
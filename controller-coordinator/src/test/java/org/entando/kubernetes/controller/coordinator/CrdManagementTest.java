@@ -172,7 +172,10 @@ class CrdManagementTest {
     @Test
     @Description("Updates to my CustomResourceDefinitions should result in their observers being restarted")
     void crdUpdatesShouldRestartObservers() throws IOException {
-        step("Given I have started the Entando Operator", () -> entandoControllerCoordinator.onStartup(new StartupEvent()));
+        step("Given I have prepared a cluster scoped deployment of the EntandoOperator",
+                () -> System.setProperty(EntandoOperatorConfigProperty.ENTANDO_NAMESPACES_TO_OBSERVE
+                        .getJvmSystemProperty(), "*"));
+        step("And I have started the Entando Operator", () -> entandoControllerCoordinator.onStartup(new StartupEvent()));
         ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
         final ValueHolder<EntandoResourceObserver> observer = new ValueHolder<>();
         final ValueHolder<CustomResourceDefinition> crd = new ValueHolder<>();
@@ -202,6 +205,7 @@ class CrdManagementTest {
             observer.set(entandoControllerCoordinator.getObserver(CustomResourceDefinitionContext.fromCrd(crd.get())));
         });
         step("When I apply an updated version of my CustomResourceDefinition ", () -> {
+            LogInterceptor.listenToClass(EntandoResourceObserver.class);
             crd.get().getMetadata().setGeneration(2L);
             client.getCluster().putCustomResourceDefinition(crd.get());
         });
@@ -214,6 +218,18 @@ class CrdManagementTest {
             assertThat(entandoControllerCoordinator.getObserver(CustomResourceDefinitionContext.fromCrd(crd.get())))
                     .isNotSameAs(observer.get());
         });
+        step("And the new observer took over from the previous one without relisting the CustomResources", () -> {
+            await().atMost(10, TimeUnit.SECONDS).until(() -> LogInterceptor.getLogEntries().stream()
+                    .anyMatch(s -> s.contains("Generation 2 of CRD 'mycrds.test.org' took over from generation 1")));
+        });
+        final SerializedEntandoResource resource = new SerializedEntandoResource();
+        resource.setMetadata(new ObjectMetaBuilder().withName("my-resource").withNamespace(MY_NAMESPACE).build());
+        resource.setDefinition(CustomResourceDefinitionContext.fromCrd(crd.get()));
+        step("And new CustomResources are processed by the new observer", () -> {
+            client.createOrPatchEntandoResource(resource);
+            await().atMost(10, TimeUnit.SECONDS).ignoreExceptions().until(() ->
+                    client.loadPod(AbstractK8SClientDouble.CONTROLLER_NAMESPACE, CoordinatorUtils.podLabelsFor(resource)) != null);
+        });
     }
 
     @Test
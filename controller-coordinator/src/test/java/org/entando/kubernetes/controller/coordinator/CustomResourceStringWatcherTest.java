@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class CustomResourceStringWatcherTest {
+
+    private static final String EVENT = "{\"apiVersion\":\"entando.org/v1\",\"kind\":\"EntandoApp\","
+            + "\"metadata\":{\"name\":\"my-app\",\"namespace\":\"my-namespace\",\"uid\":\"uid-1\",\"resourceVersion\":\"%s\","
+            + "\"generation\":3,\"labels\":{\"tier\":\"frontend\"},"
+            + "\"annotations\":{\"entando.org/operator-id\":\"my-operator\",\"kubectl.kubernetes.io/last-applied-configuration\":\"{}\"},"
+            + "\"ownerReferences\":[{\"kind\":\"EntandoApp\",\"name\":\"owner\",\"uid\":\"owner-uid\"}],"
+            + "\"managedFields\":[{\"manager\":\"kubectl\",\"fieldsV1\":{\"f:spec\":{}}}]},"
+            + "\"spec\":{\"replicas\":1},\"status\":{\"phase\":\"successful\",\"observedGeneration\":3}}";
+
+    private final List<SerializedEntandoResource> received = new ArrayList<>();
+
+    @Test
+    void shouldOnlyReadTheMetadataRequiredToDecideOnAnEvent() throws Exception {
+        final CustomResourceStringWatcher watcher = newWatcher(Map.of());
+        final SerializedEntandoResource summary = watcher.readSummary(String.format(EVENT, "12"));
+        final ObjectMeta metadata = summary.getMetadata();
+        assertThat(summary.getKind()).isEqualTo("EntandoApp");
+        assertThat(metadata.getName()).isEqualTo("my-app");
+        assertThat(metadata.getNamespace()).isEqualTo("my-namespace");
+        assertThat(metadata.getUid()).isEqualTo("uid-1");
+        assertThat(metadata.getResourceVersion()).isEqualTo("12");
+        assertThat(metadata.getGeneration()).isEqualTo(3L);
+        assertThat(metadata.getAnnotations()).containsExactly(Map.entry("entando.org/operator-id", "my-operator"));
+        assertThat(metadata.getOwnerReferences()).singleElement().matches(ref -> ref.getUid().equals("owner-uid"));
+        assertThat(metadata.getLabels()).isNullOrEmpty();
+        assertThat(metadata.getManagedFields()).isNullOrEmpty();
+        assertThat(summary.getSpec()).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyBindTheEventsThatAreOfInterest() {
+        final CustomResourceStringWatcher watcher = newWatcher(Map.of("12", false, "13", true));
+        watcher.eventReceived(Action.MODIFIED, String.format(EVENT, "12"));
+        assertThat(received).isEmpty();
+        //Discarded events still count as received when the watch has to resume
+        assertThat(watcher.getLastResourceVersion()).isEqualTo("12");
+        watcher.eventReceived(Action.MODIFIED, String.format(EVENT, "13"));
+        assertThat(received).singleElement().matches(resource -> resource.getSpec().get("replicas").equals(1)
+                && resource.getStatus().getObservedGeneration() == 3L);
+    }
+
+    private CustomResourceStringWatcher newWatcher(Map<String, Boolean> interest) {
+        final SerializedResourceWatcher observer = new SerializedResourceWatcher() {
+            @Override
+            public void eventReceived(Action action, SerializedEntandoResource resource) {
+                received.add(resource);
+            }
+
+            @Override
+            public boolean isOfInterest(Action action, SerializedEntandoResource metadataOnly) {
+                return interest.getOrDefault(metadataOnly.getMetadata().getResourceVersion(), true);
+            }
+        };
+        return new CustomResourceStringWatcher(observer, CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class),
+                w -> () -> {
+                }, null);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.fabric8.kubernetes.api.model.OwnerReferenceBuilder;
+import java.util.List;
+import java.util.Map;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class EntandoResourceCacheTest {
+
+    private final EntandoResourceCache cache = new EntandoResourceCache();
+
+    @Test
+    void shouldIndexByUidNameNamespaceOwnerAndLabel() {
+        final SerializedEntandoResource resource = newResource("my-ns", "my-app", "uid-1");
+        resource.getMetadata().setLabels(Map.of("tier", "frontend"));
+        resource.getMetadata().setOwnerReferences(
+                List.of(new OwnerReferenceBuilder().withUid("owner-uid").withKind("EntandoApp").build()));
+        cache.put(resource);
+        assertThat(cache.getByUid("uid-1")).containsSame(resource);
+        assertThat(cache.get("EntandoApp", "my-ns", "my-app")).containsSame(resource);
+        assertThat(cache.listByKind("EntandoApp")).containsExactly(resource);
+        assertThat(cache.listByNamespace("my-ns")).containsExactly(resource);
+        assertThat(cache.listOwnedBy("owner-uid")).containsExactly(resource);
+        assertThat(cache.listByLabel("tier", "frontend")).containsExactly(resource);
+    }
+
+    @Test
+    void shouldReindexWhenResourceChanges() {
+        final SerializedEntandoResource first = newResource("my-ns", "my-app", "uid-1");
+        first.getMetadata().setLabels(Map.of("tier", "frontend"));
+        cache.put(first);
+        final SerializedEntandoResource second = newResource("my-ns", "my-app", "uid-1");
+        second.getMetadata().setLabels(Map.of("tier", "backend"));
+        cache.put(second);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.listByLabel("tier", "frontend")).isEmpty();
+        assertThat(cache.listByLabel("tier", "backend")).containsExactly(second);
+    }
+
+    @Test
+    void shouldRemoveAllIndexEntriesOnDelete() {
+        final SerializedEntandoResource resource = newResource("my-ns", "my-app", "uid-1");
+        resource.getMetadata().setLabels(Map.of("tier", "frontend"));
+        cache.put(resource);
+        cache.remove(resource);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getByUid("uid-1")).isEmpty();
+        assertThat(cache.get("EntandoApp", "my-ns", "my-app")).isEmpty();
+        assertThat(cache.listByKind("EntandoApp")).isEmpty();
+        assertThat(cache.listByNamespace("my-ns")).isEmpty();
+        assertThat(cache.listByLabel("tier", "frontend")).isEmpty();
+    }
+
+    @Test
+    void shouldShareInternedLabelKeysAcrossResources() {
+        final SerializedEntandoResource first = newResource("my-ns", "app1", "uid-1");
+        first.getMetadata().setLabels(Map.of(new String("tier"), new String("frontend")));
+        final SerializedEntandoResource second = newResource("my-ns", "app2", "uid-2");
+        second.getMetadata().setLabels(Map.of(new String("tier"), new String("frontend")));
+        cache.put(first);
+        cache.put(second);
+        assertThat(first.getMetadata().getLabels().keySet().iterator().next())
+                .isSameAs(second.getMetadata().getLabels().keySet().iterator().next());
+        assertThat(first.getMetadata().getLabels().get("tier")).isSameAs(second.getMetadata().getLabels().get("tier"));
+    }
+
+    private SerializedEntandoResource newResource(String namespace, String name, String uid) {
+        final EntandoApp app = new EntandoApp();
+        app.getMetadata().setNamespace(namespace);
+        app.getMetadata().setName(name);
+        app.getMetadata().setUid(uid);
+        return CoordinatorTestUtils.toSerializedResource(app);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.coordinator.common.RecordingInProcessController;
+import org.entando.kubernetes.controller.coordinator.common.SimpleKubernetesClientDouble;
+import org.entando.kubernetes.controller.spi.client.InProcessController;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.fluentspi.TestResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class InProcessControllerRunnerTest {
+
+    private static final String CONTROLLER_IMAGE = "entando/entando-k8s-app-plugin-link-controller:6.3.0";
+    private static final String CONTROLLER_NAME = ControllerExecutor.controllerNameOf(CONTROLLER_IMAGE);
+    private final SimpleKubernetesClientDouble clientDouble = new SimpleKubernetesClientDouble();
+    @TempDir
+    Path controllerDirectory;
+    @TempDir
+    Path invocationDirectory;
+    private InProcessControllerRunner runner;
+
+    @BeforeEach
+    void packageController() throws IOException {
+        System.setProperty(RecordingInProcessController.DIRECTORY_PROPERTY, invocationDirectory.toString());
+        final Path jar = Files.createDirectories(controllerDirectory.resolve(CONTROLLER_NAME).resolve("lib")).resolve("controller.jar");
+        final String classFile = RecordingInProcessController.class.getName().replace('.', '/') + ".class";
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+                InputStream classBytes = getClass().getClassLoader().getResourceAsStream(classFile)) {
+            out.putNextEntry(new JarEntry(classFile));
+            classBytes.transferTo(out);
+            out.putNextEntry(new JarEntry("META-INF/services/" + InProcessController.class.getName()));
+            out.write(RecordingInProcessController.class.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        runner = new InProcessControllerRunner(controllerDirectory, 1);
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException, IOException {
+        release();
+        runner.shutdown(5, TimeUnit.SECONDS);
+        System.clearProperty(RecordingInProcessController.DIRECTORY_PROPERTY);
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_IN_PROCESS_CONTROLLER_KINDS.getJvmSystemProperty());
+    }
+
+    @Test
+    void shouldRunTheControllerFromItsOwnClassLoader() throws IOException {
+        release();
+        assertThat(runner.tryRun(CONTROLLER_NAME, Action.ADDED, newResource("my-app"))).isTrue();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runner.getAvailablePermits() == 1);
+        assertThat(invocationOf("my-app"))
+                .containsEntry("ENTANDO_RESOURCE_ACTION", "ADDED")
+                .containsEntry("ENTANDO_RESOURCE_KIND", "TestResource")
+                .containsEntry("ENTANDO_RESOURCE_NAMESPACE", clientDouble.getNamespace())
+                .containsEntry("ENTANDO_RESOURCE_NAME", "my-app")
+                .containsEntry("classLoader", CONTROLLER_NAME)
+                .containsEntry("contextClassLoader", CONTROLLER_NAME);
+    }
+
+    @Test
+    void shouldBoundTheNumberOfControllersRunningConcurrently() throws IOException {
+        final SerializedEntandoResource firstApp = newResource("my-app");
+        assertThat(runner.tryRun(CONTROLLER_NAME, Action.ADDED, firstApp)).isTrue();
+        //The resource is still being processed
+        assertThatThrownBy(() -> runner.tryRun(CONTROLLER_NAME, Action.MODIFIED, firstApp)).isInstanceOf(IllegalStateException.class);
+        //No capacity left, so the caller has to fall back to a pod
+        final SerializedEntandoResource secondApp = newResource("my-other-app");
+        assertThat(runner.tryRun(CONTROLLER_NAME, Action.ADDED, secondApp)).isFalse();
+        release();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runner.getAvailablePermits() == 1);
+        assertThat(runner.tryRun(CONTROLLER_NAME, Action.ADDED, secondApp)).isTrue();
+    }
+
+    @Test
+    void shouldReleaseCapacityWhenTheControllerFails() throws IOException {
+        release();
+        assertThat(runner.tryRun(CONTROLLER_NAME, Action.ADDED, newResource("failing-app"))).isTrue();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runner.getAvailablePermits() == 1);
+        assertThat(invocationOf("failing-app")).containsEntry("ENTANDO_RESOURCE_NAME", "failing-app");
+        assertThat(runner.tryRun(CONTROLLER_NAME, Action.ADDED, newResource("my-app"))).isTrue();
+    }
+
+    @Test
+    void shouldFallBackToPodsForControllersThatAreNotAvailable() {
+        assertThat(runner.tryRun("entando-k8s-unknown-controller", Action.ADDED, newResource("my-app"))).isFalse();
+        assertThat(invocationDirectory.resolve("my-app.properties")).doesNotExist();
+    }
+
+    @Test
+    void shouldOnlyRunTheKindsConfiguredForInProcessExecution() throws TimeoutException, IOException {
+        release();
+        final ControllerExecutor executor = new ControllerExecutor(clientDouble.getNamespace(), clientDouble, CONTROLLER_IMAGE);
+        assertThat(executor.runInProcess(runner, Action.ADDED, newResource("my-app"))).isFalse();
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_IN_PROCESS_CONTROLLER_KINDS.getJvmSystemProperty(),
+                "EntandoAppPluginLink,TestResource");
+        assertThat(executor.runInProcess(runner, Action.ADDED, newResource("my-other-app"))).isTrue();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runner.getAvailablePermits() == 1);
+        assertThat(invocationOf("my-other-app")).containsEntry("ENTANDO_RESOURCE_ACTION", "ADDED");
+        assertThat(invocationDirectory.resolve("my-app.properties")).doesNotExist();
+    }
+
+    private void release() throws IOException {
+        final Path releaseFile = invocationDirectory.resolve(RecordingInProcessController.RELEASE_FILE);
+        if (!Files.exists(releaseFile)) {
+            Files.createFile(releaseFile);
+        }
+    }
+
+    private Map<Object, Object> invocationOf(String name) throws IOException {
+        final Properties invocation = new Properties();
+        try (InputStream in = Files.newInputStream(invocationDirectory.resolve(name + ".properties"))) {
+            invocation.load(in);
+        }
+        return invocation;
+    }
+
+    private SerializedEntandoResource newResource(String name) {
+        final TestResource resource = new TestResource().withNames(clientDouble.getNamespace(), name);
+        return clientDouble.createOrPatchEntandoResource(CoordinatorTestUtils.toSerializedResource(resource));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.support.client.impl.PodLifecycleTracker;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.junit.Rule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class PaginatedListTest {
+
+    private static final String PATH = "/apis/entando.org/v1/namespaces/my-namespace/entandoapps";
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    @Test
+    void shouldListInChunksAndReturnTheResourceVersionOfTheList() {
+        server.expect().get().withPath(PATH + "?limit=2").andReturn(200, page("token-1", "10", "app1", "app2")).once();
+        server.expect().get().withPath(PATH + "?limit=2&continue=token-1").andReturn(200, page("", "12", "app3")).once();
+        final List<String> names = new ArrayList<>();
+        final String resourceVersion = operations().list(2, resource -> names.add(resource.getMetadata().getName()));
+        assertThat(names).containsExactly("app1", "app2", "app3");
+        assertThat(resourceVersion).isEqualTo("12");
+    }
+
+    @Test
+    void shouldStartOverWhenTheContinueTokenExpires() {
+        server.expect().get().withPath(PATH + "?limit=2").andReturn(200, page("token-1", "10", "app1", "app2")).once();
+        server.expect().get().withPath(PATH + "?limit=2&continue=token-1").andReturn(410, "{\"kind\":\"Status\",\"code\":410}").once();
+        server.expect().get().withPath(PATH + "?limit=2").andReturn(200, page("", "15", "app1")).once();
+        final List<SerializedEntandoResource> resources = new ArrayList<>();
+        final String resourceVersion = operations().list(2, resources::add);
+        assertThat(resources).hasSize(3);
+        assertThat(resourceVersion).isEqualTo("15");
+    }
+
+    private SimpleEntandoOperations operations() {
+        final KubernetesClient client = server.getClient();
+        final CustomResourceDefinitionContext context = CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class);
+        return new DefaultSimpleEntandoOperations(client, context, client.customResource(context), false,
+                new PodLifecycleTracker(client, Map.of())).inNamespace("my-namespace");
+    }
+
+    private String page(String continueToken, String resourceVersion, String... names) {
+        final StringBuilder items = new StringBuilder();
+        for (String name : names) {
+            items.append(items.length() == 0 ? "" : ",")
+                    .append("{\"apiVersion\":\"entando.org/v1\",\"kind\":\"EntandoApp\",\"metadata\":{\"name\":\"").append(name)
+                    .append("\",\"namespace\":\"my-namespace\",\"uid\":\"").append(name).append("\"}}");
+        }
+        return "{\"apiVersion\":\"entando.org/v1\",\"kind\":\"EntandoAppList\",\"metadata\":{\"continue\":\"" + continueToken
+                + "\",\"resourceVersion\":\"" + resourceVersion + "\"},\"items\":[" + items + "]}";
+    }
+}
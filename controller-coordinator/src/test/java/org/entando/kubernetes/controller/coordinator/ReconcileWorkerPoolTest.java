@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ReconcileWorkerPoolTest {
+
+    private final ReconcileWorkerPool pool = new ReconcileWorkerPool(1);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldNotLetAFloodOfOneKindStarveAnotherKind() {
+        final ResourceWorkQueue plugins = pool.newQueue("EntandoPlugin", 1);
+        final ResourceWorkQueue apps = pool.newQueue("EntandoApp", 1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        plugins.submit("blocker", () -> awaitQuietly(blocker));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> plugins.getQueueDepth() == 0);
+        for (int i = 0; i < 20; i++) {
+            final String key = "plugin-" + i;
+            plugins.submit(key, () -> processed.add(key));
+        }
+        apps.submit("app-1", () -> processed.add("app-1"));
+        apps.submit("app-2", () -> processed.add("app-2"));
+        assertThat(plugins.getQueueDepth()).isEqualTo(20);
+        assertThat(apps.getQueueDepth()).isEqualTo(2);
+        blocker.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 22);
+        assertThat(processed.indexOf("app-1")).isLessThan(2);
+        assertThat(processed.indexOf("app-2")).isLessThan(4);
+        assertThat(plugins.getMaxWaitMillis()).isGreaterThanOrEqualTo(plugins.getAverageWaitMillis());
+    }
+
+    @Test
+    void shouldDispatchAccordingToWeight() {
+        final ResourceWorkQueue plugins = pool.newQueue("EntandoPlugin", 1);
+        final ResourceWorkQueue apps = pool.newQueue("EntandoApp", 3);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        plugins.submit("blocker", () -> awaitQuietly(blocker));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> plugins.getQueueDepth() == 0);
+        for (int i = 0; i < 8; i++) {
+            plugins.submit("plugin-" + i, () -> processed.add("plugin"));
+            apps.submit("app-" + i, () -> processed.add("app"));
+        }
+        blocker.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 16);
+        assertThat(processed.subList(0, 8).stream().filter("app"::equals).count()).isEqualTo(6L);
+    }
+
+    @Test
+    void shouldServeNewResourcesAndRetriesBeforeAResync() {
+        final ResourceWorkQueue plugins = pool.newQueue("EntandoPlugin", 1);
+        final ResourceWorkQueue apps = pool.newQueue("EntandoApp", 1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        plugins.submit("blocker", () -> awaitQuietly(blocker));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> plugins.getQueueDepth() == 0);
+        for (int i = 0; i < 10; i++) {
+            final String key = "app-" + i;
+            apps.submit(key, ReconcileLane.RESYNC, () -> processed.add(key));
+        }
+        plugins.submit("failed-plugin", ReconcileLane.RETRY, () -> processed.add("failed-plugin"));
+        plugins.submit("new-plugin", ReconcileLane.CHANGE, () -> processed.add("new-plugin"));
+        //A spec change for a resource that is waiting to be resynced moves it to the CHANGE lane
+        apps.submit("app-9", ReconcileLane.CHANGE, () -> processed.add("app-9"));
+        assertThat(apps.getQueueDepth(ReconcileLane.RESYNC)).isEqualTo(9);
+        assertThat(apps.getQueueDepth(ReconcileLane.CHANGE)).isEqualTo(1);
+        blocker.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 12);
+        assertThat(processed.subList(0, 3)).containsExactlyInAnyOrder("new-plugin", "app-9", "failed-plugin");
+        assertThat(processed.get(2)).isEqualTo("failed-plugin");
+    }
+
+    @Test
+    void shouldServeLanesAccordingToWeightWhenConfigured() throws InterruptedException {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_RECONCILE_LANE_WEIGHTS.getJvmSystemProperty(), "CHANGE=3,RESYNC=1");
+        final ReconcileWorkerPool weightedPool = new ReconcileWorkerPool(1);
+        try {
+            final ResourceWorkQueue plugins = weightedPool.newQueue("EntandoPlugin", 1);
+            final CountDownLatch blocker = new CountDownLatch(1);
+            final List<String> processed = new CopyOnWriteArrayList<>();
+            plugins.submit("blocker", () -> awaitQuietly(blocker));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> plugins.getQueueDepth() == 0);
+            for (int i = 0; i < 8; i++) {
+                plugins.submit("resync-" + i, ReconcileLane.RESYNC, () -> processed.add("resync"));
+                plugins.submit("change-" + i, ReconcileLane.CHANGE, () -> processed.add("change"));
+            }
+            blocker.countDown();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 16);
+            //Resyncs still make progress while changes are waiting
+            assertThat(processed.subList(0, 8).stream().filter("resync"::equals).count()).isEqualTo(2L);
+        } finally {
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_RECONCILE_LANE_WEIGHTS.getJvmSystemProperty());
+            weightedPool.shutdown();
+            weightedPool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void shouldDrainOnlyTheQueueOfOneKind() throws InterruptedException {
+        final ResourceWorkQueue plugins = pool.newQueue("EntandoPlugin", 1);
+        final ResourceWorkQueue apps = pool.newQueue("EntandoApp", 1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final AtomicInteger pluginsProcessed = new AtomicInteger();
+        final AtomicInteger appsProcessed = new AtomicInteger();
+        plugins.submit("blocker", () -> awaitQuietly(blocker));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> plugins.getQueueDepth() == 0);
+        plugins.submit("plugin-1", pluginsProcessed::incrementAndGet);
+        plugins.drain();
+        plugins.submit("plugin-2", pluginsProcessed::incrementAndGet);
+        blocker.countDown();
+        assertThat(plugins.awaitDrained(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(pluginsProcessed.get()).isEqualTo(1);
+        assertThat(pool.getQueues()).containsExactly(apps);
+        apps.submit("app-1", appsProcessed::incrementAndGet);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> appsProcessed.get() == 1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import java.lang.ref.Reference;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the ResourceVersionStore with the map of deques it replaced in the EntandoResourceObserver. Run the main method from the
+ * test classpath. Throughput is reported per operation, and the footprint of each structure, fully populated with the given number of
+ * uids, is printed before the benchmarks start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceVersionStoreBenchmark {
+
+    @Param({"1000", "20000"})
+    private int uidCount;
+    private String[] uids;
+    private String[] versions;
+    private ResourceVersionStore store;
+    private Map<String, Deque<String>> mapOfDeques;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        uids = new String[uidCount];
+        versions = new String[uidCount * ResourceVersionStore.VERSIONS_PER_UID];
+        for (int i = 0; i < uidCount; i++) {
+            uids[i] = "6c1e4a1a-" + i + "-4b1e-9c5d-0e5f0d2c7a11";
+        }
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = String.valueOf(100000000L + i);
+        }
+        store = populateStore();
+        mapOfDeques = populateMapOfDeques();
+    }
+
+    private ResourceVersionStore populateStore() {
+        final ResourceVersionStore result = new ResourceVersionStore(uidCount);
+        for (int i = 0; i < versions.length; i++) {
+            result.add(uids[i % uidCount], versions[i]);
+        }
+        return result;
+    }
+
+    private Map<String, Deque<String>> populateMapOfDeques() {
+        final Map<String, Deque<String>> result = new ConcurrentHashMap<>();
+        for (int i = 0; i < versions.length; i++) {
+            addToMapOfDeques(result, uids[i % uidCount], versions[i]);
+        }
+        return result;
+    }
+
+    private static boolean addToMapOfDeques(Map<String, Deque<String>> map, String uid, String version) {
+        final Deque<String> queue = map.computeIfAbsent(uid, key -> new ConcurrentLinkedDeque<>());
+        if (queue.contains(version)) {
+            return false;
+        }
+        queue.offer(version);
+        while (queue.size() > ResourceVersionStore.VERSIONS_PER_UID) {
+            queue.poll();
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean storeDuplicateCheck() {
+        final int i = counter++ & Integer.MAX_VALUE;
+        return store.add(uids[i % uidCount], versions[i % versions.length]);
+    }
+
+    @Benchmark
+    public boolean mapOfDequesDuplicateCheck() {
+        final int i = counter++ & Integer.MAX_VALUE;
+        return addToMapOfDeques(mapOfDeques, uids[i % uidCount], versions[i % versions.length]);
+    }
+
+    private static long retainedBytes(Supplier<Object> allocation) {
+        final long before = usedMemory();
+        final Object retained = allocation.get();
+        final long after = usedMemory();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int count : new int[]{1000, 20000}) {
+            final ResourceVersionStoreBenchmark benchmark = new ResourceVersionStoreBenchmark();
+            benchmark.uidCount = count;
+            benchmark.populate();
+            final long storeBytes = retainedBytes(benchmark::populateStore);
+            final long mapBytes = retainedBytes(benchmark::populateMapOfDeques);
+            System.out.printf("%s uids: ResourceVersionStore ~%s bytes, map of deques ~%s bytes%n", count, storeBytes, mapBytes);
+        }
+        new Runner(new OptionsBuilder().include(ResourceVersionStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ResourceVersionStoreTest {
+
+    @Test
+    void shouldDetectDuplicateResourceVersions() {
+        final ResourceVersionStore store = new ResourceVersionStore(100);
+        assertThat(store.add("uid-1", "1001")).isTrue();
+        assertThat(store.add("uid-1", "1001")).isFalse();
+        assertThat(store.add("uid-2", "1001")).isTrue();
+        assertThat(store.add("uid-1", "1002")).isTrue();
+        assertThat(store.contains("uid-1", "1001")).isTrue();
+        assertThat(store.contains("uid-1", "1003")).isFalse();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldOnlyRememberTheMostRecentVersionsOfAUid() {
+        final ResourceVersionStore store = new ResourceVersionStore(100);
+        for (int i = 0; i <= ResourceVersionStore.VERSIONS_PER_UID; i++) {
+            store.add("uid-1", String.valueOf(i));
+        }
+        assertThat(store.contains("uid-1", "0")).isFalse();
+        for (int i = 1; i <= ResourceVersionStore.VERSIONS_PER_UID; i++) {
+            assertThat(store.contains("uid-1", String.valueOf(i))).isTrue();
+        }
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedUidOnceFull() {
+        final ResourceVersionStore store = new ResourceVersionStore(3);
+        store.add("uid-1", "1");
+        store.add("uid-2", "1");
+        store.add("uid-3", "1");
+        store.add("uid-1", "2");
+        store.add("uid-4", "1");
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.getCapacity()).isEqualTo(3);
+        assertThat(store.contains("uid-2", "1")).isFalse();
+        assertThat(store.contains("uid-1", "1")).isTrue();
+        assertThat(store.contains("uid-3", "1")).isTrue();
+        assertThat(store.contains("uid-4", "1")).isTrue();
+    }
+
+    @Test
+    void shouldSupportNonNumericResourceVersions() {
+        final ResourceVersionStore store = new ResourceVersionStore(10);
+        assertThat(store.add("uid-1", "abc")).isTrue();
+        assertThat(store.add("uid-1", "abc")).isFalse();
+        assertThat(store.add("uid-1", "abd")).isTrue();
+    }
+
+    @Test
+    void shouldBehaveLikeABoundedMapOfDequesUnderRandomOperations() {
+        final int capacity = 200;
+        final ResourceVersionStore store = new ResourceVersionStore(capacity);
+        final Map<String, Deque<Long>> reference = new LinkedHashMap<>(16, 0.75F, true);
+        final Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            final String uid = "uid-" + random.nextInt(300);
+            if (random.nextInt(20) == 0) {
+                store.remove(uid);
+                reference.remove(uid);
+            } else {
+                final long version = random.nextInt(30);
+                final Deque<Long> versions = reference.get(uid);
+                final boolean expectedNew = versions == null || !versions.contains(version);
+                assertThat(store.add(uid, String.valueOf(version))).isEqualTo(expectedNew);
+                if (expectedNew) {
+                    final Deque<Long> target = reference.computeIfAbsent(uid, key -> new ArrayDeque<>());
+                    target.offer(version);
+                    if (target.size() > ResourceVersionStore.VERSIONS_PER_UID) {
+                        target.poll();
+                    }
+                    if (reference.size() > capacity) {
+                        reference.remove(reference.keySet().iterator().next());
+                    }
+                }
+            }
+            assertThat(store.size()).isEqualTo(reference.size());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ResourceWorkQueueTest {
+
+    private final ReconcileWorkerPool pool = new ReconcileWorkerPool(4);
+    private final ResourceWorkQueue queue = pool.newQueue("EntandoApp", 1);
+
+    @BeforeEach
+    void shortenBackoff() {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_REQUEUE_BASE_DELAY_MILLIS.getJvmSystemProperty(), "10");
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_REQUEUE_BASE_DELAY_MILLIS.getJvmSystemProperty());
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldCoalescePendingWorkForTheSameKey() throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        queue.submit("uid-1", () -> {
+            awaitQuietly(blocker);
+            processed.add("first");
+        });
+        await().atMost(5, TimeUnit.SECONDS).until(() -> queue.getQueueDepth() == 0);
+        queue.submit("uid-1", () -> processed.add("second"));
+        queue.submit("uid-1", () -> processed.add("third"));
+        blocker.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 2);
+        Thread.sleep(100);
+        assertThat(processed).containsExactly("first", "third");
+    }
+
+    @Test
+    void shouldNeverProcessTheSameKeyConcurrently() {
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            queue.submit("uid-1", () -> {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                sleepQuietly(2);
+                concurrent.decrementAndGet();
+                completed.incrementAndGet();
+            });
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> queue.getQueueDepth() == 0 && concurrent.get() == 0);
+        assertThat(maxConcurrent.get()).isEqualTo(1);
+        assertThat(completed.get()).isPositive();
+    }
+
+    @Test
+    void shouldOnlyTrackKeysUntilTheirWorkHasSucceeded() {
+        final AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            queue.submit("uid-" + i, attempts::incrementAndGet);
+        }
+        queue.submit("failing-uid", () -> {
+            throw new IllegalStateException();
+        });
+        await().atMost(5, TimeUnit.SECONDS).until(() -> attempts.get() == 100);
+        //Only the key that is still being retried is remembered
+        await().atMost(5, TimeUnit.SECONDS).until(() -> queue.getTrackedKeyCount() == 1);
+        queue.cancel("failing-uid");
+        assertThat(queue.getTrackedKeyCount()).isZero();
+    }
+
+    @Test
+    void shouldRequeueFailedWorkWithBackoff() {
+        final AtomicInteger attempts = new AtomicInteger();
+        queue.submit("uid-1", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("Try again");
+            }
+        });
+        await().atMost(5, TimeUnit.SECONDS).until(() -> attempts.get() == 3);
+    }
+
+    @Test
+    void shouldNotRequeueFailedWorkWhenNewerWorkWasSubmitted() throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final AtomicInteger failedAttempts = new AtomicInteger();
+        final AtomicInteger newerAttempts = new AtomicInteger();
+        queue.submit("uid-1", () -> {
+            failedAttempts.incrementAndGet();
+            awaitQuietly(blocker);
+            throw new IllegalStateException("Failed");
+        });
+        await().atMost(5, TimeUnit.SECONDS).until(() -> failedAttempts.get() == 1);
+        queue.submit("uid-1", newerAttempts::incrementAndGet);
+        blocker.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> newerAttempts.get() == 1);
+        Thread.sleep(200);
+        assertThat(failedAttempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCollapseABurstIntoOneReconcileOfTheLatestWorkAfterTheQuietPeriod() {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_QUIET_PERIODS.getJvmSystemProperty(), "EntandoPlugin=1000");
+        try {
+            final ResourceWorkQueue debouncedQueue = pool.newQueue("EntandoPlugin", 1);
+            final List<String> processed = new CopyOnWriteArrayList<>();
+            debouncedQueue.submit("uid-1", () -> processed.add("spec"));
+            sleepQuietly(300);
+            debouncedQueue.submit("uid-1", () -> processed.add("annotations"));
+            sleepQuietly(300);
+            debouncedQueue.submit("uid-1", () -> processed.add("labels"));
+            sleepQuietly(500);
+            //More than the quiet period has passed since the first submission
+            assertThat(processed).isEmpty();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 1);
+            sleepQuietly(100);
+            assertThat(processed).containsExactly("labels");
+            //Kinds without a quiet period are not affected
+            queue.submit("uid-2", () -> processed.add("app"));
+            await().atMost(1, TimeUnit.SECONDS).until(() -> processed.size() == 2);
+        } finally {
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_QUIET_PERIODS.getJvmSystemProperty());
+        }
+    }
+
+    @Test
+    void shouldNotHoldBackWorkThatKeepsOnChangingForLongerThanTheMaximumDelay() {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_QUIET_PERIODS.getJvmSystemProperty(), "EntandoPlugin=200");
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_MAX_DELAYS.getJvmSystemProperty(), "EntandoPlugin=500");
+        try {
+            final ResourceWorkQueue debouncedQueue = pool.newQueue("EntandoPlugin", 1);
+            final AtomicInteger processed = new AtomicInteger();
+            final long start = System.nanoTime();
+            //Changes every 50ms never leave a quiet period of 200ms
+            while (processed.get() == 0 && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000) {
+                debouncedQueue.submit("uid-1", processed::incrementAndGet);
+                sleepQuietly(50);
+            }
+            assertThat(processed.get()).isPositive();
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1500L);
+        } finally {
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_QUIET_PERIODS.getJvmSystemProperty());
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_DEBOUNCE_MAX_DELAYS.getJvmSystemProperty());
+        }
+    }
+
+    @Test
+    void shouldCalculateExponentialBackoffUpToTheMaximum() {
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_REQUEUE_MAX_DELAY_MILLIS.getJvmSystemProperty(), "50");
+        try {
+            assertThat(ResourceWorkQueue.calculateBackoffMillis(1)).isEqualTo(10L);
+            assertThat(ResourceWorkQueue.calculateBackoffMillis(2)).isEqualTo(20L);
+            assertThat(ResourceWorkQueue.calculateBackoffMillis(3)).isEqualTo(40L);
+            assertThat(ResourceWorkQueue.calculateBackoffMillis(4)).isEqualTo(50L);
+        } finally {
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_REQUEUE_MAX_DELAY_MILLIS.getJvmSystemProperty());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
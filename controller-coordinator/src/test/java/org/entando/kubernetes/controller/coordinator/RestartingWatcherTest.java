@@ -0,0 +1,138 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.Status;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class RestartingWatcherTest {
+
+    private final File livenessFile = Paths.get("/tmp/EntandoControllerCoordinator.ready").toFile();
+    private final List<String> resourceVersionsWatchedFrom = new ArrayList<>();
+    private final List<SerializedEntandoResource> received = new ArrayList<>();
+    private final AtomicInteger closedWatches = new AtomicInteger();
+    private final CustomResourceStringWatcher watcher = new CustomResourceStringWatcher(
+            (action, resource) -> received.add(resource),
+            CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class),
+            stringWatcher -> {
+                resourceVersionsWatchedFrom.add(stringWatcher.getLastResourceVersion());
+                return closedWatches::incrementAndGet;
+            },
+            event -> {
+            });
+
+    @BeforeEach
+    void alive() {
+        System.setProperty(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_POD_NAME.getJvmSystemProperty(), "my-pod");
+        Liveness.alive();
+    }
+
+    @AfterEach
+    void clearPodName() {
+        System.clearProperty(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_POD_NAME.getJvmSystemProperty());
+    }
+
+    @Test
+    void shouldResumeFromTheLastResourceVersionAfterATransientFailure() throws IOException {
+        watcher.eventReceived(Action.MODIFIED, resourceWithVersion("1001"));
+        watcher.onClose(new WatcherException("Connection reset", new IOException("Connection reset")));
+        assertThat(resourceVersionsWatchedFrom).containsExactly(null, "1001");
+        assertThat(livenessFile).exists();
+    }
+
+    @Test
+    void shouldRelistWhenTheResourceVersionIsGone() throws IOException {
+        watcher.eventReceived(Action.MODIFIED, resourceWithVersion("1001"));
+        watcher.onClose(new WatcherException("Gone", new KubernetesClientException("Gone", HttpURLConnection.HTTP_GONE, null)));
+        assertThat(resourceVersionsWatchedFrom).containsExactly(null, null);
+        assertThat(livenessFile).exists();
+    }
+
+    @Test
+    void shouldRelistWhenTheRawWatchReportsAGoneError() throws IOException {
+        watcher.eventReceived(Action.MODIFIED, resourceWithVersion("1001"));
+        final Status status = new StatusBuilder().withCode(HttpURLConnection.HTTP_GONE).withMessage("too old resource version").build();
+        watcher.eventReceived(Action.ERROR, new ObjectMapper().writeValueAsString(status));
+        assertThat(resourceVersionsWatchedFrom).containsExactly(null, null);
+        assertThat(closedWatches.get()).isEqualTo(1);
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void shouldResumeFromTheResourceVersionOfTheRelist() throws IOException {
+        final AtomicInteger relists = new AtomicInteger();
+        final List<String> resumedFrom = new ArrayList<>();
+        final CustomResourceStringWatcher relistingWatcher = new CustomResourceStringWatcher(
+                (action, resource) -> received.add(resource),
+                CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class),
+                stringWatcher -> {
+                    resumedFrom.add(stringWatcher.getLastResourceVersion());
+                    return closedWatches::incrementAndGet;
+                },
+                event -> {
+                },
+                "1000",
+                () -> relists.incrementAndGet() == 1 ? "2002" : null);
+        relistingWatcher.eventReceived(Action.MODIFIED, resourceWithVersion("1001"));
+        relistingWatcher.onClose(new WatcherException("Gone", new KubernetesClientException("Gone", HttpURLConnection.HTTP_GONE, null)));
+        assertThat(resumedFrom).containsExactly("1000", "2002");
+        assertThat(relists.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStillKillTheOperatorOnUnrecoverableFailures() throws IOException {
+        watcher.eventReceived(Action.MODIFIED, resourceWithVersion("1001"));
+        watcher.onClose(new WatcherException("Forbidden", new KubernetesClientException("Forbidden", HttpURLConnection.HTTP_FORBIDDEN,
+                null)));
+        assertThat(resourceVersionsWatchedFrom).containsExactly((String) null);
+        assertThat(livenessFile).doesNotExist();
+    }
+
+    private String resourceWithVersion(String resourceVersion) throws IOException {
+        final EntandoApp app = new EntandoApp();
+        app.getMetadata().setNamespace("my-namespace");
+        app.getMetadata().setName("my-app");
+        app.getMetadata().setUid("uid-1");
+        app.getMetadata().setResourceVersion(resourceVersion);
+        return new ObjectMapper().writeValueAsString(CoordinatorTestUtils.toSerializedResource(app));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionBuilder;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.quarkus.runtime.StartupEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import okhttp3.mockwebserver.MockWebServer;
+import org.entando.kubernetes.controller.coordinator.common.VersionedCrudDispatcher;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.support.common.EntandoOperatorConfigProperty;
+import org.entando.kubernetes.fluentspi.BasicDeploymentSpecBuilder;
+import org.entando.kubernetes.fluentspi.TestResource;
+import org.entando.kubernetes.model.common.DbmsVendor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("component"), @Tag("in-process"), @Tag("pre-deployment")})
+class ShardedControllerCoordinatorTest {
+
+    private final KubernetesMockServer server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+            new VersionedCrudDispatcher(), false);
+    private final List<EntandoControllerCoordinator> coordinators = new ArrayList<>();
+    private NamespacedKubernetesClient fabric8Client;
+
+    @BeforeEach
+    void enableSharding() throws IOException {
+        server.init();
+        this.fabric8Client = server.createClient();
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARDING_ENABLED.getJvmSystemProperty(), "true");
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_KEY.getJvmSystemProperty(), "uid");
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_RENEW_INTERVAL_SECONDS.getJvmSystemProperty(), "1");
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_LEASE_DURATION_SECONDS.getJvmSystemProperty(), "3");
+        System.setProperty(EntandoOperatorConfigProperty.ENTANDO_NAMESPACES_TO_OBSERVE.getJvmSystemProperty(),
+                fabric8Client.getNamespace());
+        //All the resources live in the same namespace, and their controller pods never complete
+        System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_BUDGET_PER_NAMESPACE.getJvmSystemProperty(), "30");
+        final CustomResourceDefinition testResourceDefinition = new ObjectMapper(new YAMLFactory())
+                .readValue(Thread.currentThread().getContextClassLoader().getResource("testresources.test.org.crd.yaml"),
+                        CustomResourceDefinition.class);
+        fabric8Client.apiextensions().v1().customResourceDefinitions().create(new CustomResourceDefinitionBuilder(testResourceDefinition)
+                .editMetadata().addToLabels(LabelNames.CRD_OF_INTEREST.getName(), "TestResource")
+                .addToAnnotations(AnnotationNames.CONTROLLER_IMAGE.getName(), "test/my-controller")
+                .endMetadata().build());
+    }
+
+    @AfterEach
+    void stopCoordinators() throws TimeoutException {
+        for (EntandoControllerCoordinator coordinator : coordinators) {
+            coordinator.shutdownObservers(5, TimeUnit.SECONDS);
+        }
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARDING_ENABLED.getJvmSystemProperty());
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_KEY.getJvmSystemProperty());
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_RENEW_INTERVAL_SECONDS.getJvmSystemProperty());
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_SHARD_LEASE_DURATION_SECONDS.getJvmSystemProperty());
+        System.clearProperty(EntandoOperatorConfigProperty.ENTANDO_NAMESPACES_TO_OBSERVE.getJvmSystemProperty());
+        System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_CONTROLLER_POD_BUDGET_PER_NAMESPACE.getJvmSystemProperty());
+        fabric8Client.close();
+        server.destroy();
+    }
+
+    @Test
+    void shouldStartOneControllerPodPerResourceAcrossReplicasAndAfterOneOfThemStops() throws TimeoutException {
+        final EntandoControllerCoordinator staying = startCoordinator("coordinator-a");
+        final EntandoControllerCoordinator leaving = startCoordinator("coordinator-b");
+        await().atMost(15, TimeUnit.SECONDS).until(() -> staying.getShard().getMembers().size() == 2
+                && leaving.getShard().getMembers().size() == 2);
+        final List<TestResource> resources = IntStream.range(0, 20)
+                .mapToObj(i -> createTestResource("resource-" + i))
+                .collect(Collectors.toList());
+        //Both replicas reconcile their slice, and no resource is reconciled by both
+        await().atMost(30, TimeUnit.SECONDS)
+                .until(() -> resources.stream().allMatch(resource -> controllerPodNamesOf(resource).size() == 1));
+        final List<TestResource> slice = resources.stream()
+                .filter(resource -> leaving.getShard().isOwnedLocally(resource))
+                .collect(Collectors.toList());
+        assertThat(slice).isNotEmpty().hasSizeLessThan(resources.size());
+        final Map<String, String> podsBefore = resources.stream().collect(Collectors.toMap(this::nameOf,
+                resource -> controllerPodNamesOf(resource).get(0)));
+        leaving.shutdownObservers(5, TimeUnit.SECONDS);
+        await().atMost(15, TimeUnit.SECONDS).until(() -> staying.getShard().getMembers().equals(Set.of("coordinator-a")));
+        //The remaining replica resyncs the slice of the replica that stopped without reconciling its resources again
+        assertThat(resources).allMatch(resource -> controllerPodNamesOf(resource).equals(List.of(podsBefore.get(nameOf(resource)))));
+        //and it now reconciles the spec changes of that slice
+        slice.forEach(resource -> fabric8Client.customResources(TestResource.class).inNamespace(fabric8Client.getNamespace())
+                .withName(nameOf(resource))
+                .edit(latest -> latest.withSpec(new BasicDeploymentSpecBuilder().withDbms(DbmsVendor.POSTGRESQL).build())));
+        await().atMost(30, TimeUnit.SECONDS).until(() -> slice.stream().allMatch(resource -> {
+            final List<String> pods = controllerPodNamesOf(resource);
+            return pods.size() == 1 && !pods.get(0).equals(podsBefore.get(nameOf(resource)));
+        }));
+        assertThat(resources).allMatch(resource -> controllerPodNamesOf(resource).size() == 1);
+    }
+
+    private EntandoControllerCoordinator startCoordinator(String identity) {
+        final DefaultSimpleKubernetesClient client = new DefaultSimpleKubernetesClient(fabric8Client);
+        final EntandoControllerCoordinator coordinator = new EntandoControllerCoordinator(client, new CoordinatorShard(client, identity));
+        coordinators.add(coordinator);
+        coordinator.onStartup(new StartupEvent());
+        return coordinator;
+    }
+
+    private TestResource createTestResource(String name) {
+        final TestResource resource = new TestResource().withNames(fabric8Client.getNamespace(), name)
+                .withSpec(new BasicDeploymentSpecBuilder().withDbms(DbmsVendor.EMBEDDED).build());
+        return fabric8Client.customResources(TestResource.class).inNamespace(fabric8Client.getNamespace()).create(resource);
+    }
+
+    private List<String> controllerPodNamesOf(TestResource resource) {
+        return fabric8Client.pods().inNamespace(fabric8Client.getNamespace())
+                .withLabels(CoordinatorUtils.podLabelsFor(resource))
+                .list()
+                .getItems()
+                .stream()
+                .map(pod -> pod.getMetadata().getName())
+                .collect(Collectors.toList());
+    }
+
+    private String nameOf(TestResource resource) {
+        return resource.getMetadata().getName();
+    }
+}
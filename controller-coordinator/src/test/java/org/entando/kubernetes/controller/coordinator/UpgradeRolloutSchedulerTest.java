@@ -0,0 +1,190 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.fabric8.kubernetes.client.Watcher.Action;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.entando.kubernetes.controller.coordinator.common.CoordinatorTestUtils;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.entando.kubernetes.model.common.EntandoCustomResource;
+import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
+import org.entando.kubernetes.model.externaldatabase.EntandoDatabaseService;
+import org.entando.kubernetes.model.link.EntandoAppPluginLink;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class UpgradeRolloutSchedulerTest {
+
+    private final List<String> dispatched = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldRollOutInDependencyOrderWithinTheInFlightLimit() {
+        final UpgradeRolloutScheduler scheduler = new UpgradeRolloutScheduler(2, 0.5, 4);
+        final SerializedEntandoResource link = newResource(new EntandoAppPluginLink(), "link");
+        final SerializedEntandoResource plugin = newResource(new EntandoPlugin(), "plugin");
+        final SerializedEntandoResource app1 = newResource(new EntandoApp(), "app1");
+        final SerializedEntandoResource app2 = newResource(new EntandoApp(), "app2");
+        final SerializedEntandoResource app3 = newResource(new EntandoApp(), "app3");
+        final SerializedEntandoResource database = newResource(new EntandoDatabaseService(), "database");
+        submit(scheduler, link, plugin, app1, app2, app3);
+        assertThat(dispatched).isEmpty();
+        scheduler.start();
+        assertThat(dispatched).containsExactly("app1", "app2");
+        //An earlier wave that shows up later holds back the waves after it
+        submit(scheduler, database);
+        complete(scheduler, app1, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).containsExactly("app1", "app2", "database");
+        complete(scheduler, database, EntandoDeploymentPhase.SUCCESSFUL);
+        complete(scheduler, app2, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).containsExactly("app1", "app2", "database", "app3");
+        complete(scheduler, app3, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).endsWith("plugin");
+        complete(scheduler, plugin, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).endsWith("link");
+        complete(scheduler, link, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(scheduler.getSucceededCount()).isEqualTo(6);
+        assertThat(scheduler.getInFlightCount()).isZero();
+        assertThat(scheduler.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldOnlyCountFinalPhasesReachedAfterTheControllerStarted() {
+        final UpgradeRolloutScheduler scheduler = new UpgradeRolloutScheduler(1, 0.5, 4);
+        scheduler.start();
+        final SerializedEntandoResource app1 = newResource(new EntandoApp(), "app1");
+        final SerializedEntandoResource app2 = newResource(new EntandoApp(), "app2");
+        submit(scheduler, app1, app2);
+        //The phase left behind by the previous operator version
+        app1.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.SUCCESSFUL, 1L);
+        scheduler.observe(Action.MODIFIED, app1);
+        assertThat(dispatched).containsExactly("app1");
+        complete(scheduler, app1, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).containsExactly("app1", "app2");
+    }
+
+    @Test
+    void shouldPauseWhenTooManyUpgradesFail() {
+        final UpgradeRolloutScheduler scheduler = new UpgradeRolloutScheduler(2, 0.5, 2);
+        scheduler.start();
+        final SerializedEntandoResource app1 = newResource(new EntandoApp(), "app1");
+        final SerializedEntandoResource app2 = newResource(new EntandoApp(), "app2");
+        final SerializedEntandoResource app3 = newResource(new EntandoApp(), "app3");
+        submit(scheduler, app1, app2, app3);
+        complete(scheduler, app1, EntandoDeploymentPhase.FAILED);
+        assertThat(scheduler.isPaused()).isFalse();
+        assertThat(dispatched).containsExactly("app1", "app2", "app3");
+        complete(scheduler, app2, EntandoDeploymentPhase.FAILED);
+        assertThat(scheduler.isPaused()).isTrue();
+        final SerializedEntandoResource app4 = newResource(new EntandoApp(), "app4");
+        submit(scheduler, app4);
+        assertThat(dispatched).doesNotContain("app4");
+        assertThat(scheduler.describeProgress()).contains("2 failed", "paused");
+        scheduler.resume();
+        assertThat(dispatched).contains("app4");
+    }
+
+    @Test
+    void shouldNotDispatchAPendingUpgradeOfAResourceReconciledForAChangeOfItsOwn() {
+        final UpgradeRolloutScheduler scheduler = new UpgradeRolloutScheduler(1, 0.5, 4);
+        scheduler.start();
+        final SerializedEntandoResource app1 = newResource(new EntandoApp(), "app1");
+        final SerializedEntandoResource app2 = newResource(new EntandoApp(), "app2");
+        final SerializedEntandoResource app3 = newResource(new EntandoApp(), "app3");
+        submit(scheduler, app1, app2, app3);
+        assertThat(dispatched).containsExactly("app1");
+        //The spec of app2 changes while it waits for its turn, and the spec of app1 while it is in flight
+        scheduler.withdraw(app2.getMetadata().getUid());
+        scheduler.withdraw(app1.getMetadata().getUid());
+        assertThat(scheduler.getPendingCount()).isEqualTo(1);
+        assertThat(scheduler.getInFlightCount()).isEqualTo(1);
+        complete(scheduler, app1, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).containsExactly("app1", "app3");
+        complete(scheduler, app3, EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(dispatched).containsExactly("app1", "app3");
+        assertThat(scheduler.getSucceededCount()).isEqualTo(2);
+        assertThat(scheduler.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldCountUpgradesStuckInFlightAsFailed() {
+        final UpgradeRolloutScheduler scheduler = new UpgradeRolloutScheduler(1, 0.5, 4, 60);
+        scheduler.start();
+        try {
+            final SerializedEntandoResource app1 = newResource(new EntandoApp(), "app1");
+            final SerializedEntandoResource app2 = newResource(new EntandoApp(), "app2");
+            submit(scheduler, app1, app2);
+            scheduler.checkProgress(System.currentTimeMillis());
+            assertThat(dispatched).containsExactly("app1");
+            scheduler.checkProgress(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(61));
+            assertThat(scheduler.getFailedCount()).isEqualTo(1);
+            assertThat(dispatched).containsExactly("app1", "app2");
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void shouldResumeWhenTheResumeTokenChanges() {
+        final UpgradeRolloutScheduler scheduler = new UpgradeRolloutScheduler(2, 0.5, 2);
+        scheduler.start();
+        try {
+            final SerializedEntandoResource app1 = newResource(new EntandoApp(), "app1");
+            final SerializedEntandoResource app2 = newResource(new EntandoApp(), "app2");
+            final SerializedEntandoResource app3 = newResource(new EntandoApp(), "app3");
+            submit(scheduler, app1, app2, app3);
+            complete(scheduler, app1, EntandoDeploymentPhase.FAILED);
+            complete(scheduler, app2, EntandoDeploymentPhase.FAILED);
+            assertThat(scheduler.isPaused()).isTrue();
+            scheduler.checkProgress(System.currentTimeMillis());
+            assertThat(scheduler.isPaused()).isTrue();
+            System.setProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_RESUME_TOKEN.getJvmSystemProperty(), "1");
+            scheduler.checkProgress(System.currentTimeMillis());
+            assertThat(scheduler.isPaused()).isFalse();
+        } finally {
+            scheduler.stop();
+            System.clearProperty(ControllerCoordinatorProperty.ENTANDO_K8S_UPGRADE_RESUME_TOKEN.getJvmSystemProperty());
+        }
+    }
+
+    private void submit(UpgradeRolloutScheduler scheduler, SerializedEntandoResource... resources) {
+        for (SerializedEntandoResource resource : resources) {
+            scheduler.submit(resource, () -> dispatched.add(resource.getMetadata().getName()));
+        }
+    }
+
+    private void complete(UpgradeRolloutScheduler scheduler, SerializedEntandoResource resource, EntandoDeploymentPhase phase) {
+        resource.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.REQUESTED, 1L);
+        scheduler.observe(Action.MODIFIED, resource);
+        resource.getStatus().updateDeploymentPhase(phase, 1L);
+        scheduler.observe(Action.MODIFIED, resource);
+    }
+
+    private SerializedEntandoResource newResource(EntandoCustomResource resource, String name) {
+        resource.getMetadata().setNamespace("my-namespace");
+        resource.getMetadata().setName(name);
+        resource.getMetadata().setUid(name + "-uid");
+        return CoordinatorTestUtils.toSerializedResource(resource);
+    }
+}
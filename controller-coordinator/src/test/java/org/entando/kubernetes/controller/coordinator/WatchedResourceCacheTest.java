@@ -0,0 +1,150 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.junit.Rule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("in-process"), @Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class WatchedResourceCacheTest {
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, true);
+
+    @Test
+    void shouldServeRepeatedConfigMapLookupsFromTheCache() {
+        final NamespacedKubernetesClient fabric8Client = server.getClient();
+        final DefaultSimpleKubernetesClient client = new DefaultSimpleKubernetesClient(fabric8Client);
+        final long missesBefore = misses("ConfigMap");
+        final long hitsBefore = hits("ConfigMap");
+        fabric8Client.configMaps().create(new ConfigMapBuilder()
+                .withNewMetadata().withName("my-config").endMetadata()
+                .addToData("key", "value1")
+                .build());
+        for (int i = 0; i < 10; i++) {
+            assertThat(client.findOrCreateControllerConfigMap("my-config").getData()).containsEntry("key", "value1");
+        }
+        assertThat(misses("ConfigMap") - missesBefore).isEqualTo(1L);
+        assertThat(hits("ConfigMap") - hitsBefore).isEqualTo(9L);
+        //Changes made by others arrive through the watch
+        fabric8Client.configMaps().withName("my-config").edit(configMap -> new ConfigMapBuilder(configMap).addToData("key", "value2").build());
+        await().atMost(10, TimeUnit.SECONDS)
+                .until(() -> "value2".equals(client.findOrCreateControllerConfigMap("my-config").getData().get("key")));
+        assertThat(misses("ConfigMap") - missesBefore).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldNotExposeTheCachedStateToModificationsByTheCaller() {
+        final DefaultSimpleKubernetesClient client = new DefaultSimpleKubernetesClient(server.getClient());
+        final ConfigMap created = client.findOrCreateControllerConfigMap("my-config");
+        assertThat(created.getMetadata().getName()).isEqualTo("my-config");
+        final ConfigMap modified = client.findOrCreateControllerConfigMap("my-config");
+        modified.getMetadata().setLabels(Map.of("modified", "true"));
+        assertThat(client.findOrCreateControllerConfigMap("my-config").getMetadata().getLabels()).isNullOrEmpty();
+        //Own writes are visible immediately
+        client.patchControllerConfigMap(modified);
+        assertThat(client.findOrCreateControllerConfigMap("my-config").getMetadata().getLabels()).containsEntry("modified", "true");
+    }
+
+    @Test
+    void shouldTrackSecretsThatDoNotExistYet() {
+        final NamespacedKubernetesClient fabric8Client = server.getClient();
+        final DefaultSimpleKubernetesClient client = new DefaultSimpleKubernetesClient(fabric8Client);
+        final long missesBefore = misses("Secret");
+        final long hitsBefore = hits("Secret");
+        assertThat(client.loadControllerSecret("my-secret")).isNull();
+        assertThat(client.loadControllerSecret("my-secret")).isNull();
+        assertThat(hits("Secret") - hitsBefore).isEqualTo(1L);
+        fabric8Client.secrets().create(new SecretBuilder()
+                .withNewMetadata().withName("my-secret").endMetadata()
+                .addToStringData("password", "secret")
+                .build());
+        await().atMost(10, TimeUnit.SECONDS).until(() -> client.loadControllerSecret("my-secret") != null);
+        final Secret overwritten = client.overwriteControllerSecret(new SecretBuilder()
+                .withNewMetadata().withName("my-secret").endMetadata()
+                .addToStringData("password", "other")
+                .build());
+        assertThat(client.loadControllerSecret("my-secret").getMetadata().getResourceVersion())
+                .isEqualTo(overwritten.getMetadata().getResourceVersion());
+        client.deleteControllerSecret("my-secret");
+        assertThat(client.loadControllerSecret("my-secret")).isNull();
+        assertThat(misses("Secret") - missesBefore).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldOnlyReadTheControllerDeploymentOnce() {
+        final DefaultSimpleKubernetesClient client = new DefaultSimpleKubernetesClient(server.getClient());
+        final long missesBefore = misses("Deployment");
+        final Deployment desired = new DeploymentBuilder()
+                .withNewMetadata().withName("my-controller-worker").endMetadata()
+                .withNewSpec()
+                .withNewTemplate()
+                .withNewSpec()
+                .addNewContainer().withName("worker").withImage("my-controller:6.3.1").endContainer()
+                .endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+        for (int i = 0; i < 10; i++) {
+            assertThat(client.createControllerDeploymentIfAbsent(desired).getMetadata().getName()).isEqualTo("my-controller-worker");
+        }
+        client.createOrReplaceControllerDeployment(new DeploymentBuilder(desired)
+                .editSpec().editTemplate().editSpec().editFirstContainer().withImage("my-controller:6.3.2").endContainer().endSpec()
+                .endTemplate().endSpec()
+                .build());
+        //Own writes are visible immediately
+        assertThat(client.createControllerDeploymentIfAbsent(desired).getSpec().getTemplate().getSpec().getContainers().get(0).getImage())
+                .isEqualTo("my-controller:6.3.2");
+        assertThat(misses("Deployment") - missesBefore).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldServeTheCountersOnTheMetricsEndpoint() {
+        final DefaultSimpleKubernetesClient client = new DefaultSimpleKubernetesClient(server.getClient());
+        client.findOrCreateControllerConfigMap("my-config");
+        client.findOrCreateControllerConfigMap("my-config");
+        assertThat(OperatorMetrics.getInstance().scrape())
+                .contains("entando_watched_resource_cache_hits_total{kind=\"ConfigMap\"}")
+                .contains("entando_watched_resource_cache_misses_total{kind=\"ConfigMap\"}");
+    }
+
+    private static long hits(String kind) {
+        return OperatorMetrics.getInstance().counter("entando_watched_resource_cache_hits_total", "", "kind", kind).get();
+    }
+
+    private static long misses(String kind) {
+        return OperatorMetrics.getInstance().counter("entando_watched_resource_cache_misses_total", "", "kind", kind).get();
+    }
+}
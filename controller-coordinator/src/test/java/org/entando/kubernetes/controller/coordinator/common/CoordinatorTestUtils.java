@@ -17,7 +17,7 @@
 package org.entando.kubernetes.controller.coordinator.common;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import java.io.IOException;
@@ -31,11 +31,11 @@ public class CoordinatorTestUtils {
 
     }
 
-    public static boolean matchesLabels(Map<String, String> labels, Pod pod) {
+    public static boolean matchesLabels(Map<String, String> labels, HasMetadata resource) {
         return labels.entrySet().stream()
                 .allMatch(
-                        entry -> (entry.getValue() == null && pod.getMetadata().getLabels().containsKey(entry.getKey()))
-                                || entry.getValue().equals(pod.getMetadata().getLabels().get(entry.getKey())));
+                        entry -> (entry.getValue() == null && resource.getMetadata().getLabels().containsKey(entry.getKey()))
+                                || entry.getValue().equals(resource.getMetadata().getLabels().get(entry.getKey())));
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import org.entando.kubernetes.controller.spi.client.InProcessController;
+
+/**
+ * Packaged in a jar of its own by the tests of the InProcessControllerRunner. It is loaded by an isolated class loader and
+ * therefore reports its invocations to the tests through files in the directory specified in the system properties.
+ */
+public class RecordingInProcessController implements InProcessController {
+
+    public static final String DIRECTORY_PROPERTY = "test.in-process.directory";
+    public static final String RELEASE_FILE = "release";
+
+    @Override
+    public void run(Map<String, String> properties) {
+        final Path directory = Paths.get(System.getProperty(DIRECTORY_PROPERTY));
+        final Properties invocation = new Properties();
+        invocation.putAll(properties);
+        invocation.put("classLoader", getClass().getClassLoader().getName());
+        invocation.put("contextClassLoader", Thread.currentThread().getContextClassLoader().getName());
+        final String name = properties.get("ENTANDO_RESOURCE_NAME");
+        try {
+            final Path tempFile = Files.createTempFile(directory, name, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                invocation.store(out, null);
+            }
+            Files.move(tempFile, directory.resolve(name + ".properties"), StandardCopyOption.ATOMIC_MOVE);
+            final long deadline = System.currentTimeMillis() + 10000L;
+            while (!Files.exists(directory.resolve(RELEASE_FILE)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if ("failing-app".equals(name)) {
+            throw new IllegalStateException("Failed");
+        }
+    }
+}
@@ -60,8 +60,15 @@ public class SimpleEntandoOperationsDouble extends AbstractK8SClientDouble imple
 
     @Override
     public SimpleEntandoOperations inNamespace(String namespace) {
-        this.namespace = namespace;
-        return this;
+        //A copy, because observers bootstrap their namespaces concurrently
+        final SimpleEntandoOperationsDouble result = new SimpleEntandoOperationsDouble(getNamespaces(), definitionContext, getCluster());
+        result.namespace = namespace;
+        return result;
+    }
+
+    @Override
+    public String getNamespace() {
+        return namespace;
     }
 
     @Override
@@ -71,8 +78,7 @@ public class SimpleEntandoOperationsDouble extends AbstractK8SClientDouble imple
 
     @Override
     public SimpleEntandoOperations inAnyNamespace() {
-        this.namespace = null;
-        return this;
+        return new SimpleEntandoOperationsDouble(getNamespaces(), definitionContext, getCluster());
     }
 
     @Override
@@ -102,7 +108,7 @@ public class SimpleEntandoOperationsDouble extends AbstractK8SClientDouble imple
                     }
                     return () -> {
                     };
-                }, this);
+                }, this, null, () -> watcher.relist(this));
         return stringWatcher;
     }
 
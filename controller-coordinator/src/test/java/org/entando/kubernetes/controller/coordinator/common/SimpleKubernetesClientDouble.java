@@ -22,6 +22,9 @@ import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
@@ -32,6 +35,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.entando.kubernetes.controller.coordinator.CoordinatorUtils;
+import org.entando.kubernetes.controller.coordinator.EntandoResourceCache;
 import org.entando.kubernetes.controller.coordinator.SimpleEntandoOperations;
 import org.entando.kubernetes.controller.coordinator.SimpleKubernetesClient;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
@@ -42,6 +46,10 @@ import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
 
 public class SimpleKubernetesClientDouble extends AbstractK8SClientDouble implements SimpleKubernetesClient {
 
+    private final EntandoResourceCache resourceCache = new EntandoResourceCache();
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<String, DaemonSet> controllerDaemonSets = new ConcurrentHashMap<>();
+
     public SimpleKubernetesClientDouble() {
         super(new ConcurrentHashMap<>(), new ClusterDouble());
     }
@@ -82,6 +90,45 @@ public class SimpleKubernetesClientDouble extends AbstractK8SClientDouble implem
         return getCluster().getResourceProcessor().processResource(getNamespace(pod).getPods(), pod);
     }
 
+    @Override
+    public List<Pod> loadControllerPods(Map<String, String> labels) {
+        return loadPods(CONTROLLER_NAMESPACE, labels);
+    }
+
+    @Override
+    public Watch watchControllerPods(Map<String, String> labels, String resourceVersion, Watcher<Pod> watcher) {
+        return getCluster().getResourceProcessor().watch(watcher, CONTROLLER_NAMESPACE, labels);
+    }
+
+    @Override
+    public Deployment createControllerDeploymentIfAbsent(Deployment deployment) {
+        final Deployment existing = getNamespace(CONTROLLER_NAMESPACE).getDeployment(deployment.getMetadata().getName());
+        if (existing == null) {
+            return getCluster().getResourceProcessor().processResource(getNamespace(CONTROLLER_NAMESPACE).getDeployments(), deployment);
+        }
+        return existing;
+    }
+
+    @Override
+    public Deployment createOrReplaceControllerDeployment(Deployment deployment) {
+        final Deployment existing = getNamespace(CONTROLLER_NAMESPACE).getDeployment(deployment.getMetadata().getName());
+        if (existing != null) {
+            //Like the real client, replace whatever version is current
+            deployment.getMetadata().setResourceVersion(existing.getMetadata().getResourceVersion());
+        }
+        return getCluster().getResourceProcessor().processResource(getNamespace(CONTROLLER_NAMESPACE).getDeployments(), deployment);
+    }
+
+    @Override
+    public DaemonSet createOrReplaceControllerDaemonSet(DaemonSet daemonSet) {
+        controllerDaemonSets.put(daemonSet.getMetadata().getName(), daemonSet);
+        return daemonSet;
+    }
+
+    public DaemonSet getControllerDaemonSet(String name) {
+        return controllerDaemonSets.get(name);
+    }
+
     @Override
     public void removePodsAndWait(String namespace, Map<String, String> labels) {
         filterPodsByLabel(namespace, labels)
@@ -91,6 +138,11 @@ public class SimpleKubernetesClientDouble extends AbstractK8SClientDouble implem
                 });
     }
 
+    @Override
+    public void deleteControllerPods(List<Pod> pods) {
+        pods.forEach(pod -> getNamespace(CONTROLLER_NAMESPACE).getPods().remove(pod.getMetadata().getName()));
+    }
+
     @Override
     public ConfigMap findOrCreateControllerConfigMap(String name) {
         final ConfigMap configMap = getNamespace(CONTROLLER_NAMESPACE).getConfigMap(name);
@@ -113,13 +165,13 @@ public class SimpleKubernetesClientDouble extends AbstractK8SClientDouble implem
     }
 
     @Override
-    public void watchControllerConfigMap(String name, Watcher<ConfigMap> configMapWatcher) {
-        getCluster().getResourceProcessor().watch(configMapWatcher, CONTROLLER_NAMESPACE, name);
-
+    public Watch watchControllerConfigMap(String name, String resourceVersion, Watcher<ConfigMap> configMapWatcher) {
+        return getCluster().getResourceProcessor().watch(configMapWatcher, CONTROLLER_NAMESPACE, name);
     }
 
     @Override
-    public Watch watchCustomResourceDefinitions(Watcher<CustomResourceDefinition> customResourceDefinitionWatcher) {
+    public Watch watchCustomResourceDefinitions(String resourceVersion,
+            Watcher<CustomResourceDefinition> customResourceDefinitionWatcher) {
         this.getCluster().getResourceProcessor().watch(customResourceDefinitionWatcher);
         return () -> {
         };
@@ -141,6 +193,27 @@ public class SimpleKubernetesClientDouble extends AbstractK8SClientDouble implem
         getNamespace(CONTROLLER_NAMESPACE).getSecrets().remove(secretName);
     }
 
+    @Override
+    public EntandoResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    @Override
+    public Lease createOrReplaceControllerLease(Lease lease) {
+        leases.put(lease.getMetadata().getName(), lease);
+        return lease;
+    }
+
+    @Override
+    public List<Lease> loadControllerLeases(Map<String, String> labels) {
+        return leases.values().stream().filter(lease -> CoordinatorTestUtils.matchesLabels(labels, lease)).collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteControllerLease(String name) {
+        leases.remove(name);
+    }
+
     @Override
     public void issueOperatorDeathEvent(Event event) {
         event.getMetadata().setNamespace(getNamespace());
@@ -0,0 +1,266 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.coordinator.common;
+
+import static java.lang.String.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.client.server.mock.KubernetesAttributesExtractor;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.mockwebserver.crud.Attribute;
+import io.fabric8.mockwebserver.crud.AttributeSet;
+import io.fabric8.zjsonpatch.JsonPatch;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.Collectors;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * The CRUD dispatcher of the fabric8 mock server generates a new uid and resets the resourceVersion on every write, and it only
+ * understands JSON patches. This one keeps the uid of a resource for its lifetime, gives every write a new resourceVersion, only
+ * increments the generation when the spec changes, and also applies the JSON merge patches that the coordinator uses for status
+ * updates and Events, so that complete coordinators can be run against the mock server.
+ */
+public class VersionedCrudDispatcher extends KubernetesCrudDispatcher {
+
+    private static final String STATUS_SUFFIX = "/status";
+    private static final String METADATA = "metadata";
+    private static final String SPEC = "spec";
+    private static final String UID = "uid";
+    private static final String RESOURCE_VERSION = "resourceVersion";
+    private static final String GENERATION = "generation";
+    private static final String CREATION_TIMESTAMP = "creationTimestamp";
+    private final Set<ResourceWatch> watches = new CopyOnWriteArraySet<>();
+    private long lastResourceVersion;
+
+    @Override
+    public synchronized MockResponse dispatch(RecordedRequest request) {
+        final String contentType = request.getHeader("Content-Type");
+        if ("PATCH".equals(request.getMethod()) && contentType != null && !contentType.startsWith("application/json-patch+json")) {
+            return handleMergePatch(request.getPath(), request.getBody().readUtf8());
+        }
+        return super.dispatch(request);
+    }
+
+    @Override
+    public MockResponse handleCreate(String path, String body) {
+        final ObjectNode resource = (ObjectNode) readTree(body);
+        final ObjectNode metadata = (ObjectNode) resource.get(METADATA);
+        if (!metadata.hasNonNull(KubernetesAttributesExtractor.NAME) && metadata.hasNonNull("generateName")) {
+            metadata.put(KubernetesAttributesExtractor.NAME, metadata.get("generateName").asText() + randomSuffix());
+        }
+        final String name = metadata.get(KubernetesAttributesExtractor.NAME).asText();
+        if (findExisting(path + "/" + name).isPresent()) {
+            return status(HttpURLConnection.HTTP_CONFLICT, "AlreadyExists", format("%s already exists", name));
+        }
+        if (!metadata.hasNonNull(UID)) {
+            metadata.put(UID, UUID.randomUUID().toString());
+        }
+        if (!metadata.hasNonNull(GENERATION)) {
+            metadata.put(GENERATION, 1L);
+        }
+        metadata.put(CREATION_TIMESTAMP, ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_INSTANT));
+        return store(path, resource, "ADDED", HttpURLConnection.HTTP_CREATED);
+    }
+
+    @Override
+    public MockResponse handleReplace(String path, String body) {
+        return findExisting(path)
+                .map(existing -> replace(path, existing, (ObjectNode) readTree(body)))
+                .orElseGet(() -> notFound(path));
+    }
+
+    @Override
+    public MockResponse handlePatch(String path, String patch) {
+        return findExisting(path)
+                .map(existing -> replace(path, existing, (ObjectNode) JsonPatch.apply(readTree(patch), readTree(existing.getValue()))))
+                .orElseGet(() -> notFound(path));
+    }
+
+    @Override
+    public MockResponse handleDelete(String path) {
+        final AttributeSet query = attributeExtractor.fromPath(path);
+        final List<AttributeSet> deleted = map.keySet().stream().filter(key -> key.matches(query)).collect(Collectors.toList());
+        if (deleted.isEmpty()) {
+            return notFound(path);
+        }
+        deleted.forEach(key -> notify(key, map.remove(key), "DELETED"));
+        return new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK);
+    }
+
+    @Override
+    public MockResponse handleWatch(String path) {
+        AttributeSet query = attributeExtractor.fromPath(path);
+        final String fieldSelector = queryParameter(path, "fieldSelector");
+        if (fieldSelector != null && fieldSelector.startsWith("metadata.name=")) {
+            query = query.add(new Attribute(KubernetesAttributesExtractor.NAME, fieldSelector.substring("metadata.name=".length())));
+        }
+        return new MockResponse().withWebSocketUpgrade(new ResourceWatch(query));
+    }
+
+    private MockResponse handleMergePatch(String path, String patch) {
+        return findExisting(path)
+                .map(existing -> replace(path, existing, (ObjectNode) merge(readTree(existing.getValue()), readTree(patch))))
+                .orElseGet(() -> notFound(path));
+    }
+
+    private Optional<Entry<AttributeSet, String>> findExisting(String path) {
+        final AttributeSet query = attributeExtractor.fromPath(resourcePathOf(path));
+        return map.entrySet().stream().filter(entry -> entry.getKey().matches(query)).findFirst();
+    }
+
+    private static String resourcePathOf(String path) {
+        return path.endsWith(STATUS_SUFFIX) ? path.substring(0, path.length() - STATUS_SUFFIX.length()) : path;
+    }
+
+    private MockResponse replace(String path, Entry<AttributeSet, String> existing, ObjectNode resource) {
+        final JsonNode existingResource = readTree(existing.getValue());
+        final JsonNode existingMetadata = existingResource.get(METADATA);
+        final ObjectNode metadata = (ObjectNode) resource.get(METADATA);
+        metadata.set(UID, existingMetadata.get(UID));
+        metadata.set(CREATION_TIMESTAMP, existingMetadata.get(CREATION_TIMESTAMP));
+        final long generation = existingMetadata.path(GENERATION).asLong(1L);
+        metadata.put(GENERATION, Objects.equals(existingResource.get(SPEC), resource.get(SPEC)) ? generation : generation + 1);
+        map.remove(existing.getKey());
+        return store(resourcePathOf(path), resource, "MODIFIED", HttpURLConnection.HTTP_OK);
+    }
+
+    private MockResponse store(String path, ObjectNode resource, String action, int responseCode) {
+        ((ObjectNode) resource.get(METADATA)).put(RESOURCE_VERSION, String.valueOf(++lastResourceVersion));
+        final String body = writeValueAsString(resource);
+        //The key is derived from the resource again, so that labels that were removed no longer match
+        final AttributeSet key = AttributeSet.merge(attributeExtractor.fromPath(path), attributeExtractor.fromResource(body));
+        map.put(key, body);
+        notify(key, body, action);
+        return new MockResponse().setResponseCode(responseCode).setBody(body);
+    }
+
+    private void notify(AttributeSet key, String resource, String action) {
+        final String event = format("{\"type\":\"%s\",\"object\":%s}", action, resource);
+        watches.stream().filter(watch -> key.matches(watch.query)).forEach(watch -> watch.send(event));
+    }
+
+    private static MockResponse notFound(String path) {
+        return status(HttpURLConnection.HTTP_NOT_FOUND, "NotFound", format("%s not found", path));
+    }
+
+    private static MockResponse status(int code, String reason, String message) {
+        return new MockResponse().setResponseCode(code).setBody(format(
+                "{\"apiVersion\":\"v1\",\"kind\":\"Status\",\"status\":\"Failure\",\"reason\":\"%s\",\"message\":\"%s\",\"code\":%s}",
+                reason, message, code));
+    }
+
+    private static String queryParameter(String path, String name) {
+        final int queryStart = path.indexOf('?');
+        if (queryStart < 0) {
+            return null;
+        }
+        for (String parameter : path.substring(queryStart + 1).split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return URLDecoder.decode(parameter.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String randomSuffix() {
+        return UUID.randomUUID().toString().substring(0, 5);
+    }
+
+    private static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject() || !target.isObject()) {
+            return patch;
+        }
+        final ObjectNode result = (ObjectNode) target;
+        final Iterator<Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            final Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), merge(result.path(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return context.getMapper().readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String writeValueAsString(JsonNode json) {
+        try {
+            return context.getMapper().writeValueAsString(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private class ResourceWatch extends WebSocketListener {
+
+        private final AttributeSet query;
+        private WebSocket webSocket;
+
+        private ResourceWatch(AttributeSet query) {
+            this.query = query;
+        }
+
+        @Override
+        public synchronized void onOpen(WebSocket webSocket, Response response) {
+            this.webSocket = webSocket;
+            watches.add(this);
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            watches.remove(this);
+            webSocket.close(code, reason);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            watches.remove(this);
+        }
+
+        private synchronized void send(String event) {
+            webSocket.send(event);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvider;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.command.DeploymentProcessor;
 import org.entando.kubernetes.controller.spi.common.DbmsVendorConfig;
@@ -75,6 +76,10 @@ public class EntandoDatabaseServiceController implements Runnable {
 
     @Override
     public void run() {
+        ControllerWorker.runOnceOrAsWorker(this::reconcile);
+    }
+
+    private void reconcile() {
         k8sClient.prepareConfig();
         EntandoCustomResource resourceToProcess = k8sClient.resolveCustomResourceToProcess(SUPPORTED_RESOURCE_KINDS);
         //No need to update the resource being synced to. It will be ignored by ControllerCoordinator
@@ -32,6 +32,7 @@ import java.util.logging.Logger;
 import javax.inject.Inject;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvider;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvisioningResult;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
 import org.entando.kubernetes.controller.spi.client.ExecutionResult;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.command.DeploymentProcessor;
@@ -98,6 +99,10 @@ public class EntandoKeycloakServerController implements Runnable {
 
     @Override
     public void run() {
+        ControllerWorker.runOnceOrAsWorker(this::reconcile);
+    }
+
+    private void reconcile() {
         EntandoCustomResource resourceToProcess = startProcessingResource();
         try {
             //No need to update the resource being synced to. It will be ignored by ControllerCoordinator
@@ -0,0 +1,253 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseList;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.spi.common.MetricsEndpoint;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+
+/**
+ * Runs a controller in a loop inside a long-lived worker pod instead of once per pod. The coordinator assigns a resource to the
+ * worker by creating a Lease in the controller namespace that carries the worker's pod name in the entando.org/assigned-worker
+ * label. The worker processes one assignment at a time and deletes the Lease once the controller has completed, which tells the
+ * coordinator that the worker is idle again. While the controller runs, the worker renews the Lease well within its
+ * leaseDurationSeconds so that the coordinator can tell a busy worker from one that died or hung halfway through.
+ */
+public class ControllerWorker {
+
+    public static final String RESOURCE_KIND_ANNOTATION = "entando.org/resource-kind";
+    public static final String RESOURCE_NAMESPACE_ANNOTATION = "entando.org/resource-namespace";
+    public static final String RESOURCE_NAME_ANNOTATION = "entando.org/resource-name";
+    public static final String RESOURCE_ACTION_ANNOTATION = "entando.org/resource-action";
+    private static final String RESOURCE_ACTION_PROPERTY = "entando.resource.action";
+    private static final long RESYNC_INTERVAL_SECONDS = 30;
+    private static final Logger LOGGER = Logger.getLogger(ControllerWorker.class.getName());
+
+    private final KubernetesClient client;
+    private final String workerName;
+    private final BlockingQueue<String> pendingAssignments = new LinkedBlockingQueue<>();
+    private volatile Watch watch;
+
+    public ControllerWorker(KubernetesClient client, String workerName) {
+        this.client = client;
+        this.workerName = workerName;
+    }
+
+    /**
+     * Runs the controller once for the resource specified in the environment, or keeps on running it for every resource assigned
+     * to this pod if ENTANDO_CONTROLLER_WORKER_MODE is set. The metrics recorded are left in the termination message of the pod for
+     * the coordinator to collect. Workers rarely terminate, so they also serve their metrics at /metrics for Prometheus to scrape
+     * if ENTANDO_CONTROLLER_WORKER_METRICS_PORT is set.
+     */
+    public static void runOnceOrAsWorker(Runnable controller) {
+        if (EntandoOperatorSpiConfig.isControllerWorkerMode()) {
+            final MetricsEndpoint metricsEndpoint = startMetricsEndpoint();
+            try (KubernetesClient client = new DefaultKubernetesClient()) {
+                new ControllerWorker(client, EntandoOperatorSpiConfig.getControllerPodName()).processAssignments(controller);
+            } finally {
+                if (metricsEndpoint != null) {
+                    metricsEndpoint.stop();
+                }
+            }
+        } else {
+            try {
+                controller.run();
+            } finally {
+                OperatorMetrics.getInstance().writeTerminationSnapshot();
+            }
+        }
+    }
+
+    private static MetricsEndpoint startMetricsEndpoint() {
+        final int port = EntandoOperatorSpiConfig.getControllerWorkerMetricsPort();
+        if (port > 0) {
+            try {
+                final MetricsEndpoint metricsEndpoint = new MetricsEndpoint(OperatorMetrics.getInstance(), port);
+                metricsEndpoint.start();
+                return metricsEndpoint;
+            } catch (IOException e) {
+                //Metrics are not worth failing the worker for
+                LOGGER.log(Level.SEVERE, e, () -> format("Could not serve metrics on port %s", port));
+            }
+        }
+        return null;
+    }
+
+    public void processAssignments(Runnable controller) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                processNextAssignment(controller, RESYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            stopWatching();
+        }
+    }
+
+    public boolean processNextAssignment(Runnable controller, long timeout, TimeUnit timeUnit) {
+        if (watch == null) {
+            startWatching();
+        }
+        final String assignmentName;
+        try {
+            assignmentName = pendingAssignments.poll(timeout, timeUnit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (assignmentName == null) {
+            //Nothing arrived for a while. Relist in case an event was missed
+            resync();
+            return false;
+        }
+        final Lease assignment = client.leases().inNamespace(client.getNamespace()).withName(assignmentName).get();
+        if (assignment == null) {
+            //Already processed, or withdrawn by the coordinator
+            return false;
+        }
+        process(assignment, controller);
+        return true;
+    }
+
+    private void process(Lease assignment, Runnable controller) {
+        final Map<String, String> annotations = assignment.getMetadata().getAnnotations();
+        final String kind = annotations.get(RESOURCE_KIND_ANNOTATION);
+        final String namespace = annotations.get(RESOURCE_NAMESPACE_ANNOTATION);
+        final String name = annotations.get(RESOURCE_NAME_ANNOTATION);
+        LOGGER.log(Level.INFO, () -> format("Worker %s is processing the %s %s/%s", workerName, kind, namespace, name));
+        System.setProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_KIND.getJvmSystemProperty(), kind);
+        System.setProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAMESPACE.getJvmSystemProperty(), namespace);
+        System.setProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.getJvmSystemProperty(), name);
+        System.setProperty(RESOURCE_ACTION_PROPERTY, annotations.getOrDefault(RESOURCE_ACTION_ANNOTATION, Watcher.Action.MODIFIED.name()));
+        final ScheduledExecutorService renewer = startRenewing(assignment);
+        try {
+            controller.run();
+        } catch (RuntimeException e) {
+            //The controller reports failures on the status of the resource. Keep the worker alive for the next assignment
+            LOGGER.log(Level.SEVERE, e, () -> format("Worker %s failed to process the %s %s/%s", workerName, kind, namespace, name));
+        } finally {
+            renewer.shutdownNow();
+            System.clearProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_KIND.getJvmSystemProperty());
+            System.clearProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAMESPACE.getJvmSystemProperty());
+            System.clearProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.getJvmSystemProperty());
+            System.clearProperty(RESOURCE_ACTION_PROPERTY);
+            //The snapshot is cumulative, so whichever snapshot is written last when the worker terminates has all the metrics
+            OperatorMetrics.getInstance().writeTerminationSnapshot();
+            release(assignment);
+        }
+    }
+
+    private ScheduledExecutorService startRenewing(Lease assignment) {
+        final String assignmentName = assignment.getMetadata().getName();
+        final long interval = Math.max(1L, Optional.ofNullable(assignment.getSpec().getLeaseDurationSeconds())
+                .map(duration -> duration / 3L)
+                .orElse(RESYNC_INTERVAL_SECONDS));
+        final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "assignment-renewer-" + assignmentName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleAtFixedRate(() -> renew(assignmentName), interval, interval, TimeUnit.SECONDS);
+        return renewer;
+    }
+
+    private void renew(String assignmentName) {
+        try {
+            client.leases().inNamespace(client.getNamespace()).withName(assignmentName)
+                    .edit(lease -> new LeaseBuilder(lease).editSpec().withRenewTime(ZonedDateTime.now(ZoneOffset.UTC)).endSpec().build());
+        } catch (KubernetesClientException e) {
+            //Keep trying. The coordinator only withdraws the assignment once it has not been renewed for the full lease duration
+            LOGGER.log(Level.WARNING, e, () -> format("Worker %s could not renew the assignment %s", workerName, assignmentName));
+        }
+    }
+
+    private void release(Lease assignment) {
+        final String assignmentName = assignment.getMetadata().getName();
+        final Lease current = client.leases().inNamespace(client.getNamespace()).withName(assignmentName).get();
+        //The coordinator may have withdrawn an expired assignment and handed the resource to someone else in the meantime
+        if (current != null && Objects.equals(current.getSpec().getHolderIdentity(), workerName)) {
+            client.leases().inNamespace(client.getNamespace()).withName(assignmentName).delete();
+        }
+    }
+
+    private void startWatching() {
+        resync();
+        this.watch = assignments().watch(new Watcher<>() {
+            @Override
+            public void eventReceived(Action action, Lease lease) {
+                if (action == Action.ADDED || action == Action.MODIFIED) {
+                    enqueue(lease);
+                }
+            }
+
+            @Override
+            public void onClose(WatcherException cause) {
+                LOGGER.log(Level.WARNING, cause, () -> format("The assignment watch of worker %s was closed", workerName));
+                ControllerWorker.this.watch = null;
+            }
+        });
+    }
+
+    private void stopWatching() {
+        final Watch current = watch;
+        if (current != null) {
+            current.close();
+            this.watch = null;
+        }
+    }
+
+    private void resync() {
+        assignments().list().getItems().forEach(this::enqueue);
+    }
+
+    private void enqueue(Lease lease) {
+        final String name = lease.getMetadata().getName();
+        if (!pendingAssignments.contains(name)) {
+            pendingAssignments.add(name);
+        }
+    }
+
+    private FilterWatchListDeletable<Lease, LeaseList> assignments() {
+        return client.leases().inNamespace(client.getNamespace()).withLabel(LabelNames.ASSIGNED_WORKER.getName(), workerName);
+    }
+}
@@ -18,7 +18,6 @@ package org.entando.kubernetes.controller.spi.client;
 
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.client.dsl.ExecListener;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -29,6 +28,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import okhttp3.Response;
 import org.apache.commons.io.IOUtils;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 
 public class ExecutionResult implements ExecListener {
 
@@ -60,7 +60,7 @@ public class ExecutionResult implements ExecListener {
         final List<String> strings = toLines(errorChannel);
         if (!strings.isEmpty()) {
             try {
-                final Map<String, Object> map = new ObjectMapper().readValue(strings.get(0), Map.class);
+                final Map<String, Object> map = ObjectMapperUtils.jsonMapper().readValue(strings.get(0), Map.class);
 
                 if ("Success".equals(map.get("status"))) {
                     return 0;
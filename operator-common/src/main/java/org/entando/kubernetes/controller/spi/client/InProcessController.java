@@ -0,0 +1,30 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client;
+
+import java.util.Map;
+
+/**
+ * The entry point of a controller that the coordinator runs inside its own JVM rather than in a controller pod. Implementations
+ * are discovered with the ServiceLoader from the isolated class loader of the controller. The coordinator passes the
+ * ENTANDO_RESOURCE_* properties that a controller pod would receive as environment variables. This interface is shared between
+ * the coordinator and the controller class loaders, so it may only refer to JDK types.
+ */
+public interface InProcessController {
+
+    void run(Map<String, String> properties);
+}
@@ -22,15 +22,27 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 import org.entando.kubernetes.model.common.EntandoCustomResource;
 import org.entando.kubernetes.model.common.EntandoCustomResourceStatus;
 
@@ -53,9 +65,10 @@ public class SerializedEntandoResource implements EntandoCustomResource {
     private EntandoCustomResourceStatus status;
     private ObjectMeta metadata;
     private String kind;
-    @SuppressWarnings("java:S1948")
-    //because it is serializable but can't control the implementation class
-    private Map<String, Object> spec;
+    //The spec is opaque to the coordinator, so it is kept as the UTF-8 JSON it was read from rather than as nested Maps
+    @JsonSerialize(using = RawJsonSerializer.class)
+    @JsonDeserialize(using = RawJsonDeserializer.class)
+    private byte[] spec;
     @JsonIgnore
     private transient CustomResourceDefinitionContext definition;
     private String apiVersion;
@@ -77,8 +90,19 @@ public class SerializedEntandoResource implements EntandoCustomResource {
         return this.status;
     }
 
+    /**
+     * Materializes the spec on every call. Callers that need it more than once should hold on to the result.
+     */
     public Map<String, Object> getSpec() {
-        return Collections.unmodifiableMap(Objects.requireNonNullElse(spec, Collections.emptyMap()));
+        if (spec == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            return Collections.unmodifiableMap(ObjectMapperUtils.jsonMapper().readValue(spec, new TypeReference<Map<String, Object>>() {
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -115,4 +139,37 @@ public class SerializedEntandoResource implements EntandoCustomResource {
     public void setApiVersion(String version) {
         this.apiVersion = version;
     }
+
+    /**
+     * Writes the JSON back out verbatim when the target is JSON, and token by token to any other target, such as the TokenBuffer
+     * used for conversions or a YAML document.
+     */
+    @RegisterForReflection
+    public static class RawJsonSerializer extends JsonSerializer<byte[]> {
+
+        @Override
+        public void serialize(byte[] value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            if (generator instanceof JsonGeneratorImpl) {
+                generator.writeRawValue(new String(value, StandardCharsets.UTF_8));
+            } else {
+                try (JsonParser parser = ObjectMapperUtils.jsonMapper().getFactory().createParser(value)) {
+                    parser.nextToken();
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+        }
+    }
+
+    @RegisterForReflection
+    public static class RawJsonDeserializer extends JsonDeserializer<byte[]> {
+
+        @Override
+        public byte[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = ObjectMapperUtils.jsonMapper().getFactory().createGenerator(out)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return out.toByteArray();
+        }
+    }
 }
@@ -0,0 +1,273 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client.impl;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.Event;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Counter;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Timer;
+
+/**
+ * Writes Events on a background thread so that the caller does not wait for the Event to be written before it continues with the
+ * status update. Pending Events are kept in a bounded map in submission order. An Event that repeats one that is still pending is
+ * folded into it by incrementing its count. Once the map is full, new Events are dropped. Pending Events are flushed when the
+ * sink is closed, and when the JVM shuts down. The counts and the write latency of the sink are recorded in the OperatorMetrics, apart
+ * from those of the EventRecorder.
+ */
+public class AsyncEventSink {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventSink.class.getName());
+    private final EventRecorder recorder;
+    private final int capacity;
+    private final long flushTimeoutMillis;
+    private final Map<String, Event> pending = new LinkedHashMap<>();
+    private final Counter submittedMetric = counter("submitted", "Events submitted to the Event sink");
+    private final Counter writtenMetric = counter("written", "Events written by the Event sink");
+    private final Counter failedMetric = counter("failed", "Events the Event sink failed to write");
+    private final Counter coalescedMetric = counter("coalesced", "Events folded into an Event still pending in the Event sink");
+    private final Counter droppedMetric = counter("dropped", "Events dropped because the Event sink was full or closed");
+    private final Timer writeTimer = OperatorMetrics.getInstance()
+            .timer("entando_event_sink_write_seconds", "Time taken by the Event sink to write an Event");
+    private Thread worker;
+    private Thread shutdownHook;
+    private boolean writing;
+    private boolean closed;
+    private long submittedCount;
+    private long droppedCount;
+    private long coalescedCount;
+    private long writtenCount;
+    private long failedCount;
+    private long totalWriteNanos;
+    private long maxWriteNanos;
+
+    public AsyncEventSink(EventRecorder recorder) {
+        this(recorder, EntandoOperatorSpiConfig.getEventSinkCapacity(),
+                TimeUnit.SECONDS.toMillis(EntandoOperatorSpiConfig.getEventSinkFlushTimeoutSeconds()));
+    }
+
+    AsyncEventSink(EventRecorder recorder, int capacity, long flushTimeoutMillis) {
+        this.recorder = recorder;
+        this.capacity = capacity;
+        this.flushTimeoutMillis = flushTimeoutMillis;
+    }
+
+    /**
+     * Queues the Event to be written, and returns immediately.
+     */
+    public synchronized void submit(Event event) {
+        submittedCount++;
+        submittedMetric.increment();
+        if (closed) {
+            droppedCount++;
+            droppedMetric.increment();
+            return;
+        }
+        final String key = EventRecorder.aggregationKeyOf(event);
+        final Event existing = pending.get(key);
+        if (existing != null) {
+            existing.setCount(countOf(existing) + countOf(event));
+            existing.setLastTimestamp(event.getLastTimestamp());
+            coalescedCount++;
+            coalescedMetric.increment();
+        } else if (pending.size() >= capacity) {
+            droppedCount++;
+            droppedMetric.increment();
+            LOGGER.log(Level.FINE, () -> format("The Event sink is full. Dropped Event %s for %s", event.getReason(), key));
+        } else {
+            pending.put(key, event);
+            startWorkerIfNecessary();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all Events submitted so far have been written. Returns false if they could not be written in time.
+     */
+    public synchronized boolean flush(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        while (!pending.isEmpty() || writing) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Flushes the pending Events and stops the background thread. Events submitted afterwards are dropped.
+     */
+    public void close(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        final boolean flushed = flush(timeout, timeUnit);
+        final Thread hook;
+        synchronized (this) {
+            this.closed = true;
+            hook = this.shutdownHook;
+            this.shutdownHook = null;
+            notifyAll();
+        }
+        if (hook != null && !hook.equals(Thread.currentThread())) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                //Already shutting down
+            }
+        }
+        if (!flushed) {
+            LOGGER.log(Level.WARNING, () -> format("%s Events could not be written before the Event sink was closed", pendingCount()));
+        }
+        LOGGER.log(Level.INFO, this::describe);
+    }
+
+    private void startWorkerIfNecessary() {
+        if (worker == null) {
+            this.worker = new Thread(this::writePendingEvents, "entando-event-sink");
+            this.worker.setDaemon(true);
+            this.worker.start();
+            this.shutdownHook = new Thread(this::closeOnShutdown, "entando-event-sink-flush");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private void closeOnShutdown() {
+        try {
+            close(flushTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writePendingEvents() {
+        try {
+            Event event;
+            while ((event = takeNext()) != null) {
+                final long start = System.nanoTime();
+                boolean written = false;
+                try {
+                    recorder.record(event);
+                    written = true;
+                } catch (RuntimeException e) {
+                    final Event failed = event;
+                    LOGGER.log(Level.WARNING, e, () -> format("Could not write Event %s for %s", failed.getReason(),
+                            EventRecorder.aggregationKeyOf(failed)));
+                } finally {
+                    completed(System.nanoTime() - start, written);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized Event takeNext() throws InterruptedException {
+        while (pending.isEmpty()) {
+            if (closed) {
+                this.worker = null;
+                return null;
+            }
+            wait();
+        }
+        final Iterator<Event> iterator = pending.values().iterator();
+        final Event next = iterator.next();
+        iterator.remove();
+        this.writing = true;
+        return next;
+    }
+
+    private synchronized void completed(long writeNanos, boolean written) {
+        this.writing = false;
+        if (written) {
+            writtenCount++;
+            writtenMetric.increment();
+        } else {
+            failedCount++;
+            failedMetric.increment();
+        }
+        writeTimer.record(writeNanos);
+        totalWriteNanos += writeNanos;
+        maxWriteNanos = Math.max(maxWriteNanos, writeNanos);
+        notifyAll();
+    }
+
+    private static Counter counter(String outcome, String help) {
+        return OperatorMetrics.getInstance().counter("entando_event_sink_" + outcome + "_total", help);
+    }
+
+    private static int countOf(Event event) {
+        return Math.max(1, Objects.requireNonNullElse(event.getCount(), 1));
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * The number of Events dropped because the sink was full or closed. Events dropped by the spam filter of the EventRecorder are
+     * counted separately.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    public synchronized long getTotalWriteNanos() {
+        return totalWriteNanos;
+    }
+
+    public synchronized long getMaxWriteNanos() {
+        return maxWriteNanos;
+    }
+
+    public EventRecorder getRecorder() {
+        return recorder;
+    }
+
+    private synchronized String describe() {
+        final long attempts = writtenCount + failedCount;
+        return format("Event sink closed: submitted=%s written=%s failed=%s coalesced=%s dropped=%s spamDropped=%s "
+                        + "averageWriteMillis=%s maxWriteMillis=%s",
+                submittedCount, writtenCount, failedCount, coalescedCount, droppedCount, recorder.getDroppedCount(),
+                attempts == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWriteNanos / attempts),
+                TimeUnit.NANOSECONDS.toMillis(maxWriteNanos));
+    }
+}
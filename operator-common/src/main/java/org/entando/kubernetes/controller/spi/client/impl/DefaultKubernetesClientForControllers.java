@@ -16,26 +16,22 @@
 
 package org.entando.kubernetes.controller.spi.client.impl;
 
-import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.api.model.HasMetadata;
-import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
-import io.fabric8.kubernetes.client.dsl.internal.RawCustomResourceOperationsImpl;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import org.entando.kubernetes.controller.spi.client.ExecutionResult;
@@ -49,9 +45,11 @@ import org.entando.kubernetes.model.common.EntandoCustomResource;
 
 public class DefaultKubernetesClientForControllers extends EntandoResourceClientBase implements KubernetesClientForControllers {
 
+    private final AsyncEventSink eventSink;
+
     public DefaultKubernetesClientForControllers(KubernetesClient client) {
         super(client);
-
+        this.eventSink = new AsyncEventSink(new EventRecorder(client));
     }
 
     @Override
@@ -132,47 +130,35 @@ public class DefaultKubernetesClientForControllers extends EntandoResourceClient
 
     @Override
     public List<Event> listEventsFor(EntandoCustomResource resource) {
+        //Make sure callers see the Events they issued themselves
+        try {
+            eventSink.flush(EntandoOperatorSpiConfig.getEventSinkFlushTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         return client.v1().events().inAnyNamespace().withLabels(ResourceUtils.labelsFromResource(resource)).list().getItems();
     }
 
     public <T extends EntandoCustomResource> void issueEvent(T customResource, Event event) {
-        client.v1().events().inNamespace(customResource.getMetadata().getNamespace())
-                .create(event);
+        eventSink.submit(event);
+    }
+
+    public AsyncEventSink getEventSink() {
+        return eventSink;
     }
 
-    @SuppressWarnings({"unchecked", "java:S1905", "java:S1874"})
-    //These casts are necessary to circumvent our "inaccurate" use of type parameters for our generic Serializable resources
+    @SuppressWarnings("java:S1874")
     //We have to use the deprecated methods in question to "generically" resolve our Serializable resources
     @Override
     public <T extends EntandoCustomResource> T performStatusUpdate(T customResource, Consumer<T> consumer) {
+        final CustomResourceDefinitionContext definition;
         if (customResource instanceof SerializedEntandoResource) {
-            return ioSafe(() -> {
-                SerializedEntandoResource ser = (SerializedEntandoResource) customResource;
-                CustomResourceDefinitionContext definition = Optional.ofNullable(ser.getDefinition()).orElse(
-                        resolveDefinitionContext(ser.getKind(), ser.getApiVersion()));
-                ser.setDefinition(definition);
-                RawCustomResourceOperationsImpl resource = client.customResource(definition)
-                        .inNamespace(customResource.getMetadata().getNamespace())
-                        .withName(customResource.getMetadata().getName());
-                final ObjectMapper objectMapper = new ObjectMapper();
-                ser = objectMapper.readValue(objectMapper.writeValueAsString(resource.get()), SerializedEntandoResource.class);
-                ser.setDefinition(definition);
-                T latest = (T) ser;
-                consumer.accept(latest);
-                return (T) objectMapper.readValue(
-                        objectMapper.writeValueAsString(resource.updateStatus(objectMapper.writeValueAsString(latest))),
-                        SerializedEntandoResource.class);
-            });
+            SerializedEntandoResource ser = (SerializedEntandoResource) customResource;
+            definition = Optional.ofNullable(ser.getDefinition()).orElse(resolveDefinitionContext(ser.getKind(), ser.getApiVersion()));
         } else {
-            MixedOperation<T, KubernetesResourceList<T>, Resource<T>> operations = getOperations(
-                    (Class<T>) customResource.getClass());
-            Resource<T> resource = operations
-                    .inNamespace(customResource.getMetadata().getNamespace())
-                    .withName(customResource.getMetadata().getName());
-            T latest = resource.fromServer().get();
-            consumer.accept(latest);
-            return resource.updateStatus(latest);
+            definition = CustomResourceDefinitionContext.fromCustomResourceType(((CustomResource<?, ?>) customResource).getClass());
         }
+        return StatusMergePatch.patchStatus(client, definition, customResource, consumer);
     }
 
 }
@@ -16,6 +16,7 @@
 
 package org.entando.kubernetes.controller.spi.client.impl;
 
+import static java.util.Optional.ofNullable;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interruptionSafe;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
@@ -23,7 +24,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
-import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.Status;
 import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
@@ -40,11 +42,14 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.ExceptionUtils;
 import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 import org.entando.kubernetes.model.common.EntandoCustomResource;
 import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
 
@@ -78,47 +83,73 @@ public class EntandoResourceClientBase {
         } else {
             definition = CustomResourceDefinitionContext.fromCustomResourceType(((CustomResource<?, ?>) customResource).getClass());
         }
-        try (Watch ignore = ioSafe(() -> client.customResource(definition)
-                .watch(customResource.getMetadata().getNamespace(), customResource.getMetadata().getName(), null,
-                        (ListOptions) null, new Watcher<>() {
-                            final ObjectMapper objectMapper = new ObjectMapper();
-
-                            @Override
-                            public void eventReceived(Action action, String s) {
-                                final T resource = ioSafe(() -> objectMapper.readValue(s, (Class<T>) customResource.getClass()));
-                                if (resource instanceof SerializedEntandoResource) {
-                                    ((SerializedEntandoResource) resource).setDefinition(definition);
-                                }
-                                if (predicate.test(resource)) {
-                                    future.complete(resource);
-                                }
-                            }
-
-                            @Override
-                            public void onClose(WatcherException cause) {
-                                if (cause.getMessage().contains("resourceVersion") && cause.getMessage().contains("too old")) {
-                                    //reconnect - resource went out of sync. happens on occasion.
-                                    ioSafe(() -> client.customResource(definition)
-                                            .watch(customResource.getMetadata().getNamespace(),
-                                                    customResource.getMetadata().getName(),
-                                                    null,
-                                                    (ListOptions) null, this));
-                                } else {
-                                    future.completeExceptionally(cause);
-                                }
-                            }
-                        }))) {
+        //Events on the watch are for the same kind, and therefore the same class, as the resource being waited for
+        @SuppressWarnings("unchecked")
+        final Class<T> resourceType = (Class<T>) customResource.getClass();
+        final AtomicReference<Watch> currentWatch = new AtomicReference<>();
+        final Watcher<String> watcher = new Watcher<>() {
+            final ObjectMapper objectMapper = ObjectMapperUtils.jsonMapper();
+            //Start from the version just loaded so that no change between the reload and the watch is missed
+            volatile String lastResourceVersion = reloaded.getMetadata().getResourceVersion();
+
+            @Override
+            public void eventReceived(Action action, String s) {
+                if (action == Action.ERROR) {
+                    final Status status = ioSafe(() -> objectMapper.readValue(s, Status.class));
+                    if (status.getCode() != null && status.getCode() == HttpURLConnection.HTTP_GONE) {
+                        resumeFrom(null);
+                    }
+                    return;
+                }
+                final T resource = ioSafe(() -> objectMapper.readValue(s, resourceType));
+                lastResourceVersion = resource.getMetadata().getResourceVersion();
+                if (resource instanceof SerializedEntandoResource) {
+                    ((SerializedEntandoResource) resource).setDefinition(definition);
+                }
+                if (predicate.test(resource)) {
+                    future.complete(resource);
+                }
+            }
+
+            @Override
+            public void onClose(WatcherException cause) {
+                if (ExceptionUtils.isResourceVersionGone(cause)) {
+                    //The resource went out of sync. Happens on occasion. Start again from its current state
+                    resumeFrom(null);
+                } else if (ExceptionUtils.isTransient(cause)) {
+                    resumeFrom(lastResourceVersion);
+                } else {
+                    future.completeExceptionally(cause);
+                }
+            }
+
+            private void resumeFrom(String resourceVersion) {
+                if (!future.isDone()) {
+                    ofNullable(currentWatch.getAndSet(watchFrom(definition, customResource, resourceVersion, this)))
+                            .ifPresent(Watch::close);
+                }
+            }
+        };
+        currentWatch.set(watchFrom(definition, customResource, reloaded.getMetadata().getResourceVersion(), watcher));
+        try {
             return interruptionSafe(() -> future.get(timeoutSeconds, TimeUnit.SECONDS));
+        } finally {
+            ofNullable(currentWatch.getAndSet(null)).ifPresent(Watch::close);
         }
     }
 
+    private Watch watchFrom(CustomResourceDefinitionContext definition, EntandoCustomResource customResource, String resourceVersion,
+            Watcher<String> watcher) {
+        return ioSafe(() -> client.customResource(definition)
+                .watch(customResource.getMetadata().getNamespace(), customResource.getMetadata().getName(), null,
+                        new ListOptionsBuilder().withResourceVersion(resourceVersion).build(), watcher));
+    }
+
     protected SerializedEntandoResource loadCustomResource(String apiVersion, String kind, String namespace, String name) {
         return ioSafe(() -> {
             final CustomResourceDefinitionContext context = resolveDefinitionContext(kind, apiVersion);
             final Map<String, Object> crMap = client.customResource(context).get(namespace, name);
-            final ObjectMapper objectMapper = new ObjectMapper();
-            final SerializedEntandoResource serializedEntandoResource = objectMapper
-                    .readValue(objectMapper.writeValueAsString(crMap), SerializedEntandoResource.class);
+            final SerializedEntandoResource serializedEntandoResource = ObjectMapperUtils.convert(crMap, SerializedEntandoResource.class);
             serializedEntandoResource.setDefinition(context);
             return serializedEntandoResource;
         });
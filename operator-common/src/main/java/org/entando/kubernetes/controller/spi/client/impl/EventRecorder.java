@@ -0,0 +1,180 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client.impl;
+
+import static java.lang.String.format;
+import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.net.HttpURLConnection;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
+import org.entando.kubernetes.controller.spi.common.FormatUtils;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
+
+/**
+ * Records Kubernetes Events the way the Kubernetes event recorder does. Events that repeat an earlier Event for the same involved
+ * object, type, reason and message are not created again, but increment the count and lastTimestamp of the earlier Event through a
+ * merge patch. A token bucket per involved object drops Events once an object has exhausted its burst, and refills at a rate of one
+ * token per refill interval.
+ */
+public class EventRecorder {
+
+    private static final Logger LOGGER = Logger.getLogger(EventRecorder.class.getName());
+    private static final int MAX_TRACKED_ENTRIES = 4096;
+
+    private final KubernetesClient client;
+    private final int burst;
+    private final long refillNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, AggregatedEvent> aggregatedEvents = new BoundedMap<>();
+    private final Map<String, TokenBucket> tokenBuckets = new BoundedMap<>();
+    private long droppedCount;
+    private long aggregatedCount;
+
+    public EventRecorder(KubernetesClient client) {
+        this(client, EntandoOperatorSpiConfig.getEventSpamBurst(),
+                TimeUnit.SECONDS.toNanos(EntandoOperatorSpiConfig.getEventSpamRefillSeconds()), System::nanoTime);
+    }
+
+    EventRecorder(KubernetesClient client, int burst, long refillNanos, LongSupplier nanoTime) {
+        this.client = client;
+        this.burst = burst;
+        this.refillNanos = refillNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    public void record(Event event) {
+        final String objectKey = objectKeyOf(event.getInvolvedObject());
+        final String eventKey = aggregationKeyOf(event);
+        final AggregatedEvent existing;
+        synchronized (this) {
+            if (!tokenBuckets.computeIfAbsent(objectKey, key -> new TokenBucket()).tryAcquire()) {
+                droppedCount++;
+                LOGGER.log(Level.FINE, () -> format("Event %s for %s dropped by the spam filter", event.getReason(), objectKey));
+                return;
+            }
+            existing = aggregatedEvents.get(eventKey);
+            if (existing != null) {
+                //Events that were already coalesced before they reached the recorder carry their own count
+                existing.count += Math.max(1, Objects.requireNonNullElse(event.getCount(), 1));
+                aggregatedCount++;
+            }
+        }
+        if (existing == null || !tryIncrement(existing)) {
+            final Event created = client.v1().events().inNamespace(event.getMetadata().getNamespace()).create(event);
+            synchronized (this) {
+                aggregatedEvents.put(eventKey, new AggregatedEvent(created.getMetadata().getNamespace(), created.getMetadata().getName(),
+                        Objects.requireNonNullElse(created.getCount(), 1)));
+            }
+        }
+    }
+
+    private boolean tryIncrement(AggregatedEvent existing) {
+        final ObjectNode patch = ObjectMapperUtils.jsonMapper().createObjectNode();
+        synchronized (this) {
+            patch.put("count", existing.count);
+        }
+        patch.put("lastTimestamp", FormatUtils.format(LocalDateTime.now()));
+        try {
+            ioSafe(() -> StatusMergePatch.sendMergePatch(client, patch, "api", "v1", "namespaces", existing.namespace, "events",
+                    existing.name));
+            return true;
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                //The earlier Event has expired. Start a new one
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getAggregatedCount() {
+        return aggregatedCount;
+    }
+
+    static String aggregationKeyOf(Event event) {
+        return String.join("/", objectKeyOf(event.getInvolvedObject()), event.getType(), event.getReason(), event.getMessage());
+    }
+
+    private static String objectKeyOf(ObjectReference involvedObject) {
+        if (involvedObject == null) {
+            return "";
+        }
+        return String.join("/", involvedObject.getKind(), involvedObject.getNamespace(), involvedObject.getName(),
+                involvedObject.getUid());
+    }
+
+    private static class AggregatedEvent {
+
+        private final String namespace;
+        private final String name;
+        private int count;
+
+        private AggregatedEvent(String namespace, String name, int count) {
+            this.namespace = namespace;
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    private class TokenBucket {
+
+        private double tokens = burst;
+        private long lastRefill = nanoTime.getAsLong();
+
+        private boolean tryAcquire() {
+            final long now = nanoTime.getAsLong();
+            tokens = Math.min(burst, tokens + (double) (now - lastRefill) / refillNanos);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class BoundedMap<V> extends LinkedHashMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private BoundedMap() {
+            super(16, 0.75F, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > MAX_TRACKED_ENTRIES;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client.impl;
+
+import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.Status;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.dsl.base.OperationSupport;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
+import org.entando.kubernetes.model.common.EntandoCustomResource;
+
+/**
+ * Writes status changes as JSON merge patches against the status subresource. The patch only contains the status fields that the
+ * modification changed, so it needs neither a prior GET nor a resourceVersion precondition, and concurrent updates of different
+ * fields, such as the ServerStatus entries of different Deployables, no longer conflict.
+ */
+public class StatusMergePatch {
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperUtils.jsonMapper();
+    private static final MediaType MERGE_PATCH_JSON = MediaType.parse("application/merge-patch+json");
+    private static final String STATUS = "status";
+
+    private StatusMergePatch() {
+    }
+
+    /**
+     * Applies the modification to a copy of the resource and patches the status fields that changed on the server. Returns the
+     * resource as it was persisted, or the modified copy if the modification did not change anything.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends EntandoCustomResource> T patchStatus(KubernetesClient client, CustomResourceDefinitionContext definition,
+            T resource, Consumer<T> modification) {
+        final T modified = (T) OBJECT_MAPPER.convertValue(resource, resource.getClass());
+        withDefinition(modified, definition);
+        modification.accept(modified);
+        final ObjectNode statusPatch = createMergePatch(OBJECT_MAPPER.valueToTree(resource).path(STATUS),
+                OBJECT_MAPPER.valueToTree(modified).path(STATUS));
+        if (statusPatch.size() == 0) {
+            return modified;
+        }
+        final ObjectNode patch = OBJECT_MAPPER.createObjectNode();
+        patch.set(STATUS, statusPatch);
+        final T result = ioSafe(() -> (T) OBJECT_MAPPER.readValue(
+                sendMergePatch(client, patch, "apis", definition.getGroup(), definition.getVersion(), "namespaces",
+                        resource.getMetadata().getNamespace(), definition.getPlural(), resource.getMetadata().getName(), STATUS),
+                resource.getClass()));
+        return withDefinition(result, definition);
+    }
+
+    /**
+     * Creates a JSON merge patch (RFC 7386) that transforms the one node into the other. Only fields that differ are included,
+     * fields that were removed are set to null, and objects are compared field by field.
+     */
+    public static ObjectNode createMergePatch(JsonNode source, JsonNode target) {
+        final ObjectNode patch = OBJECT_MAPPER.createObjectNode();
+        final Iterator<Entry<String, JsonNode>> targetFields = target.fields();
+        while (targetFields.hasNext()) {
+            final Entry<String, JsonNode> field = targetFields.next();
+            final JsonNode sourceValue = source.get(field.getKey());
+            if (sourceValue == null || !sourceValue.equals(field.getValue())) {
+                if (sourceValue != null && sourceValue.isObject() && field.getValue().isObject()) {
+                    patch.set(field.getKey(), createMergePatch(sourceValue, field.getValue()));
+                } else {
+                    patch.set(field.getKey(), field.getValue());
+                }
+            }
+        }
+        source.fieldNames().forEachRemaining(name -> {
+            if (!target.has(name)) {
+                patch.putNull(name);
+            }
+        });
+        return patch;
+    }
+
+    /**
+     * Sends the merge patch to the resource at the given path relative to the master URL, and returns the patched resource as JSON.
+     */
+    static String sendMergePatch(KubernetesClient client, ObjectNode patch, String... pathSegments) throws IOException {
+        final String[] segments = new String[pathSegments.length + 1];
+        segments[0] = client.getMasterUrl().toString();
+        System.arraycopy(pathSegments, 0, segments, 1, pathSegments.length);
+        final Request request = new Request.Builder()
+                .url(URLUtils.join(segments))
+                .patch(RequestBody.create(MERGE_PATCH_JSON, OBJECT_MAPPER.writeValueAsString(patch)))
+                .build();
+        try (Response response = ((HttpClientAware) client).getHttpClient().newCall(request).execute()) {
+            final String body = response.body() == null ? "" : response.body().string();
+            if (!response.isSuccessful()) {
+                throw OperationSupport.requestFailure(request, toStatus(response.code(), body));
+            }
+            return body;
+        }
+    }
+
+    private static Status toStatus(int code, String body) {
+        try {
+            final Status status = OBJECT_MAPPER.readValue(body, Status.class);
+            if (status.getCode() != null) {
+                return status;
+            }
+        } catch (IOException e) {
+            //Not a Status object. Fall through and report the body as is
+        }
+        return new StatusBuilder().withCode(code).withMessage(body).build();
+    }
+
+    private static <T extends EntandoCustomResource> T withDefinition(T resource, CustomResourceDefinitionContext definition) {
+        if (resource instanceof SerializedEntandoResource) {
+            ((SerializedEntandoResource) resource).setDefinition(definition);
+        }
+        return resource;
+    }
+}
@@ -20,9 +20,7 @@ import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.fabric8.kubernetes.api.model.HasMetadata;
-import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
@@ -36,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 import org.entando.kubernetes.controller.spi.common.SerializeByReference;
 import org.entando.kubernetes.model.capability.ProvidedCapability;
 
@@ -54,7 +53,7 @@ public class DeserializationHelper implements InvocationHandler {
     @SuppressWarnings("unchecked")
     public static <S> S deserialize(KubernetesClientForControllers kubernetesClient, String json) {
         return ioSafe(() -> {
-            final ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
+            final ObjectMapper objectMapper = ObjectMapperUtils.yamlMapper();
             Map<String, Object> map = objectMapper.readValue(json, Map.class);
             return fromMap(kubernetesClient, map, objectMapper);
         });
@@ -114,7 +113,7 @@ public class DeserializationHelper implements InvocationHandler {
                 != null) {
             return resolveByReference(rawObjectOrMap);
         } else if (type.getAnnotation(JsonDeserialize.class) != null) {
-            return ioSafe(() -> objectMapper.readValue(objectMapper.writeValueAsString(rawObjectOrMap), type));
+            return objectMapper.convertValue(rawObjectOrMap, type);
         } else if (ReflectionUtil.KNOWN_INTERFACES.contains(type)) {
             return fromMap(kubernetesClient, (Map<String, Object>) rawObjectOrMap, objectMapper);
         } else if (type.isEnum()) {
@@ -144,8 +143,7 @@ public class DeserializationHelper implements InvocationHandler {
 
     private HasMetadata resolveByReference(Object result) {
         return ioSafe(() -> {
-            final ResourceReference resourceReference = objectMapper.readValue(new StringReader(objectMapper.writeValueAsString(result)),
-                    ResourceReference.class);
+            final ResourceReference resourceReference = objectMapper.convertValue(result, ResourceReference.class);
             if (resourceReference.isCustomResource()) {
                 if (resourceReference.getKind().equals(ProvidedCapability.class.getSimpleName())) {
                     return kubernetesClient.load(ProvidedCapability.class, resourceReference.getMetadata().getNamespace(),
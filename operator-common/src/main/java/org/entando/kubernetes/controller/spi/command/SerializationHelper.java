@@ -20,9 +20,7 @@ import static java.util.Optional.ofNullable;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -38,6 +36,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 import org.entando.kubernetes.controller.spi.common.SerializeByReference;
 
 public class SerializationHelper {
@@ -49,7 +48,7 @@ public class SerializationHelper {
     public static String serialize(Object deployable) {
         return ioSafe(() -> {
             Map<String, Object> map = toJsonFriendlyMap(deployable);
-            return new ObjectMapper(new YAMLFactory()).writerWithDefaultPrettyPrinter().writeValueAsString(map);
+            return ObjectMapperUtils.yamlMapper().writerWithDefaultPrettyPrinter().writeValueAsString(map);
         });
     }
 
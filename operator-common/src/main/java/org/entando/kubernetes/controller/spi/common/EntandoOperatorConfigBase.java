@@ -22,6 +22,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class EntandoOperatorConfigBase {
@@ -29,6 +30,7 @@ public abstract class EntandoOperatorConfigBase {
     public static final String SEPERATOR_PATTERN = "[\\s,:]+";
 
     private static AtomicReference<ConfigMap> configMap = new AtomicReference<>();
+    private static final ThreadLocal<Map<String, String>> invocationProperties = new ThreadLocal<>();
 
     protected EntandoOperatorConfigBase() {
     }
@@ -37,12 +39,76 @@ public abstract class EntandoOperatorConfigBase {
         EntandoOperatorConfigBase.configMap.set(configMap);
     }
 
+    /**
+     * Runs the given Runnable with properties that take precedence over the ConfigMap, the environment variables and the system
+     * properties on the current thread. This allows the coordinator to pass the resource to process to a controller that runs in
+     * its own JVM. Work that the Runnable hands over to other threads only sees these properties if it is wrapped with
+     * withInvocationProperties, so that long-lived threads never hold on to the properties of an earlier invocation.
+     */
+    public static void runWithProperties(Map<String, String> properties, Runnable runnable) {
+        final Map<String, String> previous = bindInvocationProperties(Map.copyOf(properties));
+        try {
+            runnable.run();
+        } finally {
+            restoreInvocationProperties(previous);
+        }
+    }
+
+    /**
+     * Binds the properties of the current invocation, if any, to the given task so that they also apply on the thread that
+     * executes it.
+     */
+    public static Runnable withInvocationProperties(Runnable task) {
+        final Map<String, String> properties = invocationProperties.get();
+        if (properties == null) {
+            return task;
+        }
+        return () -> runWithProperties(properties, task);
+    }
+
+    /**
+     * Binds the properties of the current invocation, if any, to the given task so that they also apply on the thread that
+     * executes it.
+     */
+    public static <T> Callable<T> withInvocationProperties(Callable<T> task) {
+        final Map<String, String> properties = invocationProperties.get();
+        if (properties == null) {
+            return task;
+        }
+        return () -> {
+            final Map<String, String> previous = bindInvocationProperties(properties);
+            try {
+                return task.call();
+            } finally {
+                restoreInvocationProperties(previous);
+            }
+        };
+    }
+
+    private static Map<String, String> bindInvocationProperties(Map<String, String> properties) {
+        final Map<String, String> previous = invocationProperties.get();
+        invocationProperties.set(properties);
+        return previous;
+    }
+
+    private static void restoreInvocationProperties(Map<String, String> previous) {
+        if (previous == null) {
+            invocationProperties.remove();
+        } else {
+            invocationProperties.set(previous);
+        }
+    }
+
     public static Optional<String> lookupProperty(ConfigProperty property) {
         return Optional.ofNullable(lookupProperty(property.getJvmSystemProperty()).orElse(lookupProperty(property.name()).orElse(null)));
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
     public static Optional<String> lookupProperty(String name) {
+        Optional<String> fromInvocation = Optional.ofNullable(invocationProperties.get()).flatMap(map -> findFirstMatch(name, map));
+        if (fromInvocation.isPresent()) {
+            return fromInvocation;
+        }
         Optional<String> fromConfigMap = Optional.ofNullable(EntandoOperatorConfigBase.configMap.get())
                 .flatMap(map -> findFirstMatch(name, map.getData()));
         if (fromConfigMap.isEmpty()) {
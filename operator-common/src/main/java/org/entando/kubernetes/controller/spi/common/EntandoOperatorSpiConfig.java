@@ -29,6 +29,17 @@ public class EntandoOperatorSpiConfig extends EntandoOperatorConfigBase {
         return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_POD_NAME).orElseThrow(IllegalStateException::new);
     }
 
+    public static boolean isControllerWorkerMode() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_WORKER_MODE).map(Boolean::valueOf).orElse(false);
+    }
+
+    /**
+     * The port on which a controller worker serves its metrics at /metrics. The endpoint is not started unless a port is specified.
+     */
+    public static int getControllerWorkerMetricsPort() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_CONTROLLER_WORKER_METRICS_PORT).map(Integer::parseInt).orElse(-1);
+    }
+
     public static boolean assumeExternalHttpsProvider() {
         return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_ASSUME_EXTERNAL_HTTPS_PROVIDER)
                 .map(Boolean::valueOf).orElse(false);
@@ -89,4 +100,40 @@ public class EntandoOperatorSpiConfig extends EntandoOperatorConfigBase {
         return Math.round(lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_POD_SHUTDOWN_TIMEOUT_SECONDS).map(Integer::valueOf)
                 .orElse(120) * getTimeoutAdjustmentRatio());
     }
+
+    /**
+     * The number of Events that can be recorded for a single object in quick succession before the spam filter drops them.
+     */
+    public static int getEventSpamBurst() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_EVENT_SPAM_BURST).map(Integer::valueOf).orElse(25);
+    }
+
+    /**
+     * The interval at which the spam filter allows one more Event to be recorded for an object.
+     */
+    public static long getEventSpamRefillSeconds() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_EVENT_SPAM_REFILL_SECONDS).map(Long::valueOf).orElse(300L);
+    }
+
+    /**
+     * The number of distinct Events that can wait to be written in the background before new ones are dropped.
+     */
+    public static int getEventSinkCapacity() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_EVENT_SINK_CAPACITY).map(Integer::valueOf).orElse(256);
+    }
+
+    /**
+     * How long the controller waits for pending Events to be written when it shuts down.
+     */
+    public static long getEventSinkFlushTimeoutSeconds() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_EVENT_SINK_FLUSH_TIMEOUT_SECONDS).map(Long::valueOf).orElse(10L);
+    }
+
+    /**
+     * The file that controller pods write their final metrics snapshot to. It has to match the terminationMessagePath of the
+     * container.
+     */
+    public static String getTerminationMessagePath() {
+        return lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_TERMINATION_MESSAGE_PATH).orElse("/dev/termination-log");
+    }
 }
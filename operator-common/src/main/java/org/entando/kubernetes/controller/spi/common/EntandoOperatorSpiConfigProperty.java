@@ -31,9 +31,16 @@ public enum EntandoOperatorSpiConfigProperty implements ConfigProperty, NamedEnu
     ENTANDO_RESOURCE_NAME,
     ENTANDO_RESOURCE_KIND,
     ENTANDO_CONTROLLER_POD_NAME,
+    ENTANDO_CONTROLLER_WORKER_MODE,
+    ENTANDO_CONTROLLER_WORKER_METRICS_PORT,
     ENTANDO_POD_COMPLETION_TIMEOUT_SECONDS,
     ENTANDO_POD_READINESS_TIMEOUT_SECONDS,
     ENTANDO_TIMEOUT_ADJUSTMENT_RATIO,
-    ENTANDO_POD_SHUTDOWN_TIMEOUT_SECONDS;
+    ENTANDO_POD_SHUTDOWN_TIMEOUT_SECONDS,
+    ENTANDO_EVENT_SPAM_BURST,
+    ENTANDO_EVENT_SPAM_REFILL_SECONDS,
+    ENTANDO_EVENT_SINK_CAPACITY,
+    ENTANDO_EVENT_SINK_FLUSH_TIMEOUT_SECONDS,
+    ENTANDO_TERMINATION_MESSAGE_PATH;
 
 }
@@ -20,9 +20,11 @@ import static java.util.Optional.ofNullable;
 
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.WatcherException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.net.HttpURLConnection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -35,6 +37,8 @@ import org.entando.kubernetes.model.common.EntandoControllerFailureBuilder;
 
 public class ExceptionUtils {
 
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
     public static EntandoControllerFailure failureOf(EntandoControllerException e) {
         return failureOf(e.getKubernetesResource(), e);
     }
@@ -160,4 +164,29 @@ public class ExceptionUtils {
 
         T run() throws InterruptedException, ExecutionException, TimeoutException;
     }
+
+    /**
+     * True if the watch was closed because the resourceVersion it was resuming from is no longer available, which requires a relist.
+     * The "too old" message may be on the WatcherException itself or on any of its causes.
+     */
+    public static boolean isResourceVersionGone(WatcherException cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (ofNullable(t.getMessage()).map(message -> message.contains("too old")).orElse(false)) {
+                return true;
+            }
+        }
+        return cause.getCause() != null && cause.isHttpGone();
+    }
+
+    /**
+     * True if the watch was closed due to a connection failure or server error, after which it can resume from the last
+     * resourceVersion it processed.
+     */
+    public static boolean isTransient(WatcherException cause) {
+        if (cause.getCause() instanceof KubernetesClientException) {
+            final int code = ((KubernetesClientException) cause.getCause()).getCode();
+            return code >= HttpURLConnection.HTTP_INTERNAL_ERROR || code == HTTP_TOO_MANY_REQUESTS;
+        }
+        return cause.getCause() instanceof IOException;
+    }
 }
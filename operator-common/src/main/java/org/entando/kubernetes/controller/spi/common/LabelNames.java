@@ -26,6 +26,10 @@ public enum LabelNames {
     CAPABILITY_IMPLEMENTATION("entando.org/capability-implementation"),
     CAPABILITY_PROVISION_SCOPE("entando.org/capability-provision-scope"),
     CRD_OF_INTEREST("entando.org/crd-of-interest"),
+    CONTROLLER_WORKER("entando.org/controller-worker"),
+    ASSIGNED_WORKER("entando.org/assigned-worker"),
+    IMAGE_PRE_PULLER("entando.org/image-pre-puller"),
+    PRE_PULLED_IMAGES("entando.org/pre-pulled-images"),
     JOB_KIND_DB_PREPARATION("db-preparation-job");
 
     private final String labelName;
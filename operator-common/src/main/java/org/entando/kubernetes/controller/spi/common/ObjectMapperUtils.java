@@ -0,0 +1,48 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Holds the ObjectMappers shared by the coordinator and the controllers. ObjectMappers are thread-safe once configured, and they cache
+ * the serializers and deserializers of every type they encounter, so creating one per call discards that cache every time. The
+ * shared instances must therefore never be reconfigured by their users. Conversions between types, e.g. from the Maps returned by
+ * the raw custom resource operations to SerializedEntandoResource, should use convert, which goes through a token buffer rather
+ * than serializing to a String and parsing it back.
+ */
+public class ObjectMapperUtils {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    private ObjectMapperUtils() {
+    }
+
+    public static ObjectMapper jsonMapper() {
+        return JSON_MAPPER;
+    }
+
+    public static ObjectMapper yamlMapper() {
+        return YAML_MAPPER;
+    }
+
+    public static <T> T convert(Object value, Class<T> type) {
+        return JSON_MAPPER.convertValue(value, type);
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.common;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A minimal registry of counters, timers and gauges that renders them in the Prometheus text format. Looking up a metric
+ * allocates, so code on a hot path should look its metrics up once and keep the reference. Recording on a metric that has been
+ * looked up only increments LongAdders.
+ * Controller pods are too short-lived to be scraped, so they write a compact snapshot of their counters and timers to their
+ * termination message when they exit. The coordinator absorbs these snapshots and exposes their totals alongside its own metrics.
+ */
+public class OperatorMetrics {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    //Kubernetes truncates termination messages beyond 4096 bytes
+    public static final int MAX_SNAPSHOT_BYTES = 4096;
+    private static final String PUSHED_PREFIX = "entando_controller_pod_";
+    private static final Logger LOGGER = Logger.getLogger(OperatorMetrics.class.getName());
+    private static final OperatorMetrics INSTANCE = new OperatorMetrics();
+    private static final double[] BUCKETS_IN_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300};
+    private static final long[] BUCKETS_IN_NANOS = new long[BUCKETS_IN_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS_IN_SECONDS.length; i++) {
+            BUCKETS_IN_NANOS[i] = (long) (BUCKETS_IN_SECONDS[i] * 1_000_000_000L);
+        }
+    }
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DoubleAdder> pushed = new ConcurrentHashMap<>();
+    private final Counter absorbedSnapshots;
+
+    public OperatorMetrics() {
+        this.absorbedSnapshots = counter("entando_controller_pod_snapshots_total",
+                "Metric snapshots absorbed from the termination messages of controller pods");
+    }
+
+    public static OperatorMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the counter with the given name and labels, creating it if necessary. Labels are passed as name/value pairs.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").metrics.computeIfAbsent(labelsOf(labels), key -> new Counter());
+    }
+
+    public Timer timer(String name, String help, String... labels) {
+        return (Timer) family(name, help, "histogram").metrics.computeIfAbsent(labelsOf(labels), key -> new Timer());
+    }
+
+    /**
+     * Registers a gauge whose value is read from the supplier when the metrics are scraped. A gauge registered again with the same
+     * name and labels replaces the previous one.
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "gauge").metrics.put(labelsOf(labels), new Gauge(supplier));
+    }
+
+    public void removeGauge(String name, String... labels) {
+        final Family family = families.get(name);
+        if (family != null) {
+            family.metrics.remove(labelsOf(labels));
+        }
+    }
+
+    /**
+     * Wraps the delegate in a proxy that records the duration and the failures of every call to one of the methods of the
+     * interface, labelled with the interface and the method.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T instrument(Class<T> type, T delegate, String metricPrefix) {
+        final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+        final Map<Method, Counter> failures = new ConcurrentHashMap<>();
+        final InvocationHandler handler = (proxy, method, args) -> {
+            final long start = System.nanoTime();
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                failures.computeIfAbsent(method, m -> counter(metricPrefix + "_failures_total", "Calls that failed",
+                        "client", type.getSimpleName(), "method", m.getName())).increment();
+                throw e.getTargetException();
+            } finally {
+                timers.computeIfAbsent(method, m -> timer(metricPrefix + "_duration_seconds", "Duration of calls",
+                        "client", type.getSimpleName(), "method", m.getName())).record(System.nanoTime() - start);
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Renders all metrics, including the totals absorbed from controller pods, in the Prometheus text format.
+     */
+    public String scrape() {
+        final StringBuilder out = new StringBuilder(4096);
+        new TreeMap<>(families).forEach((name, family) -> {
+            if (family.metrics.isEmpty()) {
+                return;
+            }
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            new TreeMap<>(family.metrics).forEach((labels, metric) -> metric.render(out, name, labels));
+        });
+        String previousName = null;
+        for (Map.Entry<String, DoubleAdder> entry : new TreeMap<>(pushed).entrySet()) {
+            final String name = nameOf(entry.getKey());
+            if (!name.equals(previousName)) {
+                out.append("# TYPE ").append(name).append(" untyped\n");
+                previousName = name;
+            }
+            out.append(entry.getKey()).append(' ').append(formatValue(entry.getValue().sum())).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Renders the counters and the count and sum of the timers that have been recorded on, one series per line, in at most
+     * MAX_SNAPSHOT_BYTES bytes. Series that do not fit are left out.
+     */
+    public String snapshot() {
+        final StringBuilder out = new StringBuilder(MAX_SNAPSHOT_BYTES);
+        new TreeMap<>(families).forEach((name, family) -> new TreeMap<>(family.metrics).forEach((labels, metric) -> {
+            final StringBuilder lines = new StringBuilder();
+            if (metric instanceof Counter && ((Counter) metric).get() > 0) {
+                appendSeries(lines, name, labels, "", ((Counter) metric).get());
+            } else if (metric instanceof Timer && ((Timer) metric).getCount() > 0) {
+                appendSeries(lines, name, labels, "_count", ((Timer) metric).getCount());
+                appendSeries(lines, name, labels, "_sum", ((Timer) metric).getSumInSeconds());
+            }
+            if (out.length() + lines.length() <= MAX_SNAPSHOT_BYTES) {
+                out.append(lines);
+            }
+        }));
+        return out.toString();
+    }
+
+    /**
+     * Adds the values in a snapshot produced by a controller pod to the totals exposed by this registry.
+     */
+    public void absorb(String snapshot) {
+        if (snapshot == null || snapshot.isBlank()) {
+            return;
+        }
+        for (String line : snapshot.split("\n")) {
+            final int separator = line.lastIndexOf(' ');
+            if (separator > 0 && line.startsWith("entando_")) {
+                try {
+                    final double value = Double.parseDouble(line.substring(separator + 1));
+                    final String series = PUSHED_PREFIX + line.substring("entando_".length(), separator);
+                    pushed.computeIfAbsent(series, key -> new DoubleAdder()).add(value);
+                } catch (NumberFormatException e) {
+                    LOGGER.log(Level.FINE, () -> format("Ignoring the malformed metric '%s'", line));
+                }
+            }
+        }
+        absorbedSnapshots.increment();
+    }
+
+    /**
+     * Writes the snapshot to the file Kubernetes reads the termination message of the container from. Kubernetes creates the
+     * file, so nothing is written outside a container.
+     */
+    public void writeTerminationSnapshot() {
+        final Path path = Paths.get(EntandoOperatorSpiConfig.getTerminationMessagePath());
+        if (Files.isRegularFile(path)) {
+            try {
+                Files.write(path, snapshot().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | SecurityException e) {
+                LOGGER.log(Level.WARNING, e, () -> format("Could not write the metrics snapshot to %s", path));
+            }
+        }
+    }
+
+    private Family family(String name, String help, String type) {
+        final Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(format("The metric %s is a %s, not a %s", name, family.type, type));
+        }
+        return family;
+    }
+
+    private static String labelsOf(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels need to be specified as name/value pairs");
+        }
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            result.append(result.length() == 0 ? "" : ",").append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return result.toString();
+    }
+
+    private static String nameOf(String series) {
+        final int brace = series.indexOf('{');
+        return brace < 0 ? series : series.substring(0, brace);
+    }
+
+    private static void appendSeries(StringBuilder out, String name, String labels, String suffix, double value) {
+        out.append(name).append(suffix);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatValue(double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private static class Family {
+
+        private final String help;
+        private final String type;
+        private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private interface Metric {
+
+        void render(StringBuilder out, String name, String labels);
+    }
+
+    public static class Counter implements Metric {
+
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void render(StringBuilder out, String name, String labels) {
+            appendSeries(out, name, labels, "", value.sum());
+        }
+    }
+
+    /**
+     * Records durations in a histogram with fixed buckets.
+     */
+    public static class Timer implements Metric {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS_IN_NANOS.length];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumInNanos = new LongAdder();
+
+        private Timer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            for (int i = 0; i < BUCKETS_IN_NANOS.length; i++) {
+                if (nanos <= BUCKETS_IN_NANOS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sumInNanos.add(nanos);
+        }
+
+        /**
+         * Records the time elapsed since the start, as returned by System.nanoTime().
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getSumInSeconds() {
+            return sumInNanos.sum() / 1_000_000_000d;
+        }
+
+        @Override
+        public void render(StringBuilder out, String name, String labels) {
+            final String separator = labels.isEmpty() ? "" : ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{").append(labels).append(separator).append("le=\"")
+                        .append(BUCKETS_IN_SECONDS[i]).append("\"} ").append(cumulative).append('\n');
+            }
+            final long total = count.sum();
+            out.append(name).append("_bucket{").append(labels).append(separator).append("le=\"+Inf\"} ").append(total).append('\n');
+            appendSeries(out, name, labels, "_count", total);
+            appendSeries(out, name, labels, "_sum", getSumInSeconds());
+        }
+    }
+
+    private static class Gauge implements Metric {
+
+        private final DoubleSupplier supplier;
+
+        private Gauge(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void render(StringBuilder out, String name, String labels) {
+            appendSeries(out, name, labels, "", supplier.getAsDouble());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.support.client.impl;
+
+import java.util.Map;
+import org.entando.kubernetes.controller.spi.client.InProcessController;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase;
+
+/**
+ * Builds the controller from the SupportProducer without CDI so that it can be run by the coordinator. The producer, and
+ * therefore the KubernetesClient, is shared across invocations, but every invocation gets a new controller instance.
+ */
+public abstract class AbstractInProcessController implements InProcessController {
+
+    private final SupportProducer producer = new SupportProducer();
+
+    protected AbstractInProcessController() {
+        //Initialize the lazily created clients before concurrent invocations can race for them
+        producer.entandoResourceClient();
+    }
+
+    protected abstract Runnable createController(SupportProducer producer);
+
+    @Override
+    public void run(Map<String, String> properties) {
+        EntandoOperatorConfigBase.runWithProperties(properties, createController(producer));
+    }
+}
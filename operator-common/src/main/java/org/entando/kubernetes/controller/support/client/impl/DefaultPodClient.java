@@ -21,9 +21,7 @@ import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interr
 import io.fabric8.kubernetes.api.model.ContainerStateWaiting;
 import io.fabric8.kubernetes.api.model.ContainerStatus;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.internal.KubernetesDeserializer;
 import java.util.Locale;
 import java.util.Map;
@@ -54,13 +52,17 @@ public class DefaultPodClient implements PodClient {
 
     @Override
     public void removeAndWait(String namespace, Map<String, String> labels, int timeoutSeconds) throws TimeoutException {
-        interruptionSafe(() -> {
-            FilterWatchListDeletable<Pod, PodList> podResource = client.pods().inNamespace(namespace).withLabels(labels);
-            podResource.delete();
-            return podResource.waitUntilCondition(pod -> podResource.list().getItems().isEmpty(),
-                    timeoutSeconds,
-                    TimeUnit.SECONDS);
-        });
+        //Only watches the pods being removed, and only for as long as it takes to remove them
+        final PodLifecycleTracker podTracker = new PodLifecycleTracker(client, labels);
+        try {
+            interruptionSafe(() -> {
+                client.pods().inNamespace(namespace).withLabels(labels).delete();
+                PodLifecycleTracker.await(podTracker.whenAllGone(namespace, labels), timeoutSeconds, TimeUnit.SECONDS);
+                return null;
+            });
+        } finally {
+            podTracker.close();
+        }
     }
 
     @Override
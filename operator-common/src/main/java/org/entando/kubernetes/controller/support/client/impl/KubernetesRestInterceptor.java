@@ -21,14 +21,21 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Counter;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Timer;
 import org.entando.kubernetes.model.common.EntandoCustomResource;
 
 public class KubernetesRestInterceptor implements InvocationHandler {
 
+    private static final Map<Method, Timer> CALL_TIMERS = new ConcurrentHashMap<>();
+    private static final Map<Method, Counter> CALL_FAILURES = new ConcurrentHashMap<>();
     private Object delegate;
 
     public KubernetesRestInterceptor(Object delegate) {
@@ -45,9 +52,13 @@ public class KubernetesRestInterceptor implements InvocationHandler {
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         Logger logger = Logger.getLogger(method.getDeclaringClass().getName());
         logger.logp(Level.INFO, method.getDeclaringClass().getName(), method.getName(), () -> buildEnterMessage(method, args));
+        final long start = System.nanoTime();
         try {
             return method.invoke(delegate, args);
         } catch (InvocationTargetException e) {
+            CALL_FAILURES.computeIfAbsent(method, m -> OperatorMetrics.getInstance().counter("entando_k8s_client_call_failures_total",
+                    "Calls to the SimpleK8SClient that failed", "client", m.getDeclaringClass().getSimpleName(), "method", m.getName()))
+                    .increment();
             logger.logp(Level.SEVERE, method.getDeclaringClass().getName(), method.getName(), e.getTargetException(),
                     () -> String.format("Failure executing method %s in class %s",
                             method.getName(),
@@ -60,6 +71,9 @@ public class KubernetesRestInterceptor implements InvocationHandler {
                             method.getDeclaringClass().getName()));
             throw e;
         } finally {
+            CALL_TIMERS.computeIfAbsent(method, m -> OperatorMetrics.getInstance().timer("entando_k8s_client_call_duration_seconds",
+                    "Duration of calls to the SimpleK8SClient", "client", m.getDeclaringClass().getSimpleName(), "method", m.getName()))
+                    .recordSince(start);
             logger.logp(Level.INFO, method.getDeclaringClass().getName(), method.getName(), () ->
                     String.format("Exiting method %s in class %s", method.getName(),
                             method.getDeclaringClass().getName()));
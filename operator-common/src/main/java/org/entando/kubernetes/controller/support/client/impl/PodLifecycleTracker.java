@@ -0,0 +1,204 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.support.client.impl;
+
+import static java.lang.String.format;
+
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.entando.kubernetes.controller.spi.common.PodResult;
+import org.entando.kubernetes.controller.spi.common.PodResult.State;
+
+/**
+ * Tracks the pods in a namespace with a single label-selected watch per namespace, and lets callers await conditions on the pods
+ * matching a set of labels as futures. Conditions are evaluated against the local copy of the pods whenever an event arrives,
+ * so waiting for many groups of pods at the same time does not result in any additional list requests.
+ */
+public class PodLifecycleTracker {
+
+    private static final Logger LOGGER = Logger.getLogger(PodLifecycleTracker.class.getName());
+    private final KubernetesClient client;
+    private final Map<String, String> selector;
+    private final Map<String, NamespaceTracker> namespaces = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tracker that only watches the pods carrying the labels in the selector. Labels passed to the await methods
+     * need to be at least as specific as the selector.
+     */
+    public PodLifecycleTracker(KubernetesClient client, Map<String, String> selector) {
+        this.client = client;
+        this.selector = Map.copyOf(selector);
+    }
+
+    public CompletableFuture<Void> whenAllGone(String namespace, Map<String, String> labels) {
+        return track(namespace, labels, List::isEmpty);
+    }
+
+    public CompletableFuture<Void> whenAllCompleted(String namespace, Map<String, String> labels) {
+        return track(namespace, labels, pods -> pods.stream().allMatch(pod -> PodResult.of(pod).getState() == State.COMPLETED));
+    }
+
+    /**
+     * Waits for the future returned by one of the other methods, and stops tracking its condition if it is not met in time.
+     */
+    public static void await(CompletableFuture<Void> condition, long timeout, TimeUnit timeUnit)
+            throws TimeoutException, InterruptedException {
+        try {
+            condition.get(timeout, timeUnit);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            condition.cancel(false);
+        }
+    }
+
+    public void close() {
+        namespaces.values().forEach(NamespaceTracker::close);
+        namespaces.clear();
+    }
+
+    private CompletableFuture<Void> track(String namespace, Map<String, String> labels, Predicate<List<Pod>> condition) {
+        if (!labels.entrySet().containsAll(selector.entrySet())) {
+            throw new IllegalArgumentException(format("The labels %s do not include the selector %s of this tracker", labels, selector));
+        }
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        namespaces.computeIfAbsent(namespace, NamespaceTracker::new).register(new Waiter(labels, condition, future));
+        return future;
+    }
+
+    private static boolean matches(Pod pod, Map<String, String> labels) {
+        final Map<String, String> podLabels = pod.getMetadata().getLabels();
+        return podLabels != null && podLabels.entrySet().containsAll(labels.entrySet());
+    }
+
+    private static class Waiter {
+
+        private final Map<String, String> labels;
+        private final Predicate<List<Pod>> condition;
+        private final CompletableFuture<Void> future;
+
+        private Waiter(Map<String, String> labels, Predicate<List<Pod>> condition, CompletableFuture<Void> future) {
+            this.labels = labels;
+            this.condition = condition;
+            this.future = future;
+        }
+    }
+
+    private class NamespaceTracker implements Watcher<Pod> {
+
+        private final String namespace;
+        private final Map<String, Pod> pods = new HashMap<>();
+        private final List<Waiter> waiters = new ArrayList<>();
+        private Watch watch;
+        private boolean closed;
+
+        private NamespaceTracker(String namespace) {
+            this.namespace = namespace;
+        }
+
+        private synchronized void register(Waiter waiter) {
+            if (watch == null) {
+                start();
+            }
+            waiters.add(waiter);
+            evaluate();
+        }
+
+        private void start() {
+            final PodList podList = pods().list();
+            pods.clear();
+            podList.getItems().forEach(pod -> pods.put(pod.getMetadata().getName(), pod));
+            this.watch = pods().watch(new ListOptionsBuilder().withResourceVersion(podList.getMetadata().getResourceVersion()).build(),
+                    this);
+        }
+
+        private FilterWatchListDeletable<Pod, PodList> pods() {
+            return client.pods().inNamespace(namespace).withLabels(selector);
+        }
+
+        private void evaluate() {
+            final Iterator<Waiter> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                final Waiter waiter = iterator.next();
+                if (waiter.future.isDone()) {
+                    iterator.remove();
+                } else if (waiter.condition.test(
+                        pods.values().stream().filter(pod -> matches(pod, waiter.labels)).collect(Collectors.toList()))) {
+                    iterator.remove();
+                    waiter.future.complete(null);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void eventReceived(Action action, Pod pod) {
+            if (action == Action.DELETED) {
+                pods.remove(pod.getMetadata().getName());
+            } else if (action == Action.ADDED || action == Action.MODIFIED) {
+                pods.put(pod.getMetadata().getName(), pod);
+            }
+            evaluate();
+        }
+
+        @Override
+        public synchronized void onClose(WatcherException cause) {
+            this.watch = null;
+            if (closed) {
+                return;
+            }
+            LOGGER.log(Level.FINE, cause, () -> format("The pod watch in namespace %s was closed. Relisting ... ", namespace));
+            try {
+                start();
+                evaluate();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, e, () -> format("Could not resume tracking the pods in namespace %s", namespace));
+                waiters.forEach(waiter -> waiter.future.completeExceptionally(e));
+                waiters.clear();
+            }
+        }
+
+        private synchronized void close() {
+            this.closed = true;
+            if (watch != null) {
+                watch.close();
+                this.watch = null;
+            }
+            waiters.forEach(waiter -> waiter.future.cancel(false));
+            waiters.clear();
+        }
+    }
+}
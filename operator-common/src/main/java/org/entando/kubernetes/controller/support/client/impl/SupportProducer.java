@@ -29,6 +29,7 @@ import org.entando.kubernetes.controller.spi.capability.SerializingCapabilityPro
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.command.DeploymentProcessor;
 import org.entando.kubernetes.controller.spi.command.SerializingDeploymentProcessor;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
 import org.entando.kubernetes.controller.support.client.EntandoResourceClient;
 import org.entando.kubernetes.controller.support.client.SimpleK8SClient;
 import org.entando.kubernetes.controller.support.client.SimpleKeycloakClient;
@@ -71,12 +72,13 @@ public class SupportProducer {
     @Produces
     public CapabilityProvider capabilityProvider() {
         return new SerializingCapabilityProvider(entandoResourceClient(),
-                new InProcessCommandStream(getSimpleKubernetesClient(), new DefaultKeycloakClient()));
+                new InProcessCommandStream(getSimpleKubernetesClient(), keycloakClient()));
     }
 
     @Produces
     public SimpleKeycloakClient keycloakClient() {
-        return new DefaultKeycloakClient();
+        return OperatorMetrics.getInstance()
+                .instrument(SimpleKeycloakClient.class, new DefaultKeycloakClient(), "entando_keycloak_client_call");
     }
 
     private SimpleK8SClient<EntandoResourceClient> getSimpleKubernetesClient() {
@@ -18,6 +18,7 @@ package org.entando.kubernetes.controller.support.command;
 
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
+import static org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase.withInvocationProperties;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.interruptionSafe;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.withDiagnostics;
 
@@ -37,6 +38,7 @@ import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
 import org.entando.kubernetes.controller.spi.common.ExceptionUtils;
 import org.entando.kubernetes.controller.spi.common.LabelNames;
 import org.entando.kubernetes.controller.spi.common.NameUtils;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
 import org.entando.kubernetes.controller.spi.common.PodResult;
 import org.entando.kubernetes.controller.spi.container.ServiceBackingContainer;
 import org.entando.kubernetes.controller.spi.deployable.DbAwareDeployable;
@@ -100,7 +102,7 @@ public class DeployCommand<T extends ServiceDeploymentResult<T>> {
     public T execute(SimpleK8SClient<?> k8sClient, SimpleKeycloakClient potentiallyNullKeycloakClient, int timeoutSeconds) {
         status.withOriginatingControllerPod(k8sClient.entandoResources().getNamespace(),
                 EntandoOperatorSpiConfig.getControllerPodName());
-        final Future<T> future = scheduledExecutorService.submit(() -> {
+        final Future<T> future = scheduledExecutorService.submit(withInvocationProperties(() -> {
             final Optional<ExternalService> externalService = deployable.getExternalService();
             if (externalService.isPresent()) {
                 prepareConnectivityToExternalService(k8sClient, externalService.get());
@@ -108,7 +110,7 @@ public class DeployCommand<T extends ServiceDeploymentResult<T>> {
                 deployServiceInternally(k8sClient, potentiallyNullKeycloakClient);
             }
             return deployable.createResult(getDeployment(), getService(), ingress, pod).withStatus(getStatus());
-        });
+        }));
         try {
             return interruptionSafe(() -> future.get(timeoutSeconds, TimeUnit.SECONDS));
         } catch (Exception e) {
@@ -128,31 +130,46 @@ public class DeployCommand<T extends ServiceDeploymentResult<T>> {
                 k8sClient.entandoResources().loadDockerImageInfoConfigMap(),
                 deployable.getCustomResource());
         if (persistentVolumeClaimCreator.needsPersistentVolumeClaims(deployable)) {
-            createPersistentVolumeClaims(k8sClient);
+            timed("persistent_volume_claims", () -> createPersistentVolumeClaims(k8sClient));
         }
-        secretCreator.createSecrets(k8sClient.secrets(), deployable);
-        serviceAccountCreator.prepareServiceAccountAccess(k8sClient.serviceAccounts(), deployable);
+        timed("secrets", () -> secretCreator.createSecrets(k8sClient.secrets(), deployable));
+        timed("service_accounts", () -> serviceAccountCreator.prepareServiceAccountAccess(k8sClient.serviceAccounts(), deployable));
         if (shouldCreateService(deployable)) {
-            createService(k8sClient);
+            timed("service", () -> createService(k8sClient));
         }
-        maybeCreateIngress(k8sClient);
+        timed("ingress", () -> maybeCreateIngress(k8sClient));
         if (deployable instanceof SsoAwareDeployable) {
-            keycloakClientCreator.createKeycloakClients(
+            timed("keycloak_clients", () -> keycloakClientCreator.createKeycloakClients(
                     k8sClient.secrets(),
                     keycloakClient.orElseThrow(IllegalStateException::new),
                     (SsoAwareDeployable<?>) deployable,
-                    ingress);
+                    ingress));
             this.status.setSsoRealm(keycloakClientCreator.getRealm());
             this.status.setSsoClientId(keycloakClientCreator.getSsoClientId());
         }
         if (deployable instanceof DbAwareDeployable && ((DbAwareDeployable<?>) deployable).isExpectingDatabaseSchemas()) {
-            prepareDbSchemas(k8sClient, entandoImageResolver, (DbAwareDeployable<?>) deployable);
+            timed("database_schemas", () -> prepareDbSchemas(k8sClient, entandoImageResolver, (DbAwareDeployable<?>) deployable));
         }
-        createDeployment(k8sClient, entandoImageResolver);
-        waitForPod(k8sClient);
+        timed("deployment", () -> createDeployment(k8sClient, entandoImageResolver));
+        timed("pod_readiness", () -> waitForPod(k8sClient));
         getStatus().finish();
     }
 
+    private static void timed(String step, Step operation) throws TimeoutException {
+        final long start = System.nanoTime();
+        try {
+            operation.run();
+        } finally {
+            OperatorMetrics.getInstance().timer("entando_deploy_step_duration_seconds", "Duration of the steps of deploying a Deployable",
+                    "step", step).recordSince(start);
+        }
+    }
+
+    private interface Step {
+
+        void run() throws TimeoutException;
+    }
+
     private void prepareConnectivityToExternalService(SimpleK8SClient<?> k8sClient, ExternalService externalService) {
         if (externalService.getCreateDelegateService()) {
             serviceCreator.createExternalService(k8sClient, externalService);
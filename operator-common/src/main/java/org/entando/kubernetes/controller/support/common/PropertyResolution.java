@@ -19,11 +19,11 @@ package org.entando.kubernetes.controller.support.common;
 import static java.util.Optional.ofNullable;
 import static org.entando.kubernetes.controller.spi.common.ExceptionUtils.ioSafe;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import java.util.Map;
 import java.util.Optional;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
 import org.entando.kubernetes.controller.spi.container.DockerImageInfo;
 
 public class PropertyResolution {
@@ -97,8 +97,7 @@ public class PropertyResolution {
     @SuppressWarnings("unchecked")
     private Optional<String> extractValueFromContent(String content) {
         return ioSafe(() -> {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, String> imageConfig = mapper.readValue(content, Map.class);
+            Map<String, String> imageConfig = ObjectMapperUtils.jsonMapper().readValue(content, Map.class);
             return ofNullable(imageConfig.get(configMapKey));
         });
     }
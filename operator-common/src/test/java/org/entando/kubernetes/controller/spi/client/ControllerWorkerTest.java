@@ -0,0 +1,142 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
+import org.entando.kubernetes.controller.spi.common.LabelNames;
+import org.junit.Rule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class ControllerWorkerTest {
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, true);
+
+    @Test
+    void shouldRunTheControllerForTheAssignedResource() {
+        final KubernetesClient client = server.getClient();
+        createAssignment(client, "entandoapp-uid-1", "worker-1", "my-app");
+        final Map<String, String> observed = new HashMap<>();
+        final ControllerWorker worker = new ControllerWorker(client, "worker-1");
+        final boolean processed = worker.processNextAssignment(() -> {
+            observed.put("kind", System.getProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_KIND.getJvmSystemProperty()));
+            observed.put("namespace", System.getProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAMESPACE.getJvmSystemProperty()));
+            observed.put("name", System.getProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.getJvmSystemProperty()));
+            observed.put("action", System.getProperty("entando.resource.action"));
+        }, 5, TimeUnit.SECONDS);
+        assertThat(processed).isTrue();
+        assertThat(observed)
+                .containsEntry("kind", "EntandoApp")
+                .containsEntry("namespace", "my-namespace")
+                .containsEntry("name", "my-app")
+                .containsEntry("action", "ADDED");
+        //The properties are cleared and the assignment is removed to signal that the worker is idle
+        assertThat(System.getProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.getJvmSystemProperty())).isNull();
+        assertThat(client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1").get()).isNull();
+    }
+
+    @Test
+    void shouldSurviveControllerFailures() {
+        final KubernetesClient client = server.getClient();
+        createAssignment(client, "entandoapp-uid-1", "worker-1", "my-app");
+        createAssignment(client, "entandoapp-uid-2", "worker-1", "my-other-app");
+        final AtomicInteger invocations = new AtomicInteger();
+        final ControllerWorker worker = new ControllerWorker(client, "worker-1");
+        final Runnable failingController = () -> {
+            invocations.incrementAndGet();
+            throw new IllegalStateException("Failed");
+        };
+        assertThat(worker.processNextAssignment(failingController, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(worker.processNextAssignment(failingController, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(invocations.get()).isEqualTo(2);
+        assertThat(client.leases().inNamespace(client.getNamespace()).list().getItems()).isEmpty();
+    }
+
+    @Test
+    void shouldRenewTheAssignmentWhileTheControllerRuns() {
+        final KubernetesClient client = server.getClient();
+        createAssignment(client, "entandoapp-uid-1", "worker-1", "my-app");
+        client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1")
+                .edit(lease -> new LeaseBuilder(lease).editSpec().withLeaseDurationSeconds(3).endSpec().build());
+        final ControllerWorker worker = new ControllerWorker(client, "worker-1");
+        //The renewal interval is a third of the lease duration
+        assertThat(worker.processNextAssignment(() -> await().atMost(5, TimeUnit.SECONDS).until(() ->
+                client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1").get().getSpec().getRenewTime() != null
+        ), 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1").get()).isNull();
+    }
+
+    @Test
+    void shouldNotRemoveAnAssignmentThatWasHandedToAnotherWorker() {
+        final KubernetesClient client = server.getClient();
+        createAssignment(client, "entandoapp-uid-1", "worker-1", "my-app");
+        final ControllerWorker worker = new ControllerWorker(client, "worker-1");
+        //The coordinator withdraws the expired assignment and reassigns the resource while the controller is still running
+        assertThat(worker.processNextAssignment(() -> {
+            client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1").delete();
+            createAssignment(client, "entandoapp-uid-1", "worker-2", "my-app");
+        }, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1").get().getSpec().getHolderIdentity())
+                .isEqualTo("worker-2");
+    }
+
+    @Test
+    void shouldIgnoreAssignmentsOfOtherWorkers() {
+        final KubernetesClient client = server.getClient();
+        createAssignment(client, "entandoapp-uid-1", "worker-2", "my-app");
+        final AtomicInteger invocations = new AtomicInteger();
+        final ControllerWorker worker = new ControllerWorker(client, "worker-1");
+        assertThat(worker.processNextAssignment(invocations::incrementAndGet, 500, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(invocations.get()).isZero();
+        assertThat(client.leases().inNamespace(client.getNamespace()).withName("entandoapp-uid-1").get()).isNotNull();
+    }
+
+    private void createAssignment(KubernetesClient client, String name, String workerName, String resourceName) {
+        final Lease lease = new LeaseBuilder()
+                .withNewMetadata()
+                .withName(name)
+                .withNamespace(client.getNamespace())
+                .addToLabels(LabelNames.CONTROLLER_WORKER.getName(), "entando-k8s-app-controller-worker")
+                .addToLabels(LabelNames.ASSIGNED_WORKER.getName(), workerName)
+                .addToAnnotations(ControllerWorker.RESOURCE_KIND_ANNOTATION, "EntandoApp")
+                .addToAnnotations(ControllerWorker.RESOURCE_NAMESPACE_ANNOTATION, "my-namespace")
+                .addToAnnotations(ControllerWorker.RESOURCE_NAME_ANNOTATION, resourceName)
+                .addToAnnotations(ControllerWorker.RESOURCE_ACTION_ANNOTATION, "ADDED")
+                .endMetadata()
+                .withNewSpec()
+                .withHolderIdentity(workerName)
+                .endSpec()
+                .build();
+        client.leases().inNamespace(client.getNamespace()).create(lease);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.entando.kubernetes.controller.spi.common.ObjectMapperUtils;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.entando.kubernetes.model.app.EntandoAppBuilder;
+import org.entando.kubernetes.model.common.DbmsVendor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class SerializedEntandoResourceTest {
+
+    private static final String SPEC =
+            "{\"replicas\":3,\"environmentVariables\":[{\"name\":\"A\",\"value\":\"b\"}],\"ingressHostName\":null}";
+
+    @Test
+    void shouldWriteTheSpecBackOutExactlyAsItWasRead() throws Exception {
+        final String json = "{\"kind\":\"EntandoApp\",\"apiVersion\":\"entando.org/v1\",\"metadata\":{\"name\":\"my-app\"},"
+                + "\"spec\":" + SPEC + "}";
+        final SerializedEntandoResource resource = ObjectMapperUtils.jsonMapper().readValue(json, SerializedEntandoResource.class);
+        assertThat(ObjectMapperUtils.jsonMapper().writeValueAsString(resource)).contains("\"spec\":" + SPEC);
+        assertThat(resource.getSpec()).containsEntry("replicas", 3)
+                .containsEntry("environmentVariables", List.of(Map.of("name", "A", "value", "b")));
+        //Other targets receive the same structure token by token
+        assertThat(ObjectMapperUtils.yamlMapper().writeValueAsString(resource)).contains("  - name: \"A\"");
+    }
+
+    @Test
+    void shouldMaterializeTheSpecOfConvertedResources() {
+        final EntandoApp app = new EntandoAppBuilder().withNewMetadata().withName("my-app").endMetadata()
+                .withNewSpec().withDbms(DbmsVendor.POSTGRESQL).withReplicas(2).endSpec().build();
+        final SerializedEntandoResource resource = ObjectMapperUtils.convert(app, SerializedEntandoResource.class);
+        assertThat(resource.getSpec()).containsEntry("dbms", "postgresql").containsEntry("replicas", 2);
+        assertThat(ObjectMapperUtils.convert(resource, EntandoApp.class).getSpec().getReplicas()).contains(2);
+        assertThat(new SerializedEntandoResource().getSpec()).isEmpty();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class AsyncEventSinkTest {
+
+    private final CountDownLatch writesAllowed = new CountDownLatch(1);
+    private final List<Event> recorded = new CopyOnWriteArrayList<>();
+    private final EventRecorder recorder = new EventRecorder(null, 10, 1L, System::nanoTime) {
+        @Override
+        public void record(Event event) {
+            try {
+                writesAllowed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recorded.add(event);
+        }
+    };
+    private final AsyncEventSink sink = new AsyncEventSink(recorder, 2, TimeUnit.SECONDS.toMillis(10));
+
+    @AfterEach
+    void closeSink() throws InterruptedException {
+        writesAllowed.countDown();
+        sink.close(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldNotWaitForEventsToBeWritten() throws InterruptedException {
+        sink.submit(newEvent("Message 1"));
+        assertThat(recorded).isEmpty();
+        assertThat(sink.flush(100, TimeUnit.MILLISECONDS)).isFalse();
+        writesAllowed.countDown();
+        assertThat(sink.flush(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(recorded).hasSize(1);
+        assertThat(sink.getWrittenCount()).isEqualTo(1);
+        assertThat(sink.getMaxWriteNanos()).isPositive();
+        assertThat(sink.getTotalWriteNanos()).isGreaterThanOrEqualTo(sink.getMaxWriteNanos());
+    }
+
+    @Test
+    void shouldCoalesceRepeatedEventsAndDropNewEventsWhenFull() throws InterruptedException {
+        sink.submit(newEvent("Message 1"));
+        //Wait for the first Event to be taken by the writer, which then blocks
+        await().atMost(10, TimeUnit.SECONDS).until(() -> sink.pendingCount() == 0);
+        sink.submit(newEvent("Message 2"));
+        sink.submit(newEvent("Message 3"));
+        sink.submit(newEvent("Message 2"));
+        sink.submit(newEvent("Message 4"));
+        assertThat(sink.pendingCount()).isEqualTo(2);
+        assertThat(sink.getCoalescedCount()).isEqualTo(1);
+        assertThat(sink.getDroppedCount()).isEqualTo(1);
+        writesAllowed.countDown();
+        assertThat(sink.flush(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(recorded).extracting(Event::getMessage).containsExactly("Message 1", "Message 2", "Message 3");
+        assertThat(recorded.get(1).getCount()).isEqualTo(2);
+        assertThat(sink.getSubmittedCount()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldFlushPendingEventsOnClose() throws InterruptedException {
+        sink.submit(newEvent("Message 1"));
+        sink.submit(newEvent("Message 2"));
+        writesAllowed.countDown();
+        sink.close(10, TimeUnit.SECONDS);
+        assertThat(recorded).hasSize(2);
+        sink.submit(newEvent("Message 3"));
+        assertThat(sink.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordItsCountsAndWriteLatencyInTheOperatorMetrics() throws InterruptedException {
+        final OperatorMetrics metrics = OperatorMetrics.getInstance();
+        final long submitted = metrics.counter("entando_event_sink_submitted_total", "").get();
+        final long written = metrics.counter("entando_event_sink_written_total", "").get();
+        final long coalesced = metrics.counter("entando_event_sink_coalesced_total", "").get();
+        final long dropped = metrics.counter("entando_event_sink_dropped_total", "").get();
+        final long writes = metrics.timer("entando_event_sink_write_seconds", "").getCount();
+        sink.submit(newEvent("Message 1"));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> sink.pendingCount() == 0);
+        sink.submit(newEvent("Message 2"));
+        sink.submit(newEvent("Message 2"));
+        sink.submit(newEvent("Message 3"));
+        sink.submit(newEvent("Message 4"));
+        writesAllowed.countDown();
+        assertThat(sink.flush(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(metrics.counter("entando_event_sink_submitted_total", "").get() - submitted).isEqualTo(5);
+        assertThat(metrics.counter("entando_event_sink_written_total", "").get() - written).isEqualTo(3);
+        assertThat(metrics.counter("entando_event_sink_coalesced_total", "").get() - coalesced).isEqualTo(1);
+        assertThat(metrics.counter("entando_event_sink_dropped_total", "").get() - dropped).isEqualTo(1);
+        assertThat(metrics.timer("entando_event_sink_write_seconds", "").getCount() - writes).isEqualTo(3);
+        assertThat(metrics.scrape()).contains("entando_event_sink_write_seconds_count");
+    }
+
+    private Event newEvent(String message) {
+        return new EventBuilder()
+                .withNewMetadata()
+                .withNamespace("my-namespace")
+                .withName("my-app-1234")
+                .endMetadata()
+                .withNewInvolvedObject()
+                .withKind("EntandoApp")
+                .withNamespace("my-namespace")
+                .withName("my-app")
+                .endInvolvedObject()
+                .withType("Normal")
+                .withReason("PhaseUpdated")
+                .withMessage(message)
+                .withCount(1)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Rule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class EventRecorderTest {
+
+    private static final String EVENTS_PATH = "/api/v1/namespaces/my-namespace/events";
+    private final AtomicLong nanoTime = new AtomicLong();
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    @Test
+    void shouldIncrementTheCountOfRepeatedEvents() throws Exception {
+        server.expect().post().withPath(EVENTS_PATH).andReturn(201, newEvent("my-app-1234", "Same message")).once();
+        server.expect().patch().withPath(EVENTS_PATH + "/my-app-1234").andReturn(200, newEvent("my-app-1234", "Same message")).times(2);
+        final EventRecorder recorder = new EventRecorder(server.getClient(), 10, TimeUnit.SECONDS.toNanos(1), nanoTime::get);
+        recorder.record(newEvent("my-app-1234", "Same message"));
+        recorder.record(newEvent("my-app-5678", "Same message"));
+        recorder.record(newEvent("my-app-9012", "Same message"));
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(3);
+        assertThat(server.getMockServer().takeRequest().getMethod()).isEqualTo("POST");
+        assertThat(countIn(server.getMockServer().takeRequest())).isEqualTo(2);
+        final RecordedRequest lastPatch = server.getMockServer().takeRequest();
+        assertThat(lastPatch.getHeader("Content-Type")).startsWith("application/merge-patch+json");
+        assertThat(countIn(lastPatch)).isEqualTo(3);
+        assertThat(recorder.getAggregatedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropEventsOnceTheBurstOfAnObjectIsExhausted() {
+        server.expect().post().withPath(EVENTS_PATH).andReturn(201, newEvent("my-app-1", "Message 1")).once();
+        server.expect().post().withPath(EVENTS_PATH).andReturn(201, newEvent("my-app-2", "Message 2")).once();
+        server.expect().post().withPath(EVENTS_PATH).andReturn(201, newEvent("my-app-4", "Message 4")).once();
+        final EventRecorder recorder = new EventRecorder(server.getClient(), 2, TimeUnit.SECONDS.toNanos(10), nanoTime::get);
+        recorder.record(newEvent("my-app-1", "Message 1"));
+        recorder.record(newEvent("my-app-2", "Message 2"));
+        recorder.record(newEvent("my-app-3", "Message 3"));
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(2);
+        assertThat(recorder.getDroppedCount()).isEqualTo(1);
+        //One token is added per refill interval
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        recorder.record(newEvent("my-app-4", "Message 4"));
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldCreateANewEventWhenTheEarlierOneHasExpired() throws Exception {
+        server.expect().post().withPath(EVENTS_PATH).andReturn(201, newEvent("my-app-1234", "Same message")).once();
+        server.expect().patch().withPath(EVENTS_PATH + "/my-app-1234").andReturn(404, "{}").once();
+        server.expect().post().withPath(EVENTS_PATH).andReturn(201, newEvent("my-app-5678", "Same message")).once();
+        final EventRecorder recorder = new EventRecorder(server.getClient(), 10, TimeUnit.SECONDS.toNanos(1), nanoTime::get);
+        recorder.record(newEvent("my-app-1234", "Same message"));
+        recorder.record(newEvent("my-app-5678", "Same message"));
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(3);
+        server.getMockServer().takeRequest();
+        assertThat(server.getMockServer().takeRequest().getMethod()).isEqualTo("PATCH");
+        assertThat(server.getMockServer().takeRequest().getMethod()).isEqualTo("POST");
+    }
+
+    private int countIn(RecordedRequest request) throws Exception {
+        final JsonNode body = new ObjectMapper().readTree(request.getBody().readUtf8());
+        assertThat(body.has("lastTimestamp")).isTrue();
+        return body.get("count").asInt();
+    }
+
+    private Event newEvent(String name, String message) {
+        return new EventBuilder()
+                .withNewMetadata()
+                .withNamespace("my-namespace")
+                .withName(name)
+                .endMetadata()
+                .withNewInvolvedObject()
+                .withKind("EntandoApp")
+                .withNamespace("my-namespace")
+                .withName("my-app")
+                .withUid("uid-1")
+                .endInvolvedObject()
+                .withType("Normal")
+                .withReason("PhaseUpdated")
+                .withMessage(message)
+                .withCount(1)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.client.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.entando.kubernetes.model.app.EntandoApp;
+import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
+import org.entando.kubernetes.model.common.ServerStatus;
+import org.junit.Rule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class StatusMergePatchTest {
+
+    private static final String STATUS_PATH = "/apis/entando.org/v1/namespaces/my-namespace/entandoapps/my-app/status";
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    @Test
+    void shouldOnlyIncludeFieldsThatChanged() throws Exception {
+        final JsonNode source = objectMapper.readTree("{\"phase\":\"requested\",\"observedGeneration\":1,"
+                + "\"serverStatuses\":{\"main\":{\"type\":\"WebServerStatus\",\"serviceName\":\"my-service\",\"podPhase\":\"Running\"}}}");
+        final JsonNode target = objectMapper.readTree("{\"phase\":\"successful\",\"observedGeneration\":1,"
+                + "\"serverStatuses\":{\"main\":{\"type\":\"WebServerStatus\",\"serviceName\":\"my-service\"},\"db\":{\"type\":\"x\"}}}");
+        assertThat(StatusMergePatch.createMergePatch(source, target)).isEqualTo(objectMapper.readTree(
+                "{\"phase\":\"successful\",\"serverStatuses\":{\"main\":{\"podPhase\":null},\"db\":{\"type\":\"x\"}}}"));
+        assertThat(StatusMergePatch.createMergePatch(source, source)).isEmpty();
+    }
+
+    @Test
+    void shouldPatchTheStatusSubresourceWithoutReadingTheResourceFirst() throws Exception {
+        final EntandoApp app = newApp();
+        app.getStatus().putServerStatus(new ServerStatus("main").withOriginatingControllerPod("my-namespace", "pod-1"));
+        final EntandoApp persisted = newApp();
+        persisted.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.SUCCESSFUL, 3L);
+        server.expect().patch().withPath(STATUS_PATH).andReturn(200, persisted).once();
+        final EntandoApp result = StatusMergePatch.patchStatus(server.getClient(),
+                CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class), app,
+                a -> a.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.SUCCESSFUL, 3L));
+        assertThat(result.getStatus().getPhase()).isEqualTo(EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+        final RecordedRequest request = server.getLastRequest();
+        assertThat(request.getMethod()).isEqualTo("PATCH");
+        assertThat(request.getHeader("Content-Type")).startsWith("application/merge-patch+json");
+        assertThat(objectMapper.readTree(request.getBody().readUtf8())).isEqualTo(objectMapper.readTree(
+                "{\"status\":{\"phase\":\"successful\",\"entandoDeploymentPhase\":\"successful\",\"observedGeneration\":3}}"));
+        //The resource passed in is left untouched
+        assertThat(app.getStatus().getPhase()).isNull();
+    }
+
+    @Test
+    void shouldSkipTheWriteWhenNothingChanged() {
+        final EntandoApp app = newApp();
+        app.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.SUCCESSFUL, 3L);
+        final EntandoApp result = StatusMergePatch.patchStatus(server.getClient(),
+                CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class), app,
+                a -> a.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.SUCCESSFUL, 3L));
+        assertThat(result.getStatus().getPhase()).isEqualTo(EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(server.getMockServer().getRequestCount()).isZero();
+    }
+
+    @Test
+    void shouldPropagateTheStatusCodeOfFailedPatches() {
+        server.expect().patch().withPath(STATUS_PATH).andReturn(404, "{}").once();
+        assertThatThrownBy(() -> StatusMergePatch.patchStatus(server.getClient(),
+                CustomResourceDefinitionContext.fromCustomResourceType(EntandoApp.class), newApp(),
+                a -> a.getStatus().updateDeploymentPhase(EntandoDeploymentPhase.FAILED, 1L)))
+                .isInstanceOfSatisfying(KubernetesClientException.class, e -> assertThat(e.getCode()).isEqualTo(404));
+    }
+
+    private EntandoApp newApp() {
+        final EntandoApp app = new EntandoApp();
+        app.getMetadata().setNamespace("my-namespace");
+        app.getMetadata().setName("my-app");
+        return app;
+    }
+}
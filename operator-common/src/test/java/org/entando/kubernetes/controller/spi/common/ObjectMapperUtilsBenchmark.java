@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the shared ObjectMappers and token buffer conversions in ObjectMapperUtils with the per-call ObjectMappers and String
+ * roundtrips they replaced. Run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectMapperUtilsBenchmark {
+
+    private static final String RESOURCE_JSON = "{\"apiVersion\":\"entando.org/v1\",\"kind\":\"EntandoApp\","
+            + "\"metadata\":{\"name\":\"my-app\",\"namespace\":\"my-namespace\",\"uid\":\"6c1e4a1a-4b1e-9c5d-0e5f0d2c7a11\","
+            + "\"resourceVersion\":\"123456\",\"generation\":3,\"labels\":{\"entando.org/tier\":\"frontend\"},"
+            + "\"annotations\":{\"entando.org/processing-instruction\":\"force\"}},"
+            + "\"spec\":{\"dbms\":\"postgresql\",\"replicas\":1,\"ingressHostName\":\"my-app.apps.example.com\","
+            + "\"environmentVariables\":[{\"name\":\"VAR1\",\"value\":\"value1\"},{\"name\":\"VAR2\",\"value\":\"value2\"}]},"
+            + "\"status\":{\"phase\":\"successful\",\"observedGeneration\":3,\"serverStatuses\":{\"main\":{\"type\":\"WebServerStatus\","
+            + "\"qualifier\":\"main\",\"serviceName\":\"my-app-service\",\"deploymentName\":\"my-app-deployment\"}}}}";
+    private Map<String, Object> resourceMap;
+    private String resourceYaml;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void prepare() throws IOException {
+        resourceMap = new ObjectMapper().readValue(RESOURCE_JSON, Map.class);
+        resourceYaml = new ObjectMapper(new YAMLFactory()).writeValueAsString(resourceMap);
+    }
+
+    @Benchmark
+    public SerializedEntandoResource newMapperStringRoundtrip() throws IOException {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        return objectMapper.readValue(objectMapper.writeValueAsString(resourceMap), SerializedEntandoResource.class);
+    }
+
+    @Benchmark
+    public SerializedEntandoResource sharedMapperConvert() {
+        return ObjectMapperUtils.convert(resourceMap, SerializedEntandoResource.class);
+    }
+
+    @Benchmark
+    public Object newYamlMapperRead() throws IOException {
+        return new ObjectMapper(new YAMLFactory()).readValue(resourceYaml, Map.class);
+    }
+
+    @Benchmark
+    public Object sharedYamlMapperRead() throws IOException {
+        return ObjectMapperUtils.yamlMapper().readValue(resourceYaml, Map.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ObjectMapperUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
+import org.entando.kubernetes.model.common.EntandoDeploymentPhase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+class ObjectMapperUtilsTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldConvertMapsToTheSameResourceAsAStringRoundtrip() throws Exception {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final Map<String, Object> map = objectMapper.readValue("{\"apiVersion\":\"entando.org/v1\",\"kind\":\"EntandoApp\","
+                + "\"metadata\":{\"name\":\"my-app\",\"namespace\":\"my-namespace\",\"generation\":3},"
+                + "\"spec\":{\"replicas\":2,\"dbms\":\"postgresql\"},"
+                + "\"status\":{\"phase\":\"successful\",\"serverStatuses\":{\"main\":{\"type\":\"WebServerStatus\",\"qualifier\":\"main\"}}}}",
+                Map.class);
+        final SerializedEntandoResource converted = ObjectMapperUtils.convert(map, SerializedEntandoResource.class);
+        final SerializedEntandoResource roundtripped = objectMapper
+                .readValue(objectMapper.writeValueAsString(map), SerializedEntandoResource.class);
+        assertThat(converted.getMetadata()).isEqualTo(roundtripped.getMetadata());
+        assertThat(converted.getSpec()).isEqualTo(roundtripped.getSpec()).containsEntry("replicas", 2);
+        assertThat(converted.getStatus().getPhase()).isEqualTo(EntandoDeploymentPhase.SUCCESSFUL);
+        assertThat(converted.getStatus().getServerStatus("main")).isPresent();
+        assertThat(objectMapper.writeValueAsString(converted)).isEqualTo(objectMapper.writeValueAsString(roundtripped));
+    }
+
+    @Test
+    void shouldShareTheMappers() {
+        assertThat(ObjectMapperUtils.jsonMapper()).isSameAs(ObjectMapperUtils.jsonMapper());
+        assertThat(ObjectMapperUtils.yamlMapper()).isSameAs(ObjectMapperUtils.yamlMapper());
+        assertThat(ObjectMapperUtils.yamlMapper().getFactory().getFormatName()).isEqualTo("YAML");
+    }
+}
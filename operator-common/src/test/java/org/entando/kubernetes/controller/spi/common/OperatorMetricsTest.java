@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.spi.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.entando.kubernetes.controller.spi.common.OperatorMetrics.Timer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+@Tags({@Tag("in-process"), @Tag("pre-deployment"), @Tag("unit")})
+class OperatorMetricsTest {
+
+    private final OperatorMetrics metrics = new OperatorMetrics();
+
+    @Test
+    void shouldRenderCountersGaugesAndTimersInThePrometheusTextFormat() {
+        metrics.counter("entando_things_total", "Things", "kind", "EntandoApp").add(3);
+        metrics.gauge("entando_queue_depth", "Depth", () -> 7, "kind", "EntandoApp");
+        final Timer timer = metrics.timer("entando_call_duration_seconds", "Calls", "method", "get");
+        timer.record(TimeUnit.MILLISECONDS.toNanos(20));
+        timer.record(TimeUnit.SECONDS.toNanos(2));
+        //The same name and labels resolve to the same metric
+        metrics.counter("entando_things_total", "Things", "kind", "EntandoApp").increment();
+        final String scraped = metrics.scrape();
+        assertThat(scraped).contains("# TYPE entando_things_total counter\nentando_things_total{kind=\"EntandoApp\"} 4\n");
+        assertThat(scraped).contains("entando_queue_depth{kind=\"EntandoApp\"} 7\n");
+        assertThat(scraped).contains("# TYPE entando_call_duration_seconds histogram\n");
+        assertThat(scraped).contains("entando_call_duration_seconds_bucket{method=\"get\",le=\"0.01\"} 0\n");
+        assertThat(scraped).contains("entando_call_duration_seconds_bucket{method=\"get\",le=\"0.025\"} 1\n");
+        assertThat(scraped).contains("entando_call_duration_seconds_bucket{method=\"get\",le=\"+Inf\"} 2\n");
+        assertThat(scraped).contains("entando_call_duration_seconds_count{method=\"get\"} 2\n");
+        assertThat(scraped).contains("entando_call_duration_seconds_sum{method=\"get\"} 2.02\n");
+        assertThatThrownBy(() -> metrics.timer("entando_things_total", "Things")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldAbsorbTheSnapshotsOfControllerPods() {
+        final OperatorMetrics controllerMetrics = new OperatorMetrics();
+        controllerMetrics.counter("entando_k8s_client_call_failures_total", "Failures", "method", "createPod").add(2);
+        controllerMetrics.counter("entando_unused_total", "Never incremented");
+        controllerMetrics.timer("entando_deploy_step_duration_seconds", "Steps", "step", "secrets").record(500_000_000L);
+        final String snapshot = controllerMetrics.snapshot();
+        assertThat(snapshot).doesNotContain("entando_unused_total").doesNotContain("_bucket");
+        metrics.absorb(snapshot);
+        metrics.absorb(snapshot);
+        final String scraped = metrics.scrape();
+        assertThat(scraped).contains("entando_controller_pod_k8s_client_call_failures_total{method=\"createPod\"} 4\n");
+        assertThat(scraped).contains("entando_controller_pod_deploy_step_duration_seconds_count{step=\"secrets\"} 2\n");
+        assertThat(scraped).contains("entando_controller_pod_deploy_step_duration_seconds_sum{step=\"secrets\"} 1\n");
+        assertThat(scraped).contains("entando_controller_pod_snapshots_total 2\n");
+    }
+
+    @Test
+    void shouldKeepSnapshotsWithinTheTerminationMessageLimit() {
+        for (int i = 0; i < 500; i++) {
+            metrics.counter("entando_k8s_client_call_failures_total", "Failures", "method", "method" + i).increment();
+        }
+        assertThat(metrics.snapshot().length()).isLessThanOrEqualTo(OperatorMetrics.MAX_SNAPSHOT_BYTES);
+    }
+
+    @Test
+    void shouldInstrumentAllCallsToAnInterface() {
+        final Supplier<String> instrumented = metrics.instrument(Supplier.class, () -> {
+            throw new IllegalStateException("failed");
+        }, "entando_supplier_call");
+        assertThatThrownBy(instrumented::get).isInstanceOf(IllegalStateException.class);
+        final String scraped = metrics.scrape();
+        assertThat(scraped).contains("entando_supplier_call_failures_total{client=\"Supplier\",method=\"get\"} 1\n");
+        assertThat(scraped).contains("entando_supplier_call_duration_seconds_count{client=\"Supplier\",method=\"get\"} 1\n");
+    }
+}
@@ -38,11 +38,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.entando.kubernetes.controller.spi.client.SerializedEntandoResource;
 
 public class KubernetesResourceProcessor {
 
+    //Like etcd revisions, resourceVersions only ever increase
+    private static final AtomicLong RESOURCE_VERSION_SEQUENCE = new AtomicLong((long) (Math.random() * 10000000L));
+
     private final Map<String, Set<WatcherHolder<?>>> watcherHolders = new ConcurrentHashMap<>();
 
     public <T extends HasMetadata> T processResource(Map<String, T> existingMap, T newResourceState) {
@@ -130,7 +134,7 @@ public class KubernetesResourceProcessor {
             }
         }
         T clone = clone(newResourceState);
-        clone.getMetadata().setResourceVersion(String.valueOf((long) (Math.random() * 10000000L)));
+        clone.getMetadata().setResourceVersion(String.valueOf(RESOURCE_VERSION_SEQUENCE.incrementAndGet()));
         return clone;
 
     }
@@ -0,0 +1,119 @@
+/*
+ *
+ * Copyright 2015-Present Entando Inc. (http://www.entando.com) All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ */
+
+package org.entando.kubernetes.controller.support.client.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+
+@Tags({@Tag("pre-deployment"), @Tag("unit")})
+@EnableRuleMigrationSupport
+class PodLifecycleTrackerTest {
+
+    private static final String NAMESPACE = "my-namespace";
+    private static final Map<String, String> SELECTOR = Map.of("jobKind", "deployer");
+    private static final Map<String, String> LABELS = Map.of("jobKind", "deployer", "EntandoApp", "my-app");
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, true);
+    private PodLifecycleTracker tracker;
+
+    @AfterEach
+    void closeTracker() {
+        tracker.close();
+    }
+
+    @Test
+    void shouldCompleteWhenAllMatchingPodsAreGone() throws Exception {
+        final KubernetesClient client = server.getClient();
+        tracker = new PodLifecycleTracker(client, SELECTOR);
+        client.pods().inNamespace(NAMESPACE).create(newPod("pod-1", LABELS, "Running"));
+        client.pods().inNamespace(NAMESPACE).create(newPod("pod-2", LABELS, "Running"));
+        client.pods().inNamespace(NAMESPACE).create(newPod("other-pod", Map.of("jobKind", "deployer", "EntandoApp", "other"), "Running"));
+        final CompletableFuture<Void> gone = tracker.whenAllGone(NAMESPACE, LABELS);
+        assertThat(gone).isNotDone();
+        awaitWatch();
+        client.pods().inNamespace(NAMESPACE).withName("pod-1").delete();
+        client.pods().inNamespace(NAMESPACE).withName("pod-2").delete();
+        PodLifecycleTracker.await(gone, 10, TimeUnit.SECONDS);
+        assertThat(gone).isCompleted();
+        //Conditions that are already met complete immediately, without waiting for an event
+        assertThat(tracker.whenAllGone(NAMESPACE, LABELS)).isCompleted();
+    }
+
+    @Test
+    void shouldCompleteWhenAllMatchingPodsHaveCompleted() throws Exception {
+        final KubernetesClient client = server.getClient();
+        tracker = new PodLifecycleTracker(client, SELECTOR);
+        client.pods().inNamespace(NAMESPACE).create(newPod("pod-1", LABELS, "Succeeded"));
+        client.pods().inNamespace(NAMESPACE).create(newPod("pod-2", LABELS, "Running"));
+        final CompletableFuture<Void> completed = tracker.whenAllCompleted(NAMESPACE, LABELS);
+        assertThat(completed).isNotDone();
+        awaitWatch();
+        client.pods().inNamespace(NAMESPACE).withName("pod-2").patch(newPod("pod-2", LABELS, "Failed"));
+        PodLifecycleTracker.await(completed, 10, TimeUnit.SECONDS);
+        assertThat(completed).isCompleted();
+    }
+
+    @Test
+    void shouldTimeOutAndStopTrackingConditionsThatAreNotMet() {
+        final KubernetesClient client = server.getClient();
+        tracker = new PodLifecycleTracker(client, SELECTOR);
+        client.pods().inNamespace(NAMESPACE).create(newPod("pod-1", LABELS, "Running"));
+        final CompletableFuture<Void> gone = tracker.whenAllGone(NAMESPACE, LABELS);
+        assertThatThrownBy(() -> PodLifecycleTracker.await(gone, 200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(gone).isCancelled();
+        //Labels that the watch does not select would never be seen
+        assertThatThrownBy(() -> tracker.whenAllGone(NAMESPACE, Map.of("EntandoApp", "my-app")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void awaitWatch() {
+        //The mock server does not replay events from a resourceVersion, so changes made before the watch is open would be missed
+        await().atMost(10, TimeUnit.SECONDS).until(() -> server.getLastRequest().getPath().contains("watch=true"));
+    }
+
+    private Pod newPod(String name, Map<String, String> labels, String phase) {
+        return new PodBuilder()
+                .withNewMetadata()
+                .withNamespace(NAMESPACE)
+                .withName(name)
+                .withLabels(labels)
+                .endMetadata()
+                .withNewSpec()
+                .endSpec()
+                .withNewStatus()
+                .withPhase(phase)
+                .endStatus()
+                .build();
+    }
+}
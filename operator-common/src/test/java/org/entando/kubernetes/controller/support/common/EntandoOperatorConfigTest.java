@@ -20,8 +20,11 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import org.assertj.core.api.Assertions;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorComplianceMode;
+import org.entando.kubernetes.controller.spi.common.EntandoOperatorConfigBase;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfig;
 import org.entando.kubernetes.controller.spi.common.EntandoOperatorSpiConfigProperty;
 import org.junit.jupiter.api.AfterEach;
@@ -111,4 +114,33 @@ class EntandoOperatorConfigTest {
         assertThat(EntandoOperatorConfig.getOperatorSecurityMode(), is(SecurityMode.LENIENT));
     }
 
+    @Test
+    void testInvocationPropertiesTakePrecedenceOnTheInvokingThreadOnly() throws InterruptedException {
+        System.setProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.getJvmSystemProperty(), "from-system-properties");
+        try {
+            final AtomicReference<String> fromChildThread = new AtomicReference<>();
+            final AtomicReference<String> fromPropagatingChildThread = new AtomicReference<>();
+            final Thread[] children = new Thread[2];
+            EntandoOperatorConfigBase.runWithProperties(Map.of(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.name(), "my-app"),
+                    () -> {
+                        Assertions.assertThat(resourceName()).isEqualTo("my-app");
+                        children[0] = new Thread(() -> fromChildThread.set(resourceName()));
+                        children[1] = new Thread(EntandoOperatorConfigBase.withInvocationProperties(
+                                () -> fromPropagatingChildThread.set(resourceName())));
+                    });
+            for (Thread child : children) {
+                child.start();
+                child.join();
+            }
+            Assertions.assertThat(fromChildThread.get()).isEqualTo("from-system-properties");
+            Assertions.assertThat(fromPropagatingChildThread.get()).isEqualTo("my-app");
+            Assertions.assertThat(resourceName()).isEqualTo("from-system-properties");
+        } finally {
+            System.clearProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME.getJvmSystemProperty());
+        }
+    }
+
+    private String resourceName() {
+        return EntandoOperatorConfigBase.lookupProperty(EntandoOperatorSpiConfigProperty.ENTANDO_RESOURCE_NAME).orElse(null);
+    }
 }
@@ -28,6 +28,7 @@ import java.util.logging.Logger;
 import javax.inject.Inject;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvider;
 import org.entando.kubernetes.controller.spi.capability.CapabilityProvisioningResult;
+import org.entando.kubernetes.controller.spi.client.ControllerWorker;
 import org.entando.kubernetes.controller.spi.client.KubernetesClientForControllers;
 import org.entando.kubernetes.controller.spi.command.DeploymentProcessor;
 import org.entando.kubernetes.controller.spi.common.EntandoControllerException;
@@ -69,6 +70,10 @@ public class EntandoPluginController implements Runnable {
 
     @Override
     public void run() {
+        ControllerWorker.runOnceOrAsWorker(this::reconcile);
+    }
+
+    private void reconcile() {
         fixImposeLimitsDefault();
 
         entandoPlugin = (EntandoPlugin) k8sClient.resolveCustomResourceToProcess(